@@ -0,0 +1,253 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for comparing the webmvc and reactive gateway engines
+ * against a deliberately slow upstream.
+ *
+ * <p>Starts a stub upstream on port 9099 that sleeps {@code --delay-ms} before
+ * answering, then keeps {@code --connections} requests in flight through the
+ * gateway for {@code --duration} seconds. The gateway must be running with the
+ * {@code bench} profile, which routes {@code /bench/**} to the stub.
+ *
+ * <pre>
+ * java bench/GatewayEngineBenchmark.java --label=reactive --pid=1234 --gateway=http://localhost:8090 --connections=1000 --delay-ms=500
+ * </pre>
+ */
+public class GatewayEngineBenchmark {
+
+	private static final int UPSTREAM_PORT = 9099;
+	private static final byte[] UPSTREAM_BODY = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		String label = options.getOrDefault("label", "gateway");
+		URI target = URI.create(options.getOrDefault("gateway", "http://localhost:8080") + "/bench/item");
+		int gatewayPort = target.getPort();
+		long pid = Long.parseLong(options.getOrDefault("pid", "0"));
+		int connections = Integer.parseInt(options.getOrDefault("connections", "1000"));
+		int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+		int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+		long delayMillis = Long.parseLong(options.getOrDefault("delay-ms", "500"));
+
+		HttpServer upstream = startUpstream(delayMillis);
+		try {
+			HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.connectTimeout(Duration.ofSeconds(10))
+					.executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+							GatewayEngineBenchmark::daemon))
+					.build();
+			HttpRequest request = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(60)).GET().build();
+
+			run(client, request, connections, warmupSeconds, null);
+			long expected = (long) connections * (durationSeconds + 1) * 1000 / Math.max(1, delayMillis);
+			Result result = new Result((int) Math.min(20_000_000, expected + 1024));
+			Sampler sampler = new Sampler(pid, gatewayPort);
+			sampler.start();
+			long elapsed = run(client, request, connections, durationSeconds, result);
+			sampler.interrupt();
+			sampler.join();
+
+			result.print(label, connections, delayMillis, elapsed, sampler);
+		}
+		finally {
+			upstream.stop(0);
+		}
+	}
+
+	private static HttpServer startUpstream(long delayMillis) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(UPSTREAM_PORT), 4096);
+		server.setExecutor(Executors.newCachedThreadPool(GatewayEngineBenchmark::daemon));
+		server.createContext("/bench", exchange -> {
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, UPSTREAM_BODY.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(UPSTREAM_BODY);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	/**
+	 * Keeps {@code connections} requests in flight until the deadline and returns the elapsed nanos.
+	 */
+	private static long run(HttpClient client, HttpRequest request, int connections, int seconds, Result result)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		CountDownLatch done = new CountDownLatch(connections);
+		for (int i = 0; i < connections; i++) {
+			issue(client, request, deadline, result, done);
+		}
+		done.await();
+		return System.nanoTime() - start;
+	}
+
+	private static void issue(HttpClient client, HttpRequest request, long deadline, Result result, CountDownLatch done) {
+		if (System.nanoTime() >= deadline) {
+			done.countDown();
+			return;
+		}
+		long sent = System.nanoTime();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+			if (result != null) {
+				if (error != null || response.statusCode() != 200) {
+					result.errors.incrementAndGet();
+				}
+				else {
+					result.record(System.nanoTime() - sent);
+				}
+			}
+			issue(client, request, deadline, result, done);
+		});
+	}
+
+	private static Thread daemon(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (arg.startsWith("--") && arg.contains("=")) {
+				options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+			}
+		}
+		return options;
+	}
+
+	private static final class Result {
+
+		private final long[] latencies;
+		private final AtomicInteger count = new AtomicInteger();
+		private final AtomicLong errors = new AtomicLong();
+
+		private Result(int capacity) {
+			this.latencies = new long[capacity];
+		}
+
+		private void record(long nanos) {
+			int index = count.getAndIncrement();
+			if (index < latencies.length) {
+				latencies[index] = nanos;
+			}
+		}
+
+		private void print(String label, int connections, long delayMillis, long elapsedNanos, Sampler sampler) {
+			int n = Math.min(count.get(), latencies.length);
+			long[] sorted = Arrays.copyOf(latencies, n);
+			Arrays.sort(sorted);
+			double seconds = elapsedNanos / 1e9;
+			System.out.printf("%-10s connections=%d delay=%dms throughput=%.1f req/s p50=%.1fms p99=%.1fms max=%.1fms "
+							+ "errors=%d held=%d rss=%dMB%n",
+					label, connections, delayMillis, count.get() / seconds,
+					percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0),
+					errors.get(), sampler.maxEstablished, sampler.maxRssKb / 1024);
+		}
+
+		private static double percentile(long[] sorted, double p) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+			return sorted[Math.max(0, index)] / 1e6;
+		}
+	}
+
+	/**
+	 * Samples the gateway's RSS and the number of established inbound connections once per second.
+	 */
+	private static final class Sampler extends Thread {
+
+		private final long pid;
+		private final String portHex;
+		private volatile long maxRssKb;
+		private volatile int maxEstablished;
+
+		private Sampler(long pid, int port) {
+			this.pid = pid;
+			this.portHex = String.format(":%04X", port);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!isInterrupted()) {
+				maxRssKb = Math.max(maxRssKb, rssKb());
+				maxEstablished = Math.max(maxEstablished, established());
+				try {
+					Thread.sleep(1000);
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+		private long rssKb() {
+			if (pid <= 0) {
+				return 0;
+			}
+			try {
+				for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+					if (line.startsWith("VmRSS:")) {
+						return Long.parseLong(line.replaceAll("[^0-9]", ""));
+					}
+				}
+			}
+			catch (IOException | NumberFormatException ignored) {
+				// not on Linux or the process is gone
+			}
+			return 0;
+		}
+
+		private int established() {
+			int total = 0;
+			for (String table : List.of("/proc/net/tcp", "/proc/net/tcp6")) {
+				try {
+					for (String line : Files.readAllLines(Path.of(table))) {
+						String[] columns = line.trim().split("\\s+");
+						// local_address ends with the gateway port and state 01 = ESTABLISHED
+						if (columns.length > 3 && columns[1].endsWith(portHex) && "01".equals(columns[3])) {
+							total++;
+						}
+					}
+				}
+				catch (IOException ignored) {
+					// table not available
+				}
+			}
+			return total;
+		}
+	}
+}
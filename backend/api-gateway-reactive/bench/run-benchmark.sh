@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Runs GatewayEngineBenchmark against the webmvc (api-gateway) and reactive
+# (api-gateway-reactive) engines, one after the other, on their own ports
+# (8080 and 8090).
+#
+#   ./bench/run-benchmark.sh [connections...]
+#
+# Environment: DELAY_MS (upstream latency, default 500), DURATION (seconds, default 30)
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+DELAY_MS="${DELAY_MS:-500}"
+DURATION="${DURATION:-30}"
+CONNECTIONS=("${@:-200 1000 2000}")
+
+for module in api-gateway api-gateway-reactive; do
+  (cd "$module" && sh ./mvnw -q -DskipTests package)
+done
+
+run_engine() {
+  local label="$1" module="$2" port="$3" management_port="$4"
+  local jar
+  jar=$(ls "$module"/target/*.jar | grep -v original | head -n 1)
+  java -jar "$jar" --spring.profiles.active=bench > "/tmp/gateway-bench-$label.log" 2>&1 &
+  local pid=$!
+  for _ in $(seq 1 60); do
+    curl -sf "http://localhost:$management_port/actuator/health" > /dev/null && break
+    sleep 1
+  done
+  for connections in ${CONNECTIONS[*]}; do
+    java api-gateway-reactive/bench/GatewayEngineBenchmark.java --label="$label" --pid="$pid" \
+      --gateway="http://localhost:$port" --connections="$connections" --delay-ms="$DELAY_MS" --duration="$DURATION"
+  done
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+}
+
+run_engine webmvc api-gateway 8080 9080
+run_engine reactive api-gateway-reactive 8090 8090
@@ -0,0 +1,13 @@
+package org.kun.apigatewayreactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveApiGatewayApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveApiGatewayApplication.class, args);
+	}
+
+}
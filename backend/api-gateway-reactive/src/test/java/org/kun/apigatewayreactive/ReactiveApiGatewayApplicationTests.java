@@ -0,0 +1,13 @@
+package org.kun.apigatewayreactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ReactiveApiGatewayApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
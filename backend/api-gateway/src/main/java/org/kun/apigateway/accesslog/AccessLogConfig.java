@@ -0,0 +1,39 @@
+package org.kun.apigateway.accesslog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
+@ConditionalOnProperty(prefix = "gateway.access-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+	@Bean
+	public AccessLogRecorder accessLogRecorder(AccessLogProperties properties, MeterRegistry meterRegistry) {
+		AccessLogRecorder recorder = new AccessLogRecorder(new AccessLogRingBuffer(properties.getBufferSize()));
+		meterRegistry.gauge("gateway.accesslog.dropped", recorder.buffer(), AccessLogRingBuffer::dropped);
+		return recorder;
+	}
+
+	@Bean
+	public AccessLogWriter accessLogWriter(AccessLogRecorder recorder, AccessLogProperties properties) {
+		return new AccessLogWriter(recorder, properties);
+	}
+
+	@Bean
+	public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLogRecorder recorder) {
+		FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(recorder));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	@Bean
+	public LatencyEndpoint latencyEndpoint(AccessLogRecorder recorder) {
+		return new LatencyEndpoint(recorder);
+	}
+}
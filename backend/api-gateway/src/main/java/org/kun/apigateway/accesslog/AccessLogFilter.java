@@ -0,0 +1,80 @@
+package org.kun.apigateway.accesslog;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Times every request end to end and hands the result to the {@link AccessLogRecorder}.
+ * Requests that complete asynchronously (e.g. hedged routes) are recorded on completion.
+ */
+@RequiredArgsConstructor
+public class AccessLogFilter extends OncePerRequestFilter {
+
+	private final AccessLogRecorder recorder;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new CompletionListener(start));
+			}
+			else {
+				record(request, response, start);
+			}
+		}
+	}
+
+	private void record(HttpServletRequest request, HttpServletResponse response, long start) {
+		long duration = System.nanoTime() - start;
+		Object routeId = request.getAttribute(MvcUtils.GATEWAY_ROUTE_ID_ATTR);
+		Object upstream = request.getAttribute(MvcUtils.GATEWAY_REQUEST_URL_ATTR);
+		recorder.record(request.getMethod(),
+				routeId instanceof String ? (String) routeId : null,
+				upstream instanceof URI ? ((URI) upstream).getRawAuthority() : null,
+				request.getRequestURI(), request.getRemoteAddr(), response.getStatus(),
+				System.currentTimeMillis(), duration);
+	}
+
+	private final class CompletionListener implements AsyncListener {
+
+		private final long start;
+
+		private CompletionListener(long start) {
+			this.start = start;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			record((HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse(),
+					start);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+	}
+}
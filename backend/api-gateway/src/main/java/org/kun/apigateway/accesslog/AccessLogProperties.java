@@ -0,0 +1,35 @@
+package org.kun.apigateway.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * Number of preallocated records; rounded up to a power of two.
+	 */
+	private int bufferSize = 65536;
+
+	private String directory = "logs";
+
+	private String fileName = "access.log";
+
+	private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+	/**
+	 * Rotated files kept next to the active one (access.log.1 ... access.log.N).
+	 */
+	private int maxHistory = 10;
+
+	/**
+	 * How long the writer sleeps when the buffer is empty.
+	 */
+	private Duration drainInterval = Duration.ofMillis(10);
+}
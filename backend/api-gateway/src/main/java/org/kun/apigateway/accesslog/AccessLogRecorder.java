@@ -0,0 +1,75 @@
+package org.kun.apigateway.accesslog;
+
+/**
+ * Request-path entry point: interns the route and upstream, records latency
+ * into the per-route and per-instance histograms and publishes the record to
+ * the ring buffer. Nothing here allocates once names have been seen.
+ */
+public class AccessLogRecorder {
+
+	static final String[] METHODS = {"OTHER", "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"};
+
+	private static final int MAX_NAMES = 1024;
+
+	private final AccessLogRingBuffer buffer;
+	private final NameTable routeNames = new NameTable(MAX_NAMES);
+	private final NameTable upstreamNames = new NameTable(MAX_NAMES);
+	private final LatencyHistograms routeLatency = new LatencyHistograms(routeNames, MAX_NAMES);
+	private final LatencyHistograms upstreamLatency = new LatencyHistograms(upstreamNames, MAX_NAMES);
+
+	public AccessLogRecorder(AccessLogRingBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public void record(String method, String routeId, String upstream, CharSequence path, CharSequence client,
+			int status, long timestampMillis, long durationNanos) {
+		int route = routeNames.idOf(routeId);
+		int instance = upstreamNames.idOf(upstream);
+		routeLatency.record(route, durationNanos);
+		if (instance != NameTable.UNKNOWN) {
+			upstreamLatency.record(instance, durationNanos);
+		}
+		buffer.offer(timestampMillis, durationNanos, status, methodId(method), route, instance, path, client);
+	}
+
+	static int methodId(String method) {
+		switch (method) {
+			case "GET":
+				return 1;
+			case "HEAD":
+				return 2;
+			case "POST":
+				return 3;
+			case "PUT":
+				return 4;
+			case "PATCH":
+				return 5;
+			case "DELETE":
+				return 6;
+			case "OPTIONS":
+				return 7;
+			default:
+				return 0;
+		}
+	}
+
+	public AccessLogRingBuffer buffer() {
+		return buffer;
+	}
+
+	public NameTable routeNames() {
+		return routeNames;
+	}
+
+	public NameTable upstreamNames() {
+		return upstreamNames;
+	}
+
+	public LatencyHistograms routeLatency() {
+		return routeLatency;
+	}
+
+	public LatencyHistograms upstreamLatency() {
+		return upstreamLatency;
+	}
+}
@@ -0,0 +1,173 @@
+package org.kun.apigateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-producer, single-consumer ring of fixed-layout access log records.
+ * Every field lives in a preallocated primitive array indexed by slot, so
+ * publishing a record never allocates. When the writer falls behind, new
+ * records are dropped (and counted) instead of blocking the request thread.
+ */
+public class AccessLogRingBuffer {
+
+	public static final int PATH_BYTES = 192;
+	public static final int CLIENT_BYTES = 46;
+
+	private final int capacity;
+	private final int mask;
+
+	private final long[] timestamps;
+	private final long[] durations;
+	private final int[] statuses;
+	private final int[] methods;
+	private final int[] routes;
+	private final int[] upstreams;
+	private final byte[] paths;
+	private final short[] pathLengths;
+	private final byte[] clients;
+	private final byte[] clientLengths;
+
+	/**
+	 * {@code sequence + 1} of the record stored in each slot once it is fully written.
+	 */
+	private final AtomicLongArray published;
+	private final AtomicLong claimed = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	private volatile long consumed;
+
+	public AccessLogRingBuffer(int requestedCapacity) {
+		this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+		this.mask = capacity - 1;
+		this.timestamps = new long[capacity];
+		this.durations = new long[capacity];
+		this.statuses = new int[capacity];
+		this.methods = new int[capacity];
+		this.routes = new int[capacity];
+		this.upstreams = new int[capacity];
+		this.paths = new byte[capacity * PATH_BYTES];
+		this.pathLengths = new short[capacity];
+		this.clients = new byte[capacity * CLIENT_BYTES];
+		this.clientLengths = new byte[capacity];
+		this.published = new AtomicLongArray(capacity);
+	}
+
+	public boolean offer(long timestampMillis, long durationNanos, int status, int method, int route, int upstream,
+			CharSequence path, CharSequence client) {
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed >= capacity) {
+				dropped.increment();
+				return false;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		int slot = (int) (sequence & mask);
+		timestamps[slot] = timestampMillis;
+		durations[slot] = durationNanos;
+		statuses[slot] = status;
+		methods[slot] = method;
+		routes[slot] = route;
+		upstreams[slot] = upstream;
+		pathLengths[slot] = (short) copyAscii(path, paths, slot * PATH_BYTES, PATH_BYTES);
+		clientLengths[slot] = (byte) copyAscii(client, clients, slot * CLIENT_BYTES, CLIENT_BYTES);
+		published.lazySet(slot, sequence + 1);
+		return true;
+	}
+
+	/**
+	 * Hands up to {@code max} published records, in order, to the consumer.
+	 * Must only be called from the single writer thread.
+	 */
+	public int drain(RecordConsumer consumer, int max) {
+		long sequence = consumed;
+		int count = 0;
+		while (count < max) {
+			int slot = (int) (sequence & mask);
+			if (published.get(slot) != sequence + 1) {
+				break;
+			}
+			consumer.accept(this, slot);
+			sequence++;
+			count++;
+		}
+		consumed = sequence;
+		return count;
+	}
+
+	private static int copyAscii(CharSequence source, byte[] target, int offset, int max) {
+		if (source == null) {
+			return 0;
+		}
+		int length = Math.min(source.length(), max);
+		for (int i = 0; i < length; i++) {
+			char c = source.charAt(i);
+			target[offset + i] = c < 0x20 || c > 0x7e ? (byte) '?' : (byte) c;
+		}
+		return length;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	public long timestamp(int slot) {
+		return timestamps[slot];
+	}
+
+	public long duration(int slot) {
+		return durations[slot];
+	}
+
+	public int status(int slot) {
+		return statuses[slot];
+	}
+
+	public int method(int slot) {
+		return methods[slot];
+	}
+
+	public int route(int slot) {
+		return routes[slot];
+	}
+
+	public int upstream(int slot) {
+		return upstreams[slot];
+	}
+
+	public byte[] paths() {
+		return paths;
+	}
+
+	public int pathOffset(int slot) {
+		return slot * PATH_BYTES;
+	}
+
+	public int pathLength(int slot) {
+		return pathLengths[slot];
+	}
+
+	public byte[] clients() {
+		return clients;
+	}
+
+	public int clientOffset(int slot) {
+		return slot * CLIENT_BYTES;
+	}
+
+	public int clientLength(int slot) {
+		return clientLengths[slot];
+	}
+
+	@FunctionalInterface
+	public interface RecordConsumer {
+
+		void accept(AccessLogRingBuffer buffer, int slot);
+	}
+}
@@ -0,0 +1,158 @@
+package org.kun.apigateway.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that drains the ring buffer into size-rotated files:
+ * {@code access.log}, {@code access.log.1} (newest rotated) ... {@code access.log.N}.
+ *
+ * <p>Line layout: {@code timestamp method path status durationMs route upstream client}.
+ */
+@Slf4j
+public class AccessLogWriter implements SmartLifecycle, Runnable {
+
+	private static final int BATCH = 4096;
+
+	private final AccessLogRecorder recorder;
+	private final AccessLogProperties properties;
+	private final Path file;
+	private final StringBuilder line = new StringBuilder(256);
+
+	private OutputStream out;
+	private long written;
+	private volatile boolean running;
+	private Thread thread;
+
+	public AccessLogWriter(AccessLogRecorder recorder, AccessLogProperties properties) {
+		this.recorder = recorder;
+		this.properties = properties;
+		this.file = Path.of(properties.getDirectory(), properties.getFileName());
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		thread = new Thread(this, "gateway-access-log");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join(5_000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public void run() {
+		long parkNanos = properties.getDrainInterval().toNanos();
+		AccessLogRingBuffer buffer = recorder.buffer();
+		try {
+			open();
+			while (running) {
+				int drained = buffer.drain(this::write, BATCH);
+				if (drained == 0) {
+					out.flush();
+					LockSupport.parkNanos(parkNanos);
+				}
+				else if (written >= properties.getMaxFileSize().toBytes()) {
+					rotate();
+				}
+			}
+			while (buffer.drain(this::write, BATCH) > 0) {
+				// flush what is left on shutdown
+			}
+			out.close();
+		}
+		catch (IOException e) {
+			log.error("Access log writer stopped: {}", e.getMessage());
+		}
+	}
+
+	private void write(AccessLogRingBuffer buffer, int slot) {
+		line.setLength(0);
+		DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(buffer.timestamp(slot)), line);
+		line.append(' ').append(AccessLogRecorder.METHODS[buffer.method(slot)]).append(' ');
+		appendAscii(buffer.paths(), buffer.pathOffset(slot), buffer.pathLength(slot));
+		line.append(' ').append(buffer.status(slot))
+				.append(' ').append(buffer.duration(slot) / 1_000 / 1_000.0).append("ms")
+				.append(' ').append(recorder.routeNames().nameOf(buffer.route(slot)))
+				.append(' ').append(recorder.upstreamNames().nameOf(buffer.upstream(slot)))
+				.append(' ');
+		appendAscii(buffer.clients(), buffer.clientOffset(slot), buffer.clientLength(slot));
+		line.append('\n');
+		try {
+			byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+			out.write(bytes);
+			written += bytes.length;
+		}
+		catch (IOException e) {
+			log.warn("Failed to write access log record: {}", e.getMessage());
+		}
+	}
+
+	private void appendAscii(byte[] source, int offset, int length) {
+		if (length == 0) {
+			line.append('-');
+		}
+		for (int i = 0; i < length; i++) {
+			line.append((char) source[offset + i]);
+		}
+	}
+
+	private void open() throws IOException {
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+				64 * 1024);
+		written = Files.size(file);
+	}
+
+	private void rotate() throws IOException {
+		out.close();
+		int history = properties.getMaxHistory();
+		Files.deleteIfExists(rotated(history));
+		for (int i = history - 1; i >= 1; i--) {
+			Path source = rotated(i);
+			if (Files.exists(source)) {
+				Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		if (history > 0) {
+			Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+		}
+		else {
+			Files.delete(file);
+		}
+		open();
+	}
+
+	private Path rotated(int index) {
+		return file.resolveSibling(file.getFileName() + "." + index);
+	}
+}
@@ -0,0 +1,40 @@
+package org.kun.apigateway.accesslog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/latency}: cumulative latency percentiles per route and per upstream instance.
+ */
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+
+	private final AccessLogRecorder recorder;
+
+	@ReadOperation
+	public Map<String, Object> latency() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("routes", recorder.routeLatency().snapshot());
+		result.put("upstreams", recorder.upstreamLatency().snapshot());
+		result.put("droppedRecords", recorder.buffer().dropped());
+		return result;
+	}
+
+	@ReadOperation
+	public Map<String, Object> route(@Selector String route) {
+		return recorder.routeLatency().snapshot(route);
+	}
+
+	@DeleteOperation
+	public void reset() {
+		recorder.routeLatency().reset();
+		recorder.upstreamLatency().reset();
+	}
+}
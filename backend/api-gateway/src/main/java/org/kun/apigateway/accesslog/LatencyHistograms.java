@@ -0,0 +1,99 @@
+package org.kun.apigateway.accesslog;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One HdrHistogram {@link Recorder} per interned name. Recording is wait-free;
+ * readers fold the interval histograms into a cumulative one under a lock.
+ */
+public class LatencyHistograms {
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final NameTable names;
+	private final AtomicReferenceArray<Recorder> recorders;
+	private final Histogram[] totals;
+
+	public LatencyHistograms(NameTable names, int maxNames) {
+		this.names = names;
+		this.recorders = new AtomicReferenceArray<>(maxNames);
+		this.totals = new Histogram[maxNames];
+	}
+
+	public void record(int id, long durationNanos) {
+		Recorder recorder = recorders.get(id);
+		if (recorder == null) {
+			recorder = create(id);
+		}
+		recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, durationNanos / 1_000)));
+	}
+
+	private Recorder create(int id) {
+		recorders.compareAndSet(id, null, new Recorder(HIGHEST_TRACKABLE_MICROS, 2));
+		return recorders.get(id);
+	}
+
+	public synchronized Map<String, Object> snapshot() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (int id = 0; id < names.size(); id++) {
+			Histogram total = fold(id);
+			if (total != null && total.getTotalCount() > 0) {
+				result.put(names.nameOf(id), summary(total));
+			}
+		}
+		return result;
+	}
+
+	public synchronized Map<String, Object> snapshot(String name) {
+		for (int id = 0; id < names.size(); id++) {
+			if (names.nameOf(id).equals(name)) {
+				Histogram total = fold(id);
+				return total != null ? summary(total) : null;
+			}
+		}
+		return null;
+	}
+
+	public synchronized void reset() {
+		for (int id = 0; id < totals.length; id++) {
+			Recorder recorder = recorders.get(id);
+			if (recorder != null) {
+				recorder.reset();
+			}
+			totals[id] = null;
+		}
+	}
+
+	private Histogram fold(int id) {
+		Recorder recorder = recorders.get(id);
+		if (recorder == null) {
+			return null;
+		}
+		Histogram interval = recorder.getIntervalHistogram();
+		if (totals[id] == null) {
+			totals[id] = interval;
+		}
+		else {
+			totals[id].add(interval);
+		}
+		return totals[id];
+	}
+
+	private static Map<String, Object> summary(Histogram histogram) {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", histogram.getTotalCount());
+		summary.put("meanMs", histogram.getMean() / 1_000.0);
+		summary.put("p50Ms", histogram.getValueAtPercentile(50) / 1_000.0);
+		summary.put("p90Ms", histogram.getValueAtPercentile(90) / 1_000.0);
+		summary.put("p99Ms", histogram.getValueAtPercentile(99) / 1_000.0);
+		summary.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1_000.0);
+		summary.put("maxMs", histogram.getMaxValue() / 1_000.0);
+		return summary;
+	}
+}
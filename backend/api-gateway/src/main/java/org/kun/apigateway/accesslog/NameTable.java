@@ -0,0 +1,53 @@
+package org.kun.apigateway.accesslog;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps route ids and upstream instances to small ints so records can store them
+ * in primitive arrays. Id 0 is reserved for "unknown" and for names beyond the limit.
+ */
+public class NameTable {
+
+	public static final int UNKNOWN = 0;
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<String> names;
+	private final AtomicInteger next = new AtomicInteger(1);
+
+	public NameTable(int maxNames) {
+		this.names = new AtomicReferenceArray<>(maxNames);
+		this.names.set(UNKNOWN, "-");
+	}
+
+	public int idOf(String name) {
+		if (name == null) {
+			return UNKNOWN;
+		}
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		if (next.get() >= names.length()) {
+			return UNKNOWN;
+		}
+		return ids.computeIfAbsent(name, key -> {
+			int assigned = next.getAndIncrement();
+			if (assigned >= names.length()) {
+				return UNKNOWN;
+			}
+			names.set(assigned, key);
+			return assigned;
+		});
+	}
+
+	public String nameOf(int id) {
+		String name = id >= 0 && id < names.length() ? names.get(id) : null;
+		return name != null ? name : "-";
+	}
+
+	public int size() {
+		return Math.min(next.get(), names.length());
+	}
+}
@@ -0,0 +1,49 @@
+package org.kun.apigateway.aggregate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.springframework.cloud.gateway.server.mvc.handler.GatewayRouterFunctions.route;
+
+/**
+ * Registers one GET route per composite declared under {@code gateway.aggregation.composites}.
+ */
+@Configuration
+@EnableConfigurationProperties(AggregationProperties.class)
+@ConditionalOnProperty(prefix = "gateway.aggregation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AggregationConfig {
+
+	@Bean
+	public HttpClient aggregationHttpClient() {
+		return HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(2))
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.build();
+	}
+
+	@Bean
+	public RouterFunction<ServerResponse> aggregationRoutes(AggregationProperties properties,
+			LoadBalancerClient loadBalancerClient, HttpClient aggregationHttpClient, HttpClientTracing httpClientTracing,
+			ObjectMapper objectMapper) {
+		RouterFunction<ServerResponse> routes = request -> Optional.empty();
+		for (AggregationProperties.Composite composite : properties.getComposites()) {
+			AggregationHandlerFunction handler = new AggregationHandlerFunction(composite,
+					properties.getForwardedHeaders(), loadBalancerClient, aggregationHttpClient, httpClientTracing,
+					objectMapper);
+			routes = routes.and(route("bff-" + composite.getId()).GET(composite.getPath(), handler).build());
+		}
+		return routes;
+	}
+}
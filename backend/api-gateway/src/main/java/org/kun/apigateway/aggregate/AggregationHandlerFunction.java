@@ -0,0 +1,177 @@
+package org.kun.apigateway.aggregate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import org.springframework.web.util.UriTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves one composite endpoint: calls every leg in parallel on the non-blocking
+ * HTTP client, waits at most each leg's timeout and merges the JSON bodies into
+ * one object keyed by leg name. Optional legs that fail are replaced by their
+ * fallback and reported under {@code _meta}.
+ */
+@Slf4j
+public class AggregationHandlerFunction implements HandlerFunction<ServerResponse> {
+
+	private final AggregationProperties.Composite composite;
+	private final List<String> forwardedHeaders;
+	private final LoadBalancerClient loadBalancer;
+	private final HttpClient httpClient;
+	private final HttpClientTracing tracing;
+	private final ObjectMapper objectMapper;
+	private final List<JsonNode> fallbacks = new ArrayList<>();
+	private final List<UriTemplate> templates = new ArrayList<>();
+
+	public AggregationHandlerFunction(AggregationProperties.Composite composite, List<String> forwardedHeaders,
+			LoadBalancerClient loadBalancer, HttpClient httpClient, HttpClientTracing tracing, ObjectMapper objectMapper) {
+		this.composite = composite;
+		this.forwardedHeaders = forwardedHeaders;
+		this.loadBalancer = loadBalancer;
+		this.httpClient = httpClient;
+		this.tracing = tracing;
+		this.objectMapper = objectMapper;
+		for (AggregationProperties.Leg leg : composite.getLegs()) {
+			templates.add(new UriTemplate(leg.getPath()));
+			fallbacks.add(parseFallback(leg));
+		}
+	}
+
+	@Override
+	public ServerResponse handle(ServerRequest request) {
+		Map<String, String> variables = request.pathVariables();
+		List<AggregationProperties.Leg> legs = composite.getLegs();
+		List<CompletableFuture<LegResult>> calls = new ArrayList<>(legs.size());
+		TraceContext parent = tracing.current();
+		for (int i = 0; i < legs.size(); i++) {
+			calls.add(call(request, parent, legs.get(i), templates.get(i).expand(variables)));
+		}
+		CompletableFuture<ServerResponse> merged = CompletableFuture
+				.allOf(calls.toArray(new CompletableFuture[0]))
+				.thenApply(ignored -> merge(calls));
+		return ServerResponse.async(merged);
+	}
+
+	private CompletableFuture<LegResult> call(ServerRequest request, TraceContext parent, AggregationProperties.Leg leg,
+			URI path) {
+		ServiceInstance instance = loadBalancer.choose(leg.getService());
+		if (instance == null) {
+			return CompletableFuture.completedFuture(LegResult.failed("no instance of " + leg.getService()));
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(instance.getUri().resolve(path))
+				.timeout(leg.getTimeout())
+				.header("Accept", MediaType.APPLICATION_JSON_VALUE)
+				.GET();
+		for (String header : forwardedHeaders) {
+			request.headers().header(header).forEach(value -> builder.header(header, value));
+		}
+		Span span = tracing.start(parent, "GET", leg.getService(), builder);
+		span.tag("leg", leg.getName());
+		CompletableFuture<HttpResponse<byte[]>> response =
+				httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+		return response
+				.orTimeout(leg.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.handle((result, error) -> {
+					tracing.end(span, result, error);
+					if (error != null) {
+						response.cancel(true);
+						Throwable cause = error.getCause() != null ? error.getCause() : error;
+						return LegResult.failed(cause instanceof TimeoutException
+								|| cause instanceof HttpTimeoutException ? "timeout" : cause.toString());
+					}
+					return toResult(result);
+				});
+	}
+
+	private LegResult toResult(HttpResponse<byte[]> response) {
+		try {
+			JsonNode body = response.body().length == 0 ? NullNode.getInstance() : objectMapper.readTree(response.body());
+			if (response.statusCode() >= 300) {
+				return new LegResult(response.statusCode(), body, "status " + response.statusCode());
+			}
+			return new LegResult(response.statusCode(), body, null);
+		}
+		catch (Exception e) {
+			return LegResult.failed("invalid JSON: " + e.getMessage());
+		}
+	}
+
+	private ServerResponse merge(List<CompletableFuture<LegResult>> calls) {
+		ObjectNode body = objectMapper.createObjectNode();
+		ObjectNode errors = objectMapper.createObjectNode();
+		List<AggregationProperties.Leg> legs = composite.getLegs();
+		int failedStatus = 0;
+		for (int i = 0; i < legs.size(); i++) {
+			AggregationProperties.Leg leg = legs.get(i);
+			LegResult result = calls.get(i).join();
+			if (result.error() == null) {
+				body.set(leg.getName(), result.body());
+				continue;
+			}
+			errors.put(leg.getName(), result.error());
+			if (leg.isRequired()) {
+				// keep the upstream's client error (e.g. 404) but report everything else as a gateway failure
+				int status = result.status() >= 400 && result.status() < 500 ? result.status() : HttpStatus.BAD_GATEWAY.value();
+				failedStatus = failedStatus == 0 ? status : failedStatus;
+				body.set(leg.getName(), result.body() != null ? result.body() : NullNode.getInstance());
+			}
+			else {
+				body.set(leg.getName(), fallbacks.get(i));
+			}
+		}
+		if (!errors.isEmpty()) {
+			ObjectNode meta = body.putObject("_meta");
+			meta.put("partial", true);
+			meta.set("errors", errors);
+			log.debug("Composite {} completed with failed legs {}", composite.getId(), errors);
+		}
+		return ServerResponse.status(failedStatus == 0 ? HttpStatus.OK.value() : failedStatus)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(body);
+	}
+
+	private JsonNode parseFallback(AggregationProperties.Leg leg) {
+		if (leg.getFallback() == null) {
+			return NullNode.getInstance();
+		}
+		try {
+			return objectMapper.readTree(leg.getFallback());
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Invalid fallback JSON for leg " + leg.getName() + " of composite "
+					+ composite.getId(), e);
+		}
+	}
+
+	private record LegResult(int status, JsonNode body, String error) {
+
+		static LegResult failed(String error) {
+			return new LegResult(0, null, error);
+		}
+	}
+}
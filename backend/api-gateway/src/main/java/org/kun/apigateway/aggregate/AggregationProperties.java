@@ -0,0 +1,60 @@
+package org.kun.apigateway.aggregate;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.aggregation")
+public class AggregationProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * Request headers copied from the client request to every leg.
+	 */
+	private List<String> forwardedHeaders = new ArrayList<>(List.of("Authorization", "Cookie", "Accept-Language"));
+
+	private List<Composite> composites = new ArrayList<>();
+
+	@Data
+	public static class Composite {
+
+		private String id;
+
+		/**
+		 * Gateway path, may contain {variables} referenced by the legs.
+		 */
+		private String path;
+
+		private List<Leg> legs = new ArrayList<>();
+	}
+
+	@Data
+	public static class Leg {
+
+		/**
+		 * Field name of this leg's body in the merged response.
+		 */
+		private String name;
+
+		private String service;
+
+		private String path;
+
+		private Duration timeout = Duration.ofSeconds(1);
+
+		/**
+		 * Whether the whole composite fails when this leg fails.
+		 */
+		private boolean required;
+
+		/**
+		 * JSON used in place of the body when an optional leg fails; null if unset.
+		 */
+		private String fallback;
+	}
+}
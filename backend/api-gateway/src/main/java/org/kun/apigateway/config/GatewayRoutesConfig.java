@@ -0,0 +1,72 @@
+package org.kun.apigateway.config;
+
+import lombok.RequiredArgsConstructor;
+import org.kun.apigateway.hedge.HedgingHandlerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.RequestPredicate;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import static org.springframework.cloud.gateway.server.mvc.filter.LoadBalancerFilterFunctions.lb;
+import static org.springframework.cloud.gateway.server.mvc.handler.GatewayRouterFunctions.route;
+import static org.springframework.cloud.gateway.server.mvc.handler.HandlerFunctions.http;
+import static org.springframework.web.servlet.function.RequestPredicates.GET;
+import static org.springframework.web.servlet.function.RequestPredicates.HEAD;
+import static org.springframework.web.servlet.function.RequestPredicates.methods;
+import static org.springframework.web.servlet.function.RequestPredicates.path;
+
+@Configuration
+@RequiredArgsConstructor
+public class GatewayRoutesConfig {
+
+	private final HedgingHandlerFactory hedging;
+
+	@Bean
+	public RouterFunction<ServerResponse> userServiceRoutes() {
+		return serviceRoute("user-service", "/api/auth/**", "/api/simple-auth/**");
+	}
+
+	/**
+	 * Categories and stock levels are only read through the gateway: category changes
+	 * are for admins, and stock is reserved by order-service through its outbox.
+	 */
+	@Bean
+	public RouterFunction<ServerResponse> productServiceRoutes() {
+		RequestPredicate reads = methods(HttpMethod.GET, HttpMethod.HEAD)
+				.and(path("/categories/**").or(path("/inventory/{productId}")));
+		return serviceRoute("product-service", path("/products/**").or(reads));
+	}
+
+	@Bean
+	public RouterFunction<ServerResponse> orderServiceRoutes() {
+		return serviceRoute("order-service", "/orders/**");
+	}
+
+	/**
+	 * Load-balanced route to a Eureka service; GET/HEAD go through the hedging
+	 * handler when the service is listed under {@code gateway.hedging.routes}.
+	 */
+	private RouterFunction<ServerResponse> serviceRoute(String serviceId, String... patterns) {
+		RequestPredicate paths = path(patterns[0]);
+		for (int i = 1; i < patterns.length; i++) {
+			paths = paths.or(path(patterns[i]));
+		}
+		return serviceRoute(serviceId, paths);
+	}
+
+	private RouterFunction<ServerResponse> serviceRoute(String serviceId, RequestPredicate paths) {
+		RouterFunction<ServerResponse> proxied = route(serviceId)
+				.route(paths, http())
+				.filter(lb(serviceId))
+				.build();
+		if (!hedging.isHedged(serviceId)) {
+			return proxied;
+		}
+		return route(serviceId)
+				.route(paths.and(GET("/**").or(HEAD("/**"))), hedging.create(serviceId))
+				.build()
+				.and(proxied);
+	}
+}
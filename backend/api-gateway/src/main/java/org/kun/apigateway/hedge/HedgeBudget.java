@@ -0,0 +1,50 @@
+package org.kun.apigateway.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global token budget for hedged attempts. Every primary request deposits
+ * {@code ratio} tokens and every hedge spends one, so hedges can never exceed
+ * {@code ratio} of the primary traffic plus the small saved-up {@code capacity}.
+ */
+public class HedgeBudget {
+
+	private static final long SCALE = 1_000L;
+
+	private final long deposit;
+	private final long capacity;
+	private final AtomicLong balance = new AtomicLong();
+
+	public HedgeBudget(double ratio, int capacity) {
+		if (ratio < 0 || capacity < 0) {
+			throw new IllegalArgumentException("Hedge budget ratio and capacity must not be negative");
+		}
+		this.deposit = Math.round(ratio * SCALE);
+		this.capacity = capacity * SCALE;
+	}
+
+	public void onRequest() {
+		long current;
+		do {
+			current = balance.get();
+			if (current >= capacity) {
+				return;
+			}
+		} while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+	}
+
+	public boolean tryAcquire() {
+		long current;
+		do {
+			current = balance.get();
+			if (current < SCALE) {
+				return false;
+			}
+		} while (!balance.compareAndSet(current, current - SCALE));
+		return true;
+	}
+
+	public double available() {
+		return (double) balance.get() / SCALE;
+	}
+}
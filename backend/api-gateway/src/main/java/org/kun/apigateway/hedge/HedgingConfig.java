@@ -0,0 +1,40 @@
+package org.kun.apigateway.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Configuration
+@EnableConfigurationProperties(HedgingProperties.class)
+public class HedgingConfig {
+
+	@Bean
+	public HedgeBudget hedgeBudget(HedgingProperties properties, MeterRegistry meterRegistry) {
+		HedgeBudget budget = new HedgeBudget(properties.getBudgetRatio(), properties.getMaxBudget());
+		meterRegistry.gauge("gateway.hedge.budget.available", budget, HedgeBudget::available);
+		return budget;
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	public ScheduledExecutorService hedgeScheduler() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "gateway-hedge-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Bean
+	public HttpClient hedgeHttpClient(HedgingProperties properties) {
+		return HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(properties.getConnectTimeout())
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.build();
+	}
+}
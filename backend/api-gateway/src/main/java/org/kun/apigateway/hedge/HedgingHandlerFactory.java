@@ -0,0 +1,32 @@
+package org.kun.apigateway.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Component
+@RequiredArgsConstructor
+public class HedgingHandlerFactory {
+
+	private final HedgingProperties properties;
+	private final DiscoveryClient discoveryClient;
+	private final HttpClient hedgeHttpClient;
+	private final HttpClientTracing httpClientTracing;
+	private final ScheduledExecutorService hedgeScheduler;
+	private final HedgeBudget hedgeBudget;
+	private final MeterRegistry meterRegistry;
+
+	public boolean isHedged(String serviceId) {
+		return properties.isEnabled() && properties.getRoutes().contains(serviceId);
+	}
+
+	public HedgingHandlerFunction create(String serviceId) {
+		return new HedgingHandlerFunction(serviceId, discoveryClient, hedgeHttpClient, httpClientTracing,
+				hedgeScheduler, hedgeBudget, properties, meterRegistry);
+	}
+}
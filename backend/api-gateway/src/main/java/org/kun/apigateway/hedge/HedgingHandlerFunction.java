@@ -0,0 +1,307 @@
+package org.kun.apigateway.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxies idempotent requests to a discovered instance and, if it has not
+ * answered within the route's latency percentile, sends the same request to a
+ * different instance. The first response wins and the other attempt is cancelled.
+ * Only GET and HEAD are hedged; other methods are proxied to a single instance.
+ * A response wins as soon as its headers arrive and its body is streamed to the
+ * client, so large bodies such as catalog snapshots are never buffered here.
+ */
+@Slf4j
+public class HedgingHandlerFunction implements HandlerFunction<ServerResponse> {
+
+	private static final Set<HttpMethod> HEDGED_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+
+	private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+			"connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+			"transfer-encoding", "upgrade", "host", "content-length", "expect");
+
+	private final String serviceId;
+	private final DiscoveryClient discoveryClient;
+	private final HttpClient httpClient;
+	private final HttpClientTracing tracing;
+	private final ScheduledExecutorService scheduler;
+	private final HedgeBudget budget;
+	private final HedgingProperties properties;
+	private final LatencyWindow latency;
+	private final AtomicInteger position = new AtomicInteger();
+
+	private final Counter requests;
+	private final Counter hedges;
+	private final Counter hedgeWins;
+	private final Counter budgetExhausted;
+
+	public HedgingHandlerFunction(String serviceId, DiscoveryClient discoveryClient, HttpClient httpClient,
+			HttpClientTracing tracing, ScheduledExecutorService scheduler, HedgeBudget budget,
+			HedgingProperties properties, MeterRegistry meterRegistry) {
+		this.serviceId = serviceId;
+		this.discoveryClient = discoveryClient;
+		this.httpClient = httpClient;
+		this.tracing = tracing;
+		this.scheduler = scheduler;
+		this.budget = budget;
+		this.properties = properties;
+		this.latency = new LatencyWindow(properties.getPercentile(), TimeUnit.MILLISECONDS.toNanos(100));
+		this.requests = meterRegistry.counter("gateway.hedge.requests", "route", serviceId);
+		this.hedges = meterRegistry.counter("gateway.hedge.attempts", "route", serviceId);
+		this.hedgeWins = meterRegistry.counter("gateway.hedge.wins", "route", serviceId);
+		this.budgetExhausted = meterRegistry.counter("gateway.hedge.budget.exhausted", "route", serviceId);
+		meterRegistry.gauge("gateway.hedge.delay.ms", Tags.of("route", serviceId), this,
+				HedgingHandlerFunction::hedgeDelayMillis);
+	}
+
+	@Override
+	public ServerResponse handle(ServerRequest request) {
+		List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
+		if (instances.isEmpty()) {
+			return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+		}
+		requests.increment();
+		budget.onRequest();
+
+		int first = Math.floorMod(position.getAndIncrement(), instances.size());
+		boolean hedged = instances.size() > 1 && HEDGED_METHODS.contains(request.method());
+		HedgedCall call = new HedgedCall(request);
+		if (hedged) {
+			call.reserveHedge(instances.get((first + 1) % instances.size()));
+		}
+		call.start(instances.get(first), false);
+		if (hedged) {
+			call.scheduleHedge(hedgeDelayMillis());
+		}
+		return ServerResponse.async(call.result, properties.getResponseTimeout());
+	}
+
+	long hedgeDelayMillis() {
+		if (latency.count() < properties.getMinSamples()) {
+			return properties.getInitialDelay().toMillis();
+		}
+		long millis = TimeUnit.MICROSECONDS.toMillis(latency.percentileMicros());
+		return Math.max(properties.getMinDelay().toMillis(), Math.min(properties.getMaxDelay().toMillis(), millis));
+	}
+
+	private HttpRequest.Builder toUpstream(ServerRequest request, ServiceInstance instance) {
+		URI original = request.uri();
+		String target = instance.getUri() + original.getRawPath()
+				+ (original.getRawQuery() != null ? "?" + original.getRawQuery() : "");
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target))
+				.method(request.method().name(), HttpRequest.BodyPublishers.noBody())
+				.timeout(properties.getResponseTimeout());
+		request.headers().asHttpHeaders().forEach((name, values) -> {
+			if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+				values.forEach(value -> builder.header(name, value));
+			}
+		});
+		request.remoteAddress().ifPresent(address ->
+				builder.header("X-Forwarded-For", address.getAddress().getHostAddress()));
+		builder.header("X-Forwarded-Host", original.getHost() + (original.getPort() > 0 ? ":" + original.getPort() : ""));
+		return builder;
+	}
+
+	private static ServerResponse toServerResponse(HttpResponse<InputStream> response) {
+		HttpHeaders headers = new HttpHeaders();
+		response.headers().map().forEach((name, values) -> {
+			if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT)) && !name.startsWith(":")) {
+				headers.addAll(name, values);
+			}
+		});
+		return ServerResponse.status(response.statusCode())
+				.headers(h -> h.addAll(headers))
+				.build((servletRequest, servletResponse) -> {
+					try (InputStream body = response.body()) {
+						body.transferTo(servletResponse.getOutputStream());
+					}
+					return null;
+				});
+	}
+
+	private static void discard(HttpResponse<InputStream> response) {
+		try {
+			response.body().close();
+		}
+		catch (IOException e) {
+			// the connection is dropped rather than reused
+		}
+	}
+
+	/**
+	 * State of one client request: at most two upstream attempts racing for {@link #result}.
+	 */
+	private final class HedgedCall {
+
+		private final ServerRequest request;
+		// captured on the request thread: the hedge starts on the timer thread
+		private final TraceContext parent;
+		private final CompletableFuture<ServerResponse> result = new CompletableFuture<>();
+		// attempts that may still answer; a reserved hedge counts until it is sent or given up
+		private final AtomicInteger pending = new AtomicInteger();
+		// whoever claims the reserved hedge (the timer or a failed primary) sends or releases it
+		private final AtomicBoolean hedgeClaimed = new AtomicBoolean();
+		private final AtomicBoolean decided = new AtomicBoolean();
+		private volatile CompletableFuture<HttpResponse<InputStream>> primary;
+		private volatile CompletableFuture<HttpResponse<InputStream>> secondary;
+		private volatile long primaryStartNanos;
+		private volatile ServiceInstance hedgeTarget;
+		private volatile ScheduledFuture<?> timer;
+
+		private HedgedCall(ServerRequest request) {
+			this.request = request;
+			this.parent = tracing.current();
+		}
+
+		private void reserveHedge(ServiceInstance instance) {
+			hedgeTarget = instance;
+			pending.incrementAndGet();
+		}
+
+		private void scheduleHedge(long delayMillis) {
+			timer = scheduler.schedule(() -> {
+				if (hedgeClaimed.compareAndSet(false, true)) {
+					hedge();
+				}
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private void start(ServiceInstance instance, boolean hedge) {
+			if (!hedge) {
+				pending.incrementAndGet();
+			}
+			long startNanos = System.nanoTime();
+			HttpRequest.Builder upstream = toUpstream(request, instance);
+			Span span = tracing.start(parent, request.method().name(), serviceId, upstream);
+			if (hedge) {
+				span.tag("hedge", "true");
+			}
+			CompletableFuture<HttpResponse<InputStream>> attempt =
+					httpClient.sendAsync(upstream.build(), HttpResponse.BodyHandlers.ofInputStream());
+			if (hedge) {
+				secondary = attempt;
+				// the primary may have won while this hedge was being sent, before it could see it
+				if (decided.get()) {
+					attempt.cancel(true);
+				}
+			}
+			else {
+				primaryStartNanos = startNanos;
+				primary = attempt;
+			}
+			attempt.whenComplete((response, error) -> {
+				tracing.end(span, response, error);
+				if (error != null) {
+					onAttemptFailed(error, hedge);
+				}
+				else {
+					onResponse(response, hedge, startNanos);
+				}
+			});
+		}
+
+		/**
+		 * Sends the reserved hedge, or releases it when the call is already decided or
+		 * the budget is spent; the caller has claimed it.
+		 */
+		private void hedge() {
+			if (decided.get()) {
+				return;
+			}
+			if (!budget.tryAcquire()) {
+				budgetExhausted.increment();
+				if (pending.decrementAndGet() == 0) {
+					fail(null);
+				}
+				return;
+			}
+			hedges.increment();
+			start(hedgeTarget, true);
+		}
+
+		/**
+		 * A primary that fails before the hedge delay has elapsed sends the hedge
+		 * immediately instead of waiting for the timer (still subject to the budget).
+		 * If the timer has already claimed the hedge, its outcome decides the call.
+		 */
+		private void onAttemptFailed(Throwable error, boolean hedge) {
+			if (pending.decrementAndGet() == 0) {
+				fail(error);
+			}
+			else if (!hedge && hedgeClaimed.compareAndSet(false, true)) {
+				ScheduledFuture<?> pendingTimer = timer;
+				if (pendingTimer != null) {
+					pendingTimer.cancel(false);
+				}
+				hedge();
+			}
+		}
+
+		/**
+		 * The first response wins. A primary that loses to the hedge is recorded with its
+		 * elapsed time at cancellation, a lower bound of its latency, so slow instances
+		 * keep raising the hedge delay; hedge latencies are not recorded since the delay
+		 * is measured against primaries. A loser whose headers arrived anyway has its
+		 * body closed so the upstream stops sending it.
+		 */
+		private void onResponse(HttpResponse<InputStream> response, boolean hedge, long startNanos) {
+			if (!decided.compareAndSet(false, true)) {
+				discard(response);
+				return;
+			}
+			latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - (hedge ? primaryStartNanos : startNanos)));
+			if (hedge) {
+				hedgeWins.increment();
+			}
+			ScheduledFuture<?> pendingTimer = timer;
+			if (pendingTimer != null) {
+				pendingTimer.cancel(false);
+			}
+			// cancelled before the response completes so the loser's span ends within the request's trace
+			CompletableFuture<HttpResponse<InputStream>> loser = hedge ? primary : secondary;
+			if (loser != null) {
+				loser.cancel(true);
+			}
+			request.attributes().put(MvcUtils.GATEWAY_REQUEST_URL_ATTR, response.uri());
+			result.complete(toServerResponse(response));
+		}
+
+		private void fail(Throwable error) {
+			if (decided.compareAndSet(false, true)) {
+				log.warn("Upstream {} failed for {}: {}", serviceId, request.path(),
+						error != null ? error.toString() : "hedge budget exhausted");
+				result.complete(ServerResponse.status(HttpStatus.BAD_GATEWAY).build());
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package org.kun.apigateway.hedge;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.hedging")
+public class HedgingProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * Service ids whose GET/HEAD routes are hedged.
+	 */
+	private List<String> routes = new ArrayList<>();
+
+	/**
+	 * Percentile of recent upstream latency after which the hedge is fired.
+	 */
+	private double percentile = 0.95;
+
+	/**
+	 * Delay used until the route has collected {@code minSamples} latencies.
+	 */
+	private Duration initialDelay = Duration.ofMillis(200);
+
+	private Duration minDelay = Duration.ofMillis(10);
+
+	private Duration maxDelay = Duration.ofSeconds(1);
+
+	private int minSamples = 100;
+
+	/**
+	 * Hedges allowed per primary request, e.g. 0.05 caps extra load at 5%.
+	 */
+	private double budgetRatio = 0.05;
+
+	/**
+	 * Maximum number of hedges that can be saved up while traffic is quiet.
+	 */
+	private int maxBudget = 20;
+
+	private Duration connectTimeout = Duration.ofSeconds(2);
+
+	private Duration responseTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,61 @@
+package org.kun.apigateway.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling window of the most recent upstream latencies (in microseconds).
+ * Writers only do one increment and one array store; the percentile is
+ * recomputed from a copy at most once per {@code refreshNanos}.
+ */
+public class LatencyWindow {
+
+	private static final int SIZE = 1024;
+	private static final int MASK = SIZE - 1;
+
+	private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+	private final AtomicLong cursor = new AtomicLong();
+	private final double percentile;
+	private final long refreshNanos;
+
+	private volatile long cachedValue = -1;
+	private volatile long cachedAt;
+
+	public LatencyWindow(double percentile, long refreshNanos) {
+		this.percentile = percentile;
+		this.refreshNanos = refreshNanos;
+	}
+
+	public void record(long micros) {
+		samples.set((int) (cursor.getAndIncrement() & MASK), micros);
+	}
+
+	public long count() {
+		return cursor.get();
+	}
+
+	/**
+	 * @return the configured percentile in microseconds, or -1 if nothing was recorded yet
+	 */
+	public long percentileMicros() {
+		long now = System.nanoTime();
+		if (cachedValue >= 0 && now - cachedAt < refreshNanos) {
+			return cachedValue;
+		}
+		int filled = (int) Math.min(cursor.get(), SIZE);
+		if (filled == 0) {
+			return -1;
+		}
+		long[] copy = new long[filled];
+		for (int i = 0; i < filled; i++) {
+			copy[i] = samples.get(i);
+		}
+		Arrays.sort(copy);
+		int index = (int) Math.min(filled - 1, Math.ceil(percentile * filled) - 1);
+		long value = copy[Math.max(0, index)];
+		cachedValue = value;
+		cachedAt = now;
+		return value;
+	}
+}
@@ -0,0 +1,112 @@
+package org.kun.apigateway.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks the identity a request is limited by. A client controls every header it
+ * sends, so only identities it cannot mint count: the subject of a JWT whose
+ * signature verifies against the identity provider's keys, and API keys listed
+ * in the configuration. Anything else falls through to the next source, which is
+ * the client IP by default, so forged subjects or keys from one address share
+ * that address's bucket.
+ */
+public class ClientKeyResolver {
+
+	private static final String BEARER = "Bearer ";
+
+	private final List<RateLimitProperties.KeySource> sources;
+	private final String apiKeyHeader;
+	private final Set<String> apiKeys;
+	@Nullable
+	private final JwtDecoder jwtDecoder;
+	// a client sends the same token until it expires; only its first request pays for the signature check
+	private final ConcurrentLruCache<String, Verified> verified;
+	private final Duration rejectedTokenTtl;
+
+	public ClientKeyResolver(List<RateLimitProperties.KeySource> sources, String apiKeyHeader, Set<String> apiKeys,
+			@Nullable JwtDecoder jwtDecoder, int verifiedTokens, Duration rejectedTokenTtl) {
+		this.sources = sources;
+		this.apiKeyHeader = apiKeyHeader;
+		this.apiKeys = apiKeys;
+		this.jwtDecoder = jwtDecoder;
+		this.verified = new ConcurrentLruCache<>(verifiedTokens, this::verify);
+		this.rejectedTokenTtl = rejectedTokenTtl;
+	}
+
+	public String resolve(HttpServletRequest request) {
+		for (RateLimitProperties.KeySource source : sources) {
+			String key = switch (source) {
+				case SUBJECT -> subject(request.getHeader("Authorization"));
+				case API_KEY -> apiKey(request.getHeader(apiKeyHeader));
+				case IP -> "ip:" + request.getRemoteAddr();
+			};
+			if (key != null) {
+				return key;
+			}
+		}
+		return "anonymous";
+	}
+
+	private String apiKey(String header) {
+		return header == null || !apiKeys.contains(header) ? null : "key:" + header;
+	}
+
+	/**
+	 * The subject of a bearer token that verifies and has not expired, or {@code null};
+	 * without a decoder no token is trusted.
+	 */
+	@Nullable
+	String subject(@Nullable String authorization) {
+		if (jwtDecoder == null || authorization == null || !authorization.startsWith(BEARER)) {
+			return null;
+		}
+		String value = authorization.substring(BEARER.length());
+		Verified token;
+		try {
+			token = verified.get(value);
+			if (token.subject() == null && !Instant.now().isBefore(token.expiresAt())) {
+				// a rejected token may verify later, once its nbf passes or the realm's keys rotate in
+				verified.remove(value);
+				token = verified.get(value);
+			}
+		}
+		catch (JwtException e) {
+			// the keys could not be fetched: not cached, so the token is checked again next time
+			return null;
+		}
+		return token.subject() != null && Instant.now().isBefore(token.expiresAt()) ? "sub:" + token.subject() : null;
+	}
+
+	private Verified verify(String token) {
+		try {
+			Jwt jwt = jwtDecoder.decode(token);
+			return jwt.getSubject() == null ? rejected()
+					: new Verified(jwt.getSubject(), jwt.getExpiresAt() != null ? jwt.getExpiresAt() : Instant.MAX);
+		}
+		catch (BadJwtException e) {
+			return rejected();
+		}
+	}
+
+	private Verified rejected() {
+		return new Verified(null, Instant.now().plus(rejectedTokenTtl));
+	}
+
+	/**
+	 * A verified subject until the token expires, or a rejection ({@code subject} null)
+	 * remembered until {@code expiresAt}.
+	 */
+	private record Verified(@Nullable String subject, Instant expiresAt) {
+	}
+}
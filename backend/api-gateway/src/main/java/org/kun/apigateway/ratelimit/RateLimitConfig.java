@@ -0,0 +1,71 @@
+package org.kun.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "gateway.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+	@Bean
+	public RateLimiter rateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+		RateLimiter limiter = new RateLimiter(properties.getRoutes(), properties.getMaxBuckets(),
+				properties.getIdleTimeout().toNanos());
+		meterRegistry.gauge("gateway.ratelimit.buckets", limiter, RateLimiter::size);
+		return limiter;
+	}
+
+	@Bean(destroyMethod = "shutdownNow")
+	public ScheduledExecutorService rateLimitSweeper(RateLimiter limiter, RateLimitProperties properties) {
+		ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "gateway-rate-limit-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = properties.getSweepInterval().toMillis();
+		sweeper.scheduleWithFixedDelay(() -> limiter.sweep(System.nanoTime()), interval, interval, TimeUnit.MILLISECONDS);
+		return sweeper;
+	}
+
+	@Bean
+	public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter limiter, RateLimitProperties properties,
+			MeterRegistry meterRegistry) {
+		ClientKeyResolver resolver = new ClientKeyResolver(properties.getKeySources(), properties.getApiKeyHeader(),
+				properties.getApiKeys(), jwtDecoder(properties), properties.getVerifiedTokens(),
+				properties.getRejectedTokenTtl());
+		FilterRegistrationBean<RateLimitFilter> registration =
+				new FilterRegistrationBean<>(new RateLimitFilter(limiter, resolver, meterRegistry));
+		// after the access log filter so rejected requests are still logged
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+	/**
+	 * Not a bean: a {@link JwtDecoder} in the context would switch on resource-server
+	 * security for the whole gateway, while the services still authorize requests.
+	 */
+	private static JwtDecoder jwtDecoder(RateLimitProperties properties) {
+		if (!StringUtils.hasText(properties.getJwkSetUri())) {
+			return null;
+		}
+		NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(properties.getJwkSetUri()).build();
+		if (StringUtils.hasText(properties.getJwtIssuer())) {
+			decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(properties.getJwtIssuer()));
+		}
+		return decoder;
+	}
+}
@@ -0,0 +1,94 @@
+package org.kun.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the first quota whose path pattern matches the request, keyed by the
+ * resolved client. Admitted responses carry {@code RateLimit-*} headers;
+ * rejected ones get {@code 429} with {@code Retry-After} and never reach the router.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final RateLimiter limiter;
+	private final ClientKeyResolver keyResolver;
+	private final List<Matcher> matchers = new ArrayList<>();
+
+	public RateLimitFilter(RateLimiter limiter, ClientKeyResolver keyResolver, MeterRegistry meterRegistry) {
+		this.limiter = limiter;
+		this.keyResolver = keyResolver;
+		for (RateLimiter.RouteLimit route : limiter.routes()) {
+			Counter rejected = Counter.builder("gateway.ratelimit.rejected")
+					.tag("route", route.quota().getId())
+					.register(meterRegistry);
+			for (String path : route.quota().getPaths()) {
+				matchers.add(new Matcher(PathPatternParser.defaultInstance.parse(path), route, rejected));
+			}
+		}
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		Matcher matcher = match(request);
+		if (matcher == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+		RateLimiter.RouteLimit route = matcher.route;
+		long result = limiter.tryAcquire(route, keyResolver.resolve(request), System.nanoTime());
+		response.setHeader("RateLimit-Limit", route.limitHeader());
+		response.setHeader("RateLimit-Policy", route.policyHeader());
+		if (result >= 0) {
+			long emission = route.periodNanos() / route.quota().getLimit();
+			response.setHeader("RateLimit-Remaining", Long.toString(result));
+			response.setHeader("RateLimit-Reset", Long.toString(seconds((route.quota().getLimit() - result) * emission)));
+			chain.doFilter(request, response);
+			return;
+		}
+		matcher.rejected.increment();
+		String retryAfter = Long.toString(Math.max(1, seconds(-1 - result)));
+		response.setHeader("RateLimit-Remaining", "0");
+		response.setHeader("RateLimit-Reset", retryAfter);
+		response.setHeader("Retry-After", retryAfter);
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getWriter().write("{\"error\":\"Too Many Requests\",\"route\":\"" + route.quota().getId() + "\"}");
+	}
+
+	private Matcher match(HttpServletRequest request) {
+		if (matchers.isEmpty()) {
+			return null;
+		}
+		PathContainer path = PathContainer.parsePath(request.getRequestURI());
+		for (Matcher matcher : matchers) {
+			if (matcher.pattern.matches(path)) {
+				return matcher;
+			}
+		}
+		return null;
+	}
+
+	private static long seconds(long nanos) {
+		return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+	}
+
+	private record Matcher(PathPattern pattern, RateLimiter.RouteLimit route, Counter rejected) {
+	}
+}
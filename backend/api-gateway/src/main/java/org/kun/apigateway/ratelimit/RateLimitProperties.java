@@ -0,0 +1,85 @@
+package org.kun.apigateway.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * Client identity sources tried in order: subject (JWT sub), api-key, ip. A source
+	 * that yields no trusted identity falls through to the next one.
+	 */
+	private List<KeySource> keySources = new ArrayList<>(List.of(KeySource.SUBJECT, KeySource.API_KEY, KeySource.IP));
+
+	/**
+	 * Keys used to verify bearer tokens, e.g. Keycloak's realm certs endpoint. Unset,
+	 * no token is trusted and the subject source never matches.
+	 */
+	private String jwkSetUri;
+
+	/**
+	 * Expected {@code iss} of verified tokens; not checked when unset.
+	 */
+	private String jwtIssuer;
+
+	/**
+	 * Verified tokens remembered so repeat requests skip the signature check.
+	 */
+	private int verifiedTokens = 10_000;
+
+	/**
+	 * How long a token that failed verification stays rejected before it is checked
+	 * again; kept short since a token used before its {@code nbf} becomes valid later.
+	 */
+	private Duration rejectedTokenTtl = Duration.ofSeconds(10);
+
+	private String apiKeyHeader = "X-API-Key";
+
+	/**
+	 * API keys accepted as client identities; other keys are ignored.
+	 */
+	private Set<String> apiKeys = new HashSet<>();
+
+	/**
+	 * Upper bound on live buckets across all routes; bounds memory.
+	 */
+	private int maxBuckets = 100_000;
+
+	/**
+	 * Buckets that have been full for this long are evicted.
+	 */
+	private Duration idleTimeout = Duration.ofMinutes(5);
+
+	private Duration sweepInterval = Duration.ofSeconds(30);
+
+	private List<Route> routes = new ArrayList<>();
+
+	@Data
+	public static class Route {
+
+		private String id;
+
+		private List<String> paths = new ArrayList<>();
+
+		/**
+		 * Requests allowed per period; also the burst size.
+		 */
+		private long limit = 100;
+
+		private Duration period = Duration.ofSeconds(1);
+	}
+
+	public enum KeySource {
+		SUBJECT, API_KEY, IP
+	}
+}
@@ -0,0 +1,129 @@
+package org.kun.apigateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route maps of client key to {@link TokenBucket}. The number of buckets is
+ * capped: when the cap is reached, idle buckets are swept and, if that is not
+ * enough, new clients share the route's overflow bucket until space frees up.
+ */
+@Slf4j
+public class RateLimiter {
+
+	private static final long MIN_SWEEP_GAP_NANOS = 1_000_000_000L;
+
+	private final List<RouteLimit> routes = new ArrayList<>();
+	private final int maxBuckets;
+	private final long idleNanos;
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+	public RateLimiter(List<RateLimitProperties.Route> quotas, int maxBuckets, long idleNanos) {
+		this.maxBuckets = maxBuckets;
+		this.idleNanos = idleNanos;
+		for (RateLimitProperties.Route quota : quotas) {
+			routes.add(new RouteLimit(quota));
+		}
+	}
+
+	public List<RouteLimit> routes() {
+		return routes;
+	}
+
+	/**
+	 * @return remaining tokens (&gt;= 0) if admitted, otherwise {@code -1 - nanosUntilNextToken}
+	 */
+	public long tryAcquire(RouteLimit route, String key, long nowNanos) {
+		TokenBucket bucket = route.buckets.get(key);
+		if (bucket == null) {
+			bucket = create(route, key, nowNanos);
+		}
+		return bucket.tryAcquire(nowNanos);
+	}
+
+	private TokenBucket create(RouteLimit route, String key, long nowNanos) {
+		if (size.get() >= maxBuckets) {
+			long last = lastSweep.get();
+			if (nowNanos - last >= MIN_SWEEP_GAP_NANOS && lastSweep.compareAndSet(last, nowNanos)) {
+				sweep(nowNanos);
+			}
+			if (size.get() >= maxBuckets) {
+				return route.overflow;
+			}
+		}
+		TokenBucket created = new TokenBucket(route.quota.getLimit(), route.periodNanos, nowNanos);
+		TokenBucket existing = route.buckets.putIfAbsent(key, created);
+		if (existing != null) {
+			return existing;
+		}
+		size.incrementAndGet();
+		return created;
+	}
+
+	/**
+	 * Drops buckets that have been full for longer than the idle timeout.
+	 * An evicted bucket is indistinguishable from a new one, so this never
+	 * grants a client more than its quota.
+	 */
+	public void sweep(long nowNanos) {
+		int removed = 0;
+		for (RouteLimit route : routes) {
+			var iterator = route.buckets.values().iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().isIdle(nowNanos, idleNanos)) {
+					iterator.remove();
+					removed++;
+				}
+			}
+		}
+		if (removed > 0) {
+			size.addAndGet(-removed);
+			log.debug("Evicted {} idle rate limit buckets", removed);
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	public static final class RouteLimit {
+
+		private final RateLimitProperties.Route quota;
+		private final long periodNanos;
+		private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+		private final TokenBucket overflow;
+		private final String limitHeader;
+		private final String policyHeader;
+
+		private RouteLimit(RateLimitProperties.Route quota) {
+			this.quota = quota;
+			this.periodNanos = quota.getPeriod().toNanos();
+			// starts full whatever the nanoTime origin is
+			this.overflow = new TokenBucket(quota.getLimit(), periodNanos, Long.MIN_VALUE / 2);
+			this.limitHeader = Long.toString(quota.getLimit());
+			this.policyHeader = quota.getLimit() + ";w=" + Math.max(1, quota.getPeriod().toSeconds());
+		}
+
+		public RateLimitProperties.Route quota() {
+			return quota;
+		}
+
+		public String limitHeader() {
+			return limitHeader;
+		}
+
+		public String policyHeader() {
+			return policyHeader;
+		}
+
+		public long periodNanos() {
+			return periodNanos;
+		}
+	}
+}
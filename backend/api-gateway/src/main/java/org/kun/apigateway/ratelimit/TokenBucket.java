@@ -0,0 +1,50 @@
+package org.kun.apigateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as GCRA: the whole state is one
+ * "theoretical arrival time" updated with a single CAS. A bucket of
+ * {@code limit} tokens refilling over {@code period} admits a request when the
+ * new arrival time stays within one period of now.
+ */
+public class TokenBucket {
+
+	private final long emissionNanos;
+	private final long periodNanos;
+	private final AtomicLong arrival;
+
+	public TokenBucket(long limit, long periodNanos, long nowNanos) {
+		this.emissionNanos = Math.max(1, periodNanos / limit);
+		this.periodNanos = emissionNanos * limit;
+		this.arrival = new AtomicLong(nowNanos);
+	}
+
+	/**
+	 * @return remaining tokens (&gt;= 0) if admitted, otherwise {@code -1 - nanosUntilNextToken}
+	 */
+	public long tryAcquire(long nowNanos) {
+		while (true) {
+			long current = arrival.get();
+			long next = Math.max(current, nowNanos) + emissionNanos;
+			long ahead = next - nowNanos;
+			if (ahead > periodNanos) {
+				return -1 - (ahead - periodNanos);
+			}
+			if (arrival.compareAndSet(current, next)) {
+				return (periodNanos - ahead) / emissionNanos;
+			}
+		}
+	}
+
+	/**
+	 * Nanoseconds until the bucket is full again.
+	 */
+	public long nanosUntilFull(long nowNanos) {
+		return Math.max(0, arrival.get() - nowNanos);
+	}
+
+	public boolean isIdle(long nowNanos, long idleNanos) {
+		return arrival.get() <= nowNanos - idleNanos;
+	}
+}
@@ -0,0 +1,82 @@
+package org.kun.apigateway.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.lang.Nullable;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Client spans for the calls the gateway makes on {@link java.net.http.HttpClient},
+ * which Boot does not instrument. Those calls start on other threads (the hedge timer,
+ * the client's executor), so the parent is captured with {@link #current()} on the
+ * request thread and passed to {@link #start} explicitly.
+ */
+public class HttpClientTracing {
+
+	public static final HttpClientTracing NOOP = new HttpClientTracing(Tracer.NOOP, Propagator.NOOP);
+
+	private final Tracer tracer;
+	private final Propagator propagator;
+
+	public HttpClientTracing(Tracer tracer, Propagator propagator) {
+		this.tracer = tracer;
+		this.propagator = propagator;
+	}
+
+	/**
+	 * The span current on the calling thread, or {@code null} outside any trace.
+	 */
+	@Nullable
+	public TraceContext current() {
+		Span span = tracer.currentSpan();
+		return span == null ? null : span.context();
+	}
+
+	/**
+	 * Starts a client span under {@code parent} and sets its {@code traceparent} on the
+	 * request, replacing one copied from the incoming request.
+	 */
+	public Span start(@Nullable TraceContext parent, String method, String remoteService, HttpRequest.Builder request) {
+		Span.Builder builder = tracer.spanBuilder();
+		if (parent != null) {
+			builder.setParent(parent);
+		}
+		else {
+			builder.setNoParent();
+		}
+		Span span = builder.name("http " + method.toLowerCase(Locale.ROOT))
+				.kind(Span.Kind.CLIENT)
+				.remoteServiceName(remoteService)
+				.start();
+		propagator.inject(span.context(), request, HttpRequest.Builder::setHeader);
+		return span;
+	}
+
+	/**
+	 * Ends the span with the response status, or the failure; an attempt cancelled
+	 * because another one won is tagged rather than marked failed.
+	 */
+	public void end(Span span, @Nullable HttpResponse<?> response, @Nullable Throwable error) {
+		if (response != null) {
+			span.tag("status", String.valueOf(response.statusCode()));
+			if (response.statusCode() >= 500) {
+				span.tag("outcome", "SERVER_ERROR");
+			}
+		}
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause instanceof CancellationException) {
+			span.tag("cancelled", "true");
+		}
+		else if (cause != null) {
+			span.error(cause);
+		}
+		span.end();
+	}
+}
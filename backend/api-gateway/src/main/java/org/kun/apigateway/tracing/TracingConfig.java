@@ -0,0 +1,33 @@
+package org.kun.apigateway.tracing;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.kun.common.tracing.TailSamplingConfig;
+import org.kun.common.tracing.TracingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Server spans and the proxied calls of {@code http()} routes come from Boot's
+ * observations; hedged and aggregated calls go through {@link HttpClientTracing}.
+ * This keeps them in memory with tail sampling.
+ */
+@Configuration
+@Import(TailSamplingConfig.class)
+public class TracingConfig {
+
+	@Bean
+	@ConfigurationProperties("gateway.tracing")
+	public TracingProperties tracingProperties() {
+		return new TracingProperties();
+	}
+
+	@Bean
+	public HttpClientTracing httpClientTracing(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+		return new HttpClientTracing(tracer.getIfAvailable(() -> Tracer.NOOP),
+				propagator.getIfAvailable(() -> Propagator.NOOP));
+	}
+}
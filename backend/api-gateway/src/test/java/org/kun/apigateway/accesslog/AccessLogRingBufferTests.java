@@ -0,0 +1,35 @@
+package org.kun.apigateway.accesslog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogRingBufferTests {
+
+	@Test
+	void drainsRecordsInOrderAndDropsWhenFull() {
+		AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+		for (int i = 0; i < 6; i++) {
+			buffer.offer(i, i * 1_000L, 200, 1, 0, 0, "/products/" + i, "127.0.0.1");
+		}
+		assertThat(buffer.dropped()).isEqualTo(2);
+
+		List<String> paths = new ArrayList<>();
+		buffer.drain((b, slot) -> paths.add(
+				new String(b.paths(), b.pathOffset(slot), b.pathLength(slot), StandardCharsets.US_ASCII)), 10);
+		assertThat(paths).containsExactly("/products/0", "/products/1", "/products/2", "/products/3");
+
+		assertThat(buffer.offer(7, 0, 404, 1, 0, 0, "/products/7", null)).isTrue();
+	}
+
+	@Test
+	void truncatesLongPathsToTheFixedSlot() {
+		AccessLogRingBuffer buffer = new AccessLogRingBuffer(2);
+		buffer.offer(0, 0, 200, 1, 0, 0, "/p/" + "x".repeat(500), "127.0.0.1");
+		buffer.drain((b, slot) -> assertThat(b.pathLength(slot)).isEqualTo(AccessLogRingBuffer.PATH_BYTES), 1);
+	}
+}
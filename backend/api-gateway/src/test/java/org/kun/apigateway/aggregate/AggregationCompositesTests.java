@@ -0,0 +1,128 @@
+package org.kun.apigateway.aggregate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.UriTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.web.servlet.function.RouterFunctions.route;
+
+/**
+ * Runs every composite of {@code application.yml} against a stub that answers like
+ * the upstream controllers: unknown paths are 404 and {@code /orders/history}
+ * without {@code customerId} is 400, so a leg that can only fail shows up as an
+ * error in {@code _meta} instead of hiding behind its fallback.
+ */
+class AggregationCompositesTests {
+
+	private HttpServer upstream;
+	private LoadBalancerClient loadBalancer;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		upstream.createContext("/", AggregationCompositesTests::serve);
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.start();
+		loadBalancer = mock(LoadBalancerClient.class);
+		given(loadBalancer.choose(anyString())).willReturn(new DefaultServiceInstance("stub", "stub", "localhost",
+				upstream.getAddress().getPort(), false));
+	}
+
+	@AfterEach
+	void tearDown() {
+		upstream.stop(0);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("configuredComposites")
+	void everyLegReachesAnEndpointThatAnswers(String id, AggregationProperties.Composite composite,
+			List<String> forwardedHeaders) throws Exception {
+		// this checks where the legs go, not how fast; a cold client can miss a 300 ms budget
+		composite.getLegs().forEach(leg -> leg.setTimeout(Duration.ofSeconds(5)));
+		AggregationHandlerFunction handler = new AggregationHandlerFunction(composite, forwardedHeaders, loadBalancer,
+				HttpClient.newHttpClient(), HttpClientTracing.NOOP, new ObjectMapper());
+		MockMvc mockMvc = MockMvcBuilders.routerFunctions(route().GET(composite.getPath(), handler).build()).build();
+		UriTemplate template = new UriTemplate(composite.getPath());
+		String path = template.expand(Collections.nCopies(template.getVariableNames().size(), "42").toArray())
+				.toString();
+
+		MvcResult result = mockMvc.perform(get(path)).andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._meta").doesNotExist());
+	}
+
+	static List<Object[]> configuredComposites() throws IOException {
+		Binder binder = new Binder(ConfigurationPropertySources.from(
+				new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml")).get(0)));
+		AggregationProperties properties = binder.bind("gateway.aggregation", AggregationProperties.class).get();
+		assertThat(properties.getComposites()).isNotEmpty();
+		return properties.getComposites().stream()
+				.map(composite -> new Object[]{composite.getId(), composite, properties.getForwardedHeaders()})
+				.toList();
+	}
+
+	private static void serve(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		String query = exchange.getRequestURI().getQuery();
+		int status = 200;
+		String body;
+		if (path.equals("/api/auth/profile")) {
+			body = "{\"success\":true,\"data\":{\"id\":\"a1b2\"}}";
+		}
+		else if (path.equals("/orders/history")) {
+			boolean customer = query != null && query.matches("(.*&)?customerId=\\d+(&.*)?");
+			status = customer ? 200 : 400;
+			body = customer ? "{\"items\":[],\"nextCursor\":null}" : "{\"error\":\"customerId is required\"}";
+		}
+		else if (path.matches("/orders/\\d+")) {
+			body = "{\"id\":42}";
+		}
+		else if (path.equals("/products/trending") || path.matches("/products/\\d+/related")) {
+			body = "[]";
+		}
+		else {
+			status = 404;
+			body = "{}";
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
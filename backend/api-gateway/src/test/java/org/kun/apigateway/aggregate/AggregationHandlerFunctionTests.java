@@ -0,0 +1,108 @@
+package org.kun.apigateway.aggregate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.web.servlet.function.RouterFunctions.route;
+
+class AggregationHandlerFunctionTests {
+
+	private HttpServer upstream;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		upstream.createContext("/orders/42", exchange -> respond(exchange, 0, "{\"id\":42}"));
+		upstream.createContext("/products/trending", exchange -> respond(exchange, 1_000, "[{\"id\":1}]"));
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.start();
+
+		LoadBalancerClient loadBalancer = mock(LoadBalancerClient.class);
+		given(loadBalancer.choose(anyString())).willReturn(new DefaultServiceInstance("stub", "stub", "localhost",
+				upstream.getAddress().getPort(), false));
+
+		AggregationProperties.Composite composite = new AggregationProperties.Composite();
+		composite.setId("order-detail");
+		composite.setPath("/bff/orders/{orderId}");
+		composite.setLegs(List.of(
+				leg("order", "/orders/{orderId}", Duration.ofSeconds(2), true, null),
+				leg("related", "/products/trending", Duration.ofMillis(100), false, "[]")));
+		AggregationHandlerFunction handler = new AggregationHandlerFunction(composite, List.of("Authorization"),
+				loadBalancer, HttpClient.newHttpClient(), HttpClientTracing.NOOP, new ObjectMapper());
+		mockMvc = MockMvcBuilders.routerFunctions(route().GET(composite.getPath(), handler).build()).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		upstream.stop(0);
+	}
+
+	@Test
+	void mergesLegsAndFallsBackForSlowOptionalLeg() throws Exception {
+		MvcResult result = mockMvc.perform(get("/bff/orders/42"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.order.id").value(42))
+				.andExpect(jsonPath("$.related").isEmpty())
+				.andExpect(jsonPath("$._meta.partial").value(true))
+				.andExpect(jsonPath("$._meta.errors.related").value("timeout"));
+	}
+
+	private static AggregationProperties.Leg leg(String name, String path, Duration timeout, boolean required,
+			String fallback) {
+		AggregationProperties.Leg leg = new AggregationProperties.Leg();
+		leg.setName(name);
+		leg.setService("stub");
+		leg.setPath(path);
+		leg.setTimeout(timeout);
+		leg.setRequired(required);
+		leg.setFallback(fallback);
+		return leg;
+	}
+
+	private static void respond(HttpExchange exchange, long delayMillis, String body)
+			throws IOException {
+		try {
+			Thread.sleep(delayMillis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.kun.apigateway.benchmark;
+
+import org.kun.apigateway.accesslog.AccessLogRecorder;
+import org.kun.apigateway.accesslog.AccessLogRingBuffer;
+import org.kun.common.benchmark.Benchmarks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-request cost of the access log path (interning, two histogram updates and
+ * one ring buffer publish) while a background thread drains the buffer.
+ * The budget is 1 µs per request.
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.apigateway.benchmark.AccessLogBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessLogBenchmark {
+
+	private AccessLogRecorder recorder;
+	private Thread drainer;
+	private volatile boolean draining;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		recorder = new AccessLogRecorder(new AccessLogRingBuffer(65536));
+		draining = true;
+		drainer = new Thread(() -> {
+			AccessLogRingBuffer buffer = recorder.buffer();
+			while (draining) {
+				if (buffer.drain((b, slot) -> { }, 4096) == 0) {
+					LockSupport.parkNanos(100_000);
+				}
+			}
+		});
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		draining = false;
+		drainer.join();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void recordSingleThread() {
+		record();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordFourThreads() {
+		record();
+	}
+
+	private void record() {
+		long start = System.nanoTime();
+		recorder.record("GET", "product-service", "10.0.0.12:8081", "/products/12345", "192.168.1.20", 200,
+				System.currentTimeMillis(), System.nanoTime() - start + 1_500_000);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Benchmarks.run(AccessLogBenchmark.class, args);
+	}
+}
@@ -0,0 +1,87 @@
+package org.kun.apigateway.benchmark;
+
+import org.kun.apigateway.ratelimit.RateLimitProperties;
+import org.kun.apigateway.ratelimit.RateLimiter;
+import org.kun.common.benchmark.Benchmarks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rate limit decision: a map lookup plus one CAS, with 100k
+ * distinct clients spread over the route and all of them hot.
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.apigateway.benchmark.RateLimiterBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+	private static final int CLIENTS = 100_000;
+
+	private RateLimiter limiter;
+	private RateLimiter.RouteLimit route;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		RateLimitProperties.Route quota = new RateLimitProperties.Route();
+		quota.setId("catalog");
+		quota.setLimit(1_000_000);
+		quota.setPeriod(Duration.ofSeconds(1));
+		limiter = new RateLimiter(List.of(quota), CLIENTS, Duration.ofMinutes(5).toNanos());
+		route = limiter.routes().get(0);
+		keys = new String[CLIENTS];
+		for (int i = 0; i < CLIENTS; i++) {
+			keys[i] = "ip:10.0." + (i >> 8) + "." + (i & 0xff);
+			limiter.tryAcquire(route, keys[i], System.nanoTime());
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long acquireSingleThread() {
+		return acquire();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long acquireFourThreads() {
+		return acquire();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long acquireOneHotClient() {
+		return limiter.tryAcquire(route, keys[0], System.nanoTime());
+	}
+
+	private long acquire() {
+		return limiter.tryAcquire(route, keys[ThreadLocalRandom.current().nextInt(CLIENTS)], System.nanoTime());
+	}
+
+	public static void main(String[] args) throws Exception {
+		Benchmarks.run(RateLimiterBenchmark.class, args);
+	}
+}
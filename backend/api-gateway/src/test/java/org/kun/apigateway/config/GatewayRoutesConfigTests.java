@@ -0,0 +1,41 @@
+package org.kun.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.kun.apigateway.hedge.HedgingHandlerFactory;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class GatewayRoutesConfigTests {
+
+	private final RouterFunction<ServerResponse> routes =
+			new GatewayRoutesConfig(mock(HedgingHandlerFactory.class)).productServiceRoutes();
+
+	@Test
+	void categoriesAndStockAreReadOnly() {
+		assertThat(routes("GET", "/products/42")).isTrue();
+		assertThat(routes("POST", "/products/lookup")).isTrue();
+		assertThat(routes("GET", "/categories")).isTrue();
+		assertThat(routes("GET", "/categories/7/products")).isTrue();
+		assertThat(routes("GET", "/inventory/42")).isTrue();
+
+		assertThat(routes("POST", "/categories")).isFalse();
+		assertThat(routes("PUT", "/categories/7")).isFalse();
+		assertThat(routes("DELETE", "/categories/7")).isFalse();
+		assertThat(routes("POST", "/inventory/reservations")).isFalse();
+		assertThat(routes("POST", "/inventory/42/restock")).isFalse();
+	}
+
+	private boolean routes(String method, String path) {
+		ServerRequest request = ServerRequest.create(new MockHttpServletRequest(method, path),
+				List.of(new StringHttpMessageConverter()));
+		return routes.route(request).isPresent();
+	}
+}
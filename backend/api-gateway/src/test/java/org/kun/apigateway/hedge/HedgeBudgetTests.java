@@ -0,0 +1,35 @@
+package org.kun.apigateway.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgeBudgetTests {
+
+	@Test
+	void hedgesNeverExceedRatioPlusCapacity() {
+		HedgeBudget budget = new HedgeBudget(0.05, 5);
+		int hedges = 0;
+		for (int i = 0; i < 10_000; i++) {
+			budget.onRequest();
+			if (budget.tryAcquire()) {
+				hedges++;
+			}
+		}
+		assertThat(hedges).isLessThanOrEqualTo(500 + 5);
+		assertThat(hedges).isGreaterThanOrEqualTo(499);
+	}
+
+	@Test
+	void emptyBudgetRejectsHedges() {
+		HedgeBudget budget = new HedgeBudget(0.1, 2);
+		assertThat(budget.tryAcquire()).isFalse();
+		for (int i = 0; i < 100; i++) {
+			budget.onRequest();
+		}
+		assertThat(budget.available()).isEqualTo(2.0);
+		assertThat(budget.tryAcquire()).isTrue();
+		assertThat(budget.tryAcquire()).isTrue();
+		assertThat(budget.tryAcquire()).isFalse();
+	}
+}
@@ -0,0 +1,190 @@
+package org.kun.apigateway.hedge;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.apigateway.tracing.HttpClientTracing;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.web.servlet.function.RouterFunctions.route;
+
+/**
+ * Upstream calls and the hedge timer are stubbed so each test decides when every
+ * attempt answers and when the timer fires.
+ */
+class HedgingHandlerFunctionTests {
+
+	private final Map<String, CompletableFuture<HttpResponse<InputStream>>> attempts = new ConcurrentHashMap<>();
+	private final HttpClient httpClient = mock(HttpClient.class);
+	private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+	private final ScheduledFuture<?> timer = mock(ScheduledFuture.class);
+	private final HedgeBudget budget = spy(new HedgeBudget(1, 1));
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private HedgingHandlerFunction handler;
+	private Runnable timerTask;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		given(httpClient.sendAsync(any(HttpRequest.class), any())).willAnswer(invocation -> {
+			CompletableFuture<HttpResponse<InputStream>> attempt = new CompletableFuture<>();
+			attempts.put(invocation.<HttpRequest>getArgument(0).uri().getHost(), attempt);
+			return attempt;
+		});
+		given(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).willAnswer(invocation -> {
+			timerTask = invocation.getArgument(0);
+			return timer;
+		});
+		DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+		given(discoveryClient.getInstances("product-service")).willReturn(List.of(
+				new DefaultServiceInstance("a", "product-service", "instance-a", 8081, false),
+				new DefaultServiceInstance("b", "product-service", "instance-b", 8082, false)));
+		HedgingProperties properties = new HedgingProperties();
+		properties.setResponseTimeout(Duration.ofSeconds(5));
+		properties.setMinSamples(1);
+		properties.setMinDelay(Duration.ZERO);
+		handler = new HedgingHandlerFunction("product-service", discoveryClient, httpClient,
+				HttpClientTracing.NOOP, scheduler, budget, properties, meterRegistry);
+		mockMvc = MockMvcBuilders.routerFunctions(route().GET("/**", handler).POST("/**", handler).build()).build();
+	}
+
+	@Test
+	void firstResponseWinsAndTheHedgeGoesToTheOtherInstance() throws Exception {
+		MvcResult result = perform(get("/products/1"));
+		timerTask.run();
+
+		assertThat(attempts).containsOnlyKeys("instance-a", "instance-b");
+		attempts.get("instance-b").complete(response("from b"));
+		attempts.get("instance-a").complete(response("from a"));
+
+		dispatch(result).andExpect(status().isOk()).andExpect(content().string("from b"));
+		assertThat(meterRegistry.counter("gateway.hedge.wins", "route", "product-service").count()).isEqualTo(1);
+		// the losing primary still counts, with its elapsed time when it was cancelled
+		assertThat(handler.hedgeDelayMillis()).isLessThan(200);
+	}
+
+	@Test
+	void loserIsCancelled() throws Exception {
+		MvcResult result = perform(get("/products/1"));
+		timerTask.run();
+
+		attempts.get("instance-a").complete(response("from a"));
+
+		dispatch(result).andExpect(content().string("from a"));
+		assertThat(attempts.get("instance-b")).isCancelled();
+		verify(timer).cancel(false);
+	}
+
+	@Test
+	void hedgeSentAfterThePrimaryWonIsCancelled() throws Exception {
+		MvcResult result = perform(get("/products/1"));
+		// the primary answers while the timer is between its decided check and sending the hedge
+		willAnswer(invocation -> {
+			attempts.get("instance-a").complete(response("from a"));
+			return invocation.callRealMethod();
+		}).given(budget).tryAcquire();
+
+		timerTask.run();
+
+		dispatch(result).andExpect(content().string("from a"));
+		assertThat(attempts.get("instance-b")).isCancelled();
+	}
+
+	@Test
+	void nonIdempotentRequestsAreNeverHedged() throws Exception {
+		MvcResult result = perform(post("/products/1"));
+
+		verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+		attempts.get("instance-a").completeExceptionally(new IOException("reset"));
+
+		dispatch(result).andExpect(status().isBadGateway());
+		assertThat(attempts).containsOnlyKeys("instance-a");
+	}
+
+	@Test
+	void failedPrimaryWaitsForAHedgeTheTimerAlreadyStarted() throws Exception {
+		MvcResult result = perform(get("/products/1"));
+		// the primary fails while the timer is between taking the budget and sending the hedge
+		given(timer.cancel(false)).willReturn(false);
+		willAnswer(invocation -> {
+			attempts.get("instance-a").completeExceptionally(new IOException("reset"));
+			return invocation.callRealMethod();
+		}).given(budget).tryAcquire();
+
+		timerTask.run();
+		attempts.get("instance-b").complete(response("from b"));
+
+		dispatch(result).andExpect(status().isOk()).andExpect(content().string("from b"));
+	}
+
+	@Test
+	void failedPrimarySendsTheHedgeAtOnce() throws Exception {
+		MvcResult result = perform(get("/products/1"));
+
+		attempts.get("instance-a").completeExceptionally(new IOException("reset"));
+		assertThat(attempts).containsKey("instance-b");
+		timerTask.run();
+		attempts.get("instance-b").complete(response("from b"));
+
+		dispatch(result).andExpect(content().string("from b"));
+		assertThat(meterRegistry.counter("gateway.hedge.attempts", "route", "product-service").count()).isEqualTo(1);
+	}
+
+	private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andReturn();
+	}
+
+	private ResultActions dispatch(MvcResult result) throws Exception {
+		return mockMvc.perform(asyncDispatch(result));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static HttpResponse<InputStream> response(String body) {
+		HttpResponse<InputStream> response = mock(HttpResponse.class);
+		given(response.statusCode()).willReturn(200);
+		given(response.headers()).willReturn(HttpHeaders.of(Map.of("Content-Type", List.of("text/plain")),
+				(name, value) -> true));
+		given(response.body()).willReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+		given(response.uri()).willReturn(URI.create("http://upstream/products/1"));
+		return response;
+	}
+}
@@ -0,0 +1,162 @@
+package org.kun.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RateLimiterTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void bucketAdmitsBurstThenRefillsAtRate() {
+		TokenBucket bucket = new TokenBucket(10, SECOND, 0);
+		for (int i = 9; i >= 0; i--) {
+			assertThat(bucket.tryAcquire(0)).isEqualTo(i);
+		}
+		long rejected = bucket.tryAcquire(0);
+		assertThat(rejected).isNegative();
+		assertThat(-1 - rejected).isEqualTo(SECOND / 10);
+		assertThat(bucket.tryAcquire(SECOND / 10)).isEqualTo(0);
+		assertThat(bucket.isIdle(SECOND, 0)).isFalse();
+		assertThat(bucket.isIdle(2 * SECOND, 0)).isTrue();
+	}
+
+	@Test
+	void clientsHaveSeparateBucketsAndOverflowIsShared() {
+		RateLimiter limiter = new RateLimiter(List.of(route(2)), 2, SECOND);
+		RateLimiter.RouteLimit route = limiter.routes().get(0);
+		assertThat(limiter.tryAcquire(route, "a", 0)).isEqualTo(1);
+		assertThat(limiter.tryAcquire(route, "a", 0)).isEqualTo(0);
+		assertThat(limiter.tryAcquire(route, "a", 0)).isNegative();
+		assertThat(limiter.tryAcquire(route, "b", 0)).isEqualTo(1);
+
+		// cap reached: new clients share one bucket instead of growing the map
+		assertThat(limiter.tryAcquire(route, "c", 0)).isEqualTo(1);
+		assertThat(limiter.tryAcquire(route, "d", 0)).isEqualTo(0);
+		assertThat(limiter.tryAcquire(route, "e", 0)).isNegative();
+		assertThat(limiter.size()).isEqualTo(2);
+
+		limiter.sweep(10 * SECOND);
+		assertThat(limiter.size()).isZero();
+	}
+
+	@Test
+	void randomSubjectsFromOneIpShareOneBucket() {
+		JwtDecoder decoder = token -> {
+			throw new BadJwtException("signature does not verify");
+		};
+		for (JwtDecoder jwtDecoder : Arrays.asList(null, decoder)) {
+			ClientKeyResolver resolver = new ClientKeyResolver(List.of(RateLimitProperties.KeySource.values()),
+					"X-API-Key", Set.of(), jwtDecoder, 100, Duration.ofMinutes(1));
+			RateLimiter limiter = new RateLimiter(List.of(route(10)), 1_000, SECOND);
+			RateLimiter.RouteLimit route = limiter.routes().get(0);
+			int admitted = 0;
+			for (int i = 0; i < 50; i++) {
+				MockHttpServletRequest request = request("10.0.0.1");
+				request.addHeader("Authorization", "Bearer " + unsignedToken("client-" + i));
+				request.addHeader("X-API-Key", "random-" + i);
+				String key = resolver.resolve(request);
+				assertThat(key).isEqualTo("ip:10.0.0.1");
+				if (limiter.tryAcquire(route, key, 0) >= 0) {
+					admitted++;
+				}
+			}
+			assertThat(admitted).isEqualTo(10);
+			assertThat(limiter.size()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void verifiedSubjectsAndConfiguredApiKeysAreTrusted() {
+		JwtDecoder decoder = mock(JwtDecoder.class);
+		given(decoder.decode("good")).willReturn(Jwt.withTokenValue("good").header("alg", "RS256")
+				.subject("alice").expiresAt(Instant.now().plusSeconds(60)).build());
+		given(decoder.decode("expired")).willReturn(Jwt.withTokenValue("expired").header("alg", "RS256")
+				.subject("bob").issuedAt(Instant.now().minusSeconds(120)).expiresAt(Instant.now().minusSeconds(60))
+				.build());
+		ClientKeyResolver resolver = new ClientKeyResolver(List.of(RateLimitProperties.KeySource.values()),
+				"X-API-Key", Set.of("partner-key"), decoder, 100, Duration.ofMinutes(1));
+
+		MockHttpServletRequest signed = request("10.0.0.1");
+		signed.addHeader("Authorization", "Bearer good");
+		assertThat(resolver.resolve(signed)).isEqualTo("sub:alice");
+		assertThat(resolver.resolve(signed)).isEqualTo("sub:alice");
+		// the signature is checked once per token
+		verify(decoder, times(1)).decode("good");
+
+		MockHttpServletRequest expired = request("10.0.0.1");
+		expired.addHeader("Authorization", "Bearer expired");
+		assertThat(resolver.resolve(expired)).isEqualTo("ip:10.0.0.1");
+
+		MockHttpServletRequest partner = request("10.0.0.2");
+		partner.addHeader("X-API-Key", "partner-key");
+		assertThat(resolver.resolve(partner)).isEqualTo("key:partner-key");
+	}
+
+	@Test
+	void rejectedTokensAreCheckedAgainOnceTheRejectionExpires() throws InterruptedException {
+		MockHttpServletRequest request = request("10.0.0.1");
+		request.addHeader("Authorization", "Bearer early");
+
+		JwtDecoder decoder = notYetValidOnce("early");
+		ClientKeyResolver remembering = new ClientKeyResolver(List.of(RateLimitProperties.KeySource.values()),
+				"X-API-Key", Set.of(), decoder, 100, Duration.ofMinutes(1));
+		assertThat(remembering.resolve(request)).isEqualTo("ip:10.0.0.1");
+		assertThat(remembering.resolve(request)).isEqualTo("ip:10.0.0.1");
+		verify(decoder, times(1)).decode("early");
+
+		ClientKeyResolver expiring = new ClientKeyResolver(List.of(RateLimitProperties.KeySource.values()),
+				"X-API-Key", Set.of(), notYetValidOnce("early"), 100, Duration.ofMillis(200));
+		assertThat(expiring.resolve(request)).isEqualTo("ip:10.0.0.1");
+		Thread.sleep(300);
+		assertThat(expiring.resolve(request)).isEqualTo("sub:carol");
+	}
+
+	/**
+	 * Rejects {@code token} the first time, as for a clock a little behind the issuer's.
+	 */
+	private static JwtDecoder notYetValidOnce(String token) {
+		JwtDecoder decoder = mock(JwtDecoder.class);
+		given(decoder.decode(token)).willThrow(new BadJwtException("not before"))
+				.willReturn(Jwt.withTokenValue(token).header("alg", "RS256")
+						.subject("carol").expiresAt(Instant.now().plusSeconds(60)).build());
+		return decoder;
+	}
+
+	private static MockHttpServletRequest request(String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/1");
+		request.setRemoteAddr(remoteAddr);
+		return request;
+	}
+
+	private static String unsignedToken(String subject) {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+				+ encoder.encodeToString(("{\"sub\":\"" + subject + "\"}").getBytes(StandardCharsets.UTF_8)) + ".";
+	}
+
+	private static RateLimitProperties.Route route(long limit) {
+		RateLimitProperties.Route route = new RateLimitProperties.Route();
+		route.setId("test");
+		route.setLimit(limit);
+		route.setPeriod(Duration.ofSeconds(1));
+		return route;
+	}
+}
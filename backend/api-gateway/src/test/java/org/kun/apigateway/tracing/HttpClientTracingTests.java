@@ -0,0 +1,197 @@
+package org.kun.apigateway.tracing;
+
+import brave.Tracing;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BravePropagator;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.brave.bridge.W3CPropagation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.apigateway.aggregate.AggregationHandlerFunction;
+import org.kun.apigateway.aggregate.AggregationProperties;
+import org.kun.apigateway.hedge.HedgeBudget;
+import org.kun.apigateway.hedge.HedgingHandlerFunction;
+import org.kun.apigateway.hedge.HedgingProperties;
+import org.kun.common.tracing.SpanRecord;
+import org.kun.common.tracing.TailSamplingSpanHandler;
+import org.kun.common.tracing.TraceStore;
+import org.kun.common.tracing.TracingProperties;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.web.servlet.function.RouterFunctions.route;
+
+class HttpClientTracingTests {
+
+	private final List<HttpServer> upstreams = new ArrayList<>();
+	private final Map<String, String> traceparents = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final TraceStore store = new TraceStore(100, 256);
+
+	private Tracing tracing;
+	private Tracer tracer;
+	private HttpClientTracing httpClientTracing;
+
+	@BeforeEach
+	void setUp() {
+		tracing = Tracing.newBuilder()
+				.localServiceName("api-gateway")
+				.propagationFactory(new W3CPropagation())
+				.currentTraceContext(ThreadLocalCurrentTraceContext.create())
+				.traceId128Bit(true)
+				.alwaysSampleLocal()
+				.addSpanHandler(new TailSamplingSpanHandler(store, new TracingProperties(), new SimpleMeterRegistry()))
+				.build();
+		tracer = new BraveTracer(tracing.tracer(), new BraveCurrentTraceContext(tracing.currentTraceContext()));
+		httpClientTracing = new HttpClientTracing(tracer, new BravePropagator(tracing));
+	}
+
+	@AfterEach
+	void tearDown() {
+		upstreams.forEach(upstream -> upstream.stop(0));
+		scheduler.shutdownNow();
+		tracing.close();
+	}
+
+	@Test
+	void hedgeStartedOnTheTimerThreadJoinsTheRequestTrace() throws Exception {
+		HedgingProperties properties = new HedgingProperties();
+		properties.setInitialDelay(Duration.ofMillis(50));
+		DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+		given(discoveryClient.getInstances("product-service"))
+				.willReturn(List.of(instance(upstream("slow", 2_000)), instance(upstream("fast", 0))));
+		HedgingHandlerFunction handler = new HedgingHandlerFunction("product-service", discoveryClient,
+				HttpClient.newHttpClient(), httpClientTracing, scheduler, new HedgeBudget(1, 1), properties,
+				new SimpleMeterRegistry());
+
+		String traceId = callWithin(handler, get("/products/1"));
+
+		String[] slow = traceparents.get("slow").split("-");
+		String[] fast = traceparents.get("fast").split("-");
+		assertThat(slow[1]).isEqualTo(traceId);
+		assertThat(fast[1]).isEqualTo(traceId);
+		assertThat(fast[2]).isNotEqualTo(slow[2]);
+		assertThat(store.trace(traceId))
+				.filteredOn(span -> "CLIENT".equals(span.kind()))
+				.extracting(span -> span.tags().get("hedge"), span -> span.tags().get("cancelled"),
+						span -> span.tags().get("status"))
+				.containsExactlyInAnyOrder(
+						tuple(null, "true", null),
+						tuple("true", null, "200"));
+	}
+
+	@Test
+	void aggregationLegsAreChildrenOfTheRequestSpan() throws Exception {
+		LoadBalancerClient loadBalancer = mock(LoadBalancerClient.class);
+		given(loadBalancer.choose("order-service")).willReturn(instance(upstream("order", 0)));
+		given(loadBalancer.choose("product-service")).willReturn(instance(upstream("related", 1_000)));
+		AggregationProperties.Composite composite = new AggregationProperties.Composite();
+		composite.setId("order-detail");
+		composite.setPath("/bff/orders/{orderId}");
+		composite.setLegs(List.of(leg("order", "order-service", Duration.ofSeconds(2)),
+				leg("related", "product-service", Duration.ofMillis(100))));
+		AggregationHandlerFunction handler = new AggregationHandlerFunction(composite, List.of(), loadBalancer,
+				HttpClient.newHttpClient(), httpClientTracing, new ObjectMapper());
+
+		String traceId = callWithin(handler, get("/bff/orders/42"));
+
+		assertThat(traceparents.get("order")).startsWith("00-" + traceId + "-").endsWith("-01");
+		List<SpanRecord> spans = store.trace(traceId);
+		SpanRecord request = spans.stream().filter(span -> span.parentId() == null).findFirst().orElseThrow();
+		assertThat(spans).filteredOn(span -> "CLIENT".equals(span.kind()))
+				.allSatisfy(span -> assertThat(span.parentId()).isEqualTo(request.spanId()))
+				.extracting(span -> span.tags().get("leg"), span -> span.error() != null)
+				.containsExactlyInAnyOrder(
+						tuple("order", false),
+						tuple("related", true));
+	}
+
+	/**
+	 * Serves the request under a span standing in for the server observation and
+	 * returns its trace id once the span has ended.
+	 */
+	private String callWithin(HandlerFunction<ServerResponse> handler, MockHttpServletRequestBuilder request)
+			throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.routerFunctions(route().GET("/**", handler).build()).build();
+		Span span = tracer.nextSpan().name("request").start();
+		MvcResult result;
+		try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+			result = mockMvc.perform(request).andReturn();
+		}
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		span.end();
+		return span.context().traceId();
+	}
+
+	private HttpServer upstream(String name, long delayMillis) throws IOException {
+		HttpServer upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		upstream.createContext("/", exchange -> {
+			traceparents.put(name, exchange.getRequestHeaders().getFirst("traceparent"));
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.start();
+		upstreams.add(upstream);
+		return upstream;
+	}
+
+	private static ServiceInstance instance(HttpServer upstream) {
+		return new DefaultServiceInstance("product-service-" + upstream.getAddress().getPort(), "product-service",
+				"localhost", upstream.getAddress().getPort(), false);
+	}
+
+	private static AggregationProperties.Leg leg(String name, String service, Duration timeout) {
+		AggregationProperties.Leg leg = new AggregationProperties.Leg();
+		leg.setName(name);
+		leg.setService(service);
+		leg.setPath("/" + name);
+		leg.setTimeout(timeout);
+		return leg;
+	}
+}
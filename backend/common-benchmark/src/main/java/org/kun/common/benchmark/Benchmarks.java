@@ -0,0 +1,42 @@
+package org.kun.common.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Entry point for the {@code main} methods of the services' JMH benchmarks, which
+ * are run from the test classpath with {@code exec:java}.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Runs the benchmarks of one class; {@code args} are regular JMH options
+     * (e.g. {@code -wi 1 -i 3 -p products=200000}). Under {@code exec:java} the test
+     * classpath only exists in the context class loader, so it is copied to
+     * {@code java.class.path} for JMH's forked JVMs.
+     */
+    public static void run(Class<?> benchmark, String[] args) throws RunnerException, CommandLineOptionException {
+        if (Thread.currentThread().getContextClassLoader() instanceof URLClassLoader loader) {
+            StringJoiner classpath = new StringJoiner(File.pathSeparator);
+            for (URL url : loader.getURLs()) {
+                classpath.add(new File(url.getPath()).getPath());
+            }
+            System.setProperty("java.class.path", classpath.toString());
+        }
+        List<String> options = new ArrayList<>(List.of(args));
+        options.add(benchmark.getSimpleName());
+        new Runner(new CommandLineOptions(options.toArray(String[]::new))).run();
+    }
+}
@@ -0,0 +1,57 @@
+package org.kun.common.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the current thread's reads to the primary even in read-only transactions,
+ * for work that must not see a lagging replica.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = pin();
+        try {
+            return work.get();
+        }
+        finally {
+            restore(previous);
+        }
+    }
+
+    public static void runOnPrimary(Runnable work) {
+        Boolean previous = pin();
+        try {
+            work.run();
+        }
+        finally {
+            restore(previous);
+        }
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PRIMARY.get() != null;
+    }
+
+    /**
+     * Pins the current thread; pass the result to {@link #restore(Boolean)} when done.
+     */
+    static Boolean pin() {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(Boolean previous) {
+        if (previous == null) {
+            PRIMARY.remove();
+        }
+        else {
+            PRIMARY.set(previous);
+        }
+    }
+}
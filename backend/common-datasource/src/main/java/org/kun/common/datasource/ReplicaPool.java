@@ -0,0 +1,66 @@
+package org.kun.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One replica's connection pool and its last health check.
+ */
+@Slf4j
+final class ReplicaPool {
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private final Counter reads;
+    private volatile boolean healthy;
+    private volatile double lagSeconds = Double.NaN;
+
+    ReplicaPool(String name, HikariDataSource dataSource, Counter reads) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.reads = reads;
+    }
+
+    String name() {
+        return name;
+    }
+
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    Counter reads() {
+        return reads;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    double lagSeconds() {
+        return lagSeconds;
+    }
+
+    void lagged(double seconds, double maxLagSeconds) {
+        lagSeconds = seconds;
+        boolean caughtUp = seconds <= maxLagSeconds;
+        if (caughtUp != healthy) {
+            if (caughtUp) {
+                log.info("Replica {} is back in rotation ({} s behind)", name, seconds);
+            }
+            else {
+                log.warn("Replica {} is {} s behind, taking it out of rotation", name, seconds);
+            }
+        }
+        healthy = caughtUp;
+    }
+
+    void failed(Exception e) {
+        lagSeconds = Double.NaN;
+        if (healthy) {
+            log.warn("Replica {} failed, taking it out of rotation: {}", name, e.getMessage());
+        }
+        healthy = false;
+    }
+}
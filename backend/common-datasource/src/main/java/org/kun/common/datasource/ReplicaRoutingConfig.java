@@ -0,0 +1,73 @@
+package org.kun.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import net.ttddyy.observation.tracing.DataSourceObservationListener;
+import net.ttddyy.observation.tracing.JdbcObservationDocumentation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.EnumSet;
+
+/**
+ * Replaces the single auto-configured datasource with the primary pool plus the
+ * replicas. The datasource everything uses defers taking a connection until the
+ * first statement, by which time the transaction has marked it read-only or not,
+ * and takes read-only ones from {@link ReplicaSet#readDataSource()}.
+ *
+ * <p>A service imports this and declares the {@link ReplicaRoutingProperties}
+ * bean, bound under the service's own prefix.
+ */
+@Configuration
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(StringUtils.hasText(properties.getName()) ? properties.getName() : "primary");
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaSet replicaSet(HikariDataSource primaryDataSource, ReplicaRoutingProperties properties,
+                                 MeterRegistry meterRegistry) {
+        return new ReplicaSet(primaryDataSource, properties, meterRegistry);
+    }
+
+    /**
+     * Connections and statements are observed below the lazy proxy: observing the
+     * proxy itself would open the physical connection before the transaction has
+     * marked it read-only.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet,
+                                 ObjectProvider<ObservationRegistry> observationRegistry) {
+        DataSourceObservationListener listener = new DataSourceObservationListener(observationRegistry::getObject);
+        listener.setSupportedTypes(
+                EnumSet.of(JdbcObservationDocumentation.CONNECTION, JdbcObservationDocumentation.QUERY));
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(observed("primary", primaryDataSource, listener));
+        dataSource.setReadOnlyDataSource(observed("replica", replicaSet.readDataSource(), listener));
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesFilter(properties.getReadYourWritesWindow());
+    }
+
+    private static DataSource observed(String name, DataSource target, DataSourceObservationListener listener) {
+        return ProxyDataSourceBuilder.create(name, target).listener(listener).methodListener(listener).build();
+    }
+}
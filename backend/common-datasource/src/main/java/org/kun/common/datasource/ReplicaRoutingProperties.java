@@ -0,0 +1,65 @@
+package org.kun.common.datasource;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bound by each service under its own prefix ({@code order.datasource},
+ * {@code product.datasource}) from the bean it hands to {@link ReplicaRoutingConfig}.
+ */
+@Data
+public class ReplicaRoutingProperties {
+
+    /**
+     * Read replicas serving read-only transactions; with none, everything goes to the primary.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * A replica further behind the primary than this gets no reads until it catches up.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(2);
+
+    /**
+     * Returns a replica's replay lag in seconds (0 or null when caught up).
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    /**
+     * How long a read waits for a replica connection before falling back to the primary.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * After a client's POST, PUT, PATCH or DELETE its reads go to the primary for this
+     * long, counted from the start of that request. Should exceed max-lag plus
+     * health-check-interval, the most a replica in use can be behind.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    @Data
+    public static class Replica {
+
+        private String name;
+
+        private String url;
+
+        /**
+         * Defaults to the primary's.
+         */
+        private String username;
+
+        /**
+         * Defaults to the primary's.
+         */
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,147 @@
+package org.kun.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas: one Hikari pool each, a lag check on every pool at a fixed
+ * interval, and {@link #readDataSource()}, which hands out a connection from the
+ * next replica in rotation. Replicas that lag, fail the check or fail to give a
+ * connection are skipped; with none left, reads go to the primary.
+ */
+public class ReplicaSet implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaRoutingProperties properties;
+    private final List<ReplicaPool> replicas = new ArrayList<>();
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+    private final DataSource readDataSource = new ReadDataSource();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaSet(HikariDataSource primary, ReplicaRoutingProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.properties = properties;
+        this.primaryReads = meterRegistry.counter("datasource.reads", "pool", "primary");
+        int index = 0;
+        for (ReplicaRoutingProperties.Replica replica : properties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + ++index;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(Math.max(250, properties.getConnectionTimeout().toMillis()));
+            // a replica that is down at startup must not keep the service from starting
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            ReplicaPool replicaPool = new ReplicaPool(name, pool, meterRegistry.counter("datasource.reads", "pool", name));
+            meterRegistry.gauge("datasource.replica.lag", Tags.of("pool", name), replicaPool, ReplicaPool::lagSeconds);
+            meterRegistry.gauge("datasource.replica.healthy", Tags.of("pool", name), replicaPool,
+                    p -> p.isHealthy() ? 1 : 0);
+            replicas.add(replicaPool);
+        }
+    }
+
+    /**
+     * Connections for read-only transactions.
+     */
+    public DataSource readDataSource() {
+        return readDataSource;
+    }
+
+    public void start() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        check();
+        long interval = properties.getHealthCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the lag query on every replica and updates the rotation.
+     */
+    public void check() {
+        double maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+        for (ReplicaPool replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout((int) Math.max(1, properties.getHealthCheckInterval().toSeconds()));
+                try (ResultSet rs = statement.executeQuery(properties.getLagQuery())) {
+                    replica.lagged(rs.next() ? rs.getDouble(1) : 0, maxLagSeconds);
+                }
+            }
+            catch (SQLException | RuntimeException e) {
+                replica.failed(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (!ReadRouting.isPinnedToPrimary()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                ReplicaPool replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (!replica.isHealthy()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource().getConnection();
+                    replica.reads().increment();
+                    return connection;
+                }
+                catch (SQLException e) {
+                    replica.failed(e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    private final class ReadDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+
+        /**
+         * Not supported, as on the Hikari pools behind it: replica credentials are
+         * configured per pool, and a read may be served by any replica or the primary.
+         */
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Replica credentials are configured per pool");
+        }
+    }
+}
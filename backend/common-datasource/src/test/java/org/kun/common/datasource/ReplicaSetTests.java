@@ -0,0 +1,21 @@
+package org.kun.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLFeatureNotSupportedException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicaSetTests {
+
+    @Test
+    void readsCannotPickTheirOwnCredentials() {
+        try (HikariDataSource primary = new HikariDataSource();
+             ReplicaSet replicaSet = new ReplicaSet(primary, new ReplicaRoutingProperties(), new SimpleMeterRegistry())) {
+            assertThatThrownBy(() -> replicaSet.readDataSource().getConnection("reader", "secret"))
+                    .isInstanceOf(SQLFeatureNotSupportedException.class);
+        }
+    }
+}
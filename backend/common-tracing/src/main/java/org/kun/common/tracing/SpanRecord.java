@@ -0,0 +1,39 @@
+package org.kun.common.tracing;
+
+import brave.handler.MutableSpan;
+
+import java.util.Map;
+
+/**
+ * One finished span of a kept trace. Times are epoch microseconds; {@code error}
+ * is the exception or error tag, {@code null} when the span succeeded.
+ */
+public record SpanRecord(String traceId, String spanId, String parentId, String name, String kind,
+                         String service, String remoteService, long startMicros, long durationMicros,
+                         String error, Map<String, String> tags) {
+
+    static SpanRecord of(MutableSpan span) {
+        return new SpanRecord(span.traceId(), span.id(), span.parentId(), span.name(),
+                span.kind() == null ? null : span.kind().name(), span.localServiceName(), span.remoteServiceName(),
+                span.startTimestamp(), span.finishTimestamp() - span.startTimestamp(), error(span), span.tags());
+    }
+
+    /**
+     * Server and client observations end with an outcome tag rather than an exception
+     * when the request produced a 5xx, so that counts as an error too.
+     */
+    static String error(MutableSpan span) {
+        if (span.error() != null) {
+            return span.error().toString();
+        }
+        String tag = span.tag("error");
+        if (tag != null) {
+            return tag;
+        }
+        return "SERVER_ERROR".equals(span.tag("outcome")) ? "status " + span.tag("status") : null;
+    }
+
+    long endMicros() {
+        return startMicros + durationMicros;
+    }
+}
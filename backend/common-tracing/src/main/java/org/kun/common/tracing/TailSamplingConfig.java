@@ -0,0 +1,49 @@
+package org.kun.common.tracing;
+
+import brave.Tracing;
+import brave.TracingCustomizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Keeps a service's spans in memory with tail sampling and serves them from the
+ * {@code traces} actuator endpoint. A service imports this and declares the
+ * {@link TracingProperties} bean, bound under the service's own prefix.
+ */
+@Configuration
+public class TailSamplingConfig {
+
+    @Bean
+    public TraceStore traceStore(TracingProperties properties) {
+        return new TraceStore(properties.getMaxTraces(), properties.getMaxSpansPerTrace());
+    }
+
+    @Bean
+    public TailSamplingSpanHandler tailSamplingSpanHandler(TraceStore traceStore, TracingProperties properties,
+                                                           MeterRegistry meterRegistry) {
+        return new TailSamplingSpanHandler(traceStore, properties, meterRegistry);
+    }
+
+    /**
+     * Records spans the head sampler turned down so the tail decision can still keep them;
+     * {@code traceparent} keeps carrying the head decision downstream.
+     */
+    @Bean
+    public TracingCustomizer alwaysSampleLocal() {
+        return Tracing.Builder::alwaysSampleLocal;
+    }
+
+    @Bean
+    public TracesEndpoint tracesEndpoint(TraceStore traceStore) {
+        return new TracesEndpoint(traceStore);
+    }
+
+    @Bean
+    public ObservationPredicate noActuatorRequests() {
+        return (name, context) -> !(context instanceof ServerRequestObservationContext request)
+                || !request.getCarrier().getRequestURI().startsWith("/actuator");
+    }
+}
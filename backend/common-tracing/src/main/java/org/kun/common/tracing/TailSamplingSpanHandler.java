@@ -0,0 +1,153 @@
+package org.kun.common.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Decides which traces reach the {@link TraceStore} once their local root span ends.
+ * <p>
+ * Every span is recorded locally (the tracer samples locally regardless of the head
+ * decision), so children are buffered per local root until the root ends. The trace is
+ * then kept when the head sampler chose it, when any of its spans failed, or when the
+ * root took at least {@link TracingProperties#getSlowThreshold()}; otherwise the buffer
+ * is dropped without being converted. The head decision travels with
+ * {@code traceparent}, so every service keeps the same sampled traces; the tail
+ * decision is local, so a service keeps its part of a slow or failing trace even when
+ * the services around it were fast.
+ * <p>
+ * Spans that end after their local root (a cancelled call still draining) find no
+ * buffer to join and are discarded with the stale buffers after
+ * {@link TracingProperties#getPendingTimeout()}.
+ */
+public class TailSamplingSpanHandler extends SpanHandler {
+
+    private static final int SWEEP_EVERY = 1_024;
+
+    private final TraceStore store;
+    private final long slowMicros;
+    private final int maxSpansPerTrace;
+    private final int maxPendingTraces;
+    private final long pendingTimeoutNanos;
+    private final Map<Long, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger untilSweep = new AtomicInteger(SWEEP_EVERY);
+
+    private final Counter sampled;
+    private final Counter failed;
+    private final Counter slow;
+    private final Counter dropped;
+    private final Counter droppedSpans;
+
+    public TailSamplingSpanHandler(TraceStore store, TracingProperties properties, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.slowMicros = properties.getSlowThreshold().toNanos() / 1_000;
+        this.maxSpansPerTrace = properties.getMaxSpansPerTrace();
+        this.maxPendingTraces = properties.getMaxPendingTraces();
+        this.pendingTimeoutNanos = properties.getPendingTimeout().toNanos();
+        this.sampled = meterRegistry.counter("tracing.traces", "decision", "sampled");
+        this.failed = meterRegistry.counter("tracing.traces", "decision", "error");
+        this.slow = meterRegistry.counter("tracing.traces", "decision", "slow");
+        this.dropped = meterRegistry.counter("tracing.traces", "decision", "dropped");
+        this.droppedSpans = meterRegistry.counter("tracing.spans.dropped");
+        meterRegistry.gauge("tracing.traces.pending", pending, Map::size);
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (context.isLocalRoot()) {
+            finish(context, span, pending.remove(context.localRootId()));
+            return true;
+        }
+        PendingTrace trace = pending.get(context.localRootId());
+        if (trace == null) {
+            if (untilSweep.decrementAndGet() <= 0) {
+                untilSweep.set(SWEEP_EVERY);
+                sweep();
+            }
+            if (pending.size() >= maxPendingTraces) {
+                droppedSpans.increment();
+                return true;
+            }
+            trace = pending.computeIfAbsent(context.localRootId(), id -> new PendingTrace());
+        }
+        if (!trace.add(span, maxSpansPerTrace)) {
+            droppedSpans.increment();
+        }
+        return true;
+    }
+
+    int pendingTraces() {
+        return pending.size();
+    }
+
+    private void finish(TraceContext context, MutableSpan root, PendingTrace trace) {
+        String reason = reason(context, root, trace);
+        if (reason == null) {
+            dropped.increment();
+            return;
+        }
+        List<SpanRecord> spans = new ArrayList<>();
+        if (trace != null) {
+            trace.forEach(span -> spans.add(SpanRecord.of(span)));
+        }
+        spans.add(SpanRecord.of(root));
+        store.add(root.traceId(), reason, spans);
+    }
+
+    private String reason(TraceContext context, MutableSpan root, PendingTrace trace) {
+        if (Boolean.TRUE.equals(context.sampled()) || context.debug()) {
+            sampled.increment();
+            return "sampled";
+        }
+        if (SpanRecord.error(root) != null || trace != null && trace.failed()) {
+            failed.increment();
+            return "error";
+        }
+        if (root.finishTimestamp() - root.startTimestamp() >= slowMicros) {
+            slow.increment();
+            return "slow";
+        }
+        return null;
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        pending.values().removeIf(trace -> now - trace.createdNanos > pendingTimeoutNanos);
+    }
+
+    /**
+     * Spans of one local root that ended before it did.
+     */
+    private static final class PendingTrace {
+
+        private final long createdNanos = System.nanoTime();
+        private final List<MutableSpan> spans = new ArrayList<>();
+        private boolean failed;
+
+        private synchronized boolean add(MutableSpan span, int max) {
+            failed |= SpanRecord.error(span) != null;
+            if (spans.size() >= max) {
+                return false;
+            }
+            spans.add(span);
+            return true;
+        }
+
+        private synchronized boolean failed() {
+            return failed;
+        }
+
+        private synchronized void forEach(Consumer<MutableSpan> action) {
+            spans.forEach(action);
+        }
+    }
+}
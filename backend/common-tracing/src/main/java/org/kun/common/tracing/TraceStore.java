@@ -0,0 +1,110 @@
+package org.kun.common.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The last {@link TracingProperties#getMaxTraces()} kept traces, oldest evicted first.
+ * Only kept traces reach it, a small fraction of the spans recorded, so one lock is enough.
+ */
+public class TraceStore {
+
+    private final Map<String, StoredTrace> traces;
+    private final int maxSpansPerTrace;
+
+    public TraceStore(int maxTraces, int maxSpansPerTrace) {
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.traces = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredTrace> eldest) {
+                return size() > maxTraces;
+            }
+        };
+    }
+
+    /**
+     * Adds the spans of one local root; a trace that passes through this service
+     * more than once collects all of them, up to the per-trace limit, under the first
+     * reason it was kept for.
+     */
+    synchronized void add(String traceId, String reason, List<SpanRecord> spans) {
+        List<SpanRecord> stored = traces.computeIfAbsent(traceId, id -> new StoredTrace(reason)).spans;
+        stored.addAll(spans.subList(0, Math.min(spans.size(), Math.max(0, maxSpansPerTrace - stored.size()))));
+    }
+
+    /**
+     * Kept traces, newest first.
+     */
+    public synchronized List<TraceSummary> recent(int limit, long minDurationMicros, boolean errorsOnly) {
+        List<TraceSummary> result = new ArrayList<>();
+        List<Map.Entry<String, StoredTrace>> entries = new ArrayList<>(traces.entrySet());
+        for (int i = entries.size() - 1; i >= 0 && result.size() < limit; i--) {
+            TraceSummary summary = entries.get(i).getValue().summary(entries.get(i).getKey());
+            if (summary.durationMicros() >= minDurationMicros && (!errorsOnly || summary.error())) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Spans of a kept trace in start order, or {@code null} when it is not (or no longer) held.
+     */
+    public synchronized List<SpanRecord> trace(String traceId) {
+        StoredTrace trace = traces.get(traceId);
+        if (trace == null) {
+            return null;
+        }
+        List<SpanRecord> spans = new ArrayList<>(trace.spans);
+        spans.sort(Comparator.comparingLong(SpanRecord::startMicros));
+        return spans;
+    }
+
+    public synchronized int size() {
+        return traces.size();
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+
+    private static final class StoredTrace {
+
+        private final String reason;
+        private final List<SpanRecord> spans = new ArrayList<>();
+
+        private StoredTrace(String reason) {
+            this.reason = reason;
+        }
+
+        private TraceSummary summary(String traceId) {
+            SpanRecord root = null;
+            long start = Long.MAX_VALUE;
+            long end = Long.MIN_VALUE;
+            boolean error = false;
+            for (SpanRecord span : spans) {
+                if (root == null || isBetterRoot(span, root)) {
+                    root = span;
+                }
+                start = Math.min(start, span.startMicros());
+                end = Math.max(end, span.endMicros());
+                error |= span.error() != null;
+            }
+            return new TraceSummary(traceId, root.name(), root.service(), start, end - start, spans.size(), error, reason);
+        }
+
+        /**
+         * The trace's own root when this service started it, else the earliest span here.
+         */
+        private static boolean isBetterRoot(SpanRecord candidate, SpanRecord current) {
+            boolean candidateIsRoot = candidate.parentId() == null;
+            if (candidateIsRoot != (current.parentId() == null)) {
+                return candidateIsRoot;
+            }
+            return candidate.startMicros() < current.startMicros();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.kun.common.tracing;
+
+/**
+ * A kept trace as listed by {@code /actuator/traces}: its root span, extent, and
+ * why it was kept ({@code sampled}, {@code error} or {@code slow}).
+ */
+public record TraceSummary(String traceId, String name, String service, long startMicros, long durationMicros,
+                           int spans, boolean error, String reason) {
+}
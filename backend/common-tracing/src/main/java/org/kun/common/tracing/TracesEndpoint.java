@@ -0,0 +1,41 @@
+package org.kun.common.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/traces}: the kept traces, newest first, filtered by minimum duration
+ * or errors; {@code /actuator/traces/{traceId}} lists one trace's spans.
+ */
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final TraceStore store;
+
+    public TracesEndpoint(TraceStore store) {
+        this.store = store;
+    }
+
+    @ReadOperation
+    public List<TraceSummary> traces(@Nullable Long minDurationMs, @Nullable Boolean errors, @Nullable Integer limit) {
+        return store.recent(limit == null ? DEFAULT_LIMIT : Math.max(0, limit),
+                minDurationMs == null ? 0 : minDurationMs * 1_000, Boolean.TRUE.equals(errors));
+    }
+
+    @ReadOperation
+    public List<SpanRecord> trace(@Selector String traceId) {
+        return store.trace(traceId);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        store.clear();
+    }
+}
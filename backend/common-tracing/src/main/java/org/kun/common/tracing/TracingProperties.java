@@ -0,0 +1,39 @@
+package org.kun.common.tracing;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Tail sampling and the in-memory trace store; the head-sampling rate is
+ * {@code management.tracing.sampling.probability}. Each service binds these under
+ * its own prefix, e.g. {@code order.tracing}.
+ */
+@Data
+public class TracingProperties {
+
+    /**
+     * A trace that was not head-sampled is still kept when its local root took at least this long.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    /**
+     * Kept traces held in memory; the oldest is evicted first.
+     */
+    private int maxTraces = 1_000;
+
+    /**
+     * Spans buffered and stored per trace; later ones are dropped.
+     */
+    private int maxSpansPerTrace = 256;
+
+    /**
+     * Traces whose local root is still open; beyond this new spans are dropped and counted.
+     */
+    private int maxPendingTraces = 10_000;
+
+    /**
+     * How long buffered spans wait for their local root before they are discarded.
+     */
+    private Duration pendingTimeout = Duration.ofMinutes(1);
+}
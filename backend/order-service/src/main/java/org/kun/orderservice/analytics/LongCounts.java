@@ -0,0 +1,120 @@
+package org.kun.orderservice.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from {@code long} keys to {@code long} counts with linear
+ * probing, so counting per product or remembering order ids costs two array slots
+ * per key rather than boxed entries. Not thread-safe.
+ */
+final class LongCounts {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+    private boolean hasZero;
+    private long zeroCount;
+
+    LongCounts(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code key} and returns the count before.
+     */
+    long add(long key, long delta) {
+        if (key == EMPTY) {
+            long before = zeroCount;
+            zeroCount += delta;
+            hasZero = true;
+            return before;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            long before = counts[slot];
+            counts[slot] += delta;
+            return before;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return 0;
+    }
+
+    boolean contains(long key) {
+        return key == EMPTY ? hasZero : keys[slot(key)] == key;
+    }
+
+    long get(long key) {
+        if (key == EMPTY) {
+            return zeroCount;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    void forEach(Entry action) {
+        if (hasZero) {
+            action.accept(EMPTY, zeroCount);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasZero = false;
+        zeroCount = 0;
+    }
+
+    /**
+     * The slot holding {@code key}, or the empty slot where it belongs.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    interface Entry {
+
+        void accept(long key, long count);
+    }
+}
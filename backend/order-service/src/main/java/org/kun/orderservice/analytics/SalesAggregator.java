@@ -0,0 +1,359 @@
+package org.kun.orderservice.analytics;
+
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.kun.orderservice.dto.SalesWindow;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sales counted into fixed time buckets (a minute by default) held in a ring that
+ * covers the retention. A tumbling window is a run of buckets aligned to its size
+ * and a sliding window is the run ending with the current bucket, so a query adds
+ * up at most retention / bucket buckets however many orders there were, and memory
+ * stays bounded by the retention and the per-bucket product limit.
+ * <p>
+ * Orders are counted in the bucket of their own time, so a late event still lands
+ * in its minute while that is retained; older ones are dropped. Order ids are kept
+ * per bucket to ignore redelivered events. Each change bumps the bucket's version,
+ * which {@link #changedBuckets} and {@link #markRolledUp} use to tell which buckets
+ * still have to be written to the summary table.
+ * <p>
+ * Each instance counts only the orders relayed to it and the carts it validated.
+ * The other instances' counts, read back from the summary table, are held next to
+ * this instance's by {@link #replacePeers} and included in every window, but never
+ * rolled up.
+ */
+public class SalesAggregator {
+
+    /**
+     * Product id under which products past the per-bucket limit are counted.
+     */
+    public static final long OTHER_PRODUCTS = -1;
+
+    private final long bucketMillis;
+    private final int maxProductsPerBucket;
+    private final Bucket[] ring;
+
+    private long dropped;
+
+    public SalesAggregator(Duration bucket, Duration retention, int maxProductsPerBucket) {
+        this.bucketMillis = bucket.toMillis();
+        if (bucketMillis <= 0 || retention.toMillis() < bucketMillis) {
+            throw new IllegalArgumentException("The retention must hold at least one bucket");
+        }
+        this.maxProductsPerBucket = maxProductsPerBucket;
+        this.ring = new Bucket[(int) (retention.toMillis() / bucketMillis)];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Bucket();
+        }
+    }
+
+    public Duration bucketSize() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    public Duration retention() {
+        return Duration.ofMillis(bucketMillis * ring.length);
+    }
+
+    /**
+     * Counts an order once; false when it was already counted or is older than the retention.
+     */
+    public synchronized boolean recordOrder(OrderPlacedEvent order, Instant now) {
+        Bucket bucket = bucket(index(order.placedAt()), index(now));
+        if (bucket == null) {
+            dropped++;
+            return false;
+        }
+        if (bucket.orderIds.add(order.orderId(), 1) > 0) {
+            return false;
+        }
+        bucket.orders++;
+        bucket.revenueCents += cents(order.total());
+        for (OrderPlacedEvent.Item item : order.items()) {
+            bucket.items += item.quantity();
+            long productId = bucket.quantities.contains(item.productId())
+                    || bucket.quantities.size() < maxProductsPerBucket ? item.productId() : OTHER_PRODUCTS;
+            bucket.quantities.add(productId, item.quantity());
+        }
+        bucket.version++;
+        return true;
+    }
+
+    /**
+     * Counts a validated cart, the denominator of the conversion rate.
+     */
+    public synchronized void recordCheckout(Instant at) {
+        long index = index(at);
+        Bucket bucket = bucket(index, index);
+        if (bucket == null) {
+            return;
+        }
+        bucket.checkouts++;
+        bucket.version++;
+    }
+
+    /**
+     * The latest {@code count} windows of {@code size}, oldest first; the last one is
+     * still in progress.
+     *
+     * @throws IllegalArgumentException when {@code size} is not a whole number of
+     *                                  buckets or the windows reach past the retention
+     */
+    public synchronized List<SalesWindow> tumbling(Duration size, int count, int top, Instant now) {
+        int perWindow = bucketsPer(size);
+        if (count < 1 || (long) perWindow * count > ring.length) {
+            throw new IllegalArgumentException("At most " + retention() + " of windows are retained");
+        }
+        long current = Math.floorDiv(index(now), perWindow) * perWindow;
+        List<SalesWindow> windows = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            long first = current - (long) i * perWindow;
+            windows.add(sum(first, first + perWindow, top, null));
+        }
+        return windows;
+    }
+
+    /**
+     * The window of {@code size} ending now, made of whole buckets.
+     */
+    public synchronized SalesWindow sliding(Duration size, int top, Instant now) {
+        int perWindow = bucketsPer(size);
+        if (perWindow > ring.length) {
+            throw new IllegalArgumentException("At most " + retention() + " is retained");
+        }
+        long last = index(now);
+        return sum(last - perWindow + 1, last + 1, top, now);
+    }
+
+    /**
+     * Buckets changed since they were last rolled up, up to {@code before} (exclusive);
+     * the current bucket is only included once it is finished unless {@code before}
+     * lies past it.
+     */
+    public synchronized List<BucketSnapshot> changedBuckets(Instant before, int top) {
+        long end = index(before);
+        List<BucketSnapshot> changed = new ArrayList<>();
+        for (Bucket bucket : ring) {
+            if (bucket.index >= 0 && bucket.index < end && bucket.version != bucket.rolledVersion) {
+                changed.add(new BucketSnapshot(Instant.ofEpochMilli(bucket.index * bucketMillis), bucket.orders,
+                        bucket.revenueCents, bucket.items, bucket.checkouts, top(bucket.quantities, top),
+                        bucket.version));
+            }
+        }
+        changed.sort((a, b) -> a.start().compareTo(b.start()));
+        return changed;
+    }
+
+    /**
+     * Records that {@code written} were stored; a bucket changed again in the meantime
+     * stays changed.
+     */
+    public synchronized void markRolledUp(List<BucketSnapshot> written) {
+        for (BucketSnapshot snapshot : written) {
+            long index = index(snapshot.start());
+            Bucket bucket = ring[slot(index)];
+            if (bucket.index == index) {
+                bucket.rolledVersion = Math.max(bucket.rolledVersion, snapshot.version());
+            }
+        }
+    }
+
+    /**
+     * Puts back a bucket read from the summary table, e.g. after a restart; its order
+     * ids are not known, so a redelivery of one of its orders would count again.
+     */
+    public synchronized void restore(BucketSnapshot snapshot, Instant now) {
+        Bucket bucket = bucket(index(snapshot.start()), index(now));
+        if (bucket == null) {
+            return;
+        }
+        bucket.orders += snapshot.orders();
+        bucket.revenueCents += snapshot.revenueCents();
+        bucket.items += snapshot.items();
+        bucket.checkouts += snapshot.checkouts();
+        for (SalesWindow.ProductSales product : snapshot.topProducts()) {
+            bucket.quantities.add(product.productId(), product.quantity());
+        }
+        bucket.version++;
+        bucket.rolledVersion = bucket.version;
+    }
+
+    /**
+     * Replaces the other instances' counts with {@code peers}, which may hold several
+     * snapshots of the same bucket; those past the retention are ignored.
+     */
+    public synchronized void replacePeers(Collection<BucketSnapshot> peers, Instant now) {
+        for (Bucket bucket : ring) {
+            bucket.clearPeers();
+        }
+        long current = index(now);
+        for (BucketSnapshot snapshot : peers) {
+            Bucket bucket = bucket(index(snapshot.start()), current);
+            if (bucket == null) {
+                continue;
+            }
+            bucket.peerOrders += snapshot.orders();
+            bucket.peerRevenueCents += snapshot.revenueCents();
+            bucket.peerItems += snapshot.items();
+            bucket.peerCheckouts += snapshot.checkouts();
+            for (SalesWindow.ProductSales product : snapshot.topProducts()) {
+                bucket.peerQuantities.add(product.productId(), product.quantity());
+            }
+        }
+    }
+
+    /**
+     * Orders dropped for being older than the retention.
+     */
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    private SalesWindow sum(long first, long end, int top, Instant endTime) {
+        long orders = 0;
+        long revenueCents = 0;
+        long items = 0;
+        long checkouts = 0;
+        LongCounts quantities = new LongCounts(64);
+        for (long index = first; index < end; index++) {
+            Bucket bucket = ring[slot(index)];
+            if (bucket.index != index) {
+                continue;
+            }
+            orders += bucket.orders + bucket.peerOrders;
+            revenueCents += bucket.revenueCents + bucket.peerRevenueCents;
+            items += bucket.items + bucket.peerItems;
+            checkouts += bucket.checkouts + bucket.peerCheckouts;
+            bucket.quantities.forEach(quantities::add);
+            bucket.peerQuantities.forEach(quantities::add);
+        }
+        return new SalesWindow(Instant.ofEpochMilli(first * bucketMillis),
+                endTime != null ? endTime : Instant.ofEpochMilli(end * bucketMillis), orders,
+                BigDecimal.valueOf(revenueCents, 2), items, checkouts,
+                checkouts == 0 ? null : (double) orders / checkouts, top(quantities, top));
+    }
+
+    /**
+     * The bucket for {@code index}, emptied first if it still holds an older one;
+     * null when {@code index} is past the retention or ahead of {@code now}.
+     */
+    private Bucket bucket(long index, long now) {
+        if (index <= now - ring.length || index > now + 1) {
+            return null;
+        }
+        Bucket bucket = ring[slot(index)];
+        if (bucket.index != index) {
+            if (bucket.index > index) {
+                // the slot already holds a newer bucket; this one has expired
+                return null;
+            }
+            bucket.reset(index);
+        }
+        return bucket;
+    }
+
+    private int bucketsPer(Duration size) {
+        long millis = size.toMillis();
+        if (millis <= 0 || millis % bucketMillis != 0) {
+            throw new IllegalArgumentException("Window sizes are whole multiples of " + bucketSize());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, millis / bucketMillis);
+    }
+
+    private long index(Instant time) {
+        return Math.floorDiv(time.toEpochMilli(), bucketMillis);
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) ring.length);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * The {@code n} largest counts, largest first.
+     */
+    private static List<SalesWindow.ProductSales> top(LongCounts counts, int n) {
+        if (n <= 0) {
+            return List.of();
+        }
+        long[] keys = new long[n];
+        long[] values = new long[n];
+        int[] size = {0};
+        counts.forEach((key, count) -> {
+            if (size[0] == n && count <= values[n - 1]) {
+                return;
+            }
+            int at = Math.min(size[0], n - 1);
+            while (at > 0 && values[at - 1] < count) {
+                keys[at] = keys[at - 1];
+                values[at] = values[at - 1];
+                at--;
+            }
+            keys[at] = key;
+            values[at] = count;
+            size[0] = Math.min(n, size[0] + 1);
+        });
+        List<SalesWindow.ProductSales> top = new ArrayList<>(size[0]);
+        for (int i = 0; i < size[0]; i++) {
+            top.add(new SalesWindow.ProductSales(keys[i], values[i]));
+        }
+        return top;
+    }
+
+    /**
+     * A bucket as written to the summary table; {@code version} identifies the state.
+     */
+    public record BucketSnapshot(Instant start, long orders, long revenueCents, long items, long checkouts,
+                                 List<SalesWindow.ProductSales> topProducts, long version) {
+    }
+
+    private static final class Bucket {
+
+        private long index = -1;
+        private long orders;
+        private long revenueCents;
+        private long items;
+        private long checkouts;
+        private final LongCounts quantities = new LongCounts(64);
+        private final LongCounts orderIds = new LongCounts(64);
+        private long version;
+        private long rolledVersion;
+        // the other instances', as of their last rollup
+        private long peerOrders;
+        private long peerRevenueCents;
+        private long peerItems;
+        private long peerCheckouts;
+        private final LongCounts peerQuantities = new LongCounts(64);
+
+        void reset(long index) {
+            this.index = index;
+            orders = 0;
+            revenueCents = 0;
+            items = 0;
+            checkouts = 0;
+            quantities.clear();
+            orderIds.clear();
+            version = 0;
+            rolledVersion = 0;
+            clearPeers();
+        }
+
+        void clearPeers() {
+            peerOrders = 0;
+            peerRevenueCents = 0;
+            peerItems = 0;
+            peerCheckouts = 0;
+            peerQuantities.clear();
+        }
+    }
+}
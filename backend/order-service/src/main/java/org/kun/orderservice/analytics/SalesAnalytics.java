@@ -0,0 +1,199 @@
+package org.kun.orderservice.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.kun.orderservice.dto.SalesWindow;
+import org.kun.orderservice.outbox.Outbox;
+import org.kun.orderservice.outbox.OutboxEvent;
+import org.kun.orderservice.outbox.OutboxSubscriber;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds {@code OrderPlaced} events from the outbox into the {@link SalesAggregator},
+ * so dashboards read memory instead of running aggregates over the order tables.
+ * <p>
+ * Relays on several instances deliver disjoint batches, and carts are counted where
+ * they were validated, so each instance holds only part of the sales. Every rollup
+ * interval each instance writes its changed buckets, the current one included, to
+ * {@code sales_rollups_by_node} under its order id node, then reads the other
+ * nodes' rows back as the aggregator's peers. Windows are therefore complete up to
+ * one rollup interval behind the other instances, and an order redelivered to a
+ * second instance is counted by both.
+ * <p>
+ * At startup this node's buckets still within the retention are read back; on
+ * shutdown they are written once more, so a restart loses nothing but the order ids
+ * used to ignore redeliveries.
+ */
+@Slf4j
+public class SalesAnalytics implements OutboxSubscriber, AutoCloseable {
+
+    private static final TypeReference<List<SalesWindow.ProductSales>> PRODUCTS = new TypeReference<>() {
+    };
+    private static final String INSERT = "INSERT INTO sales_rollups_by_node (bucket_start, node_id, orders, revenue, "
+            + "items, checkouts, top_products) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT bucket_start, orders, revenue, items, checkouts, top_products "
+            + "FROM sales_rollups_by_node WHERE bucket_start > ? AND ";
+
+    private final SalesAggregator aggregator;
+    private final SalesLiveFeed liveFeed;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate separate;
+    private final ObjectMapper objectMapper;
+    private final SalesAnalyticsProperties properties;
+    private final int nodeId;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SalesAnalytics(SalesAggregator aggregator, SalesLiveFeed liveFeed, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                          SalesAnalyticsProperties properties, int nodeId, MeterRegistry meterRegistry) {
+        this.aggregator = aggregator;
+        this.liveFeed = liveFeed;
+        this.jdbcTemplate = jdbcTemplate;
+        this.separate = new TransactionTemplate(transactionManager);
+        this.separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.nodeId = nodeId;
+        meterRegistry.gauge("order.analytics.dropped", aggregator, SalesAggregator::dropped);
+    }
+
+    public void start() {
+        Instant now = Instant.now();
+        restore(now);
+        refreshPeers(now);
+        long rollup = properties.getRollupInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rollup(Instant.now().plus(aggregator.bucketSize()));
+                refreshPeers(Instant.now());
+            }
+            catch (RuntimeException e) {
+                log.warn("Rolling up sales failed; retrying in {}", properties.getRollupInterval(), e);
+            }
+        }, rollup, rollup, TimeUnit.MILLISECONDS);
+        long live = properties.getLiveInterval().toMillis();
+        scheduler.scheduleAtFixedRate(liveFeed::broadcast, live, live, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        liveFeed.close();
+        try {
+            rollup(Instant.now().plus(aggregator.bucketSize()));
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not roll up the latest sales on shutdown", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "sales-analytics";
+    }
+
+    @Override
+    public boolean accepts(String eventType) {
+        return Outbox.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        List<OrderPlacedEvent> orders = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            orders.add(objectMapper.readValue(event.payload(), OrderPlacedEvent.class));
+        }
+        Instant now = Instant.now();
+        orders.forEach(order -> aggregator.recordOrder(order, now));
+    }
+
+    /**
+     * Writes this node's buckets before {@code before} that changed since their last rollup.
+     *
+     * @return buckets written
+     */
+    public int rollup(Instant before) {
+        List<SalesAggregator.BucketSnapshot> changed = aggregator.changedBuckets(before,
+                properties.getRollupTopProducts());
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> keys = new ArrayList<>(changed.size());
+        List<Object[]> rows = new ArrayList<>(changed.size());
+        for (SalesAggregator.BucketSnapshot bucket : changed) {
+            Timestamp start = Timestamp.from(bucket.start());
+            keys.add(new Object[]{start, nodeId});
+            rows.add(new Object[]{start, nodeId, bucket.orders(), BigDecimal.valueOf(bucket.revenueCents(), 2), bucket.items(),
+                    bucket.checkouts(), json(bucket.topProducts())});
+        }
+        separate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM sales_rollups_by_node WHERE bucket_start = ? AND node_id = ?", keys);
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        });
+        aggregator.markRolledUp(changed);
+        return changed.size();
+    }
+
+    /**
+     * Reads the other nodes' buckets within the retention into the aggregator.
+     */
+    void refreshPeers(Instant now) {
+        aggregator.replacePeers(read("node_id <> ?", now), now);
+    }
+
+    private void restore(Instant now) {
+        List<SalesAggregator.BucketSnapshot> buckets = read("node_id = ?", now);
+        buckets.forEach(bucket -> aggregator.restore(bucket, now));
+        if (!buckets.isEmpty()) {
+            log.info("Restored {} sales buckets of node {} from sales_rollups_by_node", buckets.size(), nodeId);
+        }
+    }
+
+    private List<SalesAggregator.BucketSnapshot> read(String nodes, Instant now) {
+        List<SalesAggregator.BucketSnapshot> buckets = new ArrayList<>();
+        jdbcTemplate.query(SELECT + nodes, rs -> {
+            try {
+                buckets.add(new SalesAggregator.BucketSnapshot(rs.getTimestamp("bucket_start").toInstant(),
+                        rs.getLong("orders"), rs.getBigDecimal("revenue").movePointRight(2).longValueExact(),
+                        rs.getLong("items"), rs.getLong("checkouts"),
+                        objectMapper.readValue(rs.getString("top_products"), PRODUCTS), 0));
+            }
+            catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable sales rollup of {}", rs.getTimestamp("bucket_start"), e);
+            }
+        }, Timestamp.from(now.minus(aggregator.retention())), nodeId);
+        return buckets;
+    }
+
+    private String json(List<SalesWindow.ProductSales> products) {
+        try {
+            return objectMapper.writeValueAsString(products == null ? Collections.emptyList() : products);
+        }
+        catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
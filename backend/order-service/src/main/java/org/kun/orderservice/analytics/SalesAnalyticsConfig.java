@@ -0,0 +1,35 @@
+package org.kun.orderservice.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kun.orderservice.ids.NodeIdLease;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(SalesAnalyticsProperties.class)
+public class SalesAnalyticsConfig {
+
+    @Bean
+    public SalesAggregator salesAggregator(SalesAnalyticsProperties properties) {
+        return new SalesAggregator(properties.getBucket(), properties.getRetention(),
+                properties.getMaxProductsPerBucket());
+    }
+
+    @Bean
+    public SalesLiveFeed salesLiveFeed(SalesAggregator salesAggregator, SalesAnalyticsProperties properties) {
+        return new SalesLiveFeed(salesAggregator, properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public SalesAnalytics salesAnalytics(SalesAggregator salesAggregator, SalesLiveFeed salesLiveFeed,
+                                         JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                         ObjectMapper objectMapper, SalesAnalyticsProperties properties,
+                                         NodeIdLease orderIdNodeLease, MeterRegistry meterRegistry) {
+        return new SalesAnalytics(salesAggregator, salesLiveFeed, jdbcTemplate, transactionManager, objectMapper,
+                properties, orderIdNodeLease.nodeId(), meterRegistry);
+    }
+}
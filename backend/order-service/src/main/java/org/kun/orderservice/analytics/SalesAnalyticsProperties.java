@@ -0,0 +1,45 @@
+package org.kun.orderservice.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.analytics")
+public class SalesAnalyticsProperties {
+
+    /**
+     * Granularity of the counts; window sizes are multiples of it.
+     */
+    private Duration bucket = Duration.ofMinutes(1);
+
+    /**
+     * How far back the counts are kept in memory; older buckets live only in the summary table.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * Distinct products counted per bucket; further products are counted together.
+     */
+    private int maxProductsPerBucket = 10_000;
+
+    /**
+     * How often this instance's counts are written and the other instances' read back,
+     * which is how far behind them the windows may be.
+     */
+    private Duration rollupInterval = Duration.ofMinutes(1);
+
+    /**
+     * Products kept per bucket in the summary table.
+     */
+    private int rollupTopProducts = 20;
+
+    private int maxTopProducts = 50;
+
+    private Duration liveInterval = Duration.ofSeconds(5);
+
+    private Duration liveTimeout = Duration.ofMinutes(30);
+
+    private int maxLiveSubscribers = 100;
+}
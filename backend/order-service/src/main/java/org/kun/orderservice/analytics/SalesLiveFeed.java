@@ -0,0 +1,76 @@
+package org.kun.orderservice.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.SalesWindow;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-sent events with the current sliding window, pushed to every subscriber on
+ * each broadcast. A subscriber whose connection fails is dropped.
+ */
+@Slf4j
+public class SalesLiveFeed {
+
+    private final SalesAggregator aggregator;
+    private final SalesAnalyticsProperties properties;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public SalesLiveFeed(SalesAggregator aggregator, SalesAnalyticsProperties properties) {
+        this.aggregator = aggregator;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts a feed of sliding windows of {@code size}; the first event is sent at once.
+     *
+     * @throws IllegalArgumentException for a window the aggregator cannot answer
+     * @throws IllegalStateException    when there are too many subscribers
+     */
+    public SseEmitter subscribe(Duration size, int top) throws IOException {
+        SalesWindow first = aggregator.sliding(size, top, Instant.now());
+        if (subscriptions.size() >= properties.getMaxLiveSubscribers()) {
+            throw new IllegalStateException("Too many live subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(properties.getLiveTimeout().toMillis());
+        Subscription subscription = new Subscription(emitter, size, top);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        emitter.send(SseEmitter.event().name("window").data(first));
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    void broadcast() {
+        Instant now = Instant.now();
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.emitter().send(SseEmitter.event().name("window")
+                        .data(aggregator.sliding(subscription.size(), subscription.top(), now)));
+            }
+            catch (IOException | IllegalStateException e) {
+                log.debug("Dropping a live sales subscriber: {}", e.toString());
+                subscriptions.remove(subscription);
+                subscription.emitter().completeWithError(e);
+            }
+        }
+    }
+
+    void close() {
+        subscriptions.forEach(subscription -> subscription.emitter().complete());
+        subscriptions.clear();
+    }
+
+    private record Subscription(SseEmitter emitter, Duration size, int top) {
+    }
+}
@@ -0,0 +1,37 @@
+package org.kun.orderservice.checkout;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+@Configuration
+@EnableConfigurationProperties(CheckoutProperties.class)
+public class CheckoutConfig {
+
+    @Bean
+    public ProductQuoteSource productQuoteSource(CheckoutProperties properties, RestClient.Builder restClientBuilder) {
+        if (properties.getCatalogUrl().isBlank()) {
+            return productIds -> {
+                throw new IllegalStateException("No product catalog configured");
+            };
+        }
+        // the call timeout also frees the lookup thread of a call that was given up on
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.defaults()
+                .withConnectTimeout(properties.getCallTimeout())
+                .withReadTimeout(properties.getCallTimeout());
+        return new HttpProductQuoteSource(restClientBuilder.clone()
+                .baseUrl(properties.getCatalogUrl())
+                .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(settings))
+                .build());
+    }
+
+    @Bean(destroyMethod = "close")
+    public CheckoutValidator checkoutValidator(ProductQuoteSource productQuoteSource, CheckoutProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new CheckoutValidator(productQuoteSource, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package org.kun.orderservice.checkout;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.checkout")
+public class CheckoutProperties {
+
+    /**
+     * Base URL of product-service, e.g. {@code http://product-service}; empty leaves
+     * every line unverified.
+     */
+    private String catalogUrl = "";
+
+    /**
+     * Products per lookup call; the calls of one cart run in parallel.
+     */
+    private int shardSize = 25;
+
+    /**
+     * Concurrent lookup calls across all carts.
+     */
+    private int lookupThreads = 32;
+
+    /**
+     * How long one lookup call may take, including the wait for a lookup thread.
+     */
+    private Duration callTimeout = Duration.ofMillis(300);
+
+    /**
+     * How long a quote is used without asking product-service again.
+     */
+    private Duration quoteTtl = Duration.ofSeconds(5);
+
+    /**
+     * How long a quote may still stand in for product-service while it is unavailable.
+     */
+    private Duration staleQuoteTtl = Duration.ofMinutes(10);
+
+    private long quoteCacheSize = 100_000;
+
+    /**
+     * After a cart's lookup fails, carts are validated from cached quotes alone for
+     * this long; orders being placed still ask product-service.
+     */
+    private Duration failureBackoff = Duration.ofSeconds(2);
+}
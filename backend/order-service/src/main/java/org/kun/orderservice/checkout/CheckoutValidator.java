@@ -0,0 +1,250 @@
+package org.kun.orderservice.checkout;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.CheckoutRequest;
+import org.kun.orderservice.dto.CheckoutValidation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a cart's prices and stock against product-service before an order is placed.
+ * <p>
+ * Quotes younger than {@link CheckoutProperties#getQuoteTtl()} come from a local cache;
+ * the rest are read with batch lookups of {@link CheckoutProperties#getShardSize()}
+ * products that run in parallel, each bounded by the call timeout, so a large cart
+ * costs about one round trip. When a lookup fails or times out its lines fall back
+ * to cached quotes up to {@link CheckoutProperties#getStaleQuoteTtl()} old, or are
+ * left unverified, and the result is marked degraded; for the next
+ * {@link CheckoutProperties#getFailureBackoff()} carts skip product-service entirely
+ * rather than each waiting out a timeout.
+ * <p>
+ * The check is advisory: stock is only taken by the reservation. Placement prices
+ * its lines with {@link #currentQuotes}, which never falls back to stale quotes and
+ * keeps out of the carts' backoff: it always asks product-service for what the cache
+ * lacks, and its failures refuse only the order at hand.
+ */
+@Slf4j
+public class CheckoutValidator implements AutoCloseable {
+
+    private final ProductQuoteSource source;
+    private final CheckoutProperties properties;
+    private final Cache<Long, CachedQuote> quotes;
+    private final ExecutorService executor;
+
+    private final Timer validation;
+    private final Counter lookups;
+    private final Counter failedLookups;
+    private final Counter skippedLookups;
+    private final Counter degraded;
+
+    private volatile long backoffUntil;
+
+    public CheckoutValidator(ProductQuoteSource source, CheckoutProperties properties, MeterRegistry meterRegistry) {
+        this.source = source;
+        this.properties = properties;
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(properties.getQuoteCacheSize())
+                .expireAfterWrite(properties.getStaleQuoteTtl())
+                .recordStats()
+                .build();
+        // lookups carry the caller's observation, so their calls show up in the checkout's trace
+        this.executor = ContextExecutorService.wrap(Executors.newFixedThreadPool(properties.getLookupThreads(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "checkout-lookup");
+                    thread.setDaemon(true);
+                    return thread;
+                }), ContextSnapshotFactory.builder().build());
+        CaffeineCacheMetrics.monitor(meterRegistry, quotes, "checkout.quotes");
+        this.validation = Timer.builder("order.checkout.validation")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.lookups = meterRegistry.counter("order.checkout.lookups", "result", "ok");
+        this.failedLookups = meterRegistry.counter("order.checkout.lookups", "result", "failed");
+        this.skippedLookups = meterRegistry.counter("order.checkout.lookups", "result", "skipped");
+        this.degraded = meterRegistry.counter("order.checkout.degraded");
+    }
+
+    /**
+     * @throws IllegalArgumentException for an empty cart or a line without a positive
+     *                                  quantity and a price
+     */
+    public CheckoutValidation validate(List<CheckoutRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("A cart needs at least one item");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutRequest.Item item : items) {
+            if (item == null || item.getQuantity() <= 0 || item.getUnitPrice() == null) {
+                throw new IllegalArgumentException("Every item needs a positive quantity and a unit price");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        long start = System.nanoTime();
+        Map<Long, CachedQuote> known = lookup(quantities.keySet(), start, true);
+
+        long now = System.nanoTime();
+        boolean valid = true;
+        boolean stale = false;
+        List<CheckoutValidation.Line> lines = new ArrayList<>(items.size());
+        for (CheckoutRequest.Item item : items) {
+            CachedQuote cached = known.get(item.getProductId());
+            boolean fresh = cached != null && cached.freshAt(now, properties.getQuoteTtl().toNanos());
+            ProductQuote quote = cached == null ? null : cached.quote();
+            CheckoutValidation.Status status;
+            if (cached == null || (!fresh && quote == null)) {
+                status = CheckoutValidation.Status.UNVERIFIED;
+            }
+            else if (quote == null) {
+                status = CheckoutValidation.Status.UNKNOWN_PRODUCT;
+            }
+            else if (item.getUnitPrice().compareTo(quote.price()) != 0) {
+                status = CheckoutValidation.Status.PRICE_CHANGED;
+            }
+            else if (fresh && quantities.get(item.getProductId()) > quote.available()) {
+                // an old stock count says little, so only a fresh one can turn a line down
+                status = CheckoutValidation.Status.INSUFFICIENT_STOCK;
+            }
+            else {
+                status = CheckoutValidation.Status.OK;
+            }
+            stale |= !fresh;
+            valid &= status == CheckoutValidation.Status.OK || status == CheckoutValidation.Status.UNVERIFIED;
+            lines.add(new CheckoutValidation.Line(item.getProductId(), item.getQuantity(), item.getUnitPrice(),
+                    quote == null ? null : quote.price(), quote == null || !fresh ? null : quote.available(), status));
+        }
+        if (stale) {
+            degraded.increment();
+        }
+        validation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new CheckoutValidation(valid, stale, lines);
+    }
+
+    /**
+     * Current quotes to price an order with: read within
+     * {@link CheckoutProperties#getQuoteTtl()}, from product-service when the cache
+     * has none.
+     *
+     * @param productIds distinct ids
+     * @return the quote of every product that exists
+     * @throws IllegalStateException when a product could not be looked up just now
+     */
+    public Map<Long, ProductQuote> currentQuotes(Collection<Long> productIds) {
+        long start = System.nanoTime();
+        Map<Long, CachedQuote> known = lookup(productIds, start, false);
+        Map<Long, ProductQuote> current = new HashMap<>();
+        for (Long productId : productIds) {
+            CachedQuote cached = known.get(productId);
+            if (cached == null || !cached.freshAt(start, properties.getQuoteTtl().toNanos())) {
+                throw new IllegalStateException("No current price for product " + productId);
+            }
+            if (cached.quote() != null) {
+                current.put(productId, cached.quote());
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Cached quotes of {@code productIds}, with those not fresh at {@code start} read again.
+     *
+     * @param cart whether a cart is being validated, which shares the failure backoff
+     */
+    private Map<Long, CachedQuote> lookup(Collection<Long> productIds, long start, boolean cart) {
+        Map<Long, CachedQuote> known = new HashMap<>(quotes.getAllPresent(productIds));
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            CachedQuote cached = known.get(productId);
+            if (cached == null || !cached.freshAt(start, properties.getQuoteTtl().toNanos())) {
+                missing.add(productId);
+            }
+        }
+        fetch(missing, known, cart);
+        return known;
+    }
+
+    /**
+     * Looks up {@code productIds} in parallel shards and records every answer, including
+     * products that do not exist, in the cache and in {@code known}.
+     */
+    private void fetch(List<Long> productIds, Map<Long, CachedQuote> known, boolean cart) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        long until = backoffUntil;
+        if (cart && until != 0 && System.nanoTime() - until < 0) {
+            skippedLookups.increment();
+            return;
+        }
+        int shardSize = Math.max(1, properties.getShardSize());
+        List<List<Long>> shards = new ArrayList<>();
+        List<CompletableFuture<List<ProductQuote>>> calls = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += shardSize) {
+            List<Long> shard = List.copyOf(productIds.subList(from, Math.min(productIds.size(), from + shardSize)));
+            shards.add(shard);
+            calls.add(CompletableFuture.supplyAsync(() -> source.fetch(shard), executor)
+                    .orTimeout(properties.getCallTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            List<ProductQuote> answer;
+            try {
+                answer = calls.get(i).join();
+            }
+            catch (CompletionException e) {
+                failedLookups.increment();
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                if (cart) {
+                    backoffUntil = System.nanoTime() + properties.getFailureBackoff().toNanos();
+                    log.warn("Product lookup of {} products failed, checking them against cached quotes: {}",
+                            shards.get(i).size(), cause.toString());
+                }
+                else {
+                    log.warn("Product lookup of {} products failed, refusing the order: {}", shards.get(i).size(),
+                            cause.toString());
+                }
+                continue;
+            }
+            lookups.increment();
+            long fetchedAt = System.nanoTime();
+            Map<Long, ProductQuote> found = new HashMap<>();
+            answer.forEach(quote -> found.put(quote.productId(), quote));
+            for (Long productId : shards.get(i)) {
+                CachedQuote cached = new CachedQuote(found.get(productId), fetchedAt);
+                quotes.put(productId, cached);
+                known.put(productId, cached);
+            }
+        }
+    }
+
+    /**
+     * A quote, or {@code null} for a product that did not exist, and when it was read.
+     */
+    private record CachedQuote(ProductQuote quote, long fetchedAt) {
+
+        boolean freshAt(long now, long ttlNanos) {
+            return now - fetchedAt <= ttlNanos;
+        }
+    }
+}
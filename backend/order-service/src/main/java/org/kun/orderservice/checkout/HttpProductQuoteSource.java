@@ -0,0 +1,39 @@
+package org.kun.orderservice.checkout;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads quotes with product-service's batch {@code POST /products/lookup}.
+ */
+public class HttpProductQuoteSource implements ProductQuoteSource {
+
+    private static final ParameterizedTypeReference<List<Product>> PRODUCTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient restClient;
+
+    public HttpProductQuoteSource(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    @Override
+    public List<ProductQuote> fetch(List<Long> productIds) {
+        List<Product> products = restClient.post().uri("/products/lookup")
+                .body(Map.of("ids", productIds))
+                .retrieve()
+                .body(PRODUCTS);
+        if (products == null) {
+            return List.of();
+        }
+        return products.stream().map(product -> new ProductQuote(product.id(), product.price(), product.available(),
+                product.categoryId())).toList();
+    }
+
+    private record Product(long id, BigDecimal price, long available, Long categoryId) {
+    }
+}
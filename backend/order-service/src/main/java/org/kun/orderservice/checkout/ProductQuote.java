@@ -0,0 +1,10 @@
+package org.kun.orderservice.checkout;
+
+import java.math.BigDecimal;
+
+/**
+ * Price, reservable stock and category of a product as product-service last reported them;
+ * the category is null for a product without one.
+ */
+public record ProductQuote(long productId, BigDecimal price, long available, Long categoryId) {
+}
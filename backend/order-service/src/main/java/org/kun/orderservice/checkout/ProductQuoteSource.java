@@ -0,0 +1,15 @@
+package org.kun.orderservice.checkout;
+
+import java.util.List;
+
+/**
+ * Reads current prices and stock from product-service.
+ */
+public interface ProductQuoteSource {
+
+    /**
+     * Quotes for the products that exist, in one call; unknown ids are left out.
+     * Throws when product-service cannot be read.
+     */
+    List<ProductQuote> fetch(List<Long> productIds);
+}
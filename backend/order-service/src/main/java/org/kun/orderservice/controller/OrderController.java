@@ -0,0 +1,134 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.analytics.SalesAggregator;
+import org.kun.orderservice.checkout.CheckoutValidator;
+import org.kun.orderservice.dto.CheckoutRequest;
+import org.kun.orderservice.dto.CheckoutValidation;
+import org.kun.orderservice.dto.OrderHistoryPage;
+import org.kun.orderservice.dto.OrderReceipt;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.history.HistoryCursor;
+import org.kun.orderservice.history.OrderHistoryProperties;
+import org.kun.orderservice.history.OrderHistoryReader;
+import org.kun.orderservice.placement.OrderPlacementProperties;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.kun.orderservice.repository.OrderRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/orders")
+public class OrderController {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final OrderPlacementService placementService;
+    private final OrderPlacementProperties properties;
+    private final OrderRepository orderRepository;
+    private final OrderHistoryReader historyReader;
+    private final OrderHistoryProperties historyProperties;
+    private final CheckoutValidator checkoutValidator;
+    private final SalesAggregator salesAggregator;
+
+    public OrderController(OrderPlacementService placementService, OrderPlacementProperties properties,
+                           OrderRepository orderRepository, OrderHistoryReader historyReader,
+                           OrderHistoryProperties historyProperties, CheckoutValidator checkoutValidator,
+                           SalesAggregator salesAggregator) {
+        this.placementService = placementService;
+        this.properties = properties;
+        this.orderRepository = orderRepository;
+        this.historyReader = historyReader;
+        this.historyProperties = historyProperties;
+        this.checkoutValidator = checkoutValidator;
+        this.salesAggregator = salesAggregator;
+    }
+
+    /**
+     * Places an order once per {@code Idempotency-Key}: 201 when it is created, 200
+     * with the same order for a retry, 422 when the key was used for a different
+     * order, 400 for an unknown product. The lines are priced from product-service;
+     * 503 means the outcome is unknown, or the prices could not be read, and the
+     * request may be retried with the same key.
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<OrderReceipt>> place(
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody PlaceOrderRequest request) {
+        try {
+            return placementService.place(idempotencyKey, request)
+                    .orTimeout(properties.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .thenApply(result -> switch (result.status()) {
+                        case CREATED -> ResponseEntity.created(URI.create("/orders/" + result.receipt().id()))
+                                .body(result.receipt());
+                        case REPLAYED -> ResponseEntity.ok().header("Idempotent-Replayed", "true")
+                                .body(result.receipt());
+                        case KEY_REUSED -> ResponseEntity.unprocessableEntity().<OrderReceipt>build();
+                    })
+                    .exceptionally(error -> {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        ResponseEntity.BodyBuilder unavailable = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+                        if (cause instanceof RejectedExecutionException) {
+                            unavailable.header("Retry-After", "1");
+                        }
+                        return unavailable.build();
+                    });
+        }
+        catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+    }
+
+    /**
+     * Checks a cart's prices and stock before it is placed. {@code valid} is false when
+     * a line has a changed price, too little stock or an unknown product; lines that
+     * could not be checked are {@code UNVERIFIED} and make the result {@code degraded}.
+     */
+    @PostMapping("/validate")
+    public CheckoutValidation validate(@RequestBody CheckoutRequest request) {
+        try {
+            CheckoutValidation validation = checkoutValidator.validate(request.getItems());
+            salesAggregator.recordCheckout(Instant.now());
+            return validation;
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * A customer's orders, newest first, with their lines; pass the previous
+     * response's {@code nextCursor} to continue.
+     */
+    @GetMapping("/history")
+    public OrderHistoryPage history(@RequestParam long customerId,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) String cursor) {
+        HistoryCursor after;
+        try {
+            after = cursor == null ? null : HistoryCursor.decode(cursor);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int pageSize = Math.min(Math.max(1, limit == null ? historyProperties.getDefaultLimit() : limit),
+                historyProperties.getMaxLimit());
+        return historyReader.page(customerId, after, pageSize);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderReceipt> get(@PathVariable long id) {
+        return orderRepository.findById(id)
+                .map(OrderReceipt::of)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
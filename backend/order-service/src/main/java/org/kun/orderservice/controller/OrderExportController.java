@@ -0,0 +1,67 @@
+package org.kun.orderservice.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.kun.orderservice.entity.OrderStatus;
+import org.kun.orderservice.export.OrderExportFormat;
+import org.kun.orderservice.export.OrderExportQuery;
+import org.kun.orderservice.export.OrderExporter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@RestController
+@RequestMapping("/orders")
+public class OrderExportController {
+
+    private final OrderExporter exporter;
+
+    public OrderExportController(OrderExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Orders created from {@code from} up to, not including, {@code to} (UTC days),
+     * streamed as CSV or NDJSON and, with {@code gzip=true}, as a {@code .gz} file.
+     * 503 when too many exports are running. A failure part way through cuts the
+     * response short, without the final chunk, so clients can tell it is incomplete.
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(defaultValue = "CSV") OrderExportFormat format,
+                       @RequestParam(required = false) Long customerId,
+                       @RequestParam(required = false) OrderStatus status,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        OrderExportQuery query;
+        try {
+            query = new OrderExportQuery(from.atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    to.atStartOfDay(ZoneOffset.UTC).toInstant(), customerId, status);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        String filename = "orders_" + from + "_" + to + "." + format.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        try {
+            exporter.export(query, format, gzip, response.getOutputStream());
+        }
+        catch (IllegalStateException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "30");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+}
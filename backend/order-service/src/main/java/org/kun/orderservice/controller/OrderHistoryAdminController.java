@@ -0,0 +1,37 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.history.OrderHistoryRebuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Maintenance of the order history read model; not routed through the gateway.
+ */
+@RestController
+@RequestMapping("/internal/order-history")
+public class OrderHistoryAdminController {
+
+    private final OrderHistoryRebuilder rebuilder;
+
+    public OrderHistoryAdminController(OrderHistoryRebuilder rebuilder) {
+        this.rebuilder = rebuilder;
+    }
+
+    /**
+     * Rebuilds the history from the order tables; 409 while another rebuild runs.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            long orders = rebuilder.rebuild();
+            return ResponseEntity.ok(Map.of("orders", orders, "durationMs", System.currentTimeMillis() - start));
+        }
+        catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
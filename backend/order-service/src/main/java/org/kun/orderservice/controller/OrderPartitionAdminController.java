@@ -0,0 +1,67 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.dto.OrderPartitionStatus;
+import org.kun.orderservice.dto.OrderReceipt;
+import org.kun.orderservice.partition.OrderPartitionManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Partitions and archives of the order tables; not routed through the gateway.
+ */
+@RestController
+@RequestMapping("/internal/order-partitions")
+public class OrderPartitionAdminController {
+
+    private static final int MAX_ARCHIVE_ORDERS = 1_000;
+
+    private final OrderPartitionManager partitionManager;
+
+    public OrderPartitionAdminController(OrderPartitionManager partitionManager) {
+        this.partitionManager = partitionManager;
+    }
+
+    @GetMapping
+    public OrderPartitionStatus status() {
+        return partitionManager.status();
+    }
+
+    /**
+     * Runs partition maintenance now instead of at the next scheduled run; 409 when
+     * the order tables are not partitioned.
+     */
+    @PostMapping("/maintain")
+    public ResponseEntity<OrderPartitionManager.MaintenanceReport> maintain() {
+        if (!partitionManager.isPartitioned()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(partitionManager.maintain());
+    }
+
+    /**
+     * Orders of an archived month ({@code yyyy-MM}), read from its archive file;
+     * 404 when the month is not archived.
+     */
+    @GetMapping("/archives/{month}/orders")
+    public ResponseEntity<List<OrderReceipt>> archivedOrders(@PathVariable String month,
+                                                             @RequestParam(required = false) Long customerId,
+                                                             @RequestParam(required = false) Integer limit)
+            throws IOException {
+        YearMonth archived;
+        try {
+            archived = YearMonth.parse(month);
+        }
+        catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a month as yyyy-MM");
+        }
+        int size = Math.min(Math.max(1, limit == null ? MAX_ARCHIVE_ORDERS : limit), MAX_ARCHIVE_ORDERS);
+        return ResponseEntity.of(partitionManager.archivedOrders(archived, customerId, size));
+    }
+}
@@ -0,0 +1,35 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.dto.CartPrice;
+import org.kun.orderservice.dto.PriceCartRequest;
+import org.kun.orderservice.pricing.PricingEngine;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/orders")
+public class PricingController {
+
+    private final PricingEngine pricingEngine;
+
+    public PricingController(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Applies the current promotions to a cart; coupons no promotion uses are
+     * returned in {@code unknownCoupons}. A preview only: the lines are priced at the
+     * prices and categories the client sends, while {@code POST /orders} charges
+     * product-service's prices with the promotions current when it is placed.
+     */
+    @PostMapping("/price")
+    public CartPrice price(@RequestBody PriceCartRequest request) {
+        try {
+            return pricingEngine.price(request);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
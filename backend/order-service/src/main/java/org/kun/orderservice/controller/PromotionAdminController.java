@@ -0,0 +1,32 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.dto.PricingPlanStatus;
+import org.kun.orderservice.pricing.PricingEngine;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * The compiled promotions; not routed through the gateway.
+ */
+@RestController
+@RequestMapping("/internal/promotions")
+public class PromotionAdminController {
+
+    private final PricingEngine pricingEngine;
+
+    public PromotionAdminController(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
+
+    @GetMapping("/plan")
+    public PricingPlanStatus plan() {
+        return pricingEngine.status();
+    }
+
+    /**
+     * Compiles the promotions now instead of at the next change check.
+     */
+    @PostMapping("/reload")
+    public PricingPlanStatus reload() {
+        return pricingEngine.reload();
+    }
+}
@@ -0,0 +1,99 @@
+package org.kun.orderservice.controller;
+
+import org.kun.orderservice.analytics.SalesAggregator;
+import org.kun.orderservice.analytics.SalesAnalyticsProperties;
+import org.kun.orderservice.analytics.SalesLiveFeed;
+import org.kun.orderservice.dto.SalesWindow;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sales dashboards, answered from the in-memory buckets; window sizes are ISO-8601
+ * durations or the {@code 5m}-style values used in configuration, and must be a
+ * whole number of buckets.
+ */
+@RestController
+@RequestMapping("/orders/analytics")
+public class SalesAnalyticsController {
+
+    private static final int MAX_WINDOWS = 1_440;
+
+    private final SalesAggregator aggregator;
+    private final SalesLiveFeed liveFeed;
+    private final SalesAnalyticsProperties properties;
+
+    public SalesAnalyticsController(SalesAggregator aggregator, SalesLiveFeed liveFeed,
+                                    SalesAnalyticsProperties properties) {
+        this.aggregator = aggregator;
+        this.liveFeed = liveFeed;
+        this.properties = properties;
+    }
+
+    /**
+     * The last {@code count} tumbling windows of {@code size}, oldest first, the
+     * current one included.
+     */
+    @GetMapping("/windows")
+    public List<SalesWindow> windows(@RequestParam(defaultValue = "1m") String size,
+                                     @RequestParam(defaultValue = "60") int count,
+                                     @RequestParam(defaultValue = "10") int top) {
+        if (count < 1 || count > MAX_WINDOWS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "count must be between 1 and " + MAX_WINDOWS);
+        }
+        try {
+            return aggregator.tumbling(duration(size), count, top(top), Instant.now());
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * The window of {@code size} ending now.
+     */
+    @GetMapping("/sliding")
+    public SalesWindow sliding(@RequestParam(defaultValue = "5m") String size,
+                               @RequestParam(defaultValue = "10") int top) {
+        try {
+            return aggregator.sliding(duration(size), top(top), Instant.now());
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Server-sent {@code window} events with the sliding window of {@code size},
+     * refreshed every {@code order.analytics.live-interval}; 503 when the feed is full.
+     */
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter live(@RequestParam(defaultValue = "5m") String size,
+                           @RequestParam(defaultValue = "10") int top) throws IOException {
+        try {
+            return liveFeed.subscribe(duration(size), top(top));
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    private static Duration duration(String size) {
+        return DurationStyle.detectAndParse(size);
+    }
+
+    private int top(int top) {
+        return Math.min(Math.max(0, top), properties.getMaxTopProducts());
+    }
+}
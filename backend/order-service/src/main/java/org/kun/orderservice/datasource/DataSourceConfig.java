@@ -0,0 +1,23 @@
+package org.kun.orderservice.datasource;
+
+import org.kun.common.datasource.ReplicaRoutingConfig;
+import org.kun.common.datasource.ReplicaRoutingProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Primary and read-replica routing from common-datasource, configured under
+ * {@code order.datasource}.
+ */
+@Configuration
+@Import(ReplicaRoutingConfig.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("order.datasource")
+    public ReplicaRoutingProperties replicaRoutingProperties() {
+        return new ReplicaRoutingProperties();
+    }
+}
@@ -0,0 +1,16 @@
+package org.kun.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A cart after promotions. Each line gets the best automatic promotion that applies
+ * to it plus every matching coupon, never more than its subtotal.
+ */
+public record CartPrice(BigDecimal subtotal, BigDecimal discount, BigDecimal total, List<Line> lines,
+                        List<String> unknownCoupons) {
+
+    public record Line(long productId, int quantity, BigDecimal unitPrice, BigDecimal subtotal, BigDecimal discount,
+                       BigDecimal total, List<Long> promotionIds) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.kun.orderservice.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A cart as the customer sees it, with the unit prices it was shown, to be checked
+ * before it is placed.
+ */
+@Data
+public class CheckoutRequest {
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        private long productId;
+
+        private int quantity;
+
+        private BigDecimal unitPrice;
+    }
+}
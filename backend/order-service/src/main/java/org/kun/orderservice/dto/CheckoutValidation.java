@@ -0,0 +1,27 @@
+package org.kun.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of checking a cart against current prices and stock. {@code degraded}
+ * means some lines were checked against older quotes or not at all because
+ * product-service did not answer in time.
+ */
+public record CheckoutValidation(boolean valid, boolean degraded, List<Line> lines) {
+
+    public record Line(long productId, int quantity, BigDecimal unitPrice, BigDecimal currentPrice, Long available,
+                       Status status) {
+    }
+
+    public enum Status {
+        OK,
+        PRICE_CHANGED,
+        INSUFFICIENT_STOCK,
+        UNKNOWN_PRODUCT,
+        /**
+         * No quote could be had; the line is neither accepted nor rejected.
+         */
+        UNVERIFIED
+    }
+}
@@ -0,0 +1,6 @@
+package org.kun.orderservice.dto;
+
+import java.time.Instant;
+
+public record OrderArchiveInfo(String month, long orders, long items, Instant archivedAt) {
+}
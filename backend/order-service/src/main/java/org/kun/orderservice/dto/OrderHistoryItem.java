@@ -0,0 +1,14 @@
+package org.kun.orderservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import org.kun.orderservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One order of a customer's history; {@code items} is passed through as stored.
+ */
+public record OrderHistoryItem(long orderId, Instant placedAt, OrderStatus status, BigDecimal total, int itemCount,
+                               @JsonRawValue String items) {
+}
@@ -0,0 +1,9 @@
+package org.kun.orderservice.dto;
+
+import java.util.List;
+
+/**
+ * @param nextCursor opaque cursor for the next page; absent on the last page
+ */
+public record OrderHistoryPage(List<OrderHistoryItem> items, String nextCursor) {
+}
@@ -0,0 +1,9 @@
+package org.kun.orderservice.dto;
+
+import java.util.List;
+
+/**
+ * Months held in the partitioned order tables and months moved to the archive.
+ */
+public record OrderPartitionStatus(boolean partitioned, List<String> months, List<OrderArchiveInfo> archives) {
+}
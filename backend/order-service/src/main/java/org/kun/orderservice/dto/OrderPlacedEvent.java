@@ -0,0 +1,15 @@
+package org.kun.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published through the outbox once an order is committed.
+ */
+public record OrderPlacedEvent(String eventId, long orderId, Long customerId, List<Item> items, BigDecimal total,
+                               Instant placedAt) {
+
+    public record Item(long productId, int quantity, BigDecimal unitPrice) {
+    }
+}
@@ -0,0 +1,16 @@
+package org.kun.orderservice.dto;
+
+import org.kun.orderservice.entity.Order;
+import org.kun.orderservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record OrderReceipt(long id, String idempotencyKey, Long customerId, OrderStatus status, BigDecimal total,
+                           int itemCount, Instant createdAt) {
+
+    public static OrderReceipt of(Order order) {
+        return new OrderReceipt(order.getId(), order.getIdempotencyKey(), order.getCustomerId(), order.getStatus(),
+                order.getTotal(), order.getItemCount(), order.getCreatedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package org.kun.orderservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Products, quantities and coupon codes only: placement prices the lines itself
+ * from product-service and the current promotions, so a client cannot choose what
+ * it pays.
+ */
+@Data
+public class PlaceOrderRequest {
+
+    private Long customerId;
+
+    private List<Item> items;
+
+    private List<String> coupons;
+
+    @Data
+    public static class Item {
+
+        private long productId;
+
+        private int quantity;
+    }
+}
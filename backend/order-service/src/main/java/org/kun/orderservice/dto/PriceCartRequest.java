@@ -0,0 +1,29 @@
+package org.kun.orderservice.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class PriceCartRequest {
+
+    private List<Item> items;
+
+    private List<String> coupons;
+
+    @Data
+    public static class Item {
+
+        private long productId;
+
+        /**
+         * Needed for category promotions to apply.
+         */
+        private Long categoryId;
+
+        private int quantity;
+
+        private BigDecimal unitPrice;
+    }
+}
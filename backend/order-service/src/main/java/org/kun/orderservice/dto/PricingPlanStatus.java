@@ -0,0 +1,9 @@
+package org.kun.orderservice.dto;
+
+import java.time.Instant;
+
+/**
+ * The compiled promotions in use; {@code skipped} rules were invalid and left out.
+ */
+public record PricingPlanStatus(long version, Instant compiledAt, int rules, int coupons, int skipped) {
+}
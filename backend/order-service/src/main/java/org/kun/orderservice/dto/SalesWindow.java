@@ -0,0 +1,20 @@
+package org.kun.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sales between {@code start} and {@code end}; {@code conversion} is orders per
+ * checkout validation, or null without validations.
+ */
+public record SalesWindow(Instant start, Instant end, long orders, BigDecimal revenue, long items, long checkouts,
+                          Double conversion, List<ProductSales> topProducts) {
+
+    /**
+     * Units sold of a product; {@code productId} -1 collects products past the
+     * per-minute limit of distinct products.
+     */
+    public record ProductSales(long productId, long quantity) {
+    }
+}
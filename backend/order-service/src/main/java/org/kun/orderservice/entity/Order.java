@@ -0,0 +1,61 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.kun.orderservice.ids.SnowflakeId;
+import org.kun.orderservice.ids.SnowflakeIdGenerator;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * On Postgres the table is range-partitioned by month of {@code created_at}, keyed by
+ * {@code (id, created_at)} and indexed by {@code schema-postgresql.sql}, as Hibernate
+ * does not see the indexes of a partitioned table; idempotency keys are unique
+ * through {@link OrderKey}.
+ */
+@Entity
+@Table(name = "orders")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Order {
+
+    /**
+     * Time-ordered and assigned in the application, see {@link SnowflakeIdGenerator}.
+     */
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    /**
+     * Client-chosen key of the placement request; a retry with the same key gets this
+     * order back while its {@link OrderKey} exists.
+     */
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 of the request, to tell a retry from a different order reusing the key.
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal total;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,42 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A month of orders that was detached from the partitioned tables and written to
+ * compressed files under the archive directory.
+ */
+@Entity
+@Table(name = "order_archives")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderArchiveEntry {
+
+    /**
+     * {@code yyyy-MM}.
+     */
+    @Id
+    @Column(length = 7)
+    private String month;
+
+    @Column(name = "orders_file", nullable = false)
+    private String ordersFile;
+
+    @Column(name = "items_file", nullable = false)
+    private String itemsFile;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "item_count", nullable = false)
+    private long itemCount;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
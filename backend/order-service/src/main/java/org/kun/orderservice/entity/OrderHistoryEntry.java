@@ -0,0 +1,49 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Read model of one order for its customer's order history, with the lines and
+ * product names folded into {@code items}, so a page is one range of
+ * {@code idx_order_history_customer} and no joins.
+ */
+@Entity
+@Table(name = "order_history", indexes = @Index(name = "idx_order_history_customer",
+        columnList = "customer_id, placed_at DESC, order_id DESC"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderHistoryEntry {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "placed_at", nullable = false)
+    private Instant placedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal total;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    /**
+     * The lines as a JSON array of {@code productId, name, quantity, unitPrice}.
+     */
+    @Column(nullable = false, columnDefinition = "text")
+    private String items;
+}
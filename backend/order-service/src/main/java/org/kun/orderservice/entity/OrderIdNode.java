@@ -0,0 +1,32 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.kun.orderservice.ids.NodeIdLease;
+
+import java.time.Instant;
+
+/**
+ * A Snowflake node id held by one order-service instance, see {@link NodeIdLease};
+ * another instance may take it over once {@code expires_at} has passed without a
+ * renewal.
+ */
+@Entity
+@Table(name = "order_id_nodes")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderIdNode {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "instance_id", nullable = false)
+    private String instanceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
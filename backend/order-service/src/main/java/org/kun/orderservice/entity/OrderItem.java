@@ -0,0 +1,56 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One line of an order, keyed by the order and its position in the request.
+ */
+@Entity
+@Table(name = "order_items")
+@IdClass(OrderItem.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderItem {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Id
+    private int line;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
+    private BigDecimal unitPrice;
+
+    /**
+     * The order's creation time, repeated as the partition key so items are archived with their order.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long orderId;
+
+        private int line;
+    }
+}
@@ -0,0 +1,31 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Idempotency key of a placed order. Kept apart from {@code orders} because a unique
+ * index of a partitioned table must include the partition key, which would let the
+ * same key be used once per month; {@code created_at} locates the order's partition.
+ */
+@Entity
+@Table(name = "order_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,5 @@
+package org.kun.orderservice.entity;
+
+public enum OrderStatus {
+    PLACED
+}
@@ -0,0 +1,58 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An event written in the same transaction as the change it describes and
+ * published by the outbox relay afterwards; {@code published_at} stays null until
+ * every subscriber has accepted it.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "uk_outbox_events_event_id", columnList = "event_id", unique = true),
+        @Index(name = "idx_outbox_events_pending", columnList = "published_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 36)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    /**
+     * The event as JSON, sent to subscribers as is.
+     */
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,80 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A pricing rule for cart lines of one product, of one category, or of every
+ * product when neither is set. With a {@code couponCode} it only applies to carts
+ * that bring the coupon; coupon discounts add to the best automatic one.
+ */
+@Entity
+@Table(name = "promotions")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Promotion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PromotionType type;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "coupon_code", length = 40)
+    private String couponCode;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percent;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "min_subtotal", precision = 12, scale = 2)
+    private BigDecimal minSubtotal;
+
+    @Column(name = "buy_quantity")
+    private Integer buyQuantity;
+
+    @Column(name = "get_quantity")
+    private Integer getQuantity;
+
+    /**
+     * Minimum quantity and percent pairs, e.g. {@code 3:5,10:12.5}.
+     */
+    @Column(length = 500)
+    private String tiers;
+
+    @Column(name = "starts_at")
+    private Instant startsAt;
+
+    @Column(name = "ends_at")
+    private Instant endsAt;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    /**
+     * Lets the pricing engine notice changes without reading every rule.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
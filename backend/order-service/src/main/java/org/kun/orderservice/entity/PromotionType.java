@@ -0,0 +1,23 @@
+package org.kun.orderservice.entity;
+
+public enum PromotionType {
+    /**
+     * {@code percent} off each matching line.
+     */
+    PERCENTAGE,
+    /**
+     * For every {@code buyQuantity + getQuantity} units of a matching line,
+     * {@code getQuantity} are free.
+     */
+    BUY_X_GET_Y,
+    /**
+     * A percentage off all matching lines, picked by their combined quantity from
+     * {@code tiers}.
+     */
+    TIERED,
+    /**
+     * {@code amount} off the matching lines once they add up to {@code minSubtotal},
+     * shared among them by subtotal.
+     */
+    AMOUNT_OFF
+}
@@ -0,0 +1,65 @@
+package org.kun.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Sales one instance counted in one analytics bucket, written by the in-memory
+ * aggregation so dashboards over longer periods need not scan the order tables. A
+ * bucket's sales are the sum of its rows.
+ */
+@Entity
+@Table(name = "sales_rollups_by_node")
+@IdClass(SalesRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class SalesRollup {
+
+    @Id
+    @Column(name = "bucket_start")
+    private Instant bucketStart;
+
+    /**
+     * The order id node of the instance that counted these sales.
+     */
+    @Id
+    @Column(name = "node_id")
+    private int nodeId;
+
+    @Column(nullable = false)
+    private long orders;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private long items;
+
+    @Column(nullable = false)
+    private long checkouts;
+
+    /**
+     * JSON array of the bucket's best-selling products with their quantities.
+     */
+    @Column(name = "top_products", columnDefinition = "text", nullable = false)
+    private String topProducts;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Instant bucketStart;
+
+        private int nodeId;
+    }
+}
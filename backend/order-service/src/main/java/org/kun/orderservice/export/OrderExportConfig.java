@@ -0,0 +1,19 @@
+package org.kun.orderservice.export;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(OrderExportProperties.class)
+public class OrderExportConfig {
+
+    @Bean
+    public OrderExporter orderExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       OrderExportProperties properties, MeterRegistry meterRegistry) {
+        return new OrderExporter(jdbcTemplate, transactionManager, properties, meterRegistry);
+    }
+}
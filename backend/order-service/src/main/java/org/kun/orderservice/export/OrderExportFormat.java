@@ -0,0 +1,26 @@
+package org.kun.orderservice.export;
+
+public enum OrderExportFormat {
+
+    CSV("text/csv", "csv"),
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    OrderExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
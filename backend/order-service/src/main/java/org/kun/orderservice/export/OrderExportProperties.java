@@ -0,0 +1,24 @@
+package org.kun.orderservice.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "order.export")
+public class OrderExportProperties {
+
+    /**
+     * Rows fetched from the database cursor per round trip.
+     */
+    private int fetchSize = 2_000;
+
+    /**
+     * Bytes encoded before they are written to the response as one chunk.
+     */
+    private int chunkSize = 64 * 1024;
+
+    /**
+     * Exports running at once; each holds a connection and a request thread.
+     */
+    private int maxConcurrentExports = 2;
+}
@@ -0,0 +1,17 @@
+package org.kun.orderservice.export;
+
+import org.kun.orderservice.entity.OrderStatus;
+
+import java.time.Instant;
+
+/**
+ * Orders created in {@code [from, to)}, optionally of one customer or status.
+ */
+public record OrderExportQuery(Instant from, Instant to, Long customerId, OrderStatus status) {
+
+    public OrderExportQuery {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("An export needs a range with from before to");
+        }
+    }
+}
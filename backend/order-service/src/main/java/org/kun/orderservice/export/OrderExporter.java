@@ -0,0 +1,206 @@
+package org.kun.orderservice.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders straight from a database cursor to an output stream: rows are
+ * fetched {@link OrderExportProperties#getFetchSize()} at a time, encoded into a
+ * buffer of {@link OrderExportProperties#getChunkSize()} bytes and written out
+ * whenever it fills, so memory does not depend on the number of rows. Writes block
+ * while the client is not reading, which holds the cursor back with them.
+ * <p>
+ * Rows are read with plain JDBC in a read-only transaction, which keeps autocommit
+ * off so Postgres uses a cursor, and routes the export to a replica when there is
+ * one. They come in storage order, roughly by creation time: ordering by id could
+ * make Postgres sort the whole range before sending the first row.
+ */
+public class OrderExporter {
+
+    static final String[] COLUMNS = {"id", "created_at", "customer_id", "status", "total", "item_count",
+            "idempotency_key"};
+
+    private final JdbcTemplate streaming;
+    private final TransactionTemplate readOnly;
+    private final OrderExportProperties properties;
+    private final String relation;
+    private final Semaphore running;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Counter rows;
+    private final Timer exports;
+
+    public OrderExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         OrderExportProperties properties, MeterRegistry meterRegistry) {
+        this(jdbcTemplate, transactionManager, properties, meterRegistry, "orders");
+    }
+
+    /**
+     * @param relation the table or view to read, with the columns of {@code orders}
+     */
+    OrderExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                  OrderExportProperties properties, MeterRegistry meterRegistry, String relation) {
+        this.streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streaming.setFetchSize(properties.getFetchSize());
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.properties = properties;
+        this.relation = relation;
+        this.running = new Semaphore(properties.getMaxConcurrentExports());
+        this.rows = meterRegistry.counter("order.export.rows");
+        this.exports = meterRegistry.timer("order.export");
+    }
+
+    /**
+     * Writes the matching orders to {@code out}, gzip-compressed if asked, and
+     * finishes the compressed stream without closing {@code out}.
+     *
+     * @return rows written
+     * @throws IllegalStateException when too many exports are running; nothing has
+     *                               been written then
+     */
+    public long export(OrderExportQuery query, OrderExportFormat format, boolean gzip, OutputStream out)
+            throws IOException {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("Too many exports running");
+        }
+        long start = System.nanoTime();
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, properties.getChunkSize()) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                    StandardCharsets.UTF_8), properties.getChunkSize());
+            long count = format == OrderExportFormat.CSV ? csv(query, writer) : ndjson(query, writer);
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            out.flush();
+            return count;
+        }
+        finally {
+            running.release();
+            exports.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long csv(OrderExportQuery query, Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        return stream(query, rs -> {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(rs.getTimestamp(2).toInstant().toString());
+            writer.write(',');
+            long customerId = rs.getLong(3);
+            if (!rs.wasNull()) {
+                writer.write(Long.toString(customerId));
+            }
+            writer.write(',');
+            writer.write(rs.getString(4));
+            writer.write(',');
+            writer.write(rs.getBigDecimal(5).toPlainString());
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt(6)));
+            writer.write(',');
+            writeCsvField(writer, rs.getString(7));
+            writer.write("\r\n");
+        });
+    }
+
+    private long ndjson(OrderExportQuery query, Writer writer) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        long count = stream(query, rs -> {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("createdAt", rs.getTimestamp(2).toInstant().toString());
+            long customerId = rs.getLong(3);
+            if (rs.wasNull()) {
+                json.writeNullField("customerId");
+            }
+            else {
+                json.writeNumberField("customerId", customerId);
+            }
+            json.writeStringField("status", rs.getString(4));
+            json.writeNumberField("total", rs.getBigDecimal(5));
+            json.writeNumberField("itemCount", rs.getInt(6));
+            json.writeStringField("idempotencyKey", rs.getString(7));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        });
+        json.close();
+        return count;
+    }
+
+    private long stream(OrderExportQuery query, RowEncoder encoder) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNS))
+                .append(" FROM ").append(relation).append(" WHERE created_at >= ? AND created_at < ?");
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(query.from()), Timestamp.from(query.to())));
+        if (query.customerId() != null) {
+            sql.append(" AND customer_id = ?");
+            args.add(query.customerId());
+        }
+        if (query.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(query.status().name());
+        }
+        long[] count = {0};
+        try {
+            readOnly.executeWithoutResult(status -> streaming.query(sql.toString(), (RowCallbackHandler) rs -> {
+                try {
+                    encoder.write(rs);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            }, args.toArray()));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        finally {
+            rows.increment(count[0]);
+        }
+        return count[0];
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowEncoder {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,61 @@
+package org.kun.orderservice.history;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads names with product-service's batch {@code POST /products/lookup} and caches
+ * them. The first failed call fails the whole request with its
+ * {@code RestClientException}, so an unavailable product-service costs one timeout
+ * per batch.
+ */
+public class HttpProductCatalog implements ProductCatalog {
+
+    /**
+     * Most ids product-service answers in one lookup.
+     */
+    private static final int LOOKUP_SIZE = 500;
+    private static final ParameterizedTypeReference<List<Product>> PRODUCTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient restClient;
+    private final Cache<Long, String> names;
+
+    public HttpProductCatalog(RestClient restClient, long cacheSize, Duration cacheTtl) {
+        this.restClient = restClient;
+        this.names = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtl).build();
+    }
+
+    @Override
+    public Map<Long, String> names(Collection<Long> productIds) {
+        Map<Long, String> resolved = new HashMap<>(names.getAllPresent(productIds));
+        List<Long> missing = productIds.stream().distinct().filter(id -> !resolved.containsKey(id)).toList();
+        for (int from = 0; from < missing.size(); from += LOOKUP_SIZE) {
+            List<Long> chunk = new ArrayList<>(missing.subList(from, Math.min(missing.size(), from + LOOKUP_SIZE)));
+            List<Product> products =
+                    restClient.post().uri("/products/lookup").body(Map.of("ids", chunk)).retrieve().body(PRODUCTS);
+            if (products == null) {
+                continue;
+            }
+            for (Product product : products) {
+                if (product.name() != null) {
+                    names.put(product.id(), product.name());
+                    resolved.put(product.id(), product.name());
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private record Product(long id, String name) {
+    }
+}
@@ -0,0 +1,44 @@
+package org.kun.orderservice.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(OrderHistoryProperties.class)
+public class OrderHistoryConfig {
+
+    @Bean
+    public ProductCatalog productCatalog(OrderHistoryProperties properties, RestClient.Builder restClientBuilder) {
+        if (properties.getCatalogUrl().isBlank()) {
+            return productIds -> Map.of();
+        }
+        return new HttpProductCatalog(restClientBuilder.clone().baseUrl(properties.getCatalogUrl()).build(),
+                properties.getNameCacheSize(), properties.getNameCacheTtl());
+    }
+
+    @Bean
+    public OrderHistoryProjector orderHistoryProjector(JdbcTemplate jdbcTemplate,
+                                                       PlatformTransactionManager transactionManager,
+                                                       ProductCatalog productCatalog, ObjectMapper objectMapper) {
+        return new OrderHistoryProjector(jdbcTemplate, transactionManager, productCatalog, objectMapper);
+    }
+
+    @Bean
+    public OrderHistoryReader orderHistoryReader(JdbcTemplate jdbcTemplate,
+                                                 PlatformTransactionManager transactionManager) {
+        return new OrderHistoryReader(jdbcTemplate, transactionManager);
+    }
+
+    @Bean
+    public OrderHistoryRebuilder orderHistoryRebuilder(JdbcTemplate jdbcTemplate, OrderHistoryProjector projector,
+                                                       OrderHistoryProperties properties) {
+        return new OrderHistoryRebuilder(jdbcTemplate, projector, properties.getRebuildChunkSize());
+    }
+}
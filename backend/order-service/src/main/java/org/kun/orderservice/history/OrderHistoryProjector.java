@@ -0,0 +1,116 @@
+package org.kun.orderservice.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.kun.orderservice.entity.OrderStatus;
+import org.kun.orderservice.outbox.Outbox;
+import org.kun.orderservice.outbox.OutboxEvent;
+import org.kun.orderservice.outbox.OutboxSubscriber;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains {@code order_history} from {@code OrderPlaced} events, delivered by the
+ * outbox relay like to any other subscriber. Projecting an order replaces its row,
+ * so redeliveries and rebuilds are harmless. Orders without a customer have no
+ * history and are skipped.
+ * <p>
+ * A batch's rows commit together, in a transaction of their own. When product names
+ * cannot be read the batch fails before writing anything and the relay delivers it
+ * again with backoff, so no row is stored without the names of products that exist.
+ */
+public class OrderHistoryProjector implements OutboxSubscriber {
+
+    private static final String INSERT = "INSERT INTO order_history (order_id, customer_id, placed_at, status, total, "
+            + "item_count, items) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate separate;
+    private final ProductCatalog productCatalog;
+    private final ObjectMapper objectMapper;
+
+    public OrderHistoryProjector(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 ProductCatalog productCatalog, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.separate = new TransactionTemplate(transactionManager);
+        this.separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.productCatalog = productCatalog;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "order-history";
+    }
+
+    @Override
+    public boolean accepts(String eventType) {
+        return Outbox.ORDER_PLACED.equals(eventType);
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        List<OrderPlacedEvent> orders = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            orders.add(objectMapper.readValue(event.payload(), OrderPlacedEvent.class));
+        }
+        project(orders);
+    }
+
+    /**
+     * Writes the history rows of {@code orders}, replacing any existing ones.
+     *
+     * @throws RuntimeException when product names cannot be read just now
+     */
+    public void project(List<OrderPlacedEvent> orders) {
+        List<OrderPlacedEvent> owned = orders.stream().filter(order -> order.customerId() != null).toList();
+        if (owned.isEmpty()) {
+            return;
+        }
+        Set<Long> productIds = new HashSet<>();
+        owned.forEach(order -> order.items().forEach(item -> productIds.add(item.productId())));
+        Map<Long, String> names = productCatalog.names(productIds);
+
+        List<Object[]> ids = new ArrayList<>(owned.size());
+        List<Object[]> rows = new ArrayList<>(owned.size());
+        for (OrderPlacedEvent order : owned) {
+            List<Line> lines = new ArrayList<>(order.items().size());
+            order.items().forEach(item -> lines.add(new Line(item.productId(), names.get(item.productId()),
+                    item.quantity(), item.unitPrice())));
+            ids.add(new Object[]{order.orderId()});
+            rows.add(new Object[]{order.orderId(), order.customerId(), Timestamp.from(order.placedAt()),
+                    OrderStatus.PLACED.name(), order.total(), lines.size(), json(lines)});
+        }
+        separate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM order_history WHERE order_id = ?", ids);
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        });
+    }
+
+    private String json(List<Line> lines) {
+        try {
+            return objectMapper.writeValueAsString(lines);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@code name} is null for a product that no longer exists, or when no catalog is configured.
+     */
+    record Line(long productId, String name, int quantity, BigDecimal unitPrice) {
+    }
+}
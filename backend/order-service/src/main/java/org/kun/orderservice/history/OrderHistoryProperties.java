@@ -0,0 +1,30 @@
+package org.kun.orderservice.history;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.history")
+public class OrderHistoryProperties {
+
+    /**
+     * Base URL of product-service for product names, e.g. {@code http://product-service};
+     * empty leaves names out of the history.
+     */
+    private String catalogUrl = "";
+
+    private long nameCacheSize = 100_000;
+
+    private Duration nameCacheTtl = Duration.ofHours(1);
+
+    private int defaultLimit = 10;
+
+    private int maxLimit = 50;
+
+    /**
+     * Orders re-projected per transaction by a rebuild.
+     */
+    private int rebuildChunkSize = 500;
+}
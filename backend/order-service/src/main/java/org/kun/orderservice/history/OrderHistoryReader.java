@@ -0,0 +1,54 @@
+package org.kun.orderservice.history;
+
+import org.kun.orderservice.dto.OrderHistoryItem;
+import org.kun.orderservice.dto.OrderHistoryPage;
+import org.kun.orderservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Pages through a customer's {@code order_history}, newest first. Each page is one
+ * range scan of {@code (customer_id, placed_at DESC, order_id DESC)} starting at
+ * the cursor, so its cost depends on the page size, not on how many orders the
+ * customer has. Reads are read-only transactions and go to a replica when one is
+ * configured.
+ */
+public class OrderHistoryReader {
+
+    private static final String COLUMNS = "SELECT order_id, placed_at, status, total, item_count, items "
+            + "FROM order_history WHERE customer_id = ?";
+    private static final String FIRST_PAGE = COLUMNS + " ORDER BY placed_at DESC, order_id DESC LIMIT ?";
+    private static final String NEXT_PAGE = COLUMNS + " AND (placed_at, order_id) < (?, ?) "
+            + "ORDER BY placed_at DESC, order_id DESC LIMIT ?";
+    private static final RowMapper<OrderHistoryItem> ITEM = (rs, row) -> new OrderHistoryItem(rs.getLong("order_id"),
+            rs.getTimestamp("placed_at").toInstant(), OrderStatus.valueOf(rs.getString("status")),
+            rs.getBigDecimal("total"), rs.getInt("item_count"), rs.getString("items"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+
+    public OrderHistoryReader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public OrderHistoryPage page(long customerId, HistoryCursor after, int limit) {
+        // one extra row tells whether there is a next page
+        List<OrderHistoryItem> rows = readOnly.execute(status -> after == null
+                ? jdbcTemplate.query(FIRST_PAGE, ITEM, customerId, limit + 1)
+                : jdbcTemplate.query(NEXT_PAGE, ITEM, customerId, Timestamp.from(after.placedAt()), after.orderId(),
+                        limit + 1));
+        if (rows.size() <= limit) {
+            return new OrderHistoryPage(rows, null);
+        }
+        OrderHistoryItem last = rows.get(limit - 1);
+        return new OrderHistoryPage(List.copyOf(rows.subList(0, limit)),
+                new HistoryCursor(last.placedAt(), last.orderId()).encode());
+    }
+}
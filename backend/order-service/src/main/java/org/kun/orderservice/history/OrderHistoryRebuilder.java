@@ -0,0 +1,94 @@
+package org.kun.orderservice.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds {@code order_history} from {@code orders} and {@code order_items}, for a
+ * new read model or after the projection was lost. Orders are re-projected in id
+ * order, one chunk at a time, over the existing rows, then rows of orders that no
+ * longer exist are deleted; the history keeps serving reads throughout.
+ */
+@Slf4j
+public class OrderHistoryRebuilder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderHistoryProjector projector;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrderHistoryRebuilder(JdbcTemplate jdbcTemplate, OrderHistoryProjector projector, int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.projector = projector;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the number of orders projected.
+     *
+     * @throws IllegalStateException if a rebuild is already running
+     */
+    public long rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Order history rebuild is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            long projected = 0;
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<OrderPlacedEvent> chunk = chunk(after);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                projector.project(chunk);
+                projected += chunk.size();
+                after = chunk.get(chunk.size() - 1).orderId();
+            }
+            int removed = jdbcTemplate.update(
+                    "DELETE FROM order_history WHERE NOT EXISTS (SELECT 1 FROM orders o WHERE o.id = order_history.order_id)");
+            log.info("Rebuilt the order history of {} orders in {} ms, removed {} stale rows", projected,
+                    (System.nanoTime() - start) / 1_000_000, removed);
+            return projected;
+        }
+        finally {
+            running.set(false);
+        }
+    }
+
+    private List<OrderPlacedEvent> chunk(long after) {
+        Map<Long, Header> headers = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, customer_id, total, created_at FROM orders "
+                        + "WHERE id > ? AND customer_id IS NOT NULL ORDER BY id LIMIT ?",
+                rs -> {
+                    headers.put(rs.getLong("id"), new Header(rs.getLong("customer_id"), rs.getBigDecimal("total"),
+                            rs.getTimestamp("created_at").toInstant(), new ArrayList<>()));
+                }, after, chunkSize);
+        if (headers.isEmpty()) {
+            return List.of();
+        }
+        jdbcTemplate.query("SELECT order_id, product_id, quantity, unit_price FROM order_items WHERE order_id IN ("
+                        + String.join(",", Collections.nCopies(headers.size(), "?")) + ") ORDER BY order_id, line",
+                rs -> {
+                    headers.get(rs.getLong("order_id")).items().add(new OrderPlacedEvent.Item(
+                            rs.getLong("product_id"), rs.getInt("quantity"), rs.getBigDecimal("unit_price")));
+                }, headers.keySet().toArray());
+        List<OrderPlacedEvent> orders = new ArrayList<>(headers.size());
+        headers.forEach((id, header) -> orders.add(new OrderPlacedEvent(null, id, header.customerId(), header.items(),
+                header.total(), header.placedAt())));
+        return orders;
+    }
+
+    private record Header(long customerId, BigDecimal total, Instant placedAt, List<OrderPlacedEvent.Item> items) {
+    }
+}
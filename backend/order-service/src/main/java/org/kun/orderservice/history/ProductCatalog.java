@@ -0,0 +1,17 @@
+package org.kun.orderservice.history;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Product names for the order history, taken when an order is projected.
+ */
+public interface ProductCatalog {
+
+    /**
+     * Names of the products that exist; the others are left out.
+     *
+     * @throws RuntimeException when the names cannot be read just now
+     */
+    Map<Long, String> names(Collection<Long> productIds);
+}
@@ -0,0 +1,165 @@
+package org.kun.orderservice.ids;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This instance's claim on a node id, kept as a row of {@code order_id_nodes}. A
+ * node id is claimed with a single conditional statement, either inserting its row
+ * or taking over one whose holder let it expire, so two instances starting at once
+ * cannot both get it. The claim is renewed in the background; once it is lost, or
+ * runs out because the database could not be reached, the generator is stopped
+ * before another instance can take the id over.
+ */
+@Slf4j
+public class NodeIdLease implements AutoCloseable {
+
+    private static final String TAKE_OVER = "UPDATE order_id_nodes SET instance_id = ?, expires_at = ? "
+            + "WHERE node_id = ? AND (instance_id = ? OR expires_at < ?)";
+    private static final String INSERT = "INSERT INTO order_id_nodes (node_id, instance_id, expires_at) VALUES (?, ?, ?)";
+    private static final String RENEW = "UPDATE order_id_nodes SET expires_at = ? WHERE node_id = ? AND instance_id = ?";
+    private static final String RELEASE = "DELETE FROM order_id_nodes WHERE node_id = ? AND instance_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId;
+    private final Duration ttl;
+    private final Duration maxClockDrift;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "node-id-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int nodeId = -1;
+    private volatile long expiresAt;
+    private volatile SnowflakeIdGenerator generator;
+
+    public NodeIdLease(JdbcTemplate jdbcTemplate, String instanceId, Duration ttl, Duration maxClockDrift) {
+        this(jdbcTemplate, instanceId, ttl, maxClockDrift, System::currentTimeMillis);
+    }
+
+    NodeIdLease(JdbcTemplate jdbcTemplate, String instanceId, Duration ttl, Duration maxClockDrift,
+                LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.instanceId = instanceId;
+        this.ttl = ttl;
+        this.maxClockDrift = maxClockDrift;
+        this.clock = clock;
+    }
+
+    /**
+     * Claims {@code preferred}, or the next node id nobody holds.
+     *
+     * @throws IllegalStateException when every node id is held
+     */
+    public int claimFrom(int preferred) {
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_NODE_ID; i++) {
+            int candidate = (preferred + i) & SnowflakeIdGenerator.MAX_NODE_ID;
+            if (tryClaim(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Every node id is held by another instance");
+    }
+
+    /**
+     * Claims exactly {@code nodeId}.
+     *
+     * @throws IllegalStateException when another instance holds it
+     */
+    public int claim(int nodeId) {
+        if (!tryClaim(nodeId)) {
+            throw new IllegalStateException("Node id " + nodeId + " is held by another instance");
+        }
+        return nodeId;
+    }
+
+    public int nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Lets {@code generator} issue ids while the claim holds and renews it every third of its ttl.
+     */
+    public void start(SnowflakeIdGenerator generator) {
+        this.generator = generator;
+        generator.validUntil(validUntil());
+        long interval = Math.max(1, ttl.toMillis() / 3);
+        scheduler.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Extends the claim; stops the generator when another instance has taken the node id.
+     */
+    void renew() {
+        long until = clock.getAsLong() + ttl.toMillis();
+        try {
+            if (jdbcTemplate.update(RENEW, new Timestamp(until), nodeId, instanceId) == 0) {
+                log.error("Node id {} was taken over by another instance; no more order ids are issued", nodeId);
+                expiresAt = 0;
+            }
+            else {
+                expiresAt = until;
+            }
+        }
+        catch (DataAccessException e) {
+            // the generator runs on until the claim this instance last saw runs out
+            log.warn("Could not renew node id {}: {}", nodeId, e.getMessage());
+        }
+        SnowflakeIdGenerator current = generator;
+        if (current != null) {
+            current.validUntil(validUntil());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (nodeId >= 0 && expiresAt > 0) {
+            try {
+                jdbcTemplate.update(RELEASE, nodeId, instanceId);
+            }
+            catch (DataAccessException e) {
+                log.warn("Could not release node id {}; it frees up when its claim expires", nodeId);
+            }
+        }
+    }
+
+    private boolean tryClaim(int candidate) {
+        long now = clock.getAsLong();
+        long until = now + ttl.toMillis();
+        Timestamp expiry = new Timestamp(until);
+        // ours already, or expired: the row lock makes a concurrent take-over re-check and miss
+        if (jdbcTemplate.update(TAKE_OVER, instanceId, expiry, candidate, instanceId, new Timestamp(now)) == 0) {
+            try {
+                jdbcTemplate.update(INSERT, candidate, instanceId, expiry);
+            }
+            catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        nodeId = candidate;
+        expiresAt = until;
+        return true;
+    }
+
+    /**
+     * Where the generator has to stop: the expiry, less the clock drift another
+     * instance may be ahead by when it decides the claim has expired.
+     */
+    private Instant validUntil() {
+        long until = expiresAt;
+        return until == 0 ? Instant.EPOCH : Instant.ofEpochMilli(until - maxClockDrift.toMillis());
+    }
+}
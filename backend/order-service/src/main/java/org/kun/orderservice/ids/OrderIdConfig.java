@@ -0,0 +1,86 @@
+package org.kun.orderservice.ids;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(OrderIdProperties.class)
+public class OrderIdConfig {
+
+    /**
+     * Published in the instance's Eureka metadata, to show which instance holds
+     * which node id; the claim itself is a {@link NodeIdLease}.
+     */
+    public static final String NODE_ID_METADATA = "snowflake-node-id";
+
+    // claims a row of order_id_nodes, so after the schema is in place
+    @Bean(destroyMethod = "close")
+    @DependsOn("entityManagerFactory")
+    public NodeIdLease orderIdNodeLease(OrderIdProperties properties,
+                                        ObjectProvider<EurekaInstanceConfigBean> eurekaInstance,
+                                        Environment environment, JdbcTemplate jdbcTemplate) {
+        EurekaInstanceConfigBean instance = eurekaInstance.getIfAvailable();
+        String instanceId = instance != null ? instance.getInstanceId() : localInstanceId(environment);
+        NodeIdLease lease = new NodeIdLease(jdbcTemplate, instanceId, properties.getNodeLease(),
+                properties.getMaxClockDrift());
+        int nodeId = properties.getNodeId() != null
+                ? lease.claim(properties.getNodeId())
+                : lease.claimFrom(preferredNodeId(instanceId));
+        if (instance != null) {
+            instance.getMetadataMap().put(NODE_ID_METADATA, Integer.toString(nodeId));
+        }
+        return lease;
+    }
+
+    // reads the orders table, so after the schema is in place
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public SnowflakeIdGenerator orderIdGenerator(NodeIdLease orderIdNodeLease, OrderIdProperties properties,
+                                                 JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(orderIdNodeLease.nodeId(),
+                properties.getMaxClockDrift());
+        // in case the clock is now behind the ids issued before a restart
+        Long latest = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+        if (latest != null && !generator.advancePast(latest)) {
+            log.warn("The latest order id is from {}, ahead of this clock by more than {}",
+                    SnowflakeIdGenerator.timestampOf(latest), properties.getMaxClockDrift());
+        }
+        orderIdNodeLease.start(generator);
+        meterRegistry.gauge("order.ids.clock.regressions", generator, SnowflakeIdGenerator::clockRegressions);
+        SnowflakeIdentifierGenerator.install(generator);
+        log.info("Order ids use node id {}", generator.nodeId());
+        return generator;
+    }
+
+    /**
+     * The node id tried first, from a hash of {@code instanceId}, so that an
+     * instance usually gets the same one back after a restart.
+     */
+    static int preferredNodeId(String instanceId) {
+        return Math.floorMod(instanceId.hashCode() * 0x9E3779B9, SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    private static String localInstanceId(Environment environment) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + ":" + environment.getProperty("spring.application.name", "order-service") + ":"
+                + environment.getProperty("server.port", "8080");
+    }
+}
@@ -0,0 +1,29 @@
+package org.kun.orderservice.ids;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.ids")
+public class OrderIdProperties {
+
+    /**
+     * Fixes this instance's node id (0-1023), which then has to be free for startup
+     * to succeed; by default the first free one from a hash of the instance id is claimed.
+     */
+    private Integer nodeId;
+
+    /**
+     * How long a node id claim lasts without renewal; renewed every third of it.
+     * Should be well above max-clock-drift, which is taken off it to be safe.
+     */
+    private Duration nodeLease = Duration.ofSeconds(30);
+
+    /**
+     * How far the clock may step back before id generation stops; also how far ahead
+     * of the clock ids may run.
+     */
+    private Duration maxClockDrift = Duration.ofSeconds(5);
+}
@@ -0,0 +1,134 @@
+package org.kun.orderservice.ids;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids made of 41 bits of milliseconds since {@link #EPOCH},
+ * a 10-bit node id and a 12-bit sequence, handed out without a database round
+ * trip and without locks: the last timestamp and sequence share one
+ * {@link AtomicLong} that callers advance with compare-and-set.
+ * <p>
+ * Ids of one node only ever increase. When the clock steps back, ids keep coming
+ * from the last timestamp with the sequence carrying into it, a little ahead of the
+ * clock, until the clock catches up; a step back of more than the allowed drift
+ * fails instead, since the ids would run ahead of real time by that much.
+ * <p>
+ * Ids also stop once the clock reaches {@link #validUntil(Instant)}, after which
+ * the node id may belong to another instance.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+    public static final int NODE_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long EPOCH_MILLIS = EPOCH.toEpochMilli();
+
+    private final long node;
+    private final LongSupplier clock;
+    private final long maxDriftMillis;
+    // (timestamp << SEQUENCE_BITS) | sequence of the last id
+    private final AtomicLong last = new AtomicLong();
+    private final LongAdder clockRegressions = new LongAdder();
+    private volatile long validUntil = Long.MAX_VALUE;
+
+    public SnowflakeIdGenerator(int nodeId, Duration maxClockDrift) {
+        this(nodeId, maxClockDrift, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, Duration maxClockDrift, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ids are 0 to " + MAX_NODE_ID);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+        this.maxDriftMillis = maxClockDrift.toMillis();
+    }
+
+    /**
+     * @throws IllegalStateException when the clock is further behind the last id
+     *                               than the allowed drift, or past {@link #validUntil(Instant)}
+     */
+    public long next() {
+        while (true) {
+            long previous = last.get();
+            long millis = clock.getAsLong();
+            if (millis >= validUntil) {
+                throw new IllegalStateException("The claim on node id " + nodeId()
+                        + " has expired; refusing to issue ids");
+            }
+            long now = millis - EPOCH_MILLIS;
+            long lastMillis = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            }
+            else {
+                if (lastMillis - now > maxDriftMillis) {
+                    throw new IllegalStateException("The clock is " + (lastMillis - now)
+                            + " ms behind the last order id; refusing to issue ids");
+                }
+                // same millisecond, or the clock went back: a full sequence carries into the timestamp
+                next = previous + 1;
+            }
+            if (last.compareAndSet(previous, next)) {
+                if (now < lastMillis) {
+                    clockRegressions.increment();
+                }
+                return ((next & ~SEQUENCE_MASK) << NODE_BITS) | node | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Makes the following ids larger than {@code id}, e.g. the largest id stored
+     * before a restart, as long as it is within the allowed drift of the clock.
+     *
+     * @return false when {@code id} lies too far ahead of the clock and was ignored
+     */
+    public boolean advancePast(long id) {
+        long millis = timestampMillis(id);
+        if (millis - (clock.getAsLong() - EPOCH_MILLIS) > maxDriftMillis) {
+            return false;
+        }
+        long state = (millis << SEQUENCE_BITS) | (id & SEQUENCE_MASK);
+        last.accumulateAndGet(state, Math::max);
+        return true;
+    }
+
+    /**
+     * Stops issuing ids from {@code until} on, when this node id may go to another instance.
+     */
+    public void validUntil(Instant until) {
+        validUntil = until.toEpochMilli();
+    }
+
+    public int nodeId() {
+        return (int) (node >>> SEQUENCE_BITS);
+    }
+
+    /**
+     * Ids issued while the clock was behind the last id.
+     */
+    public long clockRegressions() {
+        return clockRegressions.sum();
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli(EPOCH_MILLIS + timestampMillis(id));
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    private static long timestampMillis(long id) {
+        return id >>> (NODE_BITS + SEQUENCE_BITS);
+    }
+}
@@ -0,0 +1,26 @@
+package org.kun.orderservice.ids;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate's side of {@link SnowflakeId}. Hibernate creates the generator itself,
+ * so it uses the application's {@link SnowflakeIdGenerator} through {@link #install}.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    private static volatile SnowflakeIdGenerator generator;
+
+    static void install(SnowflakeIdGenerator installed) {
+        generator = installed;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        SnowflakeIdGenerator current = generator;
+        if (current == null) {
+            throw new IllegalStateException("No SnowflakeIdGenerator installed");
+        }
+        return current.next();
+    }
+}
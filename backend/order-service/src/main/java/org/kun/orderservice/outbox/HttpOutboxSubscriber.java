@@ -0,0 +1,49 @@
+package org.kun.orderservice.outbox;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Posts a batch of events to a service endpoint as one JSON array of payloads; any
+ * response other than 2xx fails the batch.
+ */
+public class HttpOutboxSubscriber implements OutboxSubscriber {
+
+    private final String name;
+    private final String url;
+    private final Set<String> types;
+    private final RestClient restClient;
+
+    public HttpOutboxSubscriber(String name, String url, Set<String> types, RestClient restClient) {
+        this.name = name;
+        this.url = url;
+        this.types = types;
+        this.restClient = restClient;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean accepts(String eventType) {
+        return types.isEmpty() || types.contains(eventType);
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        events.forEach(event -> body.add(event.payload()));
+        restClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.toString())
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,41 @@
+package org.kun.orderservice.outbox;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for a message broker: hands relayed events to subscribers registered in
+ * the same JVM. Used in tests and local runs without the other services.
+ */
+public class InProcessBroker implements OutboxSubscriber {
+
+    private final List<OutboxSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(OutboxSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(OutboxSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public boolean accepts(String eventType) {
+        return true;
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws Exception {
+        for (OutboxSubscriber subscriber : subscribers) {
+            List<OutboxEvent> accepted = events.stream().filter(event -> subscriber.accepts(event.type())).toList();
+            if (!accepted.isEmpty()) {
+                subscriber.deliver(accepted);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.kun.orderservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends events to {@code outbox_events} as part of the caller's transaction,
+ * so an event exists exactly when the change it describes was committed.
+ */
+public class Outbox {
+
+    public static final String ORDER_PLACED = "OrderPlaced";
+
+    private static final String INSERT = "INSERT INTO outbox_events (event_id, event_type, aggregate_id, payload, "
+            + "created_at, attempts) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void append(List<OutboxMessage> messages) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written in the transaction of their change");
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            try {
+                rows.add(new Object[]{message.eventId(), message.type(), message.aggregateId(),
+                        objectMapper.writeValueAsString(message.payload()), now});
+            }
+            catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialize " + message.type() + " event", e);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
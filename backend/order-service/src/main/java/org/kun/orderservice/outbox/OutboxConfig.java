@@ -0,0 +1,67 @@
+package org.kun.orderservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    @Bean
+    public Outbox outbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        return new Outbox(jdbcTemplate, objectMapper);
+    }
+
+    /**
+     * Resolves {@code http://<service-id>} through service discovery; clone before customizing.
+     */
+    @Bean
+    @LoadBalanced
+    public RestClient.Builder loadBalancedRestClientBuilder(OutboxProperties properties,
+                                                           ObservationRegistry observationRegistry) {
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.defaults()
+                .withConnectTimeout(properties.getDeliveryTimeout())
+                .withReadTimeout(properties.getDeliveryTimeout());
+        return RestClient.builder()
+                .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(settings))
+                .observationRegistry(observationRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "order.outbox", name = "broker", havingValue = "in-process")
+    public InProcessBroker inProcessBroker() {
+        return new InProcessBroker();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   OutboxProperties properties, MeterRegistry meterRegistry,
+                                   RestClient.Builder loadBalancedRestClientBuilder,
+                                   ObjectProvider<OutboxSubscriber> localSubscribers) {
+        // local subscribers include the in-process broker when it is selected
+        List<OutboxSubscriber> subscribers = new ArrayList<>(localSubscribers.orderedStream().toList());
+        if (properties.getBroker() == OutboxProperties.Broker.HTTP) {
+            RestClient restClient = loadBalancedRestClientBuilder.clone().build();
+            for (OutboxProperties.Subscriber subscriber : properties.getSubscribers()) {
+                subscribers.add(new HttpOutboxSubscriber(subscriber.getName(), subscriber.getUrl(),
+                        subscriber.getTypes(), restClient));
+            }
+        }
+        return new OutboxRelay(jdbcTemplate, transactionManager, subscribers, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,10 @@
+package org.kun.orderservice.outbox;
+
+import java.time.Instant;
+
+/**
+ * An outbox row being relayed.
+ */
+public record OutboxEvent(long id, String eventId, String type, long aggregateId, String payload, Instant createdAt,
+                          int attempts) {
+}
@@ -0,0 +1,8 @@
+package org.kun.orderservice.outbox;
+
+/**
+ * An event to append to the outbox; {@code payload} is serialized to JSON and
+ * must carry {@code eventId} itself, since subscribers receive only the payload.
+ */
+public record OutboxMessage(String eventId, String type, long aggregateId, Object payload) {
+}
@@ -0,0 +1,77 @@
+package org.kun.orderservice.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "order.outbox")
+public class OutboxProperties {
+
+    public enum Broker {
+        /**
+         * Deliver to the {@link #subscribers} over HTTP.
+         */
+        HTTP,
+        /**
+         * Deliver to an {@link InProcessBroker} in this JVM.
+         */
+        IN_PROCESS
+    }
+
+    private Broker broker = Broker.HTTP;
+
+    private List<Subscriber> subscribers = new ArrayList<>();
+
+    /**
+     * Most events claimed and delivered per relay cycle.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Pause between polls once the outbox is drained.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Delay before the first redelivery of a failed event; doubles per attempt.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+    /**
+     * How long published events are kept before they are deleted.
+     */
+    private Duration retention = Duration.ofDays(1);
+
+    private Duration deliveryTimeout = Duration.ofSeconds(5);
+
+    /**
+     * How long a claimed batch is kept from other relays while it is delivered; if
+     * the relay has not marked it by then it becomes due again. Should exceed the
+     * delivery timeout times the number of subscribers.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    @Data
+    public static class Subscriber {
+
+        private String name;
+
+        /**
+         * Endpoint receiving a JSON array of event payloads; {@code http://<service-id>/...}
+         * is resolved through service discovery.
+         */
+        private String url;
+
+        /**
+         * Event types to deliver; empty means all.
+         */
+        private Set<String> types = Set.of();
+    }
+}
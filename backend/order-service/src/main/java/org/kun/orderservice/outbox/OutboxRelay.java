@@ -0,0 +1,215 @@
+package org.kun.orderservice.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes {@code outbox_events} to the subscribers. Each cycle claims the oldest
+ * due batch in a short transaction: the rows are locked with {@code FOR UPDATE SKIP
+ * LOCKED}, so several replicas claim disjoint batches, and their
+ * {@code next_attempt_at} is moved to the end of a {@link OutboxProperties#getLease()
+ * lease}, so no other relay picks them up once the claim commits. The batch is then
+ * delivered to every subscriber that accepts its types with no transaction or row
+ * lock held, and the results are marked in a second transaction: published, or an
+ * exponential backoff for events a subscriber failed. A relay that dies in between
+ * leaves its batch pending until the lease runs out, and it is delivered again.
+ * <p>
+ * Delivery order follows ids, except that a failed event is overtaken by later ones.
+ */
+@Slf4j
+public class OutboxRelay implements AutoCloseable {
+
+    private static final String SELECT_DUE = "SELECT id, event_id, event_type, aggregate_id, payload, created_at, "
+            + "attempts FROM outbox_events WHERE published_at IS NULL AND (next_attempt_at IS NULL OR next_attempt_at <= ?) "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String CLAIM = "UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?";
+    private static final String MARK_PUBLISHED = "UPDATE outbox_events SET published_at = ? WHERE id = ?";
+    // only while the claim is still ours: once the lease has run out another relay may have the event
+    private static final String MARK_FAILED = "UPDATE outbox_events SET attempts = attempts + 1, next_attempt_at = ?, "
+            + "last_error = ? WHERE id = ? AND next_attempt_at = ?";
+    private static final RowMapper<OutboxEvent> EVENT = (rs, row) -> new OutboxEvent(rs.getLong("id"),
+            rs.getString("event_id"), rs.getString("event_type"), rs.getLong("aggregate_id"), rs.getString("payload"),
+            rs.getTimestamp("created_at").toInstant(), rs.getInt("attempts"));
+    private static final Duration STATS_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSubscriber> subscribers;
+    private final OutboxProperties properties;
+    private final Thread thread = new Thread(this::run, "outbox-relay");
+
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer publishLag;
+
+    private volatile boolean running;
+    private volatile long pending;
+    private volatile double lagSeconds;
+    private Instant statsDue = Instant.EPOCH;
+    private Instant purgeDue = Instant.EPOCH;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       List<OutboxSubscriber> subscribers, OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.subscribers = List.copyOf(subscribers);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.published = meterRegistry.counter("outbox.events", "result", "published");
+        this.failed = meterRegistry.counter("outbox.events", "result", "failed");
+        this.publishLag = Timer.builder("outbox.publish.lag")
+                .description("Time from an event being committed to it being published")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("outbox.pending", this, relay -> relay.pending);
+        meterRegistry.gauge("outbox.lag", this, relay -> relay.lagSeconds);
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        if (subscribers.isEmpty()) {
+            log.warn("No outbox subscribers are configured; events stay in the outbox");
+            return;
+        }
+        running = true;
+        thread.start();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    /**
+     * Delivers one batch; returns how many events it held.
+     */
+    public int relayOnce() {
+        Instant now = Instant.now();
+        // millisecond precision so the value reads back equal from any timestamp column
+        Timestamp lease = Timestamp.from(now.plus(properties.getLease()).truncatedTo(ChronoUnit.MILLIS));
+        List<OutboxEvent> batch = claim(now, lease);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> errors = new HashMap<>();
+        for (OutboxSubscriber subscriber : subscribers) {
+            deliver(subscriber, batch, errors);
+        }
+        Timestamp publishedAt = Timestamp.from(Instant.now());
+        List<Object[]> done = new ArrayList<>(batch.size());
+        List<Object[]> retry = new ArrayList<>(errors.size());
+        for (OutboxEvent event : batch) {
+            String error = errors.get(event.id());
+            if (error == null) {
+                done.add(new Object[]{publishedAt, event.id()});
+                publishLag.record(Duration.between(event.createdAt(), publishedAt.toInstant()));
+            }
+            else {
+                retry.add(new Object[]{Timestamp.from(now.plus(backoff(event.attempts()))), error, event.id(), lease});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(MARK_PUBLISHED, done);
+            jdbcTemplate.batchUpdate(MARK_FAILED, retry);
+        });
+        published.increment(done.size());
+        failed.increment(retry.size());
+        return batch.size();
+    }
+
+    /**
+     * Locks the oldest due events and leases them to this relay until {@code lease};
+     * the locks are released when this returns.
+     */
+    private List<OutboxEvent> claim(Instant now, Timestamp lease) {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = jdbcTemplate.query(SELECT_DUE, EVENT, Timestamp.from(now),
+                    properties.getBatchSize());
+            jdbcTemplate.batchUpdate(CLAIM, due.stream().map(event -> new Object[]{lease, event.id()}).toList());
+            return due;
+        });
+        return batch == null ? List.of() : batch;
+    }
+
+    /**
+     * Refreshes the pending count and the age of the oldest pending event.
+     */
+    void refreshStats() {
+        jdbcTemplate.query("SELECT COUNT(*), MIN(created_at) FROM outbox_events WHERE published_at IS NULL", rs -> {
+            pending = rs.getLong(1);
+            Timestamp oldest = rs.getTimestamp(2);
+            lagSeconds = oldest == null ? 0 : Math.max(0, Duration.between(oldest.toInstant(), Instant.now()).toMillis() / 1000.0);
+        });
+    }
+
+    private void deliver(OutboxSubscriber subscriber, List<OutboxEvent> batch, Map<Long, String> errors) {
+        List<OutboxEvent> accepted = batch.stream().filter(event -> subscriber.accepts(event.type())).toList();
+        if (accepted.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            subscriber.deliver(accepted);
+            meterRegistry.timer("outbox.delivery", "subscriber", subscriber.name())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        catch (Exception e) {
+            log.warn("Delivering {} outbox events to {} failed: {}", accepted.size(), subscriber.name(), e.toString());
+            String error = subscriber.name() + ": " + e;
+            String truncated = error.length() > 500 ? error.substring(0, 500) : error;
+            accepted.forEach(event -> errors.put(event.id(), truncated));
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration max = properties.getMaxRetryBackoff();
+        Duration backoff = properties.getRetryBackoff().multipliedBy(1L << Math.min(attempts, 20));
+        return backoff.compareTo(max) > 0 ? max : backoff;
+    }
+
+    private void run() {
+        while (running) {
+            int count = 0;
+            try {
+                count = relayOnce();
+                Instant now = Instant.now();
+                if (!now.isBefore(statsDue)) {
+                    refreshStats();
+                    statsDue = now.plus(STATS_INTERVAL);
+                }
+                if (!now.isBefore(purgeDue)) {
+                    jdbcTemplate.update("DELETE FROM outbox_events WHERE published_at < ?",
+                            Timestamp.from(now.minus(properties.getRetention())));
+                    purgeDue = now.plus(PURGE_INTERVAL);
+                }
+            }
+            catch (RuntimeException e) {
+                log.warn("Outbox relay cycle failed", e);
+            }
+            if (count < properties.getBatchSize() && running) {
+                LockSupport.parkNanos(properties.getPollInterval().toNanos());
+            }
+        }
+    }
+}
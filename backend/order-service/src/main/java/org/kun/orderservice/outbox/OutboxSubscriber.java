@@ -0,0 +1,20 @@
+package org.kun.orderservice.outbox;
+
+import java.util.List;
+
+/**
+ * A destination of outbox events. Delivery is at least once: a batch is sent again
+ * after any failure, including a failure of another subscriber, so subscribers
+ * must ignore events they have already processed.
+ */
+public interface OutboxSubscriber {
+
+    String name();
+
+    boolean accepts(String eventType);
+
+    /**
+     * Returns once the subscriber has durably accepted every event; throws otherwise.
+     */
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
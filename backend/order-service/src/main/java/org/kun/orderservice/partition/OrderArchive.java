@@ -0,0 +1,163 @@
+package org.kun.orderservice.partition;
+
+import org.kun.orderservice.dto.OrderReceipt;
+import org.kun.orderservice.entity.OrderStatus;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Files of archived partitions, one per table and month, in Postgres' COPY text
+ * format (tab-separated, {@code \N} for null, backslash escapes) with timestamps in
+ * UTC, gzip-compressed. They load back with {@code COPY ... FROM} and are read here
+ * by streaming, so an archived month can be queried without restoring it.
+ * <p>
+ * A file is written under a temporary name, forced to disk and then renamed, so a
+ * file that exists is complete.
+ */
+public class OrderArchive {
+
+    static final String ORDER_COLUMNS = "id, idempotency_key, request_hash, customer_id, status, total, item_count";
+    static final String ITEM_COLUMNS = "order_id, line, product_id, quantity, unit_price";
+    private static final String CREATED_AT = "to_char(created_at AT TIME ZONE 'UTC', 'YYYY-MM-DD\"T\"HH24:MI:SS.US\"Z\"')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+
+    public OrderArchive(JdbcTemplate jdbcTemplate, Path directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = directory;
+    }
+
+    Path ordersFile(YearMonth month) {
+        return directory.resolve("orders_" + month + ".tsv.gz");
+    }
+
+    Path itemsFile(YearMonth month) {
+        return directory.resolve("order_items_" + month + ".tsv.gz");
+    }
+
+    /**
+     * Copies {@code table} (a detached partition of {@code orders}) to the month's file.
+     *
+     * @return rows written
+     */
+    long writeOrders(String table, YearMonth month) {
+        return write("SELECT " + ORDER_COLUMNS + ", " + CREATED_AT + " FROM " + table + " ORDER BY id", ordersFile(month));
+    }
+
+    long writeItems(String table, YearMonth month) {
+        return write("SELECT " + ITEM_COLUMNS + ", " + CREATED_AT + " FROM " + table + " ORDER BY order_id, line",
+                itemsFile(month));
+    }
+
+    /**
+     * Orders of an archived month, optionally of one customer, in id order; reads the
+     * file from the start, so the cost grows with the month, not with the result.
+     */
+    public List<OrderReceipt> orders(YearMonth month, Long customerId, int limit) throws IOException {
+        Path file = ordersFile(month);
+        List<OrderReceipt> orders = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return orders;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line;
+            while (orders.size() < limit && (line = reader.readLine()) != null) {
+                String[] fields = fields(line);
+                Long customer = fields[3] == null ? null : Long.valueOf(fields[3]);
+                if (customerId != null && !customerId.equals(customer)) {
+                    continue;
+                }
+                orders.add(new OrderReceipt(Long.parseLong(fields[0]), fields[1], customer,
+                        OrderStatus.valueOf(fields[4]), new BigDecimal(fields[5]), Integer.parseInt(fields[6]),
+                        Instant.parse(fields[7])));
+            }
+        }
+        return orders;
+    }
+
+    private long write(String select, Path file) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            long rows;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024)) {
+                rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyOut("COPY (" + select + ") TO STDOUT", gzip);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gzip.finish();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    /**
+     * Splits a line of COPY text format; {@code null} for {@code \N}.
+     */
+    static String[] fields(String line) {
+        String[] fields = line.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].equals("\\N") ? null : unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String unescape(String field) {
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                value.append(c);
+                continue;
+            }
+            char escaped = field.charAt(++i);
+            value.append(switch (escaped) {
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'v' -> '\u000b';
+                default -> escaped;
+            });
+        }
+        return value.toString();
+    }
+}
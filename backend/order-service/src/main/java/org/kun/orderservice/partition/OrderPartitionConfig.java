@@ -0,0 +1,26 @@
+package org.kun.orderservice.partition;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(OrderPartitionProperties.class)
+public class OrderPartitionConfig {
+
+    @Bean
+    public OrderArchive orderArchive(JdbcTemplate jdbcTemplate, OrderPartitionProperties properties) {
+        return new OrderArchive(jdbcTemplate, Path.of(properties.getArchiveDirectory()));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public OrderPartitionManager orderPartitionManager(JdbcTemplate jdbcTemplate,
+                                                       PlatformTransactionManager transactionManager,
+                                                       OrderArchive orderArchive, OrderPartitionProperties properties) {
+        return new OrderPartitionManager(jdbcTemplate, transactionManager, orderArchive, properties);
+    }
+}
@@ -0,0 +1,299 @@
+package org.kun.orderservice.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.OrderArchiveInfo;
+import org.kun.orderservice.dto.OrderPartitionStatus;
+import org.kun.orderservice.dto.OrderReceipt;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code orders} and {@code order_items}: creates
+ * the current month and {@link OrderPartitionProperties#getPremakeMonths()} more
+ * ahead of time, so inserts never wait on DDL, and moves months older than
+ * {@link OrderPartitionProperties#getRetainMonths()} to the {@link OrderArchive}.
+ * <p>
+ * Archiving a month detaches its partitions, copies them to files, then records
+ * the archive, drops the tables and forgets the month's idempotency keys in one
+ * transaction. Each step can be repeated, and detached tables are picked up again
+ * by the next run, so a run that dies halfway is finished by the next one. A
+ * session advisory lock keeps replicas from maintaining at the same time.
+ * <p>
+ * Does nothing unless both tables are partitioned, as {@code schema-postgresql.sql}
+ * creates them.
+ */
+@Slf4j
+public class OrderPartitionManager implements AutoCloseable {
+
+    static final String ORDERS = "orders";
+    static final String ITEMS = "order_items";
+
+    // "orderp"
+    private static final long LOCK_KEY = 0x6f7264657270L;
+    private static final Pattern PARTITION = Pattern.compile("(?:orders|order_items)_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderArchive archive;
+    private final OrderPartitionProperties properties;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-partitions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean partitioned;
+
+    public OrderPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 OrderArchive archive, OrderPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.properties = properties;
+    }
+
+    /**
+     * Makes sure the current month's partitions exist before orders are placed, then
+     * maintains them on a schedule.
+     */
+    public void start() {
+        partitioned = detectPartitioned();
+        if (!partitioned) {
+            return;
+        }
+        maintain();
+        long interval = properties.getMaintenanceInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                maintain();
+            }
+            catch (RuntimeException e) {
+                log.warn("Order partition maintenance failed; retrying in {}", properties.getMaintenanceInterval(), e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * @throws IllegalStateException when the order tables are not partitioned
+     */
+    public MaintenanceReport maintain() {
+        return maintain(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    synchronized MaintenanceReport maintain(YearMonth current) {
+        if (!partitioned) {
+            throw new IllegalStateException("The order tables are not partitioned");
+        }
+        YearMonth oldestKept = current.minusMonths(Math.max(1, properties.getRetainMonths()) - 1);
+        // the lock is held by this connection; the work below runs on others from the pool
+        return jdbcTemplate.execute((ConnectionCallback<MaintenanceReport>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                log.debug("Order partitions are being maintained by another replica");
+                return new MaintenanceReport(false, List.of(), List.of());
+            }
+            try {
+                List<String> created = createAhead(current);
+                List<String> archived = new ArrayList<>();
+                for (YearMonth month : monthsBefore(oldestKept)) {
+                    archive(month);
+                    archived.add(month.toString());
+                }
+                return new MaintenanceReport(true, created, archived);
+            }
+            finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        });
+    }
+
+    public OrderPartitionStatus status() {
+        List<String> months = new ArrayList<>();
+        if (partitioned) {
+            jdbcTemplate.query("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                            + "WHERE i.inhparent = 'orders'::regclass ORDER BY c.relname",
+                    (ResultSet rs) -> {
+                        while (rs.next()) {
+                            Matcher matcher = PARTITION.matcher(rs.getString(1));
+                            if (matcher.matches()) {
+                                months.add(matcher.group(1) + "-" + matcher.group(2));
+                            }
+                        }
+                        return null;
+                    });
+        }
+        List<OrderArchiveInfo> archives = jdbcTemplate.query(
+                "SELECT month, order_count, item_count, archived_at FROM order_archives ORDER BY month",
+                (rs, row) -> new OrderArchiveInfo(rs.getString("month"), rs.getLong("order_count"),
+                        rs.getLong("item_count"), rs.getTimestamp("archived_at").toInstant()));
+        return new OrderPartitionStatus(partitioned, months, archives);
+    }
+
+    /**
+     * Orders of an archived month, or empty when the month is not archived.
+     */
+    public Optional<List<OrderReceipt>> archivedOrders(YearMonth month, Long customerId, int limit) throws IOException {
+        Integer archived = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_archives WHERE month = ?",
+                Integer.class, month.toString());
+        if (archived == null || archived == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(archive.orders(month, customerId, limit));
+    }
+
+    static String partitionName(String parent, YearMonth month) {
+        return String.format("%s_p%04d_%02d", parent, month.getYear(), month.getMonthValue());
+    }
+
+    private boolean detectPartitioned() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            log.info("Order partition maintenance is off on {}", product);
+            return false;
+        }
+        Integer tables = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table p "
+                + "JOIN pg_class c ON c.oid = p.partrelid "
+                + "WHERE c.relname IN ('orders', 'order_items') AND pg_table_is_visible(c.oid)", Integer.class);
+        if (tables == null || tables != 2) {
+            log.warn("orders and order_items are not both partitioned; migrate them to the layout of "
+                    + "schema-postgresql.sql to have them partitioned and archived");
+            return false;
+        }
+        return true;
+    }
+
+    private List<String> createAhead(YearMonth current) {
+        List<String> created = new ArrayList<>();
+        for (int ahead = 0; ahead <= properties.getPremakeMonths(); ahead++) {
+            YearMonth month = current.plusMonths(ahead);
+            boolean orders = createPartition(ORDERS, month);
+            boolean items = createPartition(ITEMS, month);
+            if (orders || items) {
+                created.add(month.toString());
+            }
+        }
+        return created;
+    }
+
+    private boolean createPartition(String parent, YearMonth month) {
+        String name = partitionName(parent, month);
+        if (exists(name)) {
+            return false;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + parent + " FOR VALUES FROM ('"
+                + bound(month) + "') TO ('" + bound(month.plusMonths(1)) + "')");
+        log.info("Created partition {}", name);
+        return true;
+    }
+
+    /**
+     * Months before {@code oldestKept} that still have a table, attached or not.
+     */
+    private SortedSet<YearMonth> monthsBefore(YearMonth oldestKept) {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        jdbcTemplate.query("SELECT relname FROM pg_class WHERE relkind IN ('r', 'p') "
+                        + "AND relname ~ '^(orders|order_items)_p[0-9]{4}_[0-9]{2}$' AND pg_table_is_visible(oid)",
+                (ResultSet rs) -> {
+                    while (rs.next()) {
+                        Matcher matcher = PARTITION.matcher(rs.getString(1));
+                        if (matcher.matches()) {
+                            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)),
+                                    Integer.parseInt(matcher.group(2)));
+                            if (month.isBefore(oldestKept)) {
+                                months.add(month);
+                            }
+                        }
+                    }
+                    return null;
+                });
+        return months;
+    }
+
+    private void archive(YearMonth month) {
+        String orders = partitionName(ORDERS, month);
+        String items = partitionName(ITEMS, month);
+        long start = System.nanoTime();
+        // detached in a transaction of its own, so copying does not hold locks on the parents
+        transactionTemplate.executeWithoutResult(status -> {
+            detach(ORDERS, orders);
+            detach(ITEMS, items);
+        });
+        long orderCount = exists(orders) ? archive.writeOrders(orders, month) : 0;
+        long itemCount = exists(items) ? archive.writeItems(items, month) : 0;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM order_archives WHERE month = ?", month.toString());
+            jdbcTemplate.update("INSERT INTO order_archives (month, orders_file, items_file, order_count, item_count, "
+                            + "archived_at) VALUES (?, ?, ?, ?, ?, ?)", month.toString(),
+                    archive.ordersFile(month).toString(), archive.itemsFile(month).toString(), orderCount, itemCount,
+                    Timestamp.from(Instant.now()));
+            jdbcTemplate.update("DELETE FROM order_keys WHERE created_at >= ? AND created_at < ?",
+                    Timestamp.from(month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC)),
+                    Timestamp.from(month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC)));
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + orders + ", " + items);
+        });
+        log.info("Archived {} orders and {} items of {} in {} ms", orderCount, itemCount, month,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void detach(String parent, String partition) {
+        Boolean attached = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_inherits "
+                + "WHERE inhrelid = to_regclass(?) AND inhparent = to_regclass(?))", Boolean.class, partition, parent);
+        if (Boolean.TRUE.equals(attached)) {
+            jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition);
+        }
+    }
+
+    private boolean exists(String table) {
+        Boolean found = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+        return Boolean.TRUE.equals(found);
+    }
+
+    private static String bound(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT " + function + "(" + LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Months whose partitions were created and months moved to the archive by one
+     * run; {@code ran} is false when another replica was maintaining.
+     */
+    public record MaintenanceReport(boolean ran, List<String> created, List<String> archived) {
+    }
+}
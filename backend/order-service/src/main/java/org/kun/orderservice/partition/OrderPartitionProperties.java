@@ -0,0 +1,30 @@
+package org.kun.orderservice.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.partitions")
+public class OrderPartitionProperties {
+
+    /**
+     * Monthly partitions kept ready beyond the current month.
+     */
+    private int premakeMonths = 3;
+
+    /**
+     * Months kept in the database, the current one included; older partitions are
+     * detached and archived.
+     */
+    private int retainMonths = 12;
+
+    private Duration maintenanceInterval = Duration.ofHours(1);
+
+    /**
+     * Where archived partitions are written; every replica that serves archive reads
+     * must see the same directory.
+     */
+    private String archiveDirectory = "data/order-archive";
+}
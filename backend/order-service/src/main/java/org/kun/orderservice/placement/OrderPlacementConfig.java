@@ -0,0 +1,31 @@
+package org.kun.orderservice.placement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kun.orderservice.checkout.CheckoutValidator;
+import org.kun.orderservice.ids.SnowflakeIdGenerator;
+import org.kun.orderservice.outbox.Outbox;
+import org.kun.orderservice.pricing.PricingEngine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(OrderPlacementProperties.class)
+public class OrderPlacementConfig {
+
+    @Bean
+    public OrderWriter orderWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   Outbox outbox, SnowflakeIdGenerator orderIdGenerator) {
+        return new OrderWriter(jdbcTemplate, transactionManager, outbox, orderIdGenerator);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public OrderPlacementService orderPlacementService(OrderWriter orderWriter, CheckoutValidator checkoutValidator,
+                                                       PricingEngine pricingEngine,
+                                                       OrderPlacementProperties properties,
+                                                       MeterRegistry meterRegistry) {
+        return new OrderPlacementService(orderWriter, checkoutValidator, pricingEngine, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package org.kun.orderservice.placement;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.placement")
+public class OrderPlacementProperties {
+
+    /**
+     * Orders waiting for the writer; placements are refused while it is full.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Most orders committed in one transaction.
+     */
+    private int batchSize = 256;
+
+    /**
+     * How long the writer waits for more orders after the first of a batch arrives.
+     * Zero commits whatever is queued at once; batches still grow under load while
+     * the previous commit is in progress.
+     */
+    private Duration maxBatchDelay = Duration.ofMillis(2);
+
+    /**
+     * How long a request waits for its order to be committed.
+     */
+    private Duration ackTimeout = Duration.ofSeconds(3);
+
+    private int maxItems = 100;
+
+    private int maxCoupons = 5;
+
+    private int maxKeyLength = 64;
+}
@@ -0,0 +1,287 @@
+package org.kun.orderservice.placement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.checkout.CheckoutValidator;
+import org.kun.orderservice.checkout.ProductQuote;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.pricing.CartBuffer;
+import org.kun.orderservice.pricing.PricingEngine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places orders through a bounded queue and a single writer thread that commits
+ * them in groups: up to {@code batchSize} orders, or whatever arrived within
+ * {@code maxBatchDelay} of the first, share one transaction and one JDBC batch.
+ * Each caller's future completes once its group is committed.
+ * <p>
+ * Every order carries the client's idempotency key. A retry that arrives while
+ * the first attempt is still being priced or queued waits for that attempt; a later
+ * one finds the committed order by its key. A full queue refuses new orders instead
+ * of letting callers pile up behind it.
+ * <p>
+ * Clients send products, quantities and coupons; once its key is known to be new,
+ * every line is priced from product-service's current quote and the pricing engine's
+ * current plan applies promotions and coupons before the order is queued. An order
+ * naming a product that does not exist or an unknown coupon is invalid, and one whose
+ * prices cannot be read right now is refused like an order meeting a full queue.
+ */
+@Slf4j
+public class OrderPlacementService implements AutoCloseable {
+
+    /**
+     * {@code orders.total} is {@code numeric(12, 2)}.
+     */
+    private static final BigDecimal MAX_TOTAL = BigDecimal.TEN.pow(10);
+
+    private final OrderWriter writer;
+    private final CheckoutValidator prices;
+    private final PricingEngine pricing;
+    private final ThreadLocal<CartBuffer> carts = ThreadLocal.withInitial(CartBuffer::new);
+    private final OrderPlacementProperties properties;
+    private final BlockingQueue<Queued> queue;
+    private final Map<String, Attempt> inFlight = new ConcurrentHashMap<>();
+    private final Thread writerThread = new Thread(this::run, "order-placement");
+
+    private final Counter rejected;
+    private final Counter unpriced;
+    private final Timer commit;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+
+    public OrderPlacementService(OrderWriter writer, CheckoutValidator prices, PricingEngine pricing,
+                                 OrderPlacementProperties properties, MeterRegistry meterRegistry) {
+        this.writer = writer;
+        this.prices = prices;
+        this.pricing = pricing;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.rejected = meterRegistry.counter("order.placement.rejected");
+        this.unpriced = meterRegistry.counter("order.placement.unpriced");
+        this.commit = meterRegistry.timer("order.placement.commit");
+        this.batchSize = meterRegistry.summary("order.placement.batch.size");
+        meterRegistry.gauge("order.placement.queue", queue, BlockingQueue::size);
+        writerThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Prices and queues the order, unless its key already belongs to an order being
+     * placed or placed before. The future fails with {@link RejectedExecutionException}
+     * when the queue is full or the prices cannot be read; throws
+     * {@link IllegalArgumentException} for an invalid request, an unknown product or
+     * an unknown coupon.
+     */
+    public CompletableFuture<PlacementResult> place(String idempotencyKey, PlaceOrderRequest request) {
+        validate(idempotencyKey, request);
+        String requestHash = PendingOrder.requestHash(request);
+        Attempt attempt = new Attempt(requestHash, new CompletableFuture<>());
+        Attempt earlier = inFlight.putIfAbsent(idempotencyKey, attempt);
+        if (earlier != null) {
+            return earlier.requestHash().equals(requestHash)
+                    ? earlier.result().thenApply(PlacementResult::replayed)
+                    : CompletableFuture.completedFuture(new PlacementResult(PlacementResult.Status.KEY_REUSED, null));
+        }
+        PendingOrder order;
+        try {
+            // a retry of a committed order gets it back, whatever its prices are now
+            PlacementResult stored = writer.find(idempotencyKey, requestHash);
+            if (stored != null) {
+                complete(idempotencyKey, attempt, stored);
+                return attempt.result();
+            }
+            order = price(idempotencyKey, requestHash, request);
+        }
+        catch (IllegalArgumentException e) {
+            fail(idempotencyKey, attempt, e);
+            throw e;
+        }
+        catch (RuntimeException e) {
+            fail(idempotencyKey, attempt, e);
+            return attempt.result();
+        }
+        if (!running || !queue.offer(new Queued(order, attempt))) {
+            rejected.increment();
+            fail(idempotencyKey, attempt, new RejectedExecutionException(running
+                    ? "Order queue is full" : "Order placement is not running"));
+        }
+        return attempt.result();
+    }
+
+    /**
+     * Stops accepting orders and waits until everything queued is committed.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writerThread.join();
+        List<Queued> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Queued queued : left) {
+            fail(queued, new RejectedExecutionException("Order placement stopped"));
+        }
+    }
+
+    private void validate(String idempotencyKey, PlaceOrderRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > properties.getMaxKeyLength()) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to " + properties.getMaxKeyLength()
+                    + " characters");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()
+                || request.getItems().size() > properties.getMaxItems()) {
+            throw new IllegalArgumentException("An order needs 1 to " + properties.getMaxItems() + " items");
+        }
+        for (PlaceOrderRequest.Item item : request.getItems()) {
+            if (item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid item for product " + item.getProductId());
+            }
+        }
+        if (request.getCoupons() != null && request.getCoupons().size() > properties.getMaxCoupons()) {
+            throw new IllegalArgumentException("At most " + properties.getMaxCoupons() + " coupons per order");
+        }
+    }
+
+    private PendingOrder price(String idempotencyKey, String requestHash, PlaceOrderRequest request) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        request.getItems().forEach(item -> productIds.add(item.getProductId()));
+        Map<Long, ProductQuote> quotes;
+        try {
+            quotes = prices.currentQuotes(productIds);
+        }
+        catch (IllegalStateException e) {
+            unpriced.increment();
+            throw new RejectedExecutionException(e.getMessage(), e);
+        }
+        for (Long productId : productIds) {
+            if (!quotes.containsKey(productId)) {
+                throw new IllegalArgumentException("Unknown product " + productId);
+            }
+        }
+        // promotions only lower the total; checking it at list prices keeps the plan's cents from overflowing
+        BigDecimal listTotal = BigDecimal.ZERO;
+        for (PlaceOrderRequest.Item item : request.getItems()) {
+            listTotal = listTotal.add(quotes.get(item.getProductId()).price()
+                    .multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        if (listTotal.compareTo(MAX_TOTAL) >= 0) {
+            throw new IllegalArgumentException("Order total is too large");
+        }
+        return PendingOrder.of(idempotencyKey, requestHash, request, quotes, pricing.plan(), carts.get());
+    }
+
+    private void run() {
+        int maxBatch = properties.getBatchSize();
+        long delay = properties.getMaxBatchDelay().toNanos();
+        List<Queued> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running || !queue.isEmpty()) {
+                Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + delay;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    Queued next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void commit(List<Queued> batch) {
+        List<PendingOrder> orders = new ArrayList<>(batch.size());
+        batch.forEach(queued -> orders.add(queued.order()));
+        long start = System.nanoTime();
+        List<PlacementResult> results;
+        try {
+            results = writer.write(orders);
+        }
+        catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.warn("Could not place order {}", batch.get(0).order().idempotencyKey(), e);
+                fail(batch.get(0), e);
+                return;
+            }
+            // one bad order, or another replica committing one of the keys first, must not fail the rest
+            log.warn("Could not commit a group of {} orders, placing them one by one", batch.size(), e);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        commit.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), results.get(i));
+        }
+    }
+
+    private void commitAlone(Queued queued) {
+        try {
+            complete(queued, writer.write(List.of(queued.order())).get(0));
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not place order {}", queued.order().idempotencyKey(), e);
+            fail(queued, e);
+        }
+    }
+
+    private void complete(Queued queued, PlacementResult result) {
+        complete(queued.order().idempotencyKey(), queued.attempt(), result);
+    }
+
+    private void complete(String idempotencyKey, Attempt attempt, PlacementResult result) {
+        attempt.result().complete(result);
+        inFlight.remove(idempotencyKey, attempt);
+    }
+
+    private void fail(Queued queued, Exception e) {
+        fail(queued.order().idempotencyKey(), queued.attempt(), e);
+    }
+
+    private void fail(String idempotencyKey, Attempt attempt, Exception e) {
+        attempt.result().completeExceptionally(e);
+        inFlight.remove(idempotencyKey, attempt);
+    }
+
+    /**
+     * The placement that currently owns a key; retries of it wait for its result.
+     */
+    private record Attempt(String requestHash, CompletableFuture<PlacementResult> result) {
+    }
+
+    private record Queued(PendingOrder order, Attempt attempt) {
+    }
+}
@@ -0,0 +1,131 @@
+package org.kun.orderservice.placement;
+
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.kun.orderservice.dto.OrderReceipt;
+import org.kun.orderservice.entity.OrderStatus;
+import org.kun.orderservice.ids.SnowflakeIdGenerator;
+import org.kun.orderservice.outbox.Outbox;
+import org.kun.orderservice.outbox.OutboxMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a group of orders in one transaction: one lookup of their idempotency
+ * keys, then one JDBC batch each for the keys, the orders, their items and their
+ * {@code OrderPlaced} outbox events. An order whose key is already taken is not
+ * written; it gets the stored order back, or {@link PlacementResult.Status#KEY_REUSED}
+ * when the stored request differs.
+ */
+public class OrderWriter {
+
+    // the key's created_at lets Postgres look in the order's partition only
+    private static final String SELECT_BY_KEY = "SELECT o.id, o.idempotency_key, o.request_hash, o.customer_id, "
+            + "o.status, o.total, o.item_count, o.created_at FROM order_keys k "
+            + "JOIN orders o ON o.id = k.order_id AND o.created_at = k.created_at WHERE k.idempotency_key IN ";
+    private static final String INSERT_KEY =
+            "INSERT INTO order_keys (idempotency_key, order_id, created_at) VALUES (?, ?, ?)";
+    private static final String INSERT_ORDER = "INSERT INTO orders (id, idempotency_key, request_hash, customer_id, "
+            + "status, total, item_count, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM =
+            "INSERT INTO order_items (order_id, line, product_id, quantity, unit_price, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Outbox outbox;
+    private final SnowflakeIdGenerator ids;
+
+    public OrderWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Outbox outbox,
+                       SnowflakeIdGenerator ids) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outbox = outbox;
+        this.ids = ids;
+    }
+
+    /**
+     * The order already placed with {@code idempotencyKey}, or {@code null} when there is none.
+     */
+    public PlacementResult find(String idempotencyKey, String requestHash) {
+        Stored stored = existing(new Object[]{idempotencyKey}).get(idempotencyKey);
+        return stored == null ? null : stored.resultFor(requestHash);
+    }
+
+    /**
+     * Results are in the order of {@code orders}. Keys must be distinct within one call.
+     */
+    public List<PlacementResult> write(List<PendingOrder> orders) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Stored> existing = existing(orders.stream().map(PendingOrder::idempotencyKey).toArray());
+            List<PlacementResult> results = new ArrayList<>(orders.size());
+            List<Object[]> keyRows = new ArrayList<>(orders.size());
+            List<Object[]> orderRows = new ArrayList<>(orders.size());
+            List<Object[]> itemRows = new ArrayList<>();
+            List<OutboxMessage> events = new ArrayList<>(orders.size());
+            for (PendingOrder order : orders) {
+                Stored stored = existing.get(order.idempotencyKey());
+                if (stored != null) {
+                    results.add(stored.resultFor(order.requestHash()));
+                    continue;
+                }
+                long id = ids.next();
+                Timestamp createdAt = Timestamp.from(order.createdAt());
+                keyRows.add(new Object[]{order.idempotencyKey(), id, createdAt});
+                orderRows.add(new Object[]{id, order.idempotencyKey(), order.requestHash(), order.customerId(),
+                        OrderStatus.PLACED.name(), order.total(), order.lines().size(), createdAt});
+                List<OrderPlacedEvent.Item> eventItems = new ArrayList<>(order.lines().size());
+                for (int line = 0; line < order.lines().size(); line++) {
+                    PendingOrder.Line item = order.lines().get(line);
+                    itemRows.add(new Object[]{id, line, item.productId(), item.quantity(), item.unitPrice(),
+                            createdAt});
+                    eventItems.add(new OrderPlacedEvent.Item(item.productId(), item.quantity(), item.unitPrice()));
+                }
+                String eventId = UUID.randomUUID().toString();
+                events.add(new OutboxMessage(eventId, Outbox.ORDER_PLACED, id,
+                        new OrderPlacedEvent(eventId, id, order.customerId(), eventItems, order.total(),
+                                order.createdAt())));
+                results.add(new PlacementResult(PlacementResult.Status.CREATED, new OrderReceipt(id,
+                        order.idempotencyKey(), order.customerId(), OrderStatus.PLACED, order.total(),
+                        order.lines().size(), order.createdAt())));
+            }
+            if (!orderRows.isEmpty()) {
+                // the key first: a concurrent writer that took one fails here, before the larger batches
+                jdbcTemplate.batchUpdate(INSERT_KEY, keyRows);
+                jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+                jdbcTemplate.batchUpdate(INSERT_ITEM, itemRows);
+                outbox.append(events);
+            }
+            return results;
+        });
+    }
+
+    private Map<String, Stored> existing(Object[] keys) {
+        String sql = SELECT_BY_KEY + "(" + String.join(",", Collections.nCopies(keys.length, "?")) + ")";
+        Map<String, Stored> stored = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long customerId = rs.getLong("customer_id");
+            Long customer = rs.wasNull() ? null : customerId;
+            OrderReceipt receipt = new OrderReceipt(rs.getLong("id"), rs.getString("idempotency_key"), customer, OrderStatus.valueOf(rs.getString("status")),
+                    rs.getBigDecimal("total"), rs.getInt("item_count"), rs.getTimestamp("created_at").toInstant());
+            stored.put(receipt.idempotencyKey(), new Stored(rs.getString("request_hash"), receipt));
+        }, keys);
+        return stored;
+    }
+
+    private record Stored(String requestHash, OrderReceipt receipt) {
+
+        PlacementResult resultFor(String requestHash) {
+            return this.requestHash.equals(requestHash)
+                    ? new PlacementResult(PlacementResult.Status.REPLAYED, receipt)
+                    : new PlacementResult(PlacementResult.Status.KEY_REUSED, null);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.kun.orderservice.placement;
+
+import org.kun.orderservice.checkout.ProductQuote;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.pricing.CartBuffer;
+import org.kun.orderservice.pricing.PricingPlan;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A validated and priced placement request waiting to be written. Lines keep the
+ * list price; {@code total} is net of the promotions and coupons that applied.
+ */
+public record PendingOrder(String idempotencyKey, String requestHash, Long customerId, List<Line> lines,
+                           BigDecimal total, Instant createdAt) {
+
+    public record Line(long productId, int quantity, BigDecimal unitPrice) {
+    }
+
+    /**
+     * Prices every line with the product's current quote and applies {@code plan}'s
+     * promotions and the request's coupons.
+     *
+     * @param quotes a quote for every product of the request
+     * @throws IllegalArgumentException for a coupon no promotion uses
+     */
+    public static PendingOrder of(String idempotencyKey, PlaceOrderRequest request, Map<Long, ProductQuote> quotes,
+                                  PricingPlan plan) {
+        return of(idempotencyKey, requestHash(request), request, quotes, plan,
+                new CartBuffer(request.getItems().size()));
+    }
+
+    /**
+     * @param cart scratch space, overwritten
+     */
+    static PendingOrder of(String idempotencyKey, String requestHash, PlaceOrderRequest request,
+                           Map<Long, ProductQuote> quotes, PricingPlan plan, CartBuffer cart) {
+        cart.clear();
+        List<Line> lines = new ArrayList<>(request.getItems().size());
+        for (PlaceOrderRequest.Item item : request.getItems()) {
+            ProductQuote quote = quotes.get(item.getProductId());
+            lines.add(new Line(item.getProductId(), item.getQuantity(), quote.price()));
+            cart.add(item.getProductId(), quote.categoryId(), item.getQuantity(), PricingPlan.cents(quote.price()));
+        }
+        if (request.getCoupons() != null) {
+            for (String coupon : request.getCoupons()) {
+                int id = coupon == null ? -1 : plan.couponId(coupon);
+                if (id < 0) {
+                    throw new IllegalArgumentException("Unknown coupon " + coupon);
+                }
+                cart.addCoupon(id);
+            }
+        }
+        Instant createdAt = Instant.now();
+        plan.price(cart, createdAt.toEpochMilli());
+        BigDecimal total = BigDecimal.valueOf(cart.totalSubtotal() - cart.totalDiscount(), 2);
+        return new PendingOrder(idempotencyKey, requestHash, request.getCustomerId(), List.copyOf(lines), total,
+                createdAt);
+    }
+
+    /**
+     * Covers what the client sent, not the prices, so a retry after a price or
+     * promotion change still finds its order.
+     */
+    static String requestHash(PlaceOrderRequest request) {
+        StringBuilder canonical = new StringBuilder(32 + request.getItems().size() * 16);
+        canonical.append(request.getCustomerId());
+        for (PlaceOrderRequest.Item item : request.getItems()) {
+            canonical.append('|').append(item.getProductId()).append(':').append(item.getQuantity());
+        }
+        if (request.getCoupons() != null) {
+            for (String coupon : request.getCoupons()) {
+                canonical.append("|#").append(coupon);
+            }
+        }
+        return sha256(canonical.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
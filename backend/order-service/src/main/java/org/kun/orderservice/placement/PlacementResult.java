@@ -0,0 +1,22 @@
+package org.kun.orderservice.placement;
+
+import org.kun.orderservice.dto.OrderReceipt;
+
+/**
+ * Outcome of one placement; {@code receipt} is null when the key was reused for a different order.
+ */
+public record PlacementResult(Status status, OrderReceipt receipt) {
+
+    public enum Status {
+        CREATED,
+        /**
+         * The key was already used for this same order, which is returned unchanged.
+         */
+        REPLAYED,
+        KEY_REUSED
+    }
+
+    PlacementResult replayed() {
+        return status == Status.CREATED ? new PlacementResult(Status.REPLAYED, receipt) : this;
+    }
+}
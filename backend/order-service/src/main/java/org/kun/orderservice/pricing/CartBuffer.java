@@ -0,0 +1,179 @@
+package org.kun.orderservice.pricing;
+
+import java.util.Arrays;
+
+/**
+ * A cart in primitive arrays together with the scratch space and results of
+ * pricing it, reused from cart to cart so that {@link PricingPlan#price} allocates
+ * nothing once the arrays are large enough. Not thread-safe; keep one per thread.
+ * Amounts are in cents.
+ */
+public final class CartBuffer {
+
+    static final long NO_CATEGORY = Long.MIN_VALUE;
+
+    // the cart
+    int size;
+    long[] productIds;
+    long[] categoryIds;
+    int[] quantities;
+    long[] unitCents;
+    int couponCount;
+    int[] coupons = new int[4];
+
+    // results
+    long[] subtotals;
+    long[] discounts;
+    int appliedCount;
+    int[] appliedStart;
+    int[] appliedEnd;
+    int[] applied;
+
+    // per line: start and end of its product, category and global rules
+    int[] ranges;
+    // per rule, valid while stamps[rule] == generation
+    int generation;
+    int[] stamps = new int[0];
+    long[] ruleQuantities = new long[0];
+    long[] ruleSubtotals = new long[0];
+    int[] ruleLines = new int[0];
+    long[] ruleAllocated = new long[0];
+
+    public CartBuffer() {
+        this(16);
+    }
+
+    public CartBuffer(int lines) {
+        allocate(Math.max(1, lines));
+    }
+
+    /**
+     * Empties the buffer for the next cart.
+     */
+    public CartBuffer clear() {
+        size = 0;
+        couponCount = 0;
+        return this;
+    }
+
+    /**
+     * @param categoryId null when unknown
+     */
+    public CartBuffer add(long productId, Long categoryId, int quantity, long unitCents) {
+        return add(productId, categoryId == null ? NO_CATEGORY : categoryId, quantity, unitCents);
+    }
+
+    public CartBuffer add(long productId, long categoryId, int quantity, long unitCents) {
+        if (size == productIds.length) {
+            allocate(size * 2);
+        }
+        productIds[size] = productId;
+        categoryIds[size] = categoryId;
+        quantities[size] = quantity;
+        this.unitCents[size] = unitCents;
+        size++;
+        return this;
+    }
+
+    /**
+     * Adds a coupon by its id in the plan, see {@link PricingPlan#couponId}.
+     */
+    public CartBuffer addCoupon(int couponId) {
+        if (couponCount == coupons.length) {
+            coupons = Arrays.copyOf(coupons, couponCount * 2);
+        }
+        coupons[couponCount++] = couponId;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long subtotal(int line) {
+        return subtotals[line];
+    }
+
+    public long discount(int line) {
+        return discounts[line];
+    }
+
+    /**
+     * Number of promotions applied to {@code line}; their indexes in the plan are
+     * {@link #appliedPromotion}{@code (line, 0..n-1)}.
+     */
+    public int appliedCount(int line) {
+        return appliedEnd[line] - appliedStart[line];
+    }
+
+    public int appliedPromotion(int line, int i) {
+        return applied[appliedStart[line] + i];
+    }
+
+    public long totalSubtotal() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += subtotals[i];
+        }
+        return total;
+    }
+
+    public long totalDiscount() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += discounts[i];
+        }
+        return total;
+    }
+
+    boolean hasCoupon(int couponId) {
+        for (int i = 0; i < couponCount; i++) {
+            if (coupons[i] == couponId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Readies the result arrays and starts a new generation of per-rule scratch for
+     * a plan of {@code rules} rules.
+     */
+    void prepare(int rules) {
+        if (stamps.length < rules) {
+            stamps = new int[rules];
+            ruleQuantities = new long[rules];
+            ruleSubtotals = new long[rules];
+            ruleLines = new int[rules];
+            ruleAllocated = new long[rules];
+            generation = 0;
+        }
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        appliedCount = 0;
+    }
+
+    /**
+     * Room for one more applied promotion.
+     */
+    void ensureApplied() {
+        if (appliedCount == applied.length) {
+            applied = Arrays.copyOf(applied, applied.length * 2);
+        }
+    }
+
+    private void allocate(int lines) {
+        productIds = productIds == null ? new long[lines] : Arrays.copyOf(productIds, lines);
+        categoryIds = categoryIds == null ? new long[lines] : Arrays.copyOf(categoryIds, lines);
+        quantities = quantities == null ? new int[lines] : Arrays.copyOf(quantities, lines);
+        unitCents = unitCents == null ? new long[lines] : Arrays.copyOf(unitCents, lines);
+        subtotals = new long[lines];
+        discounts = new long[lines];
+        appliedStart = new int[lines];
+        appliedEnd = new int[lines];
+        applied = applied == null ? new int[lines * 2] : Arrays.copyOf(applied, Math.max(applied.length, lines * 2));
+        ranges = new int[lines * 6];
+    }
+}
@@ -0,0 +1,19 @@
+package org.kun.orderservice.pricing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kun.orderservice.repository.PromotionRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(PricingProperties.class)
+public class PricingConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public PricingEngine pricingEngine(PromotionRepository promotionRepository, JdbcTemplate jdbcTemplate,
+                                       PricingProperties properties, MeterRegistry meterRegistry) {
+        return new PricingEngine(promotionRepository, jdbcTemplate, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,181 @@
+package org.kun.orderservice.pricing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.dto.CartPrice;
+import org.kun.orderservice.dto.PriceCartRequest;
+import org.kun.orderservice.dto.PricingPlanStatus;
+import org.kun.orderservice.repository.PromotionRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices carts with the promotions of the {@code promotions} table.
+ * <p>
+ * The active promotions are compiled into a {@link PricingPlan} that requests
+ * only read. When the table changes a new plan is compiled off the request path
+ * and swapped in with one volatile write, so a cart is always priced by a single
+ * consistent set of rules and no request waits for a reload. Each thread reuses one
+ * {@link CartBuffer}, so pricing itself allocates nothing; only turning the request
+ * and the result into objects does.
+ */
+@Slf4j
+public class PricingEngine implements AutoCloseable {
+
+    private final PromotionRepository promotionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PricingProperties properties;
+    private final ThreadLocal<CartBuffer> buffers = ThreadLocal.withInitial(CartBuffer::new);
+    private final Timer pricing;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pricing-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile PricingPlan plan = PricingPlan.empty();
+    private String loadedStamp;
+
+    public PricingEngine(PromotionRepository promotionRepository, JdbcTemplate jdbcTemplate,
+                         PricingProperties properties, MeterRegistry meterRegistry) {
+        this.promotionRepository = promotionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.pricing = Timer.builder("order.pricing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("order.pricing.rules", this, engine -> engine.plan.rules());
+    }
+
+    public void start() {
+        reload();
+        long interval = properties.getReloadInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reloadIfChanged();
+            }
+            catch (RuntimeException e) {
+                log.warn("Checking promotions for changes failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Compiles the active promotions and swaps them in.
+     */
+    public synchronized PricingPlanStatus reload() {
+        String stamp = stamp();
+        PricingPlan compiled = PricingPlan.compile(promotionRepository.findByActiveTrue(), plan.version() + 1);
+        plan = compiled;
+        loadedStamp = stamp;
+        log.info("Compiled {} promotions ({} skipped) into pricing plan {}", compiled.rules(), compiled.skipped(),
+                compiled.version());
+        return status();
+    }
+
+    /**
+     * Reloads when a promotion was added, changed or deleted since the last load.
+     *
+     * @return whether a new plan was compiled
+     */
+    public synchronized boolean reloadIfChanged() {
+        if (Objects.equals(stamp(), loadedStamp)) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    public PricingPlanStatus status() {
+        PricingPlan current = plan;
+        return new PricingPlanStatus(current.version(), current.compiledAt(), current.rules(), current.coupons(),
+                current.skipped());
+    }
+
+    /**
+     * @throws IllegalArgumentException for an empty or oversized cart, or a line
+     *                                  without a positive quantity and a price
+     */
+    public CartPrice price(PriceCartRequest request) {
+        List<PriceCartRequest.Item> items = request.getItems();
+        if (items == null || items.isEmpty() || items.size() > properties.getMaxLines()) {
+            throw new IllegalArgumentException("A cart has 1 to " + properties.getMaxLines() + " lines");
+        }
+        List<String> coupons = request.getCoupons() == null ? List.of() : request.getCoupons();
+        if (coupons.size() > properties.getMaxCoupons()) {
+            throw new IllegalArgumentException("At most " + properties.getMaxCoupons() + " coupons per cart");
+        }
+        long start = System.nanoTime();
+        PricingPlan current = plan;
+        CartBuffer cart = buffers.get().clear();
+        for (PriceCartRequest.Item item : items) {
+            if (item.getQuantity() < 1 || item.getUnitPrice() == null || item.getUnitPrice().signum() < 0) {
+                throw new IllegalArgumentException("Each line needs a positive quantity and a price");
+            }
+            cart.add(item.getProductId(), item.getCategoryId(), item.getQuantity(),
+                    PricingPlan.cents(item.getUnitPrice()));
+        }
+        List<String> unknownCoupons = new ArrayList<>();
+        for (String coupon : coupons) {
+            int id = coupon == null ? -1 : current.couponId(coupon);
+            if (id < 0) {
+                unknownCoupons.add(coupon);
+            }
+            else {
+                cart.addCoupon(id);
+            }
+        }
+
+        current.price(cart, System.currentTimeMillis());
+
+        List<CartPrice.Line> lines = new ArrayList<>(cart.size());
+        for (int line = 0; line < cart.size(); line++) {
+            List<Long> promotions = new ArrayList<>(cart.appliedCount(line));
+            for (int i = 0; i < cart.appliedCount(line); i++) {
+                promotions.add(current.promotionId(cart.appliedPromotion(line, i)));
+            }
+            long subtotal = cart.subtotal(line);
+            long discount = cart.discount(line);
+            lines.add(new CartPrice.Line(items.get(line).getProductId(), items.get(line).getQuantity(),
+                    items.get(line).getUnitPrice(), money(subtotal), money(discount), money(subtotal - discount),
+                    promotions));
+        }
+        long subtotal = cart.totalSubtotal();
+        long discount = cart.totalDiscount();
+        pricing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new CartPrice(money(subtotal), money(discount), money(subtotal - discount), lines, unknownCoupons);
+    }
+
+    /**
+     * The plan in use; callers pricing many carts can hold on to it and a
+     * {@link CartBuffer} of their own.
+     */
+    public PricingPlan plan() {
+        return plan;
+    }
+
+    private String stamp() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(updated_at) FROM promotions", (rs, row) -> {
+            Timestamp latest = rs.getTimestamp(2);
+            return rs.getLong(1) + "@" + (latest == null ? "" : latest.toInstant());
+        });
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,435 @@
+package org.kun.orderservice.pricing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kun.orderservice.entity.Promotion;
+import org.kun.orderservice.entity.PromotionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Promotions compiled into flat arrays: one slot per rule with its parameters in
+ * cents and basis points, and the rule indexes grouped by product and by category,
+ * so pricing a line reads three contiguous ranges of ints instead of testing every
+ * rule. A plan never changes once built; a reload compiles a new one.
+ */
+@Slf4j
+public final class PricingPlan {
+
+    private static final byte PERCENTAGE = 0;
+    private static final byte BUY_X_GET_Y = 1;
+    private static final byte TIERED = 2;
+    private static final byte AMOUNT_OFF = 3;
+
+    private final long version;
+    private final Instant compiledAt;
+    private final int skipped;
+
+    private final long[] ids;
+    private final byte[] types;
+    private final int[] coupons;
+    private final long[] startMillis;
+    private final long[] endMillis;
+    // PERCENTAGE: basis points; BUY_X_GET_Y: buy quantity; TIERED: first tier
+    private final int[] first;
+    // BUY_X_GET_Y: get quantity; TIERED: end of the tiers
+    private final int[] second;
+    // AMOUNT_OFF
+    private final long[] amountCents;
+    private final long[] minSubtotalCents;
+    private final int[] tierQuantities;
+    private final int[] tierBasisPoints;
+
+    private final RuleIndex byProduct;
+    private final RuleIndex byCategory;
+    private final int[] ruleIds;
+    private final int globalStart;
+    private final int globalEnd;
+    private final Map<String, Integer> couponIds;
+
+    private PricingPlan(long version, Instant compiledAt, List<Promotion> rules, int skipped) {
+        this.version = version;
+        this.compiledAt = compiledAt;
+        this.skipped = skipped;
+        int n = rules.size();
+        ids = new long[n];
+        types = new byte[n];
+        coupons = new int[n];
+        startMillis = new long[n];
+        endMillis = new long[n];
+        first = new int[n];
+        second = new int[n];
+        amountCents = new long[n];
+        minSubtotalCents = new long[n];
+        couponIds = new HashMap<>();
+        List<int[]> tiers = new ArrayList<>();
+        Map<Long, List<Integer>> products = new LinkedHashMap<>();
+        Map<Long, List<Integer>> categories = new LinkedHashMap<>();
+        List<Integer> global = new ArrayList<>();
+        for (int r = 0; r < n; r++) {
+            Promotion rule = rules.get(r);
+            ids[r] = rule.getId() == null ? -1 : rule.getId();
+            coupons[r] = rule.getCouponCode() == null ? -1
+                    : couponIds.computeIfAbsent(normalize(rule.getCouponCode()), code -> couponIds.size());
+            startMillis[r] = rule.getStartsAt() == null ? Long.MIN_VALUE : rule.getStartsAt().toEpochMilli();
+            endMillis[r] = rule.getEndsAt() == null ? Long.MAX_VALUE : rule.getEndsAt().toEpochMilli();
+            switch (rule.getType()) {
+                case PERCENTAGE -> {
+                    types[r] = PERCENTAGE;
+                    first[r] = basisPoints(rule.getPercent());
+                }
+                case BUY_X_GET_Y -> {
+                    types[r] = BUY_X_GET_Y;
+                    first[r] = rule.getBuyQuantity();
+                    second[r] = rule.getGetQuantity();
+                }
+                case TIERED -> {
+                    types[r] = TIERED;
+                    first[r] = tiers.size();
+                    tiers.addAll(parseTiers(rule.getTiers()));
+                    second[r] = tiers.size();
+                }
+                case AMOUNT_OFF -> {
+                    types[r] = AMOUNT_OFF;
+                    amountCents[r] = cents(rule.getAmount());
+                    minSubtotalCents[r] = rule.getMinSubtotal() == null ? 0 : cents(rule.getMinSubtotal());
+                }
+            }
+            if (rule.getProductId() != null) {
+                products.computeIfAbsent(rule.getProductId(), id -> new ArrayList<>()).add(r);
+            }
+            else if (rule.getCategoryId() != null) {
+                categories.computeIfAbsent(rule.getCategoryId(), id -> new ArrayList<>()).add(r);
+            }
+            else {
+                global.add(r);
+            }
+        }
+        tierQuantities = new int[tiers.size()];
+        tierBasisPoints = new int[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            tierQuantities[i] = tiers.get(i)[0];
+            tierBasisPoints[i] = tiers.get(i)[1];
+        }
+
+        ruleIds = new int[n];
+        int at = 0;
+        byProduct = new RuleIndex(products.size());
+        for (Map.Entry<Long, List<Integer>> product : products.entrySet()) {
+            byProduct.put(product.getKey(), at, at + product.getValue().size());
+            for (int rule : product.getValue()) {
+                ruleIds[at++] = rule;
+            }
+        }
+        byCategory = new RuleIndex(categories.size());
+        for (Map.Entry<Long, List<Integer>> category : categories.entrySet()) {
+            byCategory.put(category.getKey(), at, at + category.getValue().size());
+            for (int rule : category.getValue()) {
+                ruleIds[at++] = rule;
+            }
+        }
+        globalStart = at;
+        for (int rule : global) {
+            ruleIds[at++] = rule;
+        }
+        globalEnd = at;
+    }
+
+    /**
+     * Compiles the given promotions; invalid ones are logged and left out.
+     */
+    public static PricingPlan compile(List<Promotion> promotions, long version) {
+        List<Promotion> valid = new ArrayList<>(promotions.size());
+        int skipped = 0;
+        for (Promotion promotion : promotions) {
+            try {
+                validate(promotion);
+                valid.add(promotion);
+            }
+            catch (RuntimeException e) {
+                log.warn("Skipping promotion {} ({}): {}", promotion.getId(), promotion.getName(), e.getMessage());
+                skipped++;
+            }
+        }
+        return new PricingPlan(version, Instant.now(), valid, skipped);
+    }
+
+    public static PricingPlan empty() {
+        return compile(List.of(), 0);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant compiledAt() {
+        return compiledAt;
+    }
+
+    public int rules() {
+        return ids.length;
+    }
+
+    public int coupons() {
+        return couponIds.size();
+    }
+
+    public int skipped() {
+        return skipped;
+    }
+
+    /**
+     * The id of a coupon code in this plan, or -1 when no promotion uses it.
+     */
+    public int couponId(String code) {
+        Integer id = couponIds.get(normalize(code));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * The {@link Promotion} id of the rule at {@code index}.
+     */
+    public long promotionId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Prices the cart in {@code cart} as of {@code nowMillis}, leaving the subtotal,
+     * discount and applied promotions of each line in it.
+     */
+    public void price(CartBuffer cart, long nowMillis) {
+        cart.prepare(ids.length);
+        int generation = cart.generation;
+        int[] ranges = cart.ranges;
+
+        // first pass: find each line's rules and add up the lines of rules that span lines
+        for (int line = 0; line < cart.size; line++) {
+            long subtotal = cart.unitCents[line] * cart.quantities[line];
+            cart.subtotals[line] = subtotal;
+            int slot = byProduct.find(cart.productIds[line]);
+            ranges[line * 6] = slot < 0 ? 0 : byProduct.starts[slot];
+            ranges[line * 6 + 1] = slot < 0 ? 0 : byProduct.ends[slot];
+            slot = cart.categoryIds[line] == CartBuffer.NO_CATEGORY ? -1 : byCategory.find(cart.categoryIds[line]);
+            ranges[line * 6 + 2] = slot < 0 ? 0 : byCategory.starts[slot];
+            ranges[line * 6 + 3] = slot < 0 ? 0 : byCategory.ends[slot];
+            ranges[line * 6 + 4] = globalStart;
+            ranges[line * 6 + 5] = globalEnd;
+            for (int range = 0; range < 6; range += 2) {
+                for (int i = ranges[line * 6 + range]; i < ranges[line * 6 + range + 1]; i++) {
+                    int rule = ruleIds[i];
+                    if ((types[rule] == TIERED || types[rule] == AMOUNT_OFF) && applies(rule, cart, nowMillis)) {
+                        if (cart.stamps[rule] != generation) {
+                            cart.stamps[rule] = generation;
+                            cart.ruleQuantities[rule] = 0;
+                            cart.ruleSubtotals[rule] = 0;
+                            cart.ruleLines[rule] = 0;
+                            cart.ruleAllocated[rule] = 0;
+                        }
+                        cart.ruleQuantities[rule] += cart.quantities[line];
+                        cart.ruleSubtotals[rule] += subtotal;
+                        cart.ruleLines[rule]++;
+                    }
+                }
+            }
+        }
+
+        // second pass: the best automatic discount of each line plus its coupons
+        for (int line = 0; line < cart.size; line++) {
+            long subtotal = cart.subtotals[line];
+            long best = 0;
+            int bestRule = -1;
+            long couponDiscount = 0;
+            cart.appliedStart[line] = cart.appliedCount;
+            for (int range = 0; range < 6; range += 2) {
+                for (int i = ranges[line * 6 + range]; i < ranges[line * 6 + range + 1]; i++) {
+                    int rule = ruleIds[i];
+                    if (!applies(rule, cart, nowMillis)) {
+                        continue;
+                    }
+                    long discount = discount(rule, cart, line, subtotal);
+                    if (discount <= 0) {
+                        continue;
+                    }
+                    if (coupons[rule] >= 0) {
+                        couponDiscount += discount;
+                        cart.ensureApplied();
+                        cart.applied[cart.appliedCount++] = rule;
+                    }
+                    else if (discount > best) {
+                        best = discount;
+                        bestRule = rule;
+                    }
+                }
+            }
+            if (bestRule >= 0) {
+                cart.ensureApplied();
+                cart.applied[cart.appliedCount++] = bestRule;
+            }
+            cart.appliedEnd[line] = cart.appliedCount;
+            cart.discounts[line] = Math.min(subtotal, best + couponDiscount);
+        }
+    }
+
+    private boolean applies(int rule, CartBuffer cart, long nowMillis) {
+        return nowMillis >= startMillis[rule] && nowMillis < endMillis[rule]
+                && (coupons[rule] < 0 || cart.hasCoupon(coupons[rule]));
+    }
+
+    private long discount(int rule, CartBuffer cart, int line, long subtotal) {
+        switch (types[rule]) {
+            case PERCENTAGE:
+                return subtotal * first[rule] / 10_000;
+            case BUY_X_GET_Y: {
+                int group = first[rule] + second[rule];
+                return (long) (cart.quantities[line] / group) * second[rule] * cart.unitCents[line];
+            }
+            case TIERED: {
+                int basisPoints = 0;
+                for (int t = first[rule]; t < second[rule]; t++) {
+                    if (cart.ruleQuantities[rule] >= tierQuantities[t]) {
+                        basisPoints = tierBasisPoints[t];
+                    }
+                }
+                return subtotal * basisPoints / 10_000;
+            }
+            case AMOUNT_OFF: {
+                long matched = cart.ruleSubtotals[rule];
+                if (matched <= 0 || matched < minSubtotalCents[rule]) {
+                    return 0;
+                }
+                long total = Math.min(amountCents[rule], matched);
+                // the last line gets the remainder, so the shares add up to the amount
+                long share = --cart.ruleLines[rule] == 0 ? total - cart.ruleAllocated[rule]
+                        : share(total, subtotal, matched);
+                cart.ruleAllocated[rule] += share;
+                return share;
+            }
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * {@code amount * part / whole} without overflowing for large carts.
+     */
+    private static long share(long amount, long part, long whole) {
+        if (Math.multiplyHigh(amount, part) == 0 && amount * part >= 0) {
+            return amount * part / whole;
+        }
+        return (long) ((double) amount * part / whole);
+    }
+
+    private static void validate(Promotion promotion) {
+        if (promotion.getType() == null) {
+            throw new IllegalArgumentException("no type");
+        }
+        switch (promotion.getType()) {
+            case PERCENTAGE -> basisPoints(promotion.getPercent());
+            case BUY_X_GET_Y -> {
+                if (promotion.getBuyQuantity() == null || promotion.getBuyQuantity() < 1
+                        || promotion.getGetQuantity() == null || promotion.getGetQuantity() < 1) {
+                    throw new IllegalArgumentException("buy and get quantities must be at least 1");
+                }
+            }
+            case TIERED -> parseTiers(promotion.getTiers());
+            case AMOUNT_OFF -> {
+                if (promotion.getAmount() == null || promotion.getAmount().signum() <= 0) {
+                    throw new IllegalArgumentException("amount must be positive");
+                }
+            }
+        }
+    }
+
+    private static int basisPoints(BigDecimal percent) {
+        if (percent == null || percent.signum() <= 0 || percent.compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new IllegalArgumentException("percent must be in (0, 100]");
+        }
+        return percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    /**
+     * {@code 3:5,10:12.5} as (quantity, basis points) pairs by increasing quantity.
+     */
+    private static List<int[]> parseTiers(String tiers) {
+        if (tiers == null || tiers.isBlank()) {
+            throw new IllegalArgumentException("no tiers");
+        }
+        List<int[]> parsed = new ArrayList<>();
+        for (String tier : tiers.split(",")) {
+            String[] parts = tier.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("tiers are quantity:percent pairs");
+            }
+            int quantity = Integer.parseInt(parts[0].trim());
+            if (quantity < 1 || !parsed.isEmpty() && quantity <= parsed.get(parsed.size() - 1)[0]) {
+                throw new IllegalArgumentException("tier quantities must increase from 1");
+            }
+            parsed.add(new int[]{quantity, basisPoints(new BigDecimal(parts[1].trim()))});
+        }
+        return parsed;
+    }
+
+    /**
+     * {@code amount} in whole cents, rounded half up.
+     */
+    public static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static String normalize(String coupon) {
+        return coupon.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Open-addressing map from a product or category id to its range of
+     * {@code ruleIds}; a slot is empty while its end is 0.
+     */
+    static final class RuleIndex {
+
+        private final long[] keys;
+        final int[] starts;
+        final int[] ends;
+        private final int mask;
+
+        RuleIndex(int entries) {
+            int capacity = Integer.highestOneBit(Math.max(4, entries * 2 - 1)) << 1;
+            keys = new long[capacity];
+            starts = new int[capacity];
+            ends = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long key, int start, int end) {
+            int slot = hash(key);
+            while (ends[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            starts[slot] = start;
+            ends[slot] = end;
+        }
+
+        int find(long key) {
+            int slot = hash(key);
+            while (ends[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
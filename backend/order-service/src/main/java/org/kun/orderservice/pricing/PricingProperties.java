@@ -0,0 +1,20 @@
+package org.kun.orderservice.pricing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "order.pricing")
+public class PricingProperties {
+
+    /**
+     * How often the promotions table is checked for changes.
+     */
+    private Duration reloadInterval = Duration.ofSeconds(30);
+
+    private int maxLines = 500;
+
+    private int maxCoupons = 5;
+}
@@ -0,0 +1,11 @@
+package org.kun.orderservice.repository;
+
+import org.kun.orderservice.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, OrderItem.Key> {
+
+    List<OrderItem> findByOrderIdOrderByLine(Long orderId);
+}
@@ -0,0 +1,7 @@
+package org.kun.orderservice.repository;
+
+import org.kun.orderservice.entity.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderRepository extends JpaRepository<Order, Long> {
+}
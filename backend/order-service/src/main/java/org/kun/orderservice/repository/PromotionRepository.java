@@ -0,0 +1,11 @@
+package org.kun.orderservice.repository;
+
+import org.kun.orderservice.entity.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    List<Promotion> findByActiveTrue();
+}
@@ -0,0 +1,41 @@
+package org.kun.orderservice.tracing;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import net.ttddyy.observation.tracing.DataSourceBaseContext;
+import org.kun.common.tracing.TailSamplingConfig;
+import org.kun.common.tracing.TracingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Spans for controllers (server observations), outbound RestClient calls and JDBC come
+ * from Boot and datasource-micrometer; this keeps them in memory with tail sampling.
+ */
+@Configuration
+@Import(TailSamplingConfig.class)
+public class TracingConfig {
+
+    @Bean
+    @ConfigurationProperties("order.tracing")
+    public TracingProperties tracingProperties() {
+        return new TracingProperties();
+    }
+
+    /**
+     * Statements outside any observation (relay polls, rollups, the order writer) would
+     * each start a trace of their own.
+     */
+    @Bean
+    public ObservationPredicate jdbcOnlyWithinObservations(ObjectProvider<ObservationRegistry> observationRegistry) {
+        Supplier<ObservationRegistry> registry = SingletonSupplier.of(observationRegistry::getObject);
+        return (name, context) -> !(context instanceof DataSourceBaseContext)
+                || registry.get().getCurrentObservation() != null;
+    }
+}
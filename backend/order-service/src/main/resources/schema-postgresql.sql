@@ -0,0 +1,28 @@
+-- Orders and their items are range-partitioned by month of created_at; run before Hibernate's
+-- schema update, which then finds the tables in place. OrderPartitionManager creates the monthly
+-- partitions ahead of time and archives old ones. An existing unpartitioned orders table is left
+-- alone and has to be migrated by hand.
+
+CREATE TABLE IF NOT EXISTS orders (
+    id              bigint                      NOT NULL,
+    idempotency_key varchar(64)                 NOT NULL,
+    request_hash    varchar(64)                 NOT NULL,
+    customer_id     bigint,
+    status          varchar(20)                 NOT NULL,
+    total           numeric(12, 2)              NOT NULL,
+    item_count      integer                     NOT NULL,
+    created_at      timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_orders_customer ON orders (customer_id, created_at DESC);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    order_id   bigint                      NOT NULL,
+    line       integer                     NOT NULL,
+    product_id bigint                      NOT NULL,
+    quantity   integer                     NOT NULL,
+    unit_price numeric(12, 2)              NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (order_id, line, created_at)
+) PARTITION BY RANGE (created_at);
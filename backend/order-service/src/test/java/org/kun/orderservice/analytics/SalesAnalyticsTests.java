@@ -0,0 +1,258 @@
+package org.kun.orderservice.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.checkout.StubProductQuotes;
+import org.kun.orderservice.dto.OrderPlacedEvent;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.dto.SalesWindow;
+import org.kun.orderservice.outbox.OutboxRelay;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StubProductQuotes.class)
+class SalesAnalyticsTests {
+
+    private static final Instant T0 = Instant.parse("2026-03-01T10:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderPlacementService placementService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private SalesAggregator aggregator;
+
+    @Autowired
+    private SalesAnalytics analytics;
+
+    @Autowired
+    private SalesLiveFeed liveFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void tumblingWindowsAlignToTheirSize() {
+        SalesAggregator sales = new SalesAggregator(Duration.ofMinutes(1), Duration.ofHours(1), 100);
+        sales.recordOrder(order(1, T0.plusSeconds(10), "10.00", 5, 2), T0.plusSeconds(10));
+        sales.recordOrder(order(2, T0.plusSeconds(250), "2.50", 5, 1), T0.plusSeconds(250));
+        sales.recordOrder(order(3, T0.plusSeconds(330), "1.25", 6, 3), T0.plusSeconds(330));
+        sales.recordCheckout(T0.plusSeconds(20));
+        sales.recordCheckout(T0.plusSeconds(30));
+
+        List<SalesWindow> windows = sales.tumbling(Duration.ofMinutes(5), 3, 10, T0.plusSeconds(340));
+
+        assertThat(windows).extracting(SalesWindow::start)
+                .containsExactly(T0.minusSeconds(300), T0, T0.plusSeconds(300));
+        SalesWindow first = windows.get(1);
+        assertThat(first.orders()).isEqualTo(2);
+        assertThat(first.revenue()).isEqualByComparingTo("12.50");
+        assertThat(first.items()).isEqualTo(3);
+        assertThat(first.conversion()).isEqualTo(1.0);
+        assertThat(first.topProducts()).containsExactly(new SalesWindow.ProductSales(5, 3));
+        assertThat(windows.get(2).orders()).isEqualTo(1);
+        assertThat(windows.get(2).conversion()).isNull();
+        assertThat(windows.get(0).orders()).isZero();
+    }
+
+    @Test
+    void slidingWindowEndsWithTheCurrentBucket() {
+        SalesAggregator sales = new SalesAggregator(Duration.ofMinutes(1), Duration.ofHours(1), 100);
+        sales.recordOrder(order(1, T0, "1.00", 1, 1), T0);
+        sales.recordOrder(order(2, T0.plusSeconds(200), "2.00", 1, 1), T0.plusSeconds(200));
+
+        Instant now = T0.plusSeconds(290);
+        assertThat(sales.sliding(Duration.ofMinutes(5), 10, now).orders()).isEqualTo(2);
+        assertThat(sales.sliding(Duration.ofMinutes(2), 10, now).orders()).isEqualTo(1);
+        assertThat(sales.sliding(Duration.ofMinutes(5), 10, T0.plusSeconds(310)).orders()).isEqualTo(1);
+        assertThatThrownBy(() -> sales.sliding(Duration.ofSeconds(90), 10, now))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sales.sliding(Duration.ofHours(2), 10, now))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void countsRedeliveriesOnceAndDropsExpiredOrders() {
+        SalesAggregator sales = new SalesAggregator(Duration.ofMinutes(1), Duration.ofMinutes(10), 100);
+        Instant now = T0.plusSeconds(600);
+
+        assertThat(sales.recordOrder(order(1, T0.plusSeconds(590), "1.00", 1, 1), now)).isTrue();
+        assertThat(sales.recordOrder(order(1, T0.plusSeconds(590), "1.00", 1, 1), now)).isFalse();
+        assertThat(sales.recordOrder(order(2, T0, "1.00", 1, 1), now)).isFalse();
+        assertThat(sales.recordOrder(order(3, T0.plusSeconds(60), "1.00", 1, 1), now)).isTrue();
+
+        assertThat(sales.dropped()).isEqualTo(1);
+        assertThat(sales.sliding(Duration.ofMinutes(10), 10, now).orders()).isEqualTo(2);
+        // the ring has moved past the late order's bucket
+        assertThat(sales.sliding(Duration.ofMinutes(10), 10, now.plusSeconds(120)).orders()).isEqualTo(1);
+    }
+
+    @Test
+    void foldsProductsPastTheLimitIntoOthers() {
+        SalesAggregator sales = new SalesAggregator(Duration.ofMinutes(1), Duration.ofHours(1), 2);
+        sales.recordOrder(order(1, T0, "1.00", 1, 5), T0);
+        sales.recordOrder(order(2, T0, "1.00", 2, 4), T0);
+        sales.recordOrder(order(3, T0, "1.00", 3, 1), T0);
+        sales.recordOrder(order(4, T0, "1.00", 4, 2), T0);
+
+        assertThat(sales.sliding(Duration.ofMinutes(1), 10, T0).topProducts()).containsExactly(
+                new SalesWindow.ProductSales(1, 5), new SalesWindow.ProductSales(2, 4),
+                new SalesWindow.ProductSales(SalesAggregator.OTHER_PRODUCTS, 3));
+        assertThat(sales.sliding(Duration.ofMinutes(1), 1, T0).topProducts())
+                .containsExactly(new SalesWindow.ProductSales(1, 5));
+    }
+
+    @Test
+    void rollsUpChangedBucketsOnceAndRestoresThem() {
+        SalesAggregator sales = new SalesAggregator(Duration.ofMinutes(1), Duration.ofHours(1), 100);
+        sales.recordOrder(order(1, T0, "3.00", 7, 2), T0);
+        sales.recordOrder(order(2, T0.plusSeconds(60), "4.00", 7, 1), T0.plusSeconds(60));
+
+        List<SalesAggregator.BucketSnapshot> changed = sales.changedBuckets(T0.plusSeconds(60), 10);
+        assertThat(changed).extracting(SalesAggregator.BucketSnapshot::start).containsExactly(T0);
+        sales.markRolledUp(changed);
+        assertThat(sales.changedBuckets(T0.plusSeconds(60), 10)).isEmpty();
+
+        sales.recordOrder(order(3, T0.plusSeconds(5), "1.00", 8, 1), T0.plusSeconds(70));
+        SalesAggregator.BucketSnapshot latest = sales.changedBuckets(T0.plusSeconds(120), 10).get(0);
+        assertThat(latest.orders()).isEqualTo(2);
+        assertThat(latest.revenueCents()).isEqualTo(400);
+
+        SalesAggregator restarted = new SalesAggregator(Duration.ofMinutes(1), Duration.ofHours(1), 100);
+        restarted.restore(latest, T0.plusSeconds(70));
+        SalesWindow window = restarted.sliding(Duration.ofMinutes(2), 10, T0.plusSeconds(70));
+        assertThat(window.orders()).isEqualTo(2);
+        assertThat(window.revenue()).isEqualByComparingTo("4.00");
+        assertThat(restarted.changedBuckets(T0.plusSeconds(120), 10)).isEmpty();
+    }
+
+    @Test
+    void countsRelayedOrdersAndWritesRollups() throws Exception {
+        // events of other test contexts sharing the database
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        long before = aggregator.sliding(Duration.ofMinutes(5), 10, Instant.now()).orders();
+        place("analytics-1", 31, 32);
+        place("analytics-2", 31);
+        while (relay.relayOnce() > 0) {
+            // drain
+        }
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = NULL, next_attempt_at = NULL");
+        while (relay.relayOnce() > 0) {
+            // redelivered
+        }
+
+        SalesWindow window = aggregator.sliding(Duration.ofMinutes(5), 10, Instant.now());
+        assertThat(window.orders() - before).isEqualTo(2);
+        assertThat(window.topProducts()).contains(new SalesWindow.ProductSales(31, 4));
+
+        analytics.rollup(Instant.now().plus(aggregator.bucketSize()));
+        List<Map<String, Object>> rollups = jdbcTemplate.queryForList(
+                "SELECT orders, top_products FROM sales_rollups_by_node ORDER BY bucket_start DESC");
+        assertThat(rollups).isNotEmpty();
+        assertThat((String) rollups.get(0).get("top_products")).contains("\"productId\":31");
+        assertThat(analytics.rollup(Instant.now().plus(aggregator.bucketSize()))).isZero();
+    }
+
+    @Test
+    void windowsIncludeWhatOtherNodesRolledUp() {
+        Instant now = Instant.now();
+        Timestamp bucket = Timestamp.from(Instant.ofEpochMilli(
+                now.toEpochMilli() / aggregator.bucketSize().toMillis() * aggregator.bucketSize().toMillis()));
+        long before = aggregator.sliding(Duration.ofMinutes(5), 10, now).orders();
+        // two other instances' counts of the current minute
+        jdbcTemplate.update("INSERT INTO sales_rollups_by_node (bucket_start, node_id, orders, revenue, items, "
+                + "checkouts, top_products) VALUES (?, 900, 3, 30.00, 3, 6, '[{\"productId\":77,\"quantity\":3}]')",
+                bucket);
+        jdbcTemplate.update("INSERT INTO sales_rollups_by_node (bucket_start, node_id, orders, revenue, items, "
+                + "checkouts, top_products) VALUES (?, 901, 2, 20.00, 2, 2, '[{\"productId\":77,\"quantity\":2}]')",
+                bucket);
+        try {
+            analytics.refreshPeers(now);
+            SalesWindow window = aggregator.sliding(Duration.ofMinutes(5), 10, now);
+            assertThat(window.orders() - before).isEqualTo(5);
+            assertThat(window.topProducts()).contains(new SalesWindow.ProductSales(77, 5));
+
+            // this node's rollup leaves the other nodes' rows alone
+            aggregator.recordCheckout(now);
+            analytics.rollup(now.plus(aggregator.bucketSize()));
+            assertThat(jdbcTemplate.queryForObject("SELECT SUM(orders) FROM sales_rollups_by_node "
+                    + "WHERE bucket_start = ? AND node_id IN (900, 901)", Long.class, bucket)).isEqualTo(5);
+        }
+        finally {
+            jdbcTemplate.update("DELETE FROM sales_rollups_by_node WHERE node_id IN (900, 901)");
+            analytics.refreshPeers(now);
+        }
+        assertThat(aggregator.sliding(Duration.ofMinutes(5), 10, now).orders()).isEqualTo(before);
+    }
+
+    @Test
+    void servesWindowsOverHttp() throws Exception {
+        mockMvc.perform(get("/orders/analytics/windows").param("size", "5m").param("count", "12"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/orders/analytics/sliding").param("size", "PT15M"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/orders/analytics/windows").param("size", "90s"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/orders/analytics/sliding").param("size", "48h"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsLiveWindows() throws Exception {
+        MvcResult result = mockMvc.perform(get("/orders/analytics/live").param("size", "5m"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(liveFeed.subscribers()).isEqualTo(1);
+
+        liveFeed.broadcast();
+
+        String events = result.getResponse().getContentAsString();
+        assertThat(events.split("event:window", -1)).hasSize(3);
+        assertThat(events).contains("\"orders\":");
+        liveFeed.close();
+        assertThat(liveFeed.subscribers()).isZero();
+    }
+
+    private void place(String key, long... productIds) throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setItems(Arrays.stream(productIds).mapToObj(productId -> {
+            PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+            item.setProductId(productId);
+            item.setQuantity(2);
+            return item;
+        }).toList());
+        placementService.place(key, request).get(10, TimeUnit.SECONDS);
+    }
+
+    private static OrderPlacedEvent order(long id, Instant placedAt, String total, long productId, int quantity) {
+        return new OrderPlacedEvent("event-" + id, id, null,
+                List.of(new OrderPlacedEvent.Item(productId, quantity, BigDecimal.ONE)), new BigDecimal(total), placedAt);
+    }
+}
@@ -0,0 +1,121 @@
+package org.kun.orderservice.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.orderservice.dto.OrderHistoryPage;
+import org.kun.orderservice.history.HistoryCursor;
+import org.kun.orderservice.history.OrderHistoryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order history pages for a customer with few orders and for one with very many,
+ * read by concurrent clients. The first page and a page deep in the history
+ * should cost the same, and p0.99 should stay within a few milliseconds.
+ *
+ * <p>Defaults to an in-memory H2 database; pass {@code -Dbench.jdbc.url} (with
+ * {@code bench.jdbc.user} and {@code bench.jdbc.password}) to run against Postgres.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class OrderHistoryBenchmark {
+
+    private static final long CUSTOMER = 1;
+    private static final int OTHER_CUSTOMERS = 1_000;
+    private static final String ITEMS = "[{\"productId\":101,\"name\":\"Desk lamp\",\"quantity\":1,\"unitPrice\":29.90},"
+            + "{\"productId\":102,\"name\":\"LED bulb\",\"quantity\":4,\"unitPrice\":3.50}]";
+
+    @Param({"100", "200000"})
+    public int orders;
+
+    private HikariDataSource dataSource;
+    private OrderHistoryReader reader;
+    private HistoryCursor middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:historybench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("bench.jdbc.user", "sa"));
+        dataSource.setPassword(System.getProperty("bench.jdbc.password", ""));
+        dataSource.setMaximumPoolSize(16);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS order_history");
+        jdbcTemplate.execute("""
+                CREATE TABLE order_history (
+                    order_id bigint PRIMARY KEY, customer_id bigint NOT NULL, placed_at timestamp NOT NULL,
+                    status varchar(20) NOT NULL, total numeric(12, 2) NOT NULL, item_count integer NOT NULL,
+                    items text NOT NULL)
+                """);
+        jdbcTemplate.execute("CREATE INDEX idx_order_history_customer "
+                + "ON order_history (customer_id, placed_at DESC, order_id DESC)");
+
+        // the measured customer's orders, plus as many again spread over other customers
+        Instant start = Instant.parse("2020-01-01T00:00:00Z");
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (long id = 1; id <= 2L * orders; id++) {
+            long customer = id % 2 == 0 ? CUSTOMER : 2 + id % OTHER_CUSTOMERS;
+            rows.add(new Object[]{id, customer, Timestamp.from(start.plusSeconds(id * 60)), "PLACED", 36.90, 2, ITEMS});
+            if (rows.size() == 10_000) {
+                insert(jdbcTemplate, rows);
+            }
+        }
+        insert(jdbcTemplate, rows);
+        jdbcTemplate.execute("ANALYZE");
+
+        long middleId = orders % 2 == 0 ? orders : orders + 1;
+        middle = new HistoryCursor(start.plusSeconds(middleId * 60), middleId);
+        reader = new OrderHistoryReader(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public OrderHistoryPage firstPage() {
+        return reader.page(CUSTOMER, null, 10);
+    }
+
+    @Benchmark
+    public OrderHistoryPage deepPage() {
+        return reader.page(CUSTOMER, middle, 10);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO order_history (order_id, customer_id, placed_at, status, total, "
+                + "item_count, items) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(OrderHistoryBenchmark.class, args);
+    }
+}
@@ -0,0 +1,175 @@
+package org.kun.orderservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.orderservice.checkout.CheckoutProperties;
+import org.kun.orderservice.checkout.CheckoutValidator;
+import org.kun.orderservice.checkout.ProductQuote;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.ids.SnowflakeIdGenerator;
+import org.kun.orderservice.outbox.Outbox;
+import org.kun.orderservice.placement.OrderPlacementProperties;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.kun.orderservice.placement.OrderWriter;
+import org.kun.orderservice.placement.PendingOrder;
+import org.kun.orderservice.placement.PlacementResult;
+import org.kun.orderservice.pricing.PricingEngine;
+import org.kun.orderservice.pricing.PricingProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent checkouts written by the group-committing {@link OrderPlacementService}
+ * against the same {@link OrderWriter} called with one order per transaction from
+ * every client thread; both write each order's outbox event too. Throughput mode
+ * gives orders/s, sample mode the latency percentiles (p0.99 is the p99).
+ *
+ * <p>Defaults to an in-memory H2 database, where a commit costs no fsync and the
+ * gap is mostly round trips and lock hand-offs. Point it at Postgres for the
+ * number that matters:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.orderservice.benchmark.OrderPlacementBenchmark \
+ *     -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/orderdb_bench?reWriteBatchedInserts=true \
+ *     -Dbench.jdbc.user=postgres -Dbench.jdbc.password=123456
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class OrderPlacementBenchmark {
+
+    @Param({"3"})
+    public int items;
+
+    private final AtomicLong keys = new AtomicLong();
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private OrderWriter writer;
+    private CheckoutValidator prices;
+    private PricingEngine pricing;
+    private OrderPlacementService placementService;
+    private PlaceOrderRequest request;
+    private Map<Long, ProductQuote> quotes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:orderbench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("bench.jdbc.user", "sa"));
+        dataSource.setPassword(System.getProperty("bench.jdbc.password", ""));
+        // enough for every client thread in the transaction-per-order case
+        dataSource.setMaximumPoolSize(64);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS outbox_events");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS order_items");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS orders");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS order_keys");
+        jdbcTemplate.execute("""
+                CREATE TABLE orders (
+                    id bigint PRIMARY KEY, idempotency_key varchar(64) NOT NULL,
+                    request_hash varchar(64) NOT NULL, customer_id bigint, status varchar(20) NOT NULL,
+                    total numeric(12, 2) NOT NULL, item_count integer NOT NULL, created_at timestamp NOT NULL)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE order_items (
+                    order_id bigint NOT NULL, line integer NOT NULL, product_id bigint NOT NULL,
+                    quantity integer NOT NULL, unit_price numeric(12, 2) NOT NULL, created_at timestamp NOT NULL,
+                    PRIMARY KEY (order_id, line))
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE order_keys (
+                    idempotency_key varchar(64) PRIMARY KEY, order_id bigint NOT NULL, created_at timestamp NOT NULL)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE outbox_events (
+                    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, event_id varchar(36) NOT NULL UNIQUE,
+                    event_type varchar(64) NOT NULL, aggregate_id bigint NOT NULL, payload text NOT NULL,
+                    created_at timestamp NOT NULL, published_at timestamp, attempts integer NOT NULL,
+                    next_attempt_at timestamp, last_error varchar(500))
+                """);
+
+        Outbox outbox = new Outbox(jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()));
+        writer = new OrderWriter(jdbcTemplate, new DataSourceTransactionManager(dataSource), outbox,
+                new SnowflakeIdGenerator(1, Duration.ofSeconds(5)));
+        OrderPlacementProperties properties = new OrderPlacementProperties();
+        properties.setMaxBatchDelay(Duration.ZERO);
+        // prices answer from the quote cache after the first order, as they do for a warm catalog
+        prices = new CheckoutValidator(productIds -> productIds.stream()
+                .map(id -> new ProductQuote(id, new BigDecimal("19.99"), 1_000_000, null))
+                .toList(), new CheckoutProperties(), new SimpleMeterRegistry());
+        // never started, so orders are priced without promotions
+        pricing = new PricingEngine(null, jdbcTemplate, new PricingProperties(), new SimpleMeterRegistry());
+        placementService = new OrderPlacementService(writer, prices, pricing, properties, new SimpleMeterRegistry());
+        placementService.start();
+
+        List<PlaceOrderRequest.Item> lines = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+            item.setProductId(1_000 + i);
+            item.setQuantity(1 + i);
+            lines.add(item);
+        }
+        request = new PlaceOrderRequest();
+        request.setCustomerId(42L);
+        request.setItems(lines);
+        quotes = prices.currentQuotes(lines.stream().map(PlaceOrderRequest.Item::getProductId).toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        placementService.close();
+        pricing.close();
+        prices.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public PlacementResult groupCommit() {
+        return placementService.place(nextKey(), request).join();
+    }
+
+    @Benchmark
+    public PlacementResult transactionPerOrder() {
+        return writer.write(List.of(PendingOrder.of(nextKey(), request, quotes, pricing.plan()))).get(0);
+    }
+
+    private String nextKey() {
+        return "bench-" + keys.incrementAndGet();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(OrderPlacementBenchmark.class, args);
+    }
+}
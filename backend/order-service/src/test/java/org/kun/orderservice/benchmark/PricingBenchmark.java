@@ -0,0 +1,139 @@
+package org.kun.orderservice.benchmark;
+
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.orderservice.entity.Promotion;
+import org.kun.orderservice.entity.PromotionType;
+import org.kun.orderservice.pricing.CartBuffer;
+import org.kun.orderservice.pricing.PricingPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carts of 1 to 500 lines priced by a plan of 10,000 active promotions: product
+ * percentages and buy-x-get-y deals, category percentages, tiers and coupons, and
+ * a few store-wide rules. Run with {@code -prof gc}: {@code gc.alloc.rate.norm}
+ * should be about 0 B/op, as pricing reuses the cart's buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+
+    private static final int RULES = 10_000;
+    private static final int PRODUCTS = 50_000;
+    private static final int CATEGORIES = 300;
+
+    @Param({"1", "10", "100", "500"})
+    public int lines;
+
+    private PricingPlan plan;
+    private long now;
+
+    @State(Scope.Thread)
+    public static class Cart {
+
+        final CartBuffer buffer = new CartBuffer(500);
+        long[] productIds;
+        long[] categoryIds;
+        int[] quantities;
+        long[] prices;
+
+        @Setup(Level.Trial)
+        public void setUp(PricingBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(benchmark.lines);
+            productIds = new long[benchmark.lines];
+            categoryIds = new long[benchmark.lines];
+            quantities = new int[benchmark.lines];
+            prices = new long[benchmark.lines];
+            for (int i = 0; i < benchmark.lines; i++) {
+                productIds[i] = random.nextInt(PRODUCTS);
+                categoryIds[i] = productIds[i] % CATEGORIES;
+                quantities[i] = 1 + random.nextInt(6);
+                prices[i] = 100 + random.nextInt(20_000);
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Promotion> promotions = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            Promotion promotion = new Promotion();
+            promotion.setId((long) i);
+            promotion.setName("promotion " + i);
+            int kind = i % 20;
+            if (kind < 10) {
+                promotion.setType(PromotionType.PERCENTAGE);
+                promotion.setPercent(BigDecimal.valueOf(1 + random.nextInt(30)));
+                promotion.setProductId((long) random.nextInt(PRODUCTS));
+            }
+            else if (kind < 14) {
+                promotion.setType(PromotionType.BUY_X_GET_Y);
+                promotion.setBuyQuantity(1 + random.nextInt(3));
+                promotion.setGetQuantity(1);
+                promotion.setProductId((long) random.nextInt(PRODUCTS));
+            }
+            else if (kind < 16) {
+                promotion.setType(PromotionType.PERCENTAGE);
+                promotion.setPercent(BigDecimal.valueOf(1 + random.nextInt(15)));
+                promotion.setCategoryId((long) random.nextInt(CATEGORIES));
+            }
+            else if (kind < 18) {
+                promotion.setType(PromotionType.TIERED);
+                promotion.setTiers("3:5,10:10,50:15");
+                promotion.setCategoryId((long) random.nextInt(CATEGORIES));
+            }
+            else if (kind < 19 || i % 1_000 != 19) {
+                promotion.setType(PromotionType.AMOUNT_OFF);
+                promotion.setAmount(BigDecimal.valueOf(5));
+                promotion.setMinSubtotal(BigDecimal.valueOf(50));
+                promotion.setCategoryId((long) random.nextInt(CATEGORIES));
+                promotion.setCouponCode("COUPON" + (i % 50));
+            }
+            else {
+                promotion.setType(PromotionType.PERCENTAGE);
+                promotion.setPercent(BigDecimal.valueOf(2));
+            }
+            promotions.add(promotion);
+        }
+        plan = PricingPlan.compile(promotions, 1);
+        now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public long price(Cart cart) {
+        CartBuffer buffer = cart.buffer.clear();
+        for (int i = 0; i < lines; i++) {
+            buffer.add(cart.productIds[i], cart.categoryIds[i], cart.quantities[i], cart.prices[i]);
+        }
+        buffer.addCoupon(plan.couponId("COUPON7"));
+        plan.price(buffer, now);
+        return buffer.totalDiscount();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(PricingBenchmark.class, args);
+    }
+}
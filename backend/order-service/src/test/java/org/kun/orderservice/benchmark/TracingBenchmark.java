@@ -0,0 +1,139 @@
+package org.kun.orderservice.benchmark;
+
+import brave.Tracing;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import brave.sampler.Sampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BravePropagator;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.brave.bridge.W3CPropagation;
+import io.micrometer.tracing.propagation.Propagator;
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.common.tracing.TailSamplingSpanHandler;
+import org.kun.common.tracing.TraceStore;
+import org.kun.common.tracing.TracingProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tracing work of one checkout-sized request, without the request itself: a
+ * server span continued from {@code traceparent}, a connection and two query spans,
+ * and a client span injected into an outbound call's headers. {@code off} is the
+ * no-op tracer used when tracing is absent, {@code dropped} the usual case of a
+ * fast trace the head sampler did not pick (recorded, then discarded by the tail
+ * decision), {@code kept} a trace converted and stored. The budget is 10 µs per
+ * request for {@code dropped} and 25 µs for {@code kept}, against requests that take
+ * milliseconds; run with {@code -prof gc} to see the garbage per request as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TracingBenchmark {
+
+    private static final int CALLERS = 4_096;
+    private static final String QUERY = "select o.order_id, o.status, o.total from orders o where o.customer_id = ?";
+
+    @Param({"off", "dropped", "kept"})
+    public String mode;
+
+    private final List<Map<String, String>> incoming = new ArrayList<>(CALLERS);
+    private Tracing tracing;
+    private Tracer tracer;
+    private Propagator propagator;
+    private TraceStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // distinct traces, carrying the caller's head decision that continued traces follow
+        for (int i = 0; i < CALLERS; i++) {
+            incoming.add(Map.of("traceparent", String.format("00-%032x-%016x-%s", i + 1L, i + 1L,
+                    "kept".equals(mode) ? "01" : "00")));
+        }
+        if ("off".equals(mode)) {
+            tracer = Tracer.NOOP;
+            propagator = Propagator.NOOP;
+            return;
+        }
+        TracingProperties properties = new TracingProperties();
+        properties.setSlowThreshold(Duration.ofMinutes(1));
+        store = new TraceStore(properties.getMaxTraces(), properties.getMaxSpansPerTrace());
+        tracing = Tracing.newBuilder()
+                .localServiceName("order-service")
+                .traceId128Bit(true)
+                .propagationFactory(new W3CPropagation())
+                .currentTraceContext(ThreadLocalCurrentTraceContext.create())
+                .sampler(Sampler.NEVER_SAMPLE)
+                .alwaysSampleLocal()
+                .addSpanHandler(new TailSamplingSpanHandler(store, properties, new SimpleMeterRegistry()))
+                .build();
+        tracer = new BraveTracer(tracing.tracer(), new BraveCurrentTraceContext(tracing.currentTraceContext()));
+        propagator = new BravePropagator(tracing);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (tracing != null) {
+            tracing.close();
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> request() {
+        Map<String, String> headers = incoming.get(ThreadLocalRandom.current().nextInt(CALLERS));
+        Span server = propagator.extract(headers, Map::get)
+                .name("http post /orders/validate")
+                .kind(Span.Kind.SERVER)
+                .tag("method", "POST")
+                .tag("uri", "/orders/validate")
+                .start();
+        Map<String, String> outgoing = new HashMap<>();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(server)) {
+            Span connection = tracer.nextSpan().name("connection").start();
+            try (Tracer.SpanInScope ignoredConnection = tracer.withSpan(connection)) {
+                child("query").tag("jdbc.query[0]", QUERY).end();
+                child("query").tag("jdbc.query[0]", QUERY).end();
+            }
+            connection.end();
+            Span client = child("http post").remoteServiceName("product-service").tag("status", "200");
+            propagator.inject(client.context(), outgoing, Map::put);
+            client.end();
+        }
+        server.tag("status", "200").tag("outcome", "SUCCESS").end();
+        return outgoing;
+    }
+
+    private Span child(String name) {
+        return tracer.nextSpan().name(name).start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(TracingBenchmark.class, args);
+    }
+}
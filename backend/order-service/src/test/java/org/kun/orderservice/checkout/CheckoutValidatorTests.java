@@ -0,0 +1,207 @@
+package org.kun.orderservice.checkout;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.dto.CheckoutRequest;
+import org.kun.orderservice.dto.CheckoutValidation;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckoutValidatorTests {
+
+    private final List<List<Long>> calls = new CopyOnWriteArrayList<>();
+    private final AtomicLong delayMillis = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private CheckoutValidator validator;
+
+    @AfterEach
+    void tearDown() {
+        if (validator != null) {
+            validator.close();
+        }
+    }
+
+    @Test
+    void flagsChangedPricesShortStockAndUnknownProducts() {
+        validator = validator(properties());
+
+        CheckoutValidation result = validator.validate(List.of(
+                item(1, 2, "10.00"), item(2, 1, "9.99"), item(3, 11, "30.00"), item(999, 1, "1.00")));
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.degraded()).isFalse();
+        assertThat(result.lines()).extracting(CheckoutValidation.Line::status).containsExactly(
+                CheckoutValidation.Status.OK, CheckoutValidation.Status.PRICE_CHANGED,
+                CheckoutValidation.Status.INSUFFICIENT_STOCK, CheckoutValidation.Status.UNKNOWN_PRODUCT);
+        assertThat(result.lines().get(1).currentPrice()).isEqualByComparingTo("20.00");
+        assertThat(validator.validate(List.of(item(1, 10, "10.00"))).valid()).isTrue();
+    }
+
+    @Test
+    void countsRepeatedProductsTogether() {
+        validator = validator(properties());
+
+        CheckoutValidation result = validator.validate(List.of(item(1, 6, "10.00"), item(1, 5, "10.00")));
+
+        assertThat(result.lines()).extracting(CheckoutValidation.Line::status)
+                .containsOnly(CheckoutValidation.Status.INSUFFICIENT_STOCK);
+        assertThat(calls).containsExactly(List.of(1L));
+    }
+
+    @Test
+    void looksUpLargeCartsInParallelShards() {
+        CheckoutProperties properties = properties();
+        properties.setShardSize(20);
+        properties.setCallTimeout(Duration.ofSeconds(2));
+        validator = validator(properties);
+        delayMillis.set(200);
+        List<CheckoutRequest.Item> cart = new ArrayList<>();
+        for (int productId = 1; productId <= 200; productId++) {
+            cart.add(item(productId, 1, productId * 10 + ".00"));
+        }
+
+        long start = System.nanoTime();
+        CheckoutValidation result = validator.validate(cart);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(calls).hasSize(10).allSatisfy(shard -> assertThat(shard).hasSize(20));
+        // ten sequential calls would take two seconds
+        assertThat(elapsedMillis).isLessThan(1_000);
+        assertThat(result.lines()).hasSize(200);
+    }
+
+    @Test
+    void answersFromTheCacheWhileQuotesAreFresh() {
+        validator = validator(properties());
+
+        validator.validate(List.of(item(1, 1, "10.00"), item(2, 1, "20.00")));
+        validator.validate(List.of(item(2, 1, "20.00"), item(1, 1, "10.00")));
+        validator.validate(List.of(item(1, 1, "10.00"), item(3, 1, "30.00")));
+
+        assertThat(calls).containsExactly(List.of(1L, 2L), List.of(3L));
+    }
+
+    @Test
+    void fallsBackToCachedQuotesWhenProductServiceIsSlow() {
+        CheckoutProperties properties = properties();
+        properties.setQuoteTtl(Duration.ZERO);
+        properties.setCallTimeout(Duration.ofMillis(100));
+        validator = validator(properties);
+        validator.validate(List.of(item(1, 1, "10.00")));
+        delayMillis.set(1_000);
+
+        long start = System.nanoTime();
+        CheckoutValidation result = validator.validate(List.of(item(1, 1, "10.00"), item(2, 1, "20.00")));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMillis).isLessThan(1_000);
+        assertThat(result.degraded()).isTrue();
+        assertThat(result.valid()).isTrue();
+        assertThat(result.lines()).extracting(CheckoutValidation.Line::status)
+                .containsExactly(CheckoutValidation.Status.OK, CheckoutValidation.Status.UNVERIFIED);
+        // a stale quote still catches a changed price, but not a stock shortage
+        assertThat(validator.validate(List.of(item(1, 1, "9.00"))).lines().get(0).status())
+                .isEqualTo(CheckoutValidation.Status.PRICE_CHANGED);
+        assertThat(validator.validate(List.of(item(1, 50, "10.00"))).lines().get(0).status())
+                .isEqualTo(CheckoutValidation.Status.OK);
+    }
+
+    @Test
+    void skipsProductServiceForAWhileAfterAFailure() {
+        CheckoutProperties properties = properties();
+        properties.setFailureBackoff(Duration.ofMinutes(1));
+        validator = validator(properties);
+        failures.set(1);
+
+        assertThat(validator.validate(List.of(item(1, 1, "10.00"))).degraded()).isTrue();
+        assertThat(validator.validate(List.of(item(2, 1, "20.00"))).degraded()).isTrue();
+
+        assertThat(calls).containsExactly(List.of(1L));
+    }
+
+    @Test
+    void currentQuotesAskProductServiceWhileCartsBackOff() {
+        CheckoutProperties properties = properties();
+        properties.setFailureBackoff(Duration.ofMinutes(1));
+        validator = validator(properties);
+        failures.set(1);
+        assertThat(validator.validate(List.of(item(1, 1, "10.00"))).degraded()).isTrue();
+
+        assertThat(validator.currentQuotes(List.of(2L))).containsOnlyKeys(2L);
+        assertThat(validator.validate(List.of(item(3, 1, "30.00"))).degraded()).isTrue();
+
+        assertThat(calls).containsExactly(List.of(1L), List.of(2L));
+    }
+
+    @Test
+    void currentQuotesNeverFallBackToStaleOnes() throws InterruptedException {
+        CheckoutProperties properties = properties();
+        properties.setQuoteTtl(Duration.ofMillis(50));
+        validator = validator(properties);
+        assertThat(validator.currentQuotes(List.of(1L, 999L))).containsOnlyKeys(1L);
+        assertThat(validator.currentQuotes(List.of(1L)).get(1L).price()).isEqualByComparingTo("10");
+
+        Thread.sleep(100);
+        failures.set(1);
+
+        assertThatThrownBy(() -> validator.currentQuotes(List.of(1L))).isInstanceOf(IllegalStateException.class);
+        assertThat(calls).containsExactly(List.of(1L, 999L), List.of(1L));
+    }
+
+    @Test
+    void rejectsMalformedCarts() {
+        validator = validator(properties());
+
+        assertThatThrownBy(() -> validator.validate(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> validator.validate(List.of(item(1, 0, "10.00"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(calls).isEmpty();
+    }
+
+    private CheckoutValidator validator(CheckoutProperties properties) {
+        return new CheckoutValidator(this::fetch, properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Product {@code n} costs {@code n * 10} and has 10 in stock; ids of 900 and up do not exist.
+     */
+    private List<ProductQuote> fetch(List<Long> productIds) {
+        calls.add(productIds);
+        if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            throw new IllegalStateException("product-service unavailable");
+        }
+        try {
+            Thread.sleep(delayMillis.get());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return productIds.stream().filter(id -> id < 900)
+                .map(id -> new ProductQuote(id, BigDecimal.valueOf(id * 10), 10, null))
+                .toList();
+    }
+
+    private static CheckoutProperties properties() {
+        CheckoutProperties properties = new CheckoutProperties();
+        properties.setLookupThreads(16);
+        return properties;
+    }
+
+    private static CheckoutRequest.Item item(long productId, int quantity, String unitPrice) {
+        CheckoutRequest.Item item = new CheckoutRequest.Item();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal(unitPrice));
+        return item;
+    }
+}
@@ -0,0 +1,29 @@
+package org.kun.orderservice.checkout;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.math.BigDecimal;
+
+/**
+ * Stands in for product-service where tests place orders: every product costs
+ * {@link #PRICE}, is in stock and belongs to {@link #CATEGORY}, except ids from
+ * {@link #UNKNOWN} on, which do not exist.
+ */
+@TestConfiguration
+public class StubProductQuotes {
+
+    public static final BigDecimal PRICE = new BigDecimal("10.00");
+    public static final long CATEGORY = 3;
+    public static final long UNKNOWN = 900_000;
+
+    @Bean
+    @Primary
+    ProductQuoteSource stubProductQuoteSource() {
+        return productIds -> productIds.stream()
+                .filter(id -> id < UNKNOWN)
+                .map(id -> new ProductQuote(id, PRICE, 1_000, CATEGORY))
+                .toList();
+    }
+}
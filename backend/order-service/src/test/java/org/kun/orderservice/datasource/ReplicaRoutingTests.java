@@ -0,0 +1,131 @@
+package org.kun.orderservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.common.datasource.ReadRouting;
+import org.kun.common.datasource.ReadYourWritesFilter;
+import org.kun.common.datasource.ReplicaSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A second in-memory H2 database stands in for the replica; {@code DATABASE()}
+ * tells which one served a query.
+ */
+@SpringBootTest(properties = {
+        "order.datasource.replicas[0].name=replica-1",
+        "order.datasource.replicas[0].url=" + ReplicaRoutingTests.REPLICA_URL,
+        "order.datasource.lag-query=SELECT lag_seconds FROM replica_status",
+        "order.datasource.health-check-interval=1h"
+})
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:orderreplica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Autowired
+    private ReadYourWritesFilter readYourWritesFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        setLag(0);
+        replicaSet.check();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertThat(readOnly()).isEqualTo("orderreplica");
+        assertThat(readWrite()).isEqualTo("orderdb");
+        assertThat(database()).isEqualTo("orderdb");
+        assertThat(ReadRouting.onPrimary(this::readOnly)).isEqualTo("orderdb");
+        assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-1").gauge().value()).isPositive();
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotation() throws SQLException {
+        setLag(30);
+        replicaSet.check();
+
+        assertThat(readOnly()).isEqualTo("orderdb");
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("pool", "replica-1").gauge().value()).isZero();
+
+        setLag(0.5);
+        replicaSet.check();
+
+        assertThat(readOnly()).isEqualTo("orderreplica");
+    }
+
+    @Test
+    void clientReadsItsOwnWrites() throws Exception {
+        AtomicReference<String> served = new AtomicReference<>();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        readYourWritesFilter.doFilter(new MockHttpServletRequest("POST", "/orders"), write,
+                (request, response) -> served.set(readOnly()));
+        assertThat(served).hasValue("orderdb");
+        Cookie readPrimary = write.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(readPrimary).isNotNull();
+
+        assertThat(read(readPrimary)).isEqualTo("orderdb");
+        assertThat(read(null)).isEqualTo("orderreplica");
+        assertThat(read(new Cookie(ReadYourWritesFilter.COOKIE, "0"))).isEqualTo("orderreplica");
+    }
+
+    private String read(Cookie cookie) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        AtomicReference<String> served = new AtomicReference<>();
+        readYourWritesFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> served.set(readOnly()));
+        return served.get();
+    }
+
+    private String readOnly() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> database());
+    }
+
+    private String readWrite() {
+        return new TransactionTemplate(transactionManager).execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase();
+    }
+
+    private static void setLag(double seconds) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_status (lag_seconds DOUBLE PRECISION)");
+            statement.execute("DELETE FROM replica_status");
+            statement.execute("INSERT INTO replica_status VALUES (" + seconds + ")");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.kun.orderservice.export;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderExportTests {
+
+    /**
+     * Rows of the constant-memory export, generated by a view; H2 only streams them
+     * with {@code LAZY_QUERY_EXECUTION}, set in the test configuration.
+     * {@code -Dexport.test.rows=50000000} runs the full-size export (several minutes).
+     */
+    private static final long ROWS = Long.getLong("export.test.rows", 1_000_000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM order_keys");
+        insert(1, "2026-01-31T23:59:59Z", 7L, "9.99", "before");
+        insert(2, "2026-02-01T00:00:00Z", 7L, "10.50", "first");
+        insert(3, "2026-02-14T12:00:00Z", null, "3.00", "with,comma \"quoted\"");
+        insert(4, "2026-02-28T23:00:00Z", 8L, "100.00", "third");
+        insert(5, "2026-03-01T00:00:00Z", 7L, "1.00", "after");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP VIEW IF EXISTS generated_orders");
+    }
+
+    @Test
+    void exportsCsvOfTheRange() throws Exception {
+        String csv = mockMvc.perform(get("/orders/export").param("from", "2026-02-01").param("to", "2026-03-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"orders_2026-02-01_2026-03-01.csv\""))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.split("\r\n")).containsExactly(
+                "id,created_at,customer_id,status,total,item_count,idempotency_key",
+                "2,2026-02-01T00:00:00Z,7,PLACED,10.50,1,first",
+                "3,2026-02-14T12:00:00Z,,PLACED,3.00,1,\"with,comma \"\"quoted\"\"\"",
+                "4,2026-02-28T23:00:00Z,8,PLACED,100.00,1,third");
+    }
+
+    @Test
+    void exportsFilteredGzippedNdjson() throws Exception {
+        byte[] body = mockMvc.perform(get("/orders/export").param("from", "2026-01-01").param("to", "2026-04-01")
+                        .param("format", "NDJSON").param("customerId", "7").param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(ndjson.split("\n")).containsExactly(
+                "{\"id\":1,\"createdAt\":\"2026-01-31T23:59:59Z\",\"customerId\":7,\"status\":\"PLACED\","
+                        + "\"total\":9.99,\"itemCount\":1,\"idempotencyKey\":\"before\"}",
+                "{\"id\":2,\"createdAt\":\"2026-02-01T00:00:00Z\",\"customerId\":7,\"status\":\"PLACED\","
+                        + "\"total\":10.50,\"itemCount\":1,\"idempotencyKey\":\"first\"}",
+                "{\"id\":5,\"createdAt\":\"2026-03-01T00:00:00Z\",\"customerId\":7,\"status\":\"PLACED\","
+                        + "\"total\":1.00,\"itemCount\":1,\"idempotencyKey\":\"after\"}");
+    }
+
+    @Test
+    void rejectsEmptyRanges() throws Exception {
+        mockMvc.perform(get("/orders/export").param("from", "2026-02-01").param("to", "2026-02-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void memoryStaysFlatWhileStreamingMillionsOfRows() throws IOException {
+        // generated rows, so the database holds nothing that grows with the export
+        jdbcTemplate.execute("CREATE VIEW generated_orders AS SELECT n AS id, "
+                + "DATEADD(SECOND, n, TIMESTAMP '2020-01-01 00:00:00') AS created_at, MOD(n, 1000) AS customer_id, "
+                + "'PLACED' AS status, CAST(MOD(n, 100000) AS NUMERIC(12, 2)) / 100 AS total, 3 AS item_count, "
+                + "CONCAT('key-', n) AS idempotency_key "
+                + "FROM (SELECT \"X\" AS n FROM SYSTEM_RANGE(1, " + ROWS + "))");
+        OrderExporter exporter = new OrderExporter(jdbcTemplate, transactionManager, new OrderExportProperties(),
+                new SimpleMeterRegistry(), "generated_orders");
+        System.gc();
+        long before = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        HeapSampler out = new HeapSampler();
+
+        long rows = exporter.export(new OrderExportQuery(Instant.parse("2019-01-01T00:00:00Z"),
+                Instant.parse("2100-01-01T00:00:00Z"), null, null), OrderExportFormat.CSV, false, out);
+
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(out.bytes).isGreaterThan(ROWS * 40);
+        // the heap while streaming stays where it was before the export, give or take
+        assertThat(out.samples).isGreaterThan(5);
+        assertThat(out.maxUsed - before).isLessThan(16L << 20);
+    }
+
+    private void insert(long id, String createdAt, Long customerId, String total, String key) {
+        jdbcTemplate.update("INSERT INTO orders (id, idempotency_key, request_hash, customer_id, status, total, "
+                        + "item_count, created_at) VALUES (?, ?, 'hash', ?, 'PLACED', ?, 1, ?)",
+                id, key, customerId, new BigDecimal(total), Timestamp.from(Instant.parse(createdAt)));
+    }
+
+    /**
+     * Counts what is written and samples the used heap after a full GC every
+     * {@link #SAMPLE_EVERY} bytes.
+     */
+    private static final class HeapSampler extends OutputStream {
+
+        private static final long SAMPLE_EVERY = 8L << 20;
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private long bytes;
+        private long nextSample = SAMPLE_EVERY;
+        private int samples;
+        private long maxUsed;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int length) {
+            bytes += length;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY;
+                System.gc();
+                long used = memory.getHeapMemoryUsage().getUsed();
+                samples++;
+                maxUsed = Math.max(maxUsed, used);
+            }
+        }
+    }
+}
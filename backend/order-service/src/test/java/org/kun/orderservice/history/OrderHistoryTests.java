@@ -0,0 +1,189 @@
+package org.kun.orderservice.history;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.checkout.ProductQuote;
+import org.kun.orderservice.checkout.ProductQuoteSource;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.outbox.OutboxRelay;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderHistoryTests {
+
+    private static volatile boolean catalogDown;
+
+    @TestConfiguration
+    static class Catalog {
+
+        @Bean
+        @Primary
+        ProductCatalog stubCatalog() {
+            return productIds -> {
+                if (catalogDown) {
+                    throw new IllegalStateException("product-service unavailable");
+                }
+                Map<Long, String> names = new HashMap<>();
+                productIds.stream().filter(id -> id < 900).forEach(id -> names.put(id, "Product " + id));
+                return names;
+            };
+        }
+
+        @Bean
+        @Primary
+        ProductQuoteSource stubQuotes() {
+            return productIds -> productIds.stream()
+                    .map(id -> new ProductQuote(id, new BigDecimal("2.50"), 1_000, null))
+                    .toList();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderPlacementService placementService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long first;
+    private long second;
+    private long third;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        catalogDown = false;
+        jdbcTemplate.update("DELETE FROM order_history");
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM order_keys");
+        first = place("history-1", 42L, 1, 2);
+        second = place("history-2", 42L, 3);
+        place("history-3", 7L, 4);
+        place("history-4", null, 5);
+        third = place("history-5", 42L, 6, 999);
+        while (relay.relayOnce() > 0) {
+            // drain
+        }
+    }
+
+    @Test
+    void pagesThroughCustomerHistoryNewestFirst() throws Exception {
+        String body = mockMvc.perform(get("/orders/history").param("customerId", "42").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].orderId", contains(third, second)))
+                .andExpect(jsonPath("$.items[0].itemCount").value(2))
+                .andExpect(jsonPath("$.items[0].items[0].name").value("Product 6"))
+                .andExpect(jsonPath("$.items[0].items[1].name").value(nullValue()))
+                .andExpect(jsonPath("$.items[0].items[1].unitPrice").value(2.5))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = body.replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(get("/orders/history").param("customerId", "42").param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].orderId", contains(first)))
+                .andExpect(jsonPath("$.items[0].total").value(10.0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/orders/history").param("customerId", "7"))
+                .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    void redeliveryKeepsOneRowPerOrder() {
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = NULL, next_attempt_at = NULL");
+        assertThat(relay.relayOnce()).isEqualTo(5);
+
+        assertThat(count("SELECT COUNT(*) FROM order_history")).isEqualTo(4);
+    }
+
+    @Test
+    void orderIsProjectedAgainOnceNamesCanBeRead() {
+        jdbcTemplate.update("DELETE FROM order_history WHERE order_id = ?", second);
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = NULL, next_attempt_at = NULL WHERE aggregate_id = ?",
+                second);
+        catalogDown = true;
+        relay.relayOnce();
+
+        assertThat(count("SELECT COUNT(*) FROM order_history WHERE order_id = " + second)).isZero();
+        assertThat(count("SELECT attempts FROM outbox_events WHERE aggregate_id = " + second)).isEqualTo(1);
+
+        catalogDown = false;
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = NULL WHERE aggregate_id = ?", second);
+        relay.relayOnce();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT items FROM order_history WHERE order_id = ?", String.class,
+                second)).contains("Product 3");
+    }
+
+    @Test
+    void rebuildRestoresTheHistory() throws Exception {
+        List<Map<String, Object>> projected = rows();
+        jdbcTemplate.update("DELETE FROM order_history WHERE order_id = ?", second);
+        jdbcTemplate.update("UPDATE order_history SET items = '[]' WHERE order_id = ?", first);
+        jdbcTemplate.update("INSERT INTO order_history (order_id, customer_id, placed_at, status, total, item_count, "
+                + "items) VALUES (123456789, 42, CURRENT_TIMESTAMP, 'PLACED', 1, 0, '[]')");
+
+        mockMvc.perform(post("/internal/order-history/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders").value(4));
+
+        assertThat(rows()).isEqualTo(projected);
+    }
+
+    @Test
+    void rejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/orders/history").param("customerId", "42").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long place(String key, Long customerId, long... productIds) throws Exception {
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setCustomerId(customerId);
+        request.setItems(Arrays.stream(productIds).mapToObj(productId -> {
+            PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+            item.setProductId(productId);
+            item.setQuantity(2);
+            return item;
+        }).toList());
+        return placementService.place(key, request).get(10, TimeUnit.SECONDS).receipt().id();
+    }
+
+    private List<Map<String, Object>> rows() {
+        return jdbcTemplate.queryForList("SELECT * FROM order_history ORDER BY order_id");
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count;
+    }
+}
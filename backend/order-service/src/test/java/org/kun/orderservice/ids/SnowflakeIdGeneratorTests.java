@@ -0,0 +1,192 @@
+package org.kun.orderservice.ids;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.entity.Order;
+import org.kun.orderservice.entity.OrderStatus;
+import org.kun.orderservice.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class SnowflakeIdGeneratorTests {
+
+    private static final long T0 = Instant.parse("2026-03-01T10:00:00Z").toEpochMilli();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SnowflakeIdGenerator orderIdGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void releaseTestClaims() {
+        jdbcTemplate.update("DELETE FROM order_id_nodes WHERE instance_id LIKE 'test-%'");
+    }
+
+    @Test
+    void idsCarryTheirTimeAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513, Duration.ofSeconds(1), () -> T0);
+
+        long first = generator.next();
+        long second = generator.next();
+
+        assertThat(second).isEqualTo(first + 1);
+        assertThat(SnowflakeIdGenerator.timestampOf(first)).isEqualTo(Instant.ofEpochMilli(T0));
+        assertThat(SnowflakeIdGenerator.nodeOf(first)).isEqualTo(513);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, Duration.ofSeconds(5));
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] runs = new Future<?>[8];
+            long[][] ids = new long[8][50_000];
+            for (int t = 0; t < 8; t++) {
+                long[] mine = ids[t];
+                runs[t] = threads.submit(() -> {
+                    for (int i = 0; i < mine.length; i++) {
+                        mine[i] = generator.next();
+                    }
+                });
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            for (long[] mine : ids) {
+                for (int i = 1; i < mine.length; i++) {
+                    assertThat(mine[i]).isGreaterThan(mine[i - 1]);
+                }
+            }
+            long[] all = Arrays.stream(ids).flatMapToLong(Arrays::stream).sorted().toArray();
+            assertThat(IntStream.range(1, all.length).allMatch(i -> all[i] != all[i - 1])).isTrue();
+        }
+        finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullSequenceCarriesIntoTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, Duration.ofSeconds(1), () -> T0);
+        long last = 0;
+        for (int i = 0; i < 4_097; i++) {
+            last = generator.next();
+        }
+
+        assertThat(SnowflakeIdGenerator.timestampOf(last)).isEqualTo(Instant.ofEpochMilli(T0 + 1));
+        assertThat(SnowflakeIdGenerator.nodeOf(last)).isEqualTo(1);
+    }
+
+    @Test
+    void survivesSmallClockRegressionsAndRefusesLargeOnes() {
+        AtomicLong clock = new AtomicLong(T0);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, Duration.ofSeconds(2), clock::get);
+        long before = generator.next();
+
+        clock.set(T0 - 1_500);
+        long during = generator.next();
+        assertThat(during).isGreaterThan(before);
+        assertThat(generator.clockRegressions()).isEqualTo(1);
+
+        clock.set(T0 - 2_500);
+        assertThatThrownBy(generator::next).isInstanceOf(IllegalStateException.class);
+
+        clock.set(T0 + 10);
+        assertThat(generator.next()).isGreaterThan(during);
+    }
+
+    @Test
+    void startsPastTheLatestStoredId() {
+        SnowflakeIdGenerator earlier = new SnowflakeIdGenerator(1, Duration.ofSeconds(2), () -> T0 + 1_000);
+        long stored = earlier.next();
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(1, Duration.ofSeconds(2), () -> T0);
+
+        assertThat(restarted.advancePast(stored)).isTrue();
+        assertThat(restarted.next()).isGreaterThan(stored);
+        assertThat(restarted.advancePast(new SnowflakeIdGenerator(1, Duration.ZERO, () -> T0 + 60_000).next()))
+                .isFalse();
+    }
+
+    @Test
+    void eachNodeIdIsClaimedByOneInstance() {
+        int preferred = (orderIdGenerator.nodeId() + 512) & SnowflakeIdGenerator.MAX_NODE_ID;
+        int next = (preferred + 1) & SnowflakeIdGenerator.MAX_NODE_ID;
+
+        assertThat(lease("test-a", () -> T0).claimFrom(preferred)).isEqualTo(preferred);
+        assertThat(lease("test-b", () -> T0).claimFrom(preferred)).isEqualTo(next);
+        // a restarted instance gets its own node id back
+        assertThat(lease("test-a", () -> T0 + 1_000).claimFrom(preferred)).isEqualTo(preferred);
+        assertThatThrownBy(() -> lease("test-c", () -> T0).claim(next))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(OrderIdConfig.preferredNodeId("host-a:order-service:8082"))
+                .isBetween(0, SnowflakeIdGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    void instanceStopsIssuingIdsOnceItsNodeIdIsTakenOver() {
+        int nodeId = (orderIdGenerator.nodeId() + 256) & SnowflakeIdGenerator.MAX_NODE_ID;
+        AtomicLong clock = new AtomicLong(T0);
+        NodeIdLease first = lease("test-a", clock::get);
+        first.claim(nodeId);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(nodeId, Duration.ofSeconds(1), clock::get);
+        first.start(generator);
+        generator.next();
+
+        // the first instance could not renew for longer than its lease, less the drift it allows for
+        clock.set(T0 + 29_500);
+        assertThatThrownBy(generator::next).isInstanceOf(IllegalStateException.class);
+
+        clock.set(T0 + 31_000);
+        assertThat(lease("test-b", clock::get).claim(nodeId)).isEqualTo(nodeId);
+        first.renew();
+        assertThatThrownBy(generator::next).isInstanceOf(IllegalStateException.class);
+        first.close();
+        assertThat(jdbcTemplate.queryForObject("SELECT instance_id FROM order_id_nodes WHERE node_id = ?",
+                String.class, nodeId)).isEqualTo("test-b");
+    }
+
+    @Test
+    void hibernateAssignsSnowflakeIdsToOrders() {
+        Order order = new Order();
+        order.setIdempotencyKey("snowflake-entity");
+        order.setRequestHash("hash");
+        order.setStatus(OrderStatus.PLACED);
+        order.setTotal(BigDecimal.ONE);
+        order.setCreatedAt(Instant.now());
+
+        Order saved = orderRepository.save(order);
+
+        assertThat(SnowflakeIdGenerator.nodeOf(saved.getId())).isEqualTo(orderIdGenerator.nodeId());
+        assertThat(SnowflakeIdGenerator.timestampOf(saved.getId())).isCloseTo(Instant.now(),
+                within(5, ChronoUnit.SECONDS));
+        orderRepository.delete(saved);
+    }
+
+    private NodeIdLease lease(String instanceId, LongSupplier clock) {
+        return new NodeIdLease(jdbcTemplate, instanceId, Duration.ofSeconds(30), Duration.ofSeconds(1), clock);
+    }
+}
@@ -0,0 +1,230 @@
+package org.kun.orderservice.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.checkout.StubProductQuotes;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.kun.orderservice.placement.PlacementResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Import(StubProductQuotes.class)
+class OutboxRelayTests {
+
+    @Autowired
+    private OrderPlacementService placementService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InProcessBroker broker;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Recorder recorder = new Recorder();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM order_keys");
+        broker.subscribe(recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.unsubscribe(recorder);
+    }
+
+    @Test
+    void publishesEachPlacedOrderOnce() throws Exception {
+        long first = place("outbox-1", 11);
+        long second = place("outbox-2", 12);
+        assertThat(pendingCount()).isEqualTo(2);
+
+        assertThat(relay.relayOnce()).isEqualTo(2);
+        assertThat(relay.relayOnce()).isZero();
+
+        assertThat(recorder.received).hasSize(2);
+        assertThat(recorder.received.get(0).aggregateId()).isEqualTo(first);
+        assertThat(recorder.received.get(1).aggregateId()).isEqualTo(second);
+        assertThat(recorder.received.get(0).payload())
+                .contains("\"eventId\":\"" + recorder.received.get(0).eventId() + "\"")
+                .contains("\"orderId\":" + first)
+                .contains("\"productId\":11");
+        assertThat(pendingCount()).isZero();
+    }
+
+    @Test
+    void failedDeliveryIsRetriedAfterBackoff() throws Exception {
+        place("outbox-3", 13);
+        recorder.failing.set(true);
+
+        assertThat(relay.relayOnce()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM outbox_events", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_error FROM outbox_events", String.class))
+                .startsWith("in-process: ");
+        // not due until the backoff has passed
+        assertThat(relay.relayOnce()).isZero();
+
+        recorder.failing.set(false);
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = next_attempt_at - INTERVAL '1' HOUR");
+        assertThat(relay.relayOnce()).isEqualTo(1);
+        assertThat(recorder.received).hasSize(1);
+        assertThat(pendingCount()).isZero();
+    }
+
+    @Test
+    void skipsEventsLockedByAnotherRelay() throws Exception {
+        long locked = place("outbox-4", 14);
+        long free = place("outbox-5", 15);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread other = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM outbox_events WHERE aggregate_id = ? FOR UPDATE", locked);
+            holding.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        other.start();
+        try {
+            assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(relay.relayOnce()).isEqualTo(1);
+            assertThat(recorder.received).extracting(OutboxEvent::aggregateId).containsExactly(free);
+        }
+        finally {
+            release.countDown();
+            other.join();
+        }
+        assertThat(relay.relayOnce()).isEqualTo(1);
+        assertThat(recorder.received).extracting(OutboxEvent::aggregateId).containsExactly(free, locked);
+    }
+
+    @Test
+    void deliversAfterTheClaimIsCommitted() throws Exception {
+        place("outbox-8", 18);
+        List<Integer> relayedMeanwhile = new CopyOnWriteArrayList<>();
+        recorder.during = () -> {
+            // another relay, on its own connection, sees the batch as claimed rather than locked
+            assertThat(jdbcTemplate.queryForObject("SELECT next_attempt_at FROM outbox_events", Timestamp.class))
+                    .isAfter(Timestamp.from(Instant.now()));
+            relayedMeanwhile.add(relay.relayOnce());
+        };
+
+        assertThat(relay.relayOnce()).isEqualTo(1);
+
+        assertThat(relayedMeanwhile).containsExactly(0);
+        assertThat(recorder.received).hasSize(1);
+        assertThat(pendingCount()).isZero();
+    }
+
+    @Test
+    void failureIsNotRecordedOverAClaimThatExpired() throws Exception {
+        place("outbox-9", 19);
+        recorder.failing.set(true);
+        // the lease ran out during delivery and another relay claimed the event
+        recorder.during = () -> jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ?",
+                Timestamp.from(Instant.now().plus(Duration.ofHours(1))));
+
+        assertThat(relay.relayOnce()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM outbox_events", Integer.class)).isZero();
+        assertThat(pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsPendingEvents() throws Exception {
+        place("outbox-6", 16);
+        place("outbox-7", 17);
+
+        relay.refreshStats();
+
+        assertThat(meterRegistry.get("outbox.pending").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("outbox.lag").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void refusesEventsOutsideATransaction() {
+        assertThatThrownBy(() -> outbox.append(List.of(new OutboxMessage("e", "Test", 1, "{}"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private long place(String key, long productId) throws Exception {
+        PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setItems(List.of(item));
+        PlacementResult result = placementService.place(key, request).get(10, TimeUnit.SECONDS);
+        return result.receipt().id();
+    }
+
+    private long pendingCount() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE published_at IS NULL",
+                Long.class);
+        return count;
+    }
+
+    private static class Recorder implements OutboxSubscriber {
+
+        final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+        final AtomicBoolean failing = new AtomicBoolean();
+        volatile Runnable during = () -> {
+        };
+
+        @Override
+        public String name() {
+            return "recorder";
+        }
+
+        @Override
+        public boolean accepts(String eventType) {
+            return Outbox.ORDER_PLACED.equals(eventType);
+        }
+
+        @Override
+        public void deliver(List<OutboxEvent> events) {
+            during.run();
+            if (failing.get()) {
+                throw new IllegalStateException("subscriber down");
+            }
+            received.addAll(events);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.kun.orderservice.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kun.orderservice.checkout.StubProductQuotes;
+import org.kun.orderservice.dto.OrderReceipt;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.placement.OrderPlacementService;
+import org.kun.orderservice.placement.PlacementResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a real Postgres, as H2 has no declarative partitioning; skipped
+ * where Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@Import(StubProductQuotes.class)
+class OrderPartitionTests {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.sql.init.mode", () -> "always");
+        registry.add("spring.sql.init.platform", () -> "postgresql");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("order.partitions.archive-directory", () -> archiveDirectory.toString());
+    }
+
+    @Autowired
+    private OrderPartitionManager partitionManager;
+
+    @Autowired
+    private OrderPlacementService placementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+    @Test
+    void createsPartitionsAheadAtStartup() {
+        assertThat(partitionManager.isPartitioned()).isTrue();
+        assertThat(partitionManager.status().months())
+                .contains(current.toString(), current.plusMonths(3).toString());
+        assertThat(tableExists(OrderPartitionManager.partitionName("order_items", current.plusMonths(3)))).isTrue();
+    }
+
+    @Test
+    void placesOrdersIntoTheCurrentPartitionOnce() throws Exception {
+        PlacementResult first = placementService.place("partition-1", order()).get(5, TimeUnit.SECONDS);
+        PlacementResult retry = placementService.place("partition-1", order()).get(5, TimeUnit.SECONDS);
+
+        assertThat(first.status()).isEqualTo(PlacementResult.Status.CREATED);
+        assertThat(retry.status()).isEqualTo(PlacementResult.Status.REPLAYED);
+        assertThat(retry.receipt().id()).isEqualTo(first.receipt().id());
+        Integer stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM "
+                + OrderPartitionManager.partitionName("orders", current) + " WHERE id = ?", Integer.class,
+                first.receipt().id());
+        assertThat(stored).isEqualTo(1);
+    }
+
+    @Test
+    void recentOrderQueriesOnlyScanRecentPartitions() {
+        // as if run five months ago and again last month: partitions from then up to now
+        partitionManager.maintain(current.minusMonths(5));
+        partitionManager.maintain(current.minusMonths(1));
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT id, total FROM orders "
+                + "WHERE customer_id = 42 AND created_at >= '" + current.minusMonths(1).atDay(1) + " 00:00:00+00' "
+                + "ORDER BY created_at DESC LIMIT 20", String.class));
+
+        assertThat(plan).contains(OrderPartitionManager.partitionName("orders", current),
+                OrderPartitionManager.partitionName("orders", current.minusMonths(1)));
+        for (int months = 2; months <= 5; months++) {
+            assertThat(plan).doesNotContain(OrderPartitionManager.partitionName("orders", current.minusMonths(months)));
+        }
+    }
+
+    @Test
+    void archivesMonthsPastRetentionAndServesThemFromTheArchive() throws Exception {
+        YearMonth old = current.minusMonths(20);
+        partitionManager.maintain(old);
+        Timestamp placedAt = Timestamp.from(old.atDay(3).atTime(10, 30).toInstant(ZoneOffset.UTC));
+        jdbcTemplate.update("INSERT INTO orders (id, idempotency_key, request_hash, customer_id, status, total, "
+                + "item_count, created_at) VALUES (-1, 'old\tkey', 'hash', 42, 'PLACED', 12.50, 1, ?)", placedAt);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, line, product_id, quantity, unit_price, created_at) "
+                + "VALUES (-1, 0, 5, 1, 12.50, ?)", placedAt);
+        jdbcTemplate.update("INSERT INTO order_keys (idempotency_key, order_id, created_at) VALUES ('old\tkey', -1, ?)",
+                placedAt);
+
+        OrderPartitionManager.MaintenanceReport report = partitionManager.maintain(current);
+
+        assertThat(report.archived()).contains(old.toString());
+        assertThat(tableExists(OrderPartitionManager.partitionName("orders", old))).isFalse();
+        assertThat(partitionManager.status().months()).doesNotContain(old.toString());
+        Integer keys = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_keys WHERE order_id = -1", Integer.class);
+        assertThat(keys).isZero();
+        assertThat(Files.list(archiveDirectory).map(file -> file.getFileName().toString()))
+                .contains("orders_" + old + ".tsv.gz", "order_items_" + old + ".tsv.gz");
+
+        List<OrderReceipt> archived = partitionManager.archivedOrders(old, 42L, 10).orElseThrow();
+        assertThat(archived).singleElement().satisfies(order -> {
+            assertThat(order.id()).isEqualTo(-1);
+            assertThat(order.idempotencyKey()).isEqualTo("old\tkey");
+            assertThat(order.total()).isEqualByComparingTo("12.50");
+            assertThat(order.createdAt()).isEqualTo(placedAt.toInstant());
+        });
+        assertThat(partitionManager.archivedOrders(old, 7L, 10).orElseThrow()).isEmpty();
+        assertThat(partitionManager.archivedOrders(current, null, 10)).isEmpty();
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private static PlaceOrderRequest order() {
+        PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+        item.setProductId(1);
+        item.setQuantity(2);
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setCustomerId(42L);
+        request.setItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,336 @@
+package org.kun.orderservice.placement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.checkout.CheckoutProperties;
+import org.kun.orderservice.checkout.CheckoutValidator;
+import org.kun.orderservice.checkout.StubProductQuotes;
+import org.kun.orderservice.dto.PlaceOrderRequest;
+import org.kun.orderservice.entity.Promotion;
+import org.kun.orderservice.entity.PromotionType;
+import org.kun.orderservice.pricing.PricingEngine;
+import org.kun.orderservice.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StubProductQuotes.class)
+class OrderPlacementTests {
+
+    private static final String ORDER = """
+            {"customerId": 7, "items": [
+                {"productId": 1, "quantity": 2},
+                {"productId": 2, "quantity": 1}]}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderPlacementService placementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CheckoutValidator checkoutValidator;
+
+    @Autowired
+    private OrderWriter orderWriter;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM order_keys");
+    }
+
+    @Test
+    void retryWithSameKeyReturnsTheSameOrder() throws Exception {
+        MvcResult created = mockMvc.perform(place("key-1", ORDER)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(created))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.total").value(30.0))
+                .andExpect(jsonPath("$.itemCount").value(2))
+                .andReturn().getResponse().getContentAsString();
+        long id = Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        MvcResult retried = mockMvc.perform(place("key-1", ORDER)).andReturn();
+        mockMvc.perform(asyncDispatch(retried))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(id));
+
+        mockMvc.perform(get("/orders/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.idempotencyKey").value("key-1"));
+        assertThat(count("orders")).isEqualTo(1);
+        assertThat(count("order_items")).isEqualTo(2);
+    }
+
+    @Test
+    void keyReusedForAnotherOrderIsRefused() throws Exception {
+        mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-2", ORDER)).andReturn()))
+                .andExpect(status().isCreated());
+
+        String other = ORDER.replace("\"quantity\": 2", "\"quantity\": 3");
+        mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-2", other)).andReturn()))
+                .andExpect(status().isUnprocessableEntity());
+        assertThat(count("orders")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidRequests() throws Exception {
+        MvcResult missingKey = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(missingKey)).andExpect(status().isBadRequest());
+        mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-3", "{\"items\": []}")).andReturn()))
+                .andExpect(status().isBadRequest());
+        assertThat(count("orders")).isZero();
+    }
+
+    @Test
+    void pricesComeFromTheCatalogNotTheClient() throws Exception {
+        String forged = """
+                {"customerId": 7, "items": [
+                    {"productId": 1, "quantity": 2, "unitPrice": 0.01},
+                    {"productId": 2, "quantity": 1, "unitPrice": 0}]}
+                """;
+        mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-4", forged)).andReturn()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.total").value(30.0));
+
+        assertThat(jdbcTemplate.queryForList("SELECT unit_price FROM order_items", BigDecimal.class))
+                .hasSize(2).allSatisfy(price -> assertThat(price).isEqualByComparingTo(StubProductQuotes.PRICE));
+    }
+
+    @Test
+    void promotionsAndCouponsAreCharged() throws Exception {
+        Promotion tenPercent = new Promotion();
+        tenPercent.setName("10% off the category");
+        tenPercent.setType(PromotionType.PERCENTAGE);
+        tenPercent.setCategoryId(StubProductQuotes.CATEGORY);
+        tenPercent.setPercent(BigDecimal.TEN);
+        Promotion coupon = new Promotion();
+        coupon.setName("5 off with a coupon");
+        coupon.setType(PromotionType.AMOUNT_OFF);
+        coupon.setCategoryId(StubProductQuotes.CATEGORY);
+        coupon.setCouponCode("SAVE5");
+        coupon.setAmount(new BigDecimal("5.00"));
+        promotionRepository.saveAll(List.of(tenPercent, coupon));
+        pricingEngine.reload();
+        try {
+            String withCoupon = ORDER.replace("\"customerId\": 7,", "\"customerId\": 7, \"coupons\": [\"save5\"],");
+            mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-6", withCoupon)).andReturn()))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.total").value(22.0));
+            assertThat(jdbcTemplate.queryForList("SELECT unit_price FROM order_items", BigDecimal.class))
+                    .hasSize(2).allSatisfy(price -> assertThat(price).isEqualByComparingTo(StubProductQuotes.PRICE));
+
+            String unknownCoupon = withCoupon.replace("save5", "nope");
+            mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-7", unknownCoupon)).andReturn()))
+                    .andExpect(status().isBadRequest());
+            assertThat(count("orders")).isEqualTo(1);
+        }
+        finally {
+            promotionRepository.deleteAll();
+            pricingEngine.reload();
+        }
+    }
+
+    @Test
+    void unknownProductIsRejected() throws Exception {
+        String unknown = ORDER.replace("\"productId\": 2", "\"productId\": " + StubProductQuotes.UNKNOWN);
+        mockMvc.perform(asyncDispatch(mockMvc.perform(place("key-5", unknown)).andReturn()))
+                .andExpect(status().isBadRequest());
+        assertThat(count("orders")).isZero();
+    }
+
+    @Test
+    void orderIsRefusedWhenPricesCannotBeRead() throws Exception {
+        CheckoutValidator unavailable = new CheckoutValidator(productIds -> {
+            throw new IllegalStateException("product-service unavailable");
+        }, new CheckoutProperties(), new SimpleMeterRegistry());
+        OrderWriter unused = new OrderWriter(null, null, null, null) {
+            @Override
+            public PlacementResult find(String idempotencyKey, String requestHash) {
+                return null;
+            }
+
+            @Override
+            public List<PlacementResult> write(List<PendingOrder> orders) {
+                throw new AssertionError("an unpriced order was queued");
+            }
+        };
+        OrderPlacementService service = new OrderPlacementService(unused, unavailable, pricingEngine,
+                new OrderPlacementProperties(), new SimpleMeterRegistry());
+        service.start();
+        try {
+            assertThatThrownBy(() -> service.place("d", order(1)).get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+        }
+        finally {
+            service.close();
+            unavailable.close();
+        }
+    }
+
+    @Test
+    void retryOfAPlacedOrderIsAnsweredWithoutPricingIt() throws Exception {
+        PlacementResult placed = placementService.place("e", order(1)).get(5, TimeUnit.SECONDS);
+        CheckoutValidator unavailable = new CheckoutValidator(productIds -> {
+            throw new IllegalStateException("product-service unavailable");
+        }, new CheckoutProperties(), new SimpleMeterRegistry());
+        OrderPlacementService service = new OrderPlacementService(orderWriter, unavailable, pricingEngine,
+                new OrderPlacementProperties(), new SimpleMeterRegistry());
+        service.start();
+        try {
+            PlacementResult retried = service.place("e", order(1)).get(5, TimeUnit.SECONDS);
+            assertThat(retried.status()).isEqualTo(PlacementResult.Status.REPLAYED);
+            assertThat(retried.receipt().id()).isEqualTo(placed.receipt().id());
+            assertThat(service.place("e", order(2)).get(5, TimeUnit.SECONDS).status())
+                    .isEqualTo(PlacementResult.Status.KEY_REUSED);
+            assertThatThrownBy(() -> service.place("f", order(1)).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+        }
+        finally {
+            service.close();
+            unavailable.close();
+        }
+    }
+
+    @Test
+    void concurrentOrdersAreCommittedInGroupsOncePerKey() throws Exception {
+        double batchesBefore = meterRegistry.summary("order.placement.batch.size").count();
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<PlacementResult>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                // every key is sent twice, as a client retrying before the first answer would
+                String key = "bulk-" + i / 2;
+                PlaceOrderRequest request = order(i / 2);
+                results.add(CompletableFuture.supplyAsync(() -> placementService.place(key, request), clients)
+                        .thenCompose(result -> result));
+            }
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            long created = results.stream().filter(result -> result.join().status() == PlacementResult.Status.CREATED)
+                    .count();
+            assertThat(created).isEqualTo(200);
+            assertThat(results).allSatisfy(result ->
+                    assertThat(result.join().status()).isIn(PlacementResult.Status.CREATED,
+                            PlacementResult.Status.REPLAYED));
+        }
+        finally {
+            clients.shutdownNow();
+        }
+        assertThat(count("orders")).isEqualTo(200);
+        double batches = meterRegistry.summary("order.placement.batch.size").count() - batchesBefore;
+        assertThat(batches).isLessThan(200);
+    }
+
+    @Test
+    void fullQueueRefusesOrders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        OrderWriter blocked = new OrderWriter(null, null, null, null) {
+            @Override
+            public PlacementResult find(String idempotencyKey, String requestHash) {
+                return null;
+            }
+
+            @Override
+            public List<PlacementResult> write(List<PendingOrder> orders) {
+                writing.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return orders.stream().map(order -> new PlacementResult(PlacementResult.Status.KEY_REUSED, null))
+                        .toList();
+            }
+        };
+        OrderPlacementProperties properties = new OrderPlacementProperties();
+        properties.setQueueCapacity(1);
+        OrderPlacementService service = new OrderPlacementService(blocked, checkoutValidator, pricingEngine,
+                properties, new SimpleMeterRegistry());
+        service.start();
+        try {
+            CompletableFuture<PlacementResult> first = service.place("a", order(1));
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<PlacementResult> queued = service.place("b", order(2));
+            CompletableFuture<PlacementResult> refused = service.place("c", order(3));
+
+            assertThatThrownBy(refused::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        finally {
+            release.countDown();
+            service.close();
+        }
+    }
+
+    private static PlaceOrderRequest order(int product) {
+        PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+        item.setProductId(product);
+        item.setQuantity(1);
+        PlaceOrderRequest request = new PlaceOrderRequest();
+        request.setCustomerId(42L);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private static RequestBuilder place(String key, String body) {
+        return post("/orders").header("Idempotency-Key", key).contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count;
+    }
+}
@@ -0,0 +1,197 @@
+package org.kun.orderservice.pricing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.orderservice.entity.Promotion;
+import org.kun.orderservice.entity.PromotionType;
+import org.kun.orderservice.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PricingEngineTests {
+
+    private static final long NOW = Instant.parse("2026-03-01T10:00:00Z").toEpochMilli();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PricingEngine engine;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        promotionRepository.deleteAll();
+        engine.reload();
+    }
+
+    @Test
+    void bestAutomaticPromotionWinsPerLine() {
+        PricingPlan plan = compile(
+                percentage(10, 1L, null, null),
+                percentage(20, null, 5L, null),
+                percentage(5, null, null, null));
+        CartBuffer cart = new CartBuffer()
+                .add(1, 5L, 2, 1_000)
+                .add(2, 5L, 1, 500)
+                .add(3, null, 1, 400);
+
+        plan.price(cart, NOW);
+
+        assertThat(cart.discount(0)).isEqualTo(400);
+        assertThat(plan.promotionId(cart.appliedPromotion(0, 0))).isEqualTo(2);
+        assertThat(cart.discount(1)).isEqualTo(100);
+        assertThat(cart.discount(2)).isEqualTo(20);
+        assertThat(cart.totalSubtotal()).isEqualTo(2_900);
+        assertThat(cart.totalDiscount()).isEqualTo(520);
+    }
+
+    @Test
+    void buyXGetYFreesWholeGroupsOnly() {
+        PricingPlan plan = compile(buyGet(2, 1, 7L));
+        CartBuffer cart = new CartBuffer().add(7, null, 7, 300);
+
+        plan.price(cart, NOW);
+
+        assertThat(cart.discount(0)).isEqualTo(600);
+    }
+
+    @Test
+    void tiersUseTheCombinedQuantityOfMatchingLines() {
+        Promotion tiered = rule(PromotionType.TIERED);
+        tiered.setCategoryId(9L);
+        tiered.setTiers("3:5, 10:15");
+        PricingPlan plan = compile(tiered);
+        CartBuffer cart = new CartBuffer().add(1, 9L, 2, 1_000).add(2, 9L, 2, 500);
+
+        plan.price(cart, NOW);
+        assertThat(cart.totalDiscount()).isEqualTo(150);
+
+        plan.price(cart.clear().add(1, 9L, 12, 100), NOW);
+        assertThat(cart.totalDiscount()).isEqualTo(180);
+
+        plan.price(cart.clear().add(1, 9L, 2, 100), NOW);
+        assertThat(cart.totalDiscount()).isZero();
+    }
+
+    @Test
+    void couponsStackOnTopAndAmountsAreSharedByLine() {
+        Promotion coupon = rule(PromotionType.AMOUNT_OFF);
+        coupon.setCategoryId(3L);
+        coupon.setCouponCode("Spring10");
+        coupon.setAmount(new BigDecimal("10.00"));
+        coupon.setMinSubtotal(new BigDecimal("30.00"));
+        PricingPlan plan = compile(coupon, percentage(10, null, 3L, null));
+
+        CartBuffer cart = new CartBuffer().add(1, 3L, 1, 2_000).add(2, 3L, 1, 1_000);
+        plan.price(cart, NOW);
+        assertThat(cart.totalDiscount()).isEqualTo(300);
+
+        cart.clear().add(1, 3L, 1, 2_000).add(2, 3L, 1, 1_000).addCoupon(plan.couponId("spring10"));
+        plan.price(cart, NOW);
+        assertThat(cart.discount(0)).isEqualTo(200 + 666);
+        assertThat(cart.discount(1)).isEqualTo(100 + 334);
+        assertThat(cart.appliedCount(0)).isEqualTo(2);
+
+        cart.clear().add(1, 3L, 1, 2_000).addCoupon(plan.couponId("SPRING10"));
+        plan.price(cart, NOW);
+        assertThat(cart.totalDiscount()).isEqualTo(200);
+    }
+
+    @Test
+    void skipsInvalidAndOutOfWindowRulesAndCapsAtTheSubtotal() {
+        Promotion expired = percentage(50, 1L, null, null);
+        expired.setEndsAt(Instant.ofEpochMilli(NOW));
+        Promotion broken = rule(PromotionType.BUY_X_GET_Y);
+        broken.setProductId(1L);
+        Promotion coupon = percentage(100, 1L, null, "ALL");
+        PricingPlan plan = compile(expired, broken, percentage(30, 1L, null, null), coupon);
+
+        assertThat(plan.rules()).isEqualTo(3);
+        assertThat(plan.skipped()).isEqualTo(1);
+        CartBuffer cart = new CartBuffer().add(1, null, 1, 1_000);
+        plan.price(cart, NOW);
+        assertThat(cart.discount(0)).isEqualTo(300);
+        plan.price(cart.clear().add(1, null, 1, 1_000).addCoupon(plan.couponId("all")), NOW);
+        assertThat(cart.discount(0)).isEqualTo(1_000);
+    }
+
+    @Test
+    void pricesCartsOverHttpWithReloadedRules() throws Exception {
+        Promotion promotion = percentage(25, 42L, null, null);
+        promotion.setId(null);
+        promotionRepository.save(promotion);
+        String cart = """
+                {"items": [{"productId": 42, "quantity": 2, "unitPrice": 8.00},
+                           {"productId": 43, "categoryId": 1, "quantity": 1, "unitPrice": 5.00}],
+                 "coupons": ["NOPE"]}
+                """;
+
+        mockMvc.perform(post("/orders/price").contentType(MediaType.APPLICATION_JSON).content(cart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.discount").value(0))
+                .andExpect(jsonPath("$.unknownCoupons", contains("NOPE")));
+
+        assertThat(engine.reloadIfChanged()).isTrue();
+        assertThat(engine.reloadIfChanged()).isFalse();
+        mockMvc.perform(post("/orders/price").contentType(MediaType.APPLICATION_JSON).content(cart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subtotal").value(21.0))
+                .andExpect(jsonPath("$.discount").value(4.0))
+                .andExpect(jsonPath("$.total").value(17.0))
+                .andExpect(jsonPath("$.lines[0].total").value(12.0))
+                .andExpect(jsonPath("$.lines[1].promotionIds").isEmpty());
+
+        mockMvc.perform(post("/orders/price").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": [{\"productId\": 1, \"quantity\": 0, \"unitPrice\": 1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private PricingPlan compile(Promotion... promotions) {
+        return PricingPlan.compile(List.of(promotions), 1);
+    }
+
+    private Promotion percentage(int percent, Long productId, Long categoryId, String coupon) {
+        Promotion promotion = rule(PromotionType.PERCENTAGE);
+        promotion.setPercent(BigDecimal.valueOf(percent));
+        promotion.setProductId(productId);
+        promotion.setCategoryId(categoryId);
+        promotion.setCouponCode(coupon);
+        return promotion;
+    }
+
+    private Promotion buyGet(int buy, int get, Long productId) {
+        Promotion promotion = rule(PromotionType.BUY_X_GET_Y);
+        promotion.setBuyQuantity(buy);
+        promotion.setGetQuantity(get);
+        promotion.setProductId(productId);
+        return promotion;
+    }
+
+    private Promotion rule(PromotionType type) {
+        Promotion promotion = new Promotion();
+        promotion.setName(type + " " + nextId);
+        promotion.setType(type);
+        promotion.setId(++nextId);
+        return promotion;
+    }
+}
@@ -0,0 +1,189 @@
+package org.kun.orderservice.tracing;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.common.tracing.SpanRecord;
+import org.kun.common.tracing.TraceStore;
+import org.kun.common.tracing.TraceSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.tracing.sampling.probability=0",
+        "management.endpoints.web.exposure.include=traces",
+        "order.tracing.slow-threshold=1s",
+        "order.checkout.call-timeout=5s"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+class TracingTests {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    private static final List<String> upstreamTraceparents = new CopyOnWriteArrayList<>();
+    private static final HttpServer catalog = startCatalog();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TraceStore traceStore;
+
+    @Autowired
+    private Tracer tracer;
+
+    @DynamicPropertySource
+    static void catalogInstance(DynamicPropertyRegistry registry) {
+        registry.add("order.checkout.catalog-url", () -> "http://product-service");
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri",
+                () -> "http://localhost:" + catalog.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopCatalog() {
+        catalog.stop(0);
+    }
+
+    @BeforeEach
+    void clear() {
+        traceStore.clear();
+        upstreamTraceparents.clear();
+    }
+
+    @Test
+    void continuesAnIncomingSampledTraceWithJdbcSpans() throws Exception {
+        mockMvc.perform(get("/orders/history").param("customerId", "1")
+                        .header("traceparent", traceparent(TRACE_ID, PARENT_ID, true)))
+                .andExpect(status().isOk());
+
+        List<SpanRecord> spans = traceStore.trace(TRACE_ID);
+        assertThat(spans).isNotNull();
+        SpanRecord server = spans.stream().filter(span -> "SERVER".equals(span.kind())).findFirst().orElseThrow();
+        assertThat(server.parentId()).isEqualTo(PARENT_ID);
+        assertThat(server.name()).contains("/orders/history");
+        assertThat(spans).anySatisfy(span -> {
+            assertThat(span.name()).isEqualTo("query");
+            assertThat(span.tags()).containsKey("jdbc.query[0]");
+        });
+        assertThat(spans).allSatisfy(span -> assertThat(span.traceId()).isEqualTo(TRACE_ID));
+    }
+
+    @Test
+    void propagatesTheTraceToProductLookupsOnOtherThreads() throws Exception {
+        mockMvc.perform(post("/orders/validate")
+                        .header("traceparent", traceparent(TRACE_ID, PARENT_ID, true))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":1,\"unitPrice\":10.00}]}"))
+                .andExpect(status().isOk());
+
+        assertThat(upstreamTraceparents).hasSize(1);
+        String[] forwarded = upstreamTraceparents.get(0).split("-");
+        assertThat(forwarded[1]).isEqualTo(TRACE_ID);
+        assertThat(forwarded[3]).isEqualTo("01");
+        SpanRecord client = traceStore.trace(TRACE_ID).stream()
+                .filter(span -> "CLIENT".equals(span.kind())).findFirst().orElseThrow();
+        assertThat(client.spanId()).isEqualTo(forwarded[2]);
+    }
+
+    @Test
+    void dropsFastUnsampledTracesButForwardsTheDecision() throws Exception {
+        mockMvc.perform(post("/orders/validate")
+                        .header("traceparent", traceparent(TRACE_ID, PARENT_ID, false))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":2,\"quantity\":1,\"unitPrice\":10.00}]}"))
+                .andExpect(status().isOk());
+
+        assertThat(upstreamTraceparents).singleElement().satisfies(header -> assertThat(header).endsWith("-00"));
+        assertThat(traceStore.trace(TRACE_ID)).isNull();
+    }
+
+    @Test
+    void keepsUnsampledTracesThatFailOrAreSlow() {
+        Span failed = tracer.nextSpan().name("failed").start();
+        failed.error(new IllegalStateException("boom"));
+        failed.end();
+        Span slow = tracer.nextSpan().name("slow").start();
+        slow.end(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) + 2_000_000, TimeUnit.MICROSECONDS);
+        Span fast = tracer.nextSpan().name("fast").start();
+        fast.end();
+
+        assertThat(traceStore.recent(10, 0, false))
+                .extracting(TraceSummary::name, TraceSummary::reason)
+                .containsExactly(tuple("slow", "slow"),
+                        tuple("failed", "error"));
+        assertThat(traceStore.trace(failed.context().traceId())).singleElement()
+                .satisfies(span -> assertThat(span.error()).contains("boom"));
+        assertThat(traceStore.trace(fast.context().traceId())).isNull();
+    }
+
+    @Test
+    void servesKeptTracesFromTheActuatorEndpoint() throws Exception {
+        Span failed = tracer.nextSpan().name("failed").start();
+        failed.error(new IllegalStateException("boom"));
+        failed.end();
+        String traceId = failed.context().traceId();
+
+        mockMvc.perform(get("/actuator/traces").param("errors", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].traceId").value(traceId))
+                .andExpect(jsonPath("$[0].reason").value("error"));
+        mockMvc.perform(get("/actuator/traces/{traceId}", traceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("failed"));
+        mockMvc.perform(get("/actuator/traces/{traceId}", TRACE_ID))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/actuator/traces")).andExpect(status().isNoContent());
+        assertThat(traceStore.size()).isZero();
+    }
+
+    private static String traceparent(String traceId, String parentId, boolean sampled) {
+        return "00-" + traceId + "-" + parentId + (sampled ? "-01" : "-00");
+    }
+
+    private static HttpServer startCatalog() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/products/lookup", exchange -> {
+                upstreamTraceparents.add(exchange.getRequestHeaders().getFirst("traceparent"));
+                byte[] body = "[{\"id\":1,\"price\":10.00,\"available\":5},{\"id\":2,\"price\":10.00,\"available\":5}]".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.kun.productservice.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link SharedCacheTier}: a map with expiry and synchronous delivery to
+ * subscribers. Several caches built on one instance behave like replicas sharing Redis.
+ */
+public class LocalSharedCacheTier implements SharedCacheTier {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<byte[]>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() < 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void evict(Collection<String> keys) {
+        keys.forEach(entries::remove);
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        for (Consumer<byte[]> subscriber : subscribers) {
+            subscriber.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private record Entry(byte[] value, long expiresAt) {
+    }
+}
@@ -0,0 +1,231 @@
+package org.kun.productservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.common.datasource.ReadRouting;
+import org.kun.productservice.dto.ProductDetail;
+import org.kun.productservice.repository.ProductRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through product cache: a bounded local Caffeine cache (W-TinyLFU eviction)
+ * in front of a {@link SharedCacheTier} in front of the database.
+ * <p>
+ * A replica that commits a change evicts both levels and publishes the ids; every
+ * other replica evicts its local entries when the message arrives. A load that
+ * overlaps any invalidation is served but not cached, so it cannot put back the
+ * value the invalidation just removed. Another replica's change is only seen when
+ * its message arrives, after a load may already have filled the shared tier with
+ * what it read before that commit, so a replica evicts the shared entries it filled
+ * within {@code refill-window} once more when the message comes in. Errors in the
+ * shared tier only cost hits.
+ */
+@Slf4j
+public class ProductCache {
+
+    private final Cache<Long, ProductDetail> local;
+    private final SharedCacheTier shared;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final ProductCacheProperties properties;
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong generation = new AtomicLong();
+    // ids this replica recently wrote to the shared tier
+    private final Cache<Long, Boolean> recentFills;
+
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Counter sharedErrors;
+    private final Counter discardedLoads;
+    private final Counter refillEvictions;
+    private final Timer invalidationLag;
+
+    public ProductCache(SharedCacheTier shared, ProductRepository productRepository, ObjectMapper objectMapper,
+                        ProductCacheProperties properties, MeterRegistry meterRegistry) {
+        this.shared = shared;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalTtl())
+                .recordStats()
+                .build();
+        this.recentFills = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getRefillWindow())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "product");
+        this.sharedHits = meterRegistry.counter("product.cache.shared", "result", "hit");
+        this.sharedMisses = meterRegistry.counter("product.cache.shared", "result", "miss");
+        this.sharedErrors = meterRegistry.counter("product.cache.shared", "result", "error");
+        this.discardedLoads = meterRegistry.counter("product.cache.discarded.loads");
+        this.refillEvictions = meterRegistry.counter("product.cache.refill.evictions");
+        this.invalidationLag = Timer.builder("product.cache.invalidation.lag")
+                .description("Time from a change being published to its eviction on another replica")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("product.cache.hit.ratio", Tags.of("tier", "local"),
+                local, cache -> cache.stats().hitRate());
+        meterRegistry.gauge("product.cache.hit.ratio", Tags.of("tier", "shared"),
+                this, cache -> ratio(cache.sharedHits.count(), cache.sharedMisses.count()));
+        shared.subscribe(this::onInvalidation);
+    }
+
+    public Optional<ProductDetail> get(long id) {
+        ProductDetail detail = local.getIfPresent(id);
+        if (detail != null) {
+            return Optional.of(detail);
+        }
+        long start = generation.get();
+        boolean loaded = false;
+        detail = readShared(id);
+        if (detail == null) {
+            // a lagging replica could refill the cache with what was just invalidated
+            detail = ReadRouting.onPrimary(() -> productRepository.findById(id)
+                    .map(product -> ProductDetail.of(product, productRepository.findInventoryAvailable(id))))
+                    .orElse(null);
+            if (detail == null) {
+                return Optional.empty();
+            }
+            loaded = true;
+        }
+        if (generation.get() != start) {
+            discardedLoads.increment();
+            return Optional.of(detail);
+        }
+        if (loaded) {
+            recentFills.put(id, Boolean.TRUE);
+            writeShared(detail);
+        }
+        local.put(id, detail);
+        if (generation.get() != start) {
+            // an invalidation landed while the value was being stored; drop it from both levels
+            discardedLoads.increment();
+            local.invalidate(id);
+            evictShared(List.of(id));
+        }
+        return Optional.of(detail);
+    }
+
+    /**
+     * Evicts {@code ids} here and in the shared tier and tells the other replicas to
+     * do the same. Call after the change is committed.
+     */
+    public void invalidate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        local.invalidateAll(ids);
+        evictShared(ids);
+        try {
+            shared.publish(objectMapper.writeValueAsBytes(new Invalidation(origin, ids, System.currentTimeMillis())));
+        }
+        catch (RuntimeException | JsonProcessingException e) {
+            sharedErrors.increment();
+            log.warn("Could not publish invalidation of {} products; other replicas expire them within {}",
+                    ids.size(), properties.getLocalTtl(), e);
+        }
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    private void onInvalidation(byte[] message) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message, Invalidation.class);
+        }
+        catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation", e);
+            return;
+        }
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        generation.incrementAndGet();
+        local.invalidateAll(invalidation.ids());
+        // a fill of ours may have landed after the sender evicted the shared tier
+        List<Long> refilled = new ArrayList<>();
+        for (Long id : invalidation.ids()) {
+            if (recentFills.asMap().remove(id) != null) {
+                refilled.add(id);
+            }
+        }
+        if (!refilled.isEmpty()) {
+            refillEvictions.increment(refilled.size());
+            evictShared(refilled);
+        }
+        invalidationLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - invalidation.publishedAt())));
+    }
+
+    private ProductDetail readShared(long id) {
+        try {
+            byte[] bytes = shared.get(key(id));
+            if (bytes == null) {
+                sharedMisses.increment();
+                return null;
+            }
+            sharedHits.increment();
+            return objectMapper.readValue(bytes, ProductDetail.class);
+        }
+        catch (RuntimeException | IOException e) {
+            sharedErrors.increment();
+            log.debug("Shared cache read of product {} failed", id, e);
+            return null;
+        }
+    }
+
+    private void writeShared(ProductDetail detail) {
+        try {
+            shared.put(key(detail.id()), objectMapper.writeValueAsBytes(detail), properties.getSharedTtl());
+        }
+        catch (RuntimeException | JsonProcessingException e) {
+            sharedErrors.increment();
+            log.debug("Shared cache write of product {} failed", detail.id(), e);
+        }
+    }
+
+    private void evictShared(Collection<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        ids.forEach(id -> keys.add(key(id)));
+        try {
+            shared.evict(keys);
+        }
+        catch (RuntimeException e) {
+            sharedErrors.increment();
+            log.warn("Shared cache eviction of {} products failed; entries expire within {}", ids.size(),
+                    properties.getSharedTtl(), e);
+        }
+    }
+
+    private String key(long id) {
+        return properties.getKeyPrefix() + id;
+    }
+
+    private static double ratio(double hits, double misses) {
+        double total = hits + misses;
+        return total == 0 ? 0 : hits / total;
+    }
+
+    record Invalidation(String origin, Collection<Long> ids, long publishedAt) {
+    }
+}
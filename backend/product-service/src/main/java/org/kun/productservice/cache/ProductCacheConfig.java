@@ -0,0 +1,64 @@
+package org.kun.productservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+@Configuration
+@EnableConfigurationProperties(ProductCacheProperties.class)
+public class ProductCacheConfig {
+
+    @Bean
+    public SharedCacheTier sharedCacheTier(ProductCacheProperties properties,
+                                           ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        return switch (properties.getSharedTier()) {
+            case REDIS -> new RedisSharedCacheTier(redisConnectionFactory.getObject(),
+                    properties.getInvalidationChannel());
+            case LOCAL -> new LocalSharedCacheTier();
+            case NONE -> new NoSharedCacheTier();
+        };
+    }
+
+    @Bean
+    public ProductCache productCache(SharedCacheTier sharedCacheTier, ProductRepository productRepository,
+                                     ObjectMapper objectMapper, ProductCacheProperties properties,
+                                     MeterRegistry meterRegistry) {
+        return new ProductCache(sharedCacheTier, productRepository, objectMapper, properties, meterRegistry);
+    }
+
+    /**
+     * Local cache only: nothing is shared and invalidations stay on this replica.
+     */
+    static class NoSharedCacheTier implements SharedCacheTier {
+
+        @Override
+        public byte[] get(String key) {
+            return null;
+        }
+
+        @Override
+        public void put(String key, byte[] value, Duration ttl) {
+        }
+
+        @Override
+        public void evict(Collection<String> keys) {
+        }
+
+        @Override
+        public void publish(byte[] message) {
+        }
+
+        @Override
+        public void subscribe(Consumer<byte[]> subscriber) {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.kun.productservice.cache;
+
+import org.kun.productservice.event.ProductsChangedEvent;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evicts changed products once their transaction has committed. Imports name
+ * products by SKU, which are resolved to ids first.
+ */
+@Component
+public class ProductCacheInvalidator {
+
+    private static final int CHUNK = 1_000;
+
+    private final ProductCache cache;
+    private final ProductRepository productRepository;
+
+    public ProductCacheInvalidator(ProductCache cache, ProductRepository productRepository) {
+        this.cache = cache;
+        this.productRepository = productRepository;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.ids());
+        List<String> skus = List.copyOf(event.skus());
+        for (int from = 0; from < skus.size(); from += CHUNK) {
+            ids.addAll(productRepository.findIdsBySkuIn(skus.subList(from, Math.min(skus.size(), from + CHUNK))));
+        }
+        cache.invalidate(ids);
+    }
+}
@@ -0,0 +1,51 @@
+package org.kun.productservice.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "product.cache")
+public class ProductCacheProperties {
+
+    /**
+     * Maximum number of products held in each replica's local cache.
+     */
+    private long localMaximumSize = 100_000;
+
+    /**
+     * Upper bound on how long a replica serves a local entry; also caps the
+     * staleness of an entry whose invalidation message was lost.
+     */
+    private Duration localTtl = Duration.ofMinutes(10);
+
+    private Duration sharedTtl = Duration.ofHours(1);
+
+    /**
+     * How long a replica remembers filling a shared entry, so that an invalidation
+     * from another replica arriving within it evicts the entry again; must exceed the
+     * time from a load reading the database to the invalidation message arriving.
+     */
+    private Duration refillWindow = Duration.ofMinutes(1);
+
+    private SharedTier sharedTier = SharedTier.LOCAL;
+
+    private String keyPrefix = "product:";
+
+    private String invalidationChannel = "product-cache:invalidate";
+
+    public enum SharedTier {
+        /**
+         * Redis, shared by all replicas.
+         */
+        REDIS,
+        /**
+         * In-process stand-in for tests and single-instance runs.
+         */
+        LOCAL,
+        NONE
+    }
+}
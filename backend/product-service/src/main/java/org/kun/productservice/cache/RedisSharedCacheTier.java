@@ -0,0 +1,63 @@
+package org.kun.productservice.cache;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedCacheTier} on Redis: plain string keys with a TTL, and pub/sub on
+ * one channel for invalidations.
+ */
+public class RedisSharedCacheTier implements SharedCacheTier, AutoCloseable {
+
+    private final RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+    private final RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+    private final ChannelTopic channel;
+
+    public RedisSharedCacheTier(RedisConnectionFactory connectionFactory, String channel) {
+        this.channel = new ChannelTopic(channel);
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return template.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        template.opsForValue().set(key, value, ttl);
+    }
+
+    @Override
+    public void evict(Collection<String> keys) {
+        template.delete(keys);
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        template.convertAndSend(channel.getTopic(), message);
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> subscriber) {
+        listenerContainer.addMessageListener((message, pattern) -> subscriber.accept(message.getBody()), channel);
+    }
+
+    @Override
+    public void close() throws Exception {
+        listenerContainer.destroy();
+    }
+}
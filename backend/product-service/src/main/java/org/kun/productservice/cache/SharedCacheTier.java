@@ -0,0 +1,25 @@
+package org.kun.productservice.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Second cache level shared by every replica, holding serialized values, plus
+ * the broadcast channel replicas use to evict each other's local entries.
+ */
+public interface SharedCacheTier {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void evict(Collection<String> keys);
+
+    /**
+     * Delivers {@code message} to every subscriber, including the publisher's own.
+     */
+    void publish(byte[] message);
+
+    void subscribe(Consumer<byte[]> subscriber);
+}
@@ -0,0 +1,25 @@
+package org.kun.productservice.category;
+
+import org.kun.productservice.repository.CategoryRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(CategoryProperties.class)
+public class CategoryConfig {
+
+    @Bean
+    public CategoryService categoryService(CategoryRepository categoryRepository, JdbcTemplate jdbcTemplate,
+                                           ApplicationEventPublisher eventPublisher) {
+        return new CategoryService(categoryRepository, jdbcTemplate, eventPublisher);
+    }
+
+    @Bean
+    public CategoryTreeCache categoryTreeCache(JdbcTemplate jdbcTemplate, CategoryService categoryService,
+                                               CategoryProperties properties) {
+        return new CategoryTreeCache(jdbcTemplate, categoryService, properties);
+    }
+}
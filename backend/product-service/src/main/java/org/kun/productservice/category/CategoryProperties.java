@@ -0,0 +1,21 @@
+package org.kun.productservice.category;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.categories")
+public class CategoryProperties {
+
+    /**
+     * How often the tree is reloaded to pick up changes made through other instances;
+     * changes made here are picked up right after they commit.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    private int defaultMenuDepth = 2;
+
+    private int maxMenuDepth = 4;
+}
@@ -0,0 +1,9 @@
+package org.kun.productservice.category;
+
+/**
+ * One category as seen in a {@link CategoryTree}.
+ *
+ * @param descendants number of categories below this one
+ */
+public record CategoryRef(long id, Long parentId, String slug, String name, int depth, int descendants) {
+}
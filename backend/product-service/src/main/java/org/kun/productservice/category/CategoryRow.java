@@ -0,0 +1,7 @@
+package org.kun.productservice.category;
+
+/**
+ * A {@code categories} row as loaded into a {@link CategoryTree}.
+ */
+public record CategoryRow(long id, Long parentId, String slug, String name) {
+}
@@ -0,0 +1,169 @@
+package org.kun.productservice.category;
+
+import org.kun.productservice.entity.Category;
+import org.kun.productservice.event.CategoriesChangedEvent;
+import org.kun.productservice.repository.CategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Category changes, keeping {@code category_closure} in step with {@code parent_id}
+ * in the same transaction.
+ */
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryService(CategoryRepository categoryRepository, JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher) {
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the parent does not exist
+     */
+    @Transactional
+    public Category create(String slug, String name, Long parentId) {
+        if (parentId != null) {
+            lockPath(parentId);
+        }
+        Category category = new Category();
+        category.setSlug(slug);
+        category.setName(name);
+        category.setParentId(parentId);
+        category = categoryRepository.saveAndFlush(category);
+        if (parentId != null) {
+            jdbcTemplate.update("INSERT INTO category_closure (ancestor_id, descendant_id, depth) "
+                    + "SELECT ancestor_id, ?, depth + 1 FROM category_closure WHERE descendant_id = ?",
+                    category.getId(), parentId);
+        }
+        jdbcTemplate.update("INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, 0)",
+                category.getId(), category.getId());
+        eventPublisher.publishEvent(new CategoriesChangedEvent(List.of(category.getId())));
+        return category;
+    }
+
+    /**
+     * Renames the category and, if the parent changed, moves its whole subtree.
+     *
+     * @throws IllegalArgumentException if either category does not exist or the new
+     *                                  parent is the category itself or below it
+     */
+    @Transactional
+    public Category update(long id, String slug, String name, Long parentId) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown category " + id));
+        if (!Objects.equals(category.getParentId(), parentId)) {
+            move(category, parentId);
+        }
+        category.setSlug(slug);
+        category.setName(name);
+        category = categoryRepository.saveAndFlush(category);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(List.of(id)));
+        return category;
+    }
+
+    /**
+     * Deletes a category without subcategories or products.
+     *
+     * @return false if there is no such category
+     * @throws IllegalStateException if it still has subcategories or products
+     */
+    @Transactional
+    public boolean delete(long id) {
+        if (!categoryRepository.existsById(id)) {
+            return false;
+        }
+        lockPath(id);
+        if (hasRows("SELECT 1 FROM categories WHERE parent_id = ?", id)) {
+            throw new IllegalStateException("Category " + id + " has subcategories");
+        }
+        if (hasRows("SELECT 1 FROM products WHERE category_id = ?", id)) {
+            throw new IllegalStateException("Category " + id + " has products");
+        }
+        jdbcTemplate.update("DELETE FROM category_closure WHERE descendant_id = ?", id);
+        categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoriesChangedEvent(List.of(id)));
+        return true;
+    }
+
+    boolean hasClosure() {
+        return hasRows("SELECT 1 FROM category_closure");
+    }
+
+    /**
+     * Replaces the closure table with the pairs of {@code tree}.
+     */
+    @Transactional
+    public void rebuildClosure(CategoryTree tree) {
+        jdbcTemplate.update("DELETE FROM category_closure");
+        List<Object[]> batch = new ArrayList<>(1_000);
+        for (CategoryRef root : tree.roots()) {
+            for (long id : tree.subtreeIds(root.id())) {
+                List<CategoryRef> path = tree.path(id);
+                for (CategoryRef ancestor : path) {
+                    batch.add(new Object[]{ancestor.id(), id, path.size() - 1 - ancestor.depth()});
+                }
+                if (batch.size() >= 1_000) {
+                    insertClosure(batch);
+                }
+            }
+        }
+        insertClosure(batch);
+    }
+
+    private void move(Category category, Long parentId) {
+        long id = category.getId();
+        // moves under a common ancestor wait for each other, so two cannot together form a cycle
+        lockPath(id);
+        if (parentId != null) {
+            lockPath(parentId);
+            if (hasRows("SELECT 1 FROM category_closure WHERE ancestor_id = ? AND descendant_id = ?", id, parentId)) {
+                throw new IllegalArgumentException("Category " + parentId + " is within " + id);
+            }
+        }
+        jdbcTemplate.update("DELETE FROM category_closure WHERE descendant_id IN "
+                + "(SELECT descendant_id FROM category_closure WHERE ancestor_id = ?) "
+                + "AND ancestor_id NOT IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = ?)", id, id);
+        if (parentId != null) {
+            jdbcTemplate.update("INSERT INTO category_closure (ancestor_id, descendant_id, depth) "
+                    + "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 "
+                    + "FROM category_closure above CROSS JOIN category_closure below "
+                    + "WHERE above.descendant_id = ? AND below.ancestor_id = ?", parentId, id);
+        }
+        category.setParentId(parentId);
+    }
+
+    /**
+     * Locks the category and its ancestors, root first.
+     */
+    private void lockPath(long id) {
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM categories WHERE id IN "
+                + "(SELECT ancestor_id FROM category_closure WHERE descendant_id = ?) OR id = ? ORDER BY id FOR UPDATE",
+                Long.class, id, id);
+        if (!locked.contains(id)) {
+            throw new IllegalArgumentException("Unknown category " + id);
+        }
+    }
+
+    private boolean hasRows(String sql, Object... args) {
+        return !jdbcTemplate.queryForList(sql + " LIMIT 1", Integer.class, args).isEmpty();
+    }
+
+    private void insertClosure(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)",
+                    batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.kun.productservice.category;
+
+import org.kun.productservice.search.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the category hierarchy laid out in preorder: a category's
+ * subtree is the contiguous range from its own position to {@code end}, so
+ * ancestor/descendant tests are two comparisons and a subtree's ids are one array
+ * slice. Siblings are ordered by name. Changes build a new tree; readers keep
+ * whichever one they picked up.
+ */
+public final class CategoryTree {
+
+    private static final CategoryTree EMPTY = build(List.of());
+
+    private final long[] ids;
+    private final int[] parents;
+    private final int[] ends;
+    private final int[] depths;
+    private final String[] slugs;
+    private final String[] names;
+    private final int[] roots;
+    private final LongIntHashMap positions;
+    private final Map<String, Integer> bySlug;
+
+    private CategoryTree(int size, int rootCount) {
+        ids = new long[size];
+        parents = new int[size];
+        ends = new int[size];
+        depths = new int[size];
+        slugs = new String[size];
+        names = new String[size];
+        roots = new int[rootCount];
+        positions = new LongIntHashMap(size);
+        bySlug = new HashMap<>(size * 2);
+    }
+
+    public static CategoryTree empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Lays out the given categories. Ones whose parent is missing become roots; ones
+     * caught in a parent cycle are unreachable and left out.
+     */
+    public static CategoryTree build(List<CategoryRow> rows) {
+        List<CategoryRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(CategoryRow::name).thenComparingLong(CategoryRow::id));
+        Map<Long, Integer> rowOf = new HashMap<>(sorted.size() * 2);
+        for (int i = 0; i < sorted.size(); i++) {
+            rowOf.put(sorted.get(i).id(), i);
+        }
+        // children of row r are childRows[firstChild[r] .. firstChild[r + 1]), still in name order
+        int[] firstChild = new int[sorted.size() + 2];
+        List<Integer> rootRows = new ArrayList<>();
+        for (CategoryRow row : sorted) {
+            Integer parent = row.parentId() == null ? null : rowOf.get(row.parentId());
+            if (parent == null) {
+                rootRows.add(rowOf.get(row.id()));
+            }
+            else {
+                firstChild[parent + 2]++;
+            }
+        }
+        for (int i = 2; i < firstChild.length; i++) {
+            firstChild[i] += firstChild[i - 1];
+        }
+        int[] childRows = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Integer parent = sorted.get(i).parentId() == null ? null : rowOf.get(sorted.get(i).parentId());
+            if (parent != null) {
+                childRows[firstChild[parent + 1]++] = i;
+            }
+        }
+
+        int reachable = 0;
+        int[] stack = new int[sorted.size()];
+        for (int root : rootRows) {
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int row = stack[--top];
+                reachable++;
+                for (int c = firstChild[row]; c < firstChild[row + 1]; c++) {
+                    stack[top++] = childRows[c];
+                }
+            }
+        }
+
+        // preorder walk keeping, per level of the current path, its position, row and next child
+        CategoryTree tree = new CategoryTree(reachable, rootRows.size());
+        int[] pathPositions = new int[Math.max(1, reachable)];
+        int[] pathRows = new int[Math.max(1, reachable)];
+        int[] nextChild = new int[Math.max(1, reachable)];
+        int next = 0;
+        for (int r = 0; r < rootRows.size(); r++) {
+            int root = rootRows.get(r);
+            tree.roots[r] = next;
+            pathPositions[0] = tree.add(next++, sorted.get(root), -1, 0);
+            pathRows[0] = root;
+            nextChild[0] = firstChild[root];
+            int depth = 0;
+            while (depth >= 0) {
+                int row = pathRows[depth];
+                if (nextChild[depth] < firstChild[row + 1]) {
+                    int child = childRows[nextChild[depth]++];
+                    depth++;
+                    pathPositions[depth] = tree.add(next++, sorted.get(child), pathPositions[depth - 1], depth);
+                    pathRows[depth] = child;
+                    nextChild[depth] = firstChild[child];
+                }
+                else {
+                    tree.ends[pathPositions[depth]] = next;
+                    depth--;
+                }
+            }
+        }
+        return tree;
+    }
+
+    private int add(int position, CategoryRow row, int parent, int depth) {
+        ids[position] = row.id();
+        parents[position] = parent;
+        depths[position] = depth;
+        slugs[position] = row.slug();
+        names[position] = row.name();
+        positions.put(row.id(), position);
+        bySlug.put(row.slug(), position);
+        return position;
+    }
+
+    private int position(long id) {
+        return positions.get(id);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long id) {
+        return position(id) >= 0;
+    }
+
+    public Long idOfSlug(String slug) {
+        Integer position = bySlug.get(slug);
+        return position == null ? null : ids[position];
+    }
+
+    /**
+     * Whether {@code descendantId} is {@code ancestorId} or somewhere below it.
+     */
+    public boolean isWithin(long descendantId, long ancestorId) {
+        int ancestor = position(ancestorId);
+        int descendant = position(descendantId);
+        return ancestor >= 0 && descendant >= ancestor && descendant < ends[ancestor];
+    }
+
+    /**
+     * The category itself plus everything below it; 0 when unknown.
+     */
+    public int subtreeSize(long id) {
+        int position = position(id);
+        return position < 0 ? 0 : ends[position] - position;
+    }
+
+    /**
+     * Ids of the category and all its descendants, in preorder.
+     */
+    public long[] subtreeIds(long id) {
+        int position = position(id);
+        return position < 0 ? new long[0] : Arrays.copyOfRange(ids, position, ends[position]);
+    }
+
+    /**
+     * From the root down to the category itself; empty when unknown.
+     */
+    public List<CategoryRef> path(long id) {
+        int position = position(id);
+        if (position < 0) {
+            return List.of();
+        }
+        List<CategoryRef> path = new ArrayList<>(depths[position] + 1);
+        for (int p = position; p >= 0; p = parents[p]) {
+            path.add(ref(p));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    public CategoryRef get(long id) {
+        int position = position(id);
+        return position < 0 ? null : ref(position);
+    }
+
+    public List<CategoryRef> roots() {
+        List<CategoryRef> result = new ArrayList<>(roots.length);
+        for (int root : roots) {
+            result.add(ref(root));
+        }
+        return result;
+    }
+
+    public List<CategoryRef> children(long id) {
+        int position = position(id);
+        if (position < 0) {
+            return List.of();
+        }
+        List<CategoryRef> children = new ArrayList<>();
+        for (int child = position + 1; child < ends[position]; child = ends[child]) {
+            children.add(ref(child));
+        }
+        return children;
+    }
+
+    private CategoryRef ref(int position) {
+        return new CategoryRef(ids[position], parents[position] < 0 ? null : ids[parents[position]],
+                slugs[position], names[position], depths[position], ends[position] - position - 1);
+    }
+}
@@ -0,0 +1,101 @@
+package org.kun.productservice.category;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.common.datasource.ReadRouting;
+import org.kun.productservice.event.CategoriesChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link CategoryTree}. Reloads replace the tree as a whole, on one
+ * thread: after local changes commit and at a fixed interval for changes made
+ * elsewhere. Until the first load the tree is empty.
+ */
+@Slf4j
+public class CategoryTreeCache {
+
+    private static final String SELECT = "SELECT id, parent_id, slug, name FROM categories";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryService categoryService;
+    private final CategoryProperties properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "category-tree");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile CategoryTree tree = CategoryTree.empty();
+
+    public CategoryTreeCache(JdbcTemplate jdbcTemplate, CategoryService categoryService,
+                             CategoryProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryService = categoryService;
+        this.properties = properties;
+    }
+
+    public CategoryTree tree() {
+        return tree;
+    }
+
+    /**
+     * Loads the tree before traffic arrives and fills the closure table if categories
+     * predate it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloadQuietly();
+        if (tree.size() > 0 && !categoryService.hasClosure()) {
+            log.info("Filling the category closure table for {} categories", tree.size());
+            categoryService.rebuildClosure(tree);
+        }
+        long interval = properties.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::reloadQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        executor.execute(this::reloadQuietly);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    synchronized void reload() {
+        long start = System.nanoTime();
+        // the primary, so a lagging replica cannot undo a reload that followed a change
+        List<CategoryRow> rows = ReadRouting.onPrimary(() -> load(jdbcTemplate));
+        tree = CategoryTree.build(rows);
+        if (tree.size() < rows.size()) {
+            log.warn("{} categories are part of a parent cycle and were left out", rows.size() - tree.size());
+        }
+        log.debug("Category tree loaded {} categories in {} ms", tree.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public static List<CategoryRow> load(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.query(SELECT, (rs, row) -> {
+            long parentId = rs.getLong("parent_id");
+            return new CategoryRow(rs.getLong("id"), rs.wasNull() ? null : parentId, rs.getString("slug"),
+                    rs.getString("name"));
+        });
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to load the category tree", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.category.CategoryProperties;
+import org.kun.productservice.category.CategoryRef;
+import org.kun.productservice.category.CategoryService;
+import org.kun.productservice.category.CategoryTree;
+import org.kun.productservice.category.CategoryTreeCache;
+import org.kun.productservice.dto.CategoryDetail;
+import org.kun.productservice.dto.CategoryNode;
+import org.kun.productservice.dto.CategoryRequest;
+import org.kun.productservice.entity.Category;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/categories")
+public class CategoryController {
+
+    private final CategoryTreeCache categoryTreeCache;
+    private final CategoryService categoryService;
+    private final CategoryProperties properties;
+
+    public CategoryController(CategoryTreeCache categoryTreeCache, CategoryService categoryService,
+                              CategoryProperties properties) {
+        this.categoryTreeCache = categoryTreeCache;
+        this.categoryService = categoryService;
+        this.properties = properties;
+    }
+
+    /**
+     * Navigation menu: the root categories with subcategories down to {@code depth}
+     * levels, served from the in-memory tree.
+     */
+    @GetMapping
+    public List<CategoryNode> menu(@RequestParam(required = false) Integer depth) {
+        int levels = Math.min(Math.max(1, depth == null ? properties.getDefaultMenuDepth() : depth),
+                properties.getMaxMenuDepth());
+        CategoryTree tree = categoryTreeCache.tree();
+        return nodes(tree, tree.roots(), levels);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CategoryDetail> get(@PathVariable long id) {
+        CategoryTree tree = categoryTreeCache.tree();
+        CategoryRef category = tree.get(id);
+        if (category == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new CategoryDetail(category.id(), category.parentId(), category.slug(),
+                category.name(), category.descendants(), tree.path(id), tree.children(id)));
+    }
+
+    @PostMapping
+    public ResponseEntity<CategoryNode> create(@RequestBody CategoryRequest request) {
+        validate(request);
+        try {
+            Category category = categoryService.create(request.getSlug(), request.getName(), request.getParentId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(node(category));
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Slug " + request.getSlug() + " is taken");
+        }
+    }
+
+    /**
+     * Renames the category and, with a different {@code parentId}, moves it with
+     * everything below it.
+     */
+    @PutMapping("/{id}")
+    public CategoryNode update(@PathVariable long id, @RequestBody CategoryRequest request) {
+        validate(request);
+        try {
+            return node(categoryService.update(id, request.getSlug(), request.getName(), request.getParentId()));
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Slug " + request.getSlug() + " is taken");
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable long id) {
+        try {
+            return categoryService.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+        }
+        catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private static void validate(CategoryRequest request) {
+        if (request.getSlug() == null || request.getSlug().isBlank()
+                || request.getName() == null || request.getName().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "slug and name are required");
+        }
+    }
+
+    private static List<CategoryNode> nodes(CategoryTree tree, List<CategoryRef> categories, int levels) {
+        List<CategoryNode> nodes = new ArrayList<>(categories.size());
+        for (CategoryRef category : categories) {
+            List<CategoryNode> children = levels > 1 ? nodes(tree, tree.children(category.id()), levels - 1) : List.of();
+            nodes.add(new CategoryNode(category.id(), category.parentId(), category.slug(), category.name(),
+                    category.descendants(), children));
+        }
+        return nodes;
+    }
+
+    private CategoryNode node(Category category) {
+        int descendants = Math.max(0, categoryTreeCache.tree().subtreeSize(category.getId()) - 1);
+        return new CategoryNode(category.getId(), category.getParentId(), category.getSlug(), category.getName(),
+                descendants, List.of());
+    }
+}
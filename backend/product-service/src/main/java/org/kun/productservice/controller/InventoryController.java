@@ -0,0 +1,69 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.dto.ReservationRequest;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.inventory.InventoryProperties;
+import org.kun.productservice.inventory.ReservationResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/inventory")
+public class InventoryController {
+
+    private final InventoryEngine inventoryEngine;
+    private final InventoryProperties properties;
+
+    public InventoryController(InventoryEngine inventoryEngine, InventoryProperties properties) {
+        this.inventoryEngine = inventoryEngine;
+        this.properties = properties;
+    }
+
+    /**
+     * Reserves stock; answers once the reservation is durable (201), or at once with
+     * 409 when there is not enough stock.
+     */
+    @PostMapping("/reservations")
+    public CompletableFuture<ResponseEntity<ReservationResult>> reserve(@RequestBody ReservationRequest request) {
+        if (request.getQuantity() <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return respond(inventoryEngine.reserve(request.getProductId(), request.getQuantity()));
+    }
+
+    @PostMapping("/{productId}/restock")
+    public CompletableFuture<ResponseEntity<ReservationResult>> restock(@PathVariable long productId,
+                                                                        @RequestParam int quantity) {
+        if (quantity <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return respond(inventoryEngine.restock(productId, quantity));
+    }
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<Map<String, Long>> available(@PathVariable long productId) {
+        long available = inventoryEngine.available(productId);
+        if (available < 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("productId", productId, "available", available));
+    }
+
+    private CompletableFuture<ResponseEntity<ReservationResult>> respond(CompletableFuture<ReservationResult> result) {
+        return result
+                .orTimeout(properties.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(outcome -> switch (outcome.status()) {
+                    case RESERVED -> ResponseEntity.status(HttpStatus.CREATED).body(outcome);
+                    case RESTOCKED -> ResponseEntity.ok(outcome);
+                    case INSUFFICIENT_STOCK -> ResponseEntity.status(HttpStatus.CONFLICT).body(outcome);
+                    case UNKNOWN_PRODUCT -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(outcome);
+                })
+                // not confirmed durable in time (or the log failed): the client must not assume either outcome
+                .exceptionally(error -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+}
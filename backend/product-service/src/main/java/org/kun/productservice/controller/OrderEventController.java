@@ -0,0 +1,40 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.dto.OrderPlacedEvent;
+import org.kun.productservice.inbox.OrderEventInbox;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Events from other services; not routed through the gateway.
+ */
+@RestController
+@RequestMapping("/internal/events")
+public class OrderEventController {
+
+    private final OrderEventInbox inbox;
+
+    public OrderEventController(OrderEventInbox inbox) {
+        this.inbox = inbox;
+    }
+
+    /**
+     * Takes a batch of events; 204 once all are applied, 503 when the sender must retry.
+     */
+    @PostMapping("/order-placed")
+    public ResponseEntity<Void> orderPlaced(@RequestBody List<OrderPlacedEvent> events) {
+        if (events.stream().anyMatch(event -> event.getEventId() == null || event.getEventId().isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            inbox.accept(events);
+        }
+        catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,92 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.cache.ProductCache;
+import org.kun.productservice.dto.ProductDetail;
+import org.kun.productservice.dto.RelatedProduct;
+import org.kun.productservice.dto.TrendingProduct;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.recommend.CoOccurrenceIndex;
+import org.kun.productservice.recommend.RecommendationProperties;
+import org.kun.productservice.recommend.RecommendationService;
+import org.kun.productservice.trending.TrendingEntry;
+import org.kun.productservice.trending.TrendingProperties;
+import org.kun.productservice.trending.TrendingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/products")
+public class ProductController {
+
+    private final ProductCache productCache;
+    private final TrendingService trendingService;
+    private final TrendingProperties trendingProperties;
+    private final RecommendationService recommendationService;
+    private final RecommendationProperties recommendationProperties;
+    private final InventoryEngine inventoryEngine;
+
+    public ProductController(ProductCache productCache, TrendingService trendingService,
+                             TrendingProperties trendingProperties, RecommendationService recommendationService,
+                             RecommendationProperties recommendationProperties, InventoryEngine inventoryEngine) {
+        this.productCache = productCache;
+        this.trendingService = trendingService;
+        this.trendingProperties = trendingProperties;
+        this.recommendationService = recommendationService;
+        this.recommendationProperties = recommendationProperties;
+        this.inventoryEngine = inventoryEngine;
+    }
+
+    /**
+     * The cached product, with the stock the inventory engine holds right now when it
+     * has the product in memory; reservations do not invalidate the cache.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductDetail> get(@PathVariable long id) {
+        Optional<ProductDetail> product = productCache.get(id).map(detail -> {
+            long available = inventoryEngine.loadedAvailable(id);
+            return available >= 0 ? detail.withStock(available) : detail;
+        });
+        product.ifPresent(detail -> trendingService.recordView(id));
+        return ResponseEntity.of(product);
+    }
+
+    /**
+     * Most viewed products lately, overall or within a category; served from memory.
+     */
+    @GetMapping("/trending")
+    public List<TrendingProduct> trending(@RequestParam(required = false) Long category,
+                                          @RequestParam(required = false) Integer limit) {
+        int size = Math.min(Math.max(1, limit == null ? trendingProperties.getDefaultLimit() : limit),
+                trendingProperties.getMaxLimit());
+        List<TrendingProduct> result = new ArrayList<>(size);
+        for (TrendingEntry entry : trendingService.trending(category, size)) {
+            productCache.get(entry.productId()).ifPresent(product -> result.add(new TrendingProduct(product.id(),
+                    product.sku(), product.name(), product.categoryId(), product.price(), entry.score())));
+        }
+        return result;
+    }
+
+    /**
+     * Frequently bought together: products most often in the same orders as this one;
+     * served from memory.
+     */
+    @GetMapping("/{id}/related")
+    public List<RelatedProduct> related(@PathVariable long id, @RequestParam(required = false) Integer limit) {
+        int size = Math.min(Math.max(1, limit == null ? recommendationProperties.getDefaultLimit() : limit),
+                recommendationProperties.getMaxLimit());
+        List<RelatedProduct> result = new ArrayList<>(size);
+        // ask for a few more, as deleted products are skipped
+        for (CoOccurrenceIndex.Related related : recommendationService.related(id, size * 2)) {
+            if (result.size() == size) {
+                break;
+            }
+            productCache.get(related.productId()).ifPresent(product -> result.add(new RelatedProduct(product.id(),
+                    product.sku(), product.name(), product.categoryId(), product.price(), related.orders())));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package org.kun.productservice.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.kun.productservice.dto.ImportReport;
+import org.kun.productservice.importer.ImportFormat;
+import org.kun.productservice.importer.ProductImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/products")
+public class ProductImportController {
+
+    private final ProductImportService importService;
+
+    public ProductImportController(ProductImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Bulk upsert from a CSV or NDJSON feed. The body is read as a stream and may be
+     * gzip-compressed ({@code Content-Encoding: gzip}).
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportReport> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        ImportReport report = importService.importProducts(body, ImportFormat.from(format, contentType));
+        HttpStatus status = report.getStatus() == ImportReport.Status.COMPLETED
+                ? HttpStatus.OK
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(report);
+    }
+}
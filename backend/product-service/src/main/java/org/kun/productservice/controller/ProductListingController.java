@@ -0,0 +1,61 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.category.CategoryTreeCache;
+import org.kun.productservice.dto.ProductPage;
+import org.kun.productservice.dto.ProductSummary;
+import org.kun.productservice.listing.ListingCursor;
+import org.kun.productservice.listing.ProductSort;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/products")
+public class ProductListingController {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private final ProductRepository productRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    public ProductListingController(ProductRepository productRepository, CategoryTreeCache categoryTreeCache) {
+        this.productRepository = productRepository;
+        this.categoryTreeCache = categoryTreeCache;
+    }
+
+    /**
+     * Catalog listing with keyset paging: pass the previous response's {@code nextCursor}
+     * to continue. Sorts: {@code price_asc}, {@code price_desc}, {@code newest}, {@code name}.
+     * A {@code category} includes the categories below it.
+     */
+    @GetMapping
+    public ProductPage list(@RequestParam(defaultValue = "newest") String sort,
+                            @RequestParam(required = false) Long category,
+                            @RequestParam(required = false) Integer limit,
+                            @RequestParam(required = false) String cursor) {
+        ProductSort order;
+        ListingCursor after;
+        try {
+            order = ProductSort.fromParameter(sort);
+            after = cursor == null ? null : ListingCursor.decode(cursor, order);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int pageSize = Math.min(Math.max(1, limit == null ? DEFAULT_LIMIT : limit), MAX_LIMIT);
+
+        // leaves keep the cheaper exact match on category_id
+        boolean withSubcategories = category != null && categoryTreeCache.tree().subtreeSize(category) > 1;
+        // one extra row tells whether there is a next page
+        List<ProductSummary> rows = productRepository.findPage(order, category, withSubcategories, after, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new ProductPage(rows, null);
+        }
+        List<ProductSummary> page = rows.subList(0, pageSize);
+        return new ProductPage(List.copyOf(page), ListingCursor.after(order, page.get(pageSize - 1)).encode());
+    }
+}
@@ -0,0 +1,35 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.dto.ProductLookupItem;
+import org.kun.productservice.dto.ProductLookupRequest;
+import org.kun.productservice.lookup.ProductLookupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/products")
+public class ProductLookupController {
+
+    private final ProductLookupService lookupService;
+
+    public ProductLookupController(ProductLookupService lookupService) {
+        this.lookupService = lookupService;
+    }
+
+    /**
+     * Price and stock of up to {@value ProductLookupService#MAX_KEYS} products by id or
+     * SKU in one call; products that do not exist are missing from the response.
+     */
+    @PostMapping("/lookup")
+    public List<ProductLookupItem> lookup(@RequestBody ProductLookupRequest request) {
+        try {
+            return lookupService.lookup(request.getIds(), request.getSkus());
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
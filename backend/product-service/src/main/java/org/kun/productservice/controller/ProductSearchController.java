@@ -0,0 +1,82 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.dto.SearchResponse;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.kun.productservice.search.SearchIndex;
+import org.kun.productservice.search.SearchIndexer;
+import org.kun.productservice.search.SearchProperties;
+import org.kun.productservice.search.SearchQuery;
+import org.kun.productservice.search.SearchResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/products")
+public class ProductSearchController {
+
+    private final SearchIndex searchIndex;
+    private final SearchIndexer searchIndexer;
+    private final ProductRepository productRepository;
+    private final SearchProperties properties;
+
+    public ProductSearchController(SearchIndex searchIndex, SearchIndexer searchIndexer,
+                                   ProductRepository productRepository, SearchProperties properties) {
+        this.searchIndex = searchIndex;
+        this.searchIndexer = searchIndexer;
+        this.productRepository = productRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Keyword search with category/brand/price facets, served from the in-memory index.
+     * Pages are fetched with the {@code nextCursor} of the previous response.
+     */
+    @GetMapping("/search")
+    public SearchResponse search(@RequestParam(required = false) String q,
+                                 @RequestParam(required = false) Long category,
+                                 @RequestParam(required = false) String brand,
+                                 @RequestParam(required = false) BigDecimal minPrice,
+                                 @RequestParam(required = false) BigDecimal maxPrice,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) String cursor) {
+        if (!searchIndexer.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is loading");
+        }
+        long start = System.nanoTime();
+        int pageSize = Math.min(Math.max(1, limit == null ? properties.getDefaultPageSize() : limit),
+                properties.getMaxPageSize());
+        SearchQuery.Cursor after;
+        try {
+            after = cursor == null ? null : SearchQuery.Cursor.decode(cursor);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        SearchResult result = searchIndex.search(new SearchQuery(q, category, brand,
+                minPrice == null ? null : SearchIndex.cents(minPrice),
+                maxPrice == null ? null : SearchIndex.cents(maxPrice), pageSize, after));
+
+        List<Long> ids = result.hits().stream().map(SearchResult.Hit::productId).toList();
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<SearchResponse.Item> items = new ArrayList<>(ids.size());
+        for (SearchResult.Hit hit : result.hits()) {
+            Product product = products.get(hit.productId());
+            if (product != null) {
+                items.add(new SearchResponse.Item(product.getId(), product.getSku(), product.getName(),
+                        product.getBrand(), product.getCategoryId(), product.getPrice(), hit.score()));
+            }
+        }
+        return new SearchResponse(items, result.total(), result.facets(),
+                result.next() == null ? null : result.next().encode(), (System.nanoTime() - start) / 1_000);
+    }
+}
@@ -0,0 +1,95 @@
+package org.kun.productservice.controller;
+
+import org.kun.productservice.dto.SnapshotInfo;
+import org.kun.productservice.snapshot.CatalogSnapshot;
+import org.kun.productservice.snapshot.SnapshotService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary catalog snapshots for bulk consumers. Downloads honour {@code Range}, so
+ * an interrupted transfer resumes where it stopped; versioned files never change
+ * and may be cached forever.
+ */
+@RestController
+@RequestMapping("/products/snapshots")
+public class ProductSnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    public ProductSnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @GetMapping
+    public List<SnapshotInfo> list() throws IOException {
+        List<SnapshotInfo> result = new ArrayList<>();
+        for (CatalogSnapshot snapshot : snapshotService.snapshots()) {
+            result.add(new SnapshotInfo(snapshot.version(), snapshot.size(), Files.size(snapshot.path())));
+        }
+        return result;
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<Resource> latest() {
+        CatalogSnapshot latest = snapshotService.latest();
+        if (latest == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // send the client to the immutable URL so resumed ranges cannot straddle two versions
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .header(HttpHeaders.LOCATION, "/products/snapshots/" + latest.version())
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    @GetMapping("/{version}")
+    public ResponseEntity<Resource> snapshot(@PathVariable long version) {
+        CatalogSnapshot snapshot = snapshotService.snapshot(version);
+        return snapshot == null ? ResponseEntity.notFound().build() : download(snapshot.path(), String.valueOf(version));
+    }
+
+    /**
+     * Changes from {@code from} to the latest snapshot; 204 when {@code from} is the
+     * latest, 404 when it is no longer retained and a full download is needed.
+     */
+    @GetMapping("/delta")
+    public ResponseEntity<Resource> delta(@RequestParam long from) throws IOException {
+        CatalogSnapshot delta;
+        try {
+            delta = snapshotService.deltaToLatest(from);
+        }
+        catch (NoSuchFileException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (delta == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return download(delta.path(), delta.baseVersion() + "-" + delta.version());
+    }
+
+    private static ResponseEntity<Resource> download(Path path, String tag) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(tag)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).immutable())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(path.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(path));
+    }
+}
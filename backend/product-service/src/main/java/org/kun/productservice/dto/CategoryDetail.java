@@ -0,0 +1,12 @@
+package org.kun.productservice.dto;
+
+import org.kun.productservice.category.CategoryRef;
+
+import java.util.List;
+
+/**
+ * @param path breadcrumb from the root down to this category
+ */
+public record CategoryDetail(long id, Long parentId, String slug, String name, int descendants,
+                             List<CategoryRef> path, List<CategoryRef> children) {
+}
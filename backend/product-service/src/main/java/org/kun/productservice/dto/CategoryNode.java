@@ -0,0 +1,11 @@
+package org.kun.productservice.dto;
+
+import java.util.List;
+
+/**
+ * A category with its subcategories down to the requested depth; {@code descendants}
+ * counts all of them regardless.
+ */
+public record CategoryNode(long id, Long parentId, String slug, String name, int descendants,
+                           List<CategoryNode> children) {
+}
@@ -0,0 +1,13 @@
+package org.kun.productservice.dto;
+
+import lombok.Data;
+
+@Data
+public class CategoryRequest {
+
+    private String slug;
+
+    private String name;
+
+    private Long parentId;
+}
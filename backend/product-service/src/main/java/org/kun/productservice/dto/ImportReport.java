@@ -0,0 +1,33 @@
+package org.kun.productservice.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+
+    public enum Status {
+        COMPLETED, FAILED
+    }
+
+    private Status status = Status.COMPLETED;
+    private String format;
+    private String writer;
+    private long rowsRead;
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private long elapsedMs;
+    private long rowsPerSecond;
+    private String error;
+
+    /**
+     * The first rejected rows; {@link #rejected} has the full count.
+     */
+    private List<Reject> rejects = new ArrayList<>();
+
+    public record Reject(long line, String sku, String reason) {
+    }
+}
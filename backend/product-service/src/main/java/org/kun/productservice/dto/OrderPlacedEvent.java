@@ -0,0 +1,28 @@
+package org.kun.productservice.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order as published by order-service once it is placed. The same event may
+ * arrive more than once; {@code eventId} identifies it.
+ */
+@Data
+public class OrderPlacedEvent {
+
+    private String eventId;
+
+    private long orderId;
+
+    private List<Item> items = new ArrayList<>();
+
+    @Data
+    public static class Item {
+
+        private long productId;
+
+        private int quantity;
+    }
+}
@@ -0,0 +1,26 @@
+package org.kun.productservice.dto;
+
+import org.kun.productservice.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Product as served by {@code GET /products/{id}} and stored in the product cache.
+ * {@code stock} is the units available: the inventory's once the product has been
+ * reserved, its catalog stock before that.
+ */
+public record ProductDetail(Long id, String sku, String name, String description, String brand, Long categoryId,
+                            BigDecimal price, long stock, String attributes, Instant updatedAt) {
+
+    public static ProductDetail of(Product product, Optional<Long> inventoryAvailable) {
+        return new ProductDetail(product.getId(), product.getSku(), product.getName(), product.getDescription(),
+                product.getBrand(), product.getCategoryId(), product.getPrice(),
+                inventoryAvailable.orElse((long) product.getStock()), product.getAttributes(), product.getUpdatedAt());
+    }
+
+    public ProductDetail withStock(long stock) {
+        return new ProductDetail(id, sku, name, description, brand, categoryId, price, stock, attributes, updatedAt);
+    }
+}
@@ -0,0 +1,11 @@
+package org.kun.productservice.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Current price and reservable stock of one product, as returned by {@code POST /products/lookup};
+ * the category lets order-service apply category promotions.
+ */
+public record ProductLookupItem(long id, String sku, String name, BigDecimal price, long available,
+                                Long categoryId) {
+}
@@ -0,0 +1,16 @@
+package org.kun.productservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Products to look up by id, by SKU, or both.
+ */
+@Data
+public class ProductLookupRequest {
+
+    private List<Long> ids;
+
+    private List<String> skus;
+}
@@ -0,0 +1,18 @@
+package org.kun.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPage {
+
+    private List<ProductSummary> items;
+
+    /**
+     * Opaque cursor for the next page; absent on the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,11 @@
+package org.kun.productservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Listing row read straight from the query; never a managed entity.
+ */
+public record ProductSummary(Long id, String sku, String name, String brand, Long categoryId, BigDecimal price,
+                             Instant createdAt) {
+}
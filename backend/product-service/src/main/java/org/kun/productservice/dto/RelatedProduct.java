@@ -0,0 +1,9 @@
+package org.kun.productservice.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * @param orders how many orders contained both this product and the one asked about
+ */
+public record RelatedProduct(Long id, String sku, String name, Long categoryId, BigDecimal price, int orders) {
+}
@@ -0,0 +1,11 @@
+package org.kun.productservice.dto;
+
+import lombok.Data;
+
+@Data
+public class ReservationRequest {
+
+    private long productId;
+
+    private int quantity;
+}
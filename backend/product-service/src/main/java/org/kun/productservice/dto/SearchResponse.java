@@ -0,0 +1,27 @@
+package org.kun.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.kun.productservice.search.SearchResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SearchResponse {
+
+    private List<Item> items;
+    private long total;
+    private SearchResult.Facets facets;
+
+    /**
+     * Opaque cursor for the next page; absent on the last page.
+     */
+    private String nextCursor;
+
+    private long tookMicros;
+
+    public record Item(Long id, String sku, String name, String brand, Long categoryId, BigDecimal price, float score) {
+    }
+}
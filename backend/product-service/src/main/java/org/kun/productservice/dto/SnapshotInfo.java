@@ -0,0 +1,4 @@
+package org.kun.productservice.dto;
+
+public record SnapshotInfo(long version, int products, long bytes) {
+}
@@ -0,0 +1,6 @@
+package org.kun.productservice.dto;
+
+import java.math.BigDecimal;
+
+public record TrendingProduct(Long id, String sku, String name, Long categoryId, BigDecimal price, double score) {
+}
@@ -0,0 +1,45 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * One ancestor/descendant pair of the category hierarchy, including each category
+ * paired with itself at depth 0, so a subtree is one index range on {@code ancestor_id}.
+ */
+@Entity
+@Table(name = "category_closure", indexes = @Index(name = "idx_category_closure_descendant",
+        columnList = "descendant_id, ancestor_id"))
+@IdClass(CategoryClosure.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false)
+    private int depth;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long ancestorId;
+
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,26 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single row holding the last reservation log sequence applied to {@code inventory};
+ * updated in the same transaction as the changes it covers.
+ */
+@Entity
+@Table(name = "inventory_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryCheckpoint {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "applied_sequence", nullable = false)
+    private long appliedSequence;
+}
@@ -0,0 +1,26 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Durable stock of a product owned by the inventory engine, seeded from
+ * {@link Product#getStock()} the first time the product is reserved. Written only
+ * by the engine's write-behind, through JDBC.
+ */
+@Entity
+@Table(name = "inventory")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryItem {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private long available;
+}
@@ -0,0 +1,32 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A reservation applied from the reservation log; the id is its log sequence number.
+ */
+@Entity
+@Table(name = "inventory_reservations", indexes = @Index(name = "idx_inventory_reservations_product",
+        columnList = "product_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryReservation {
+
+    @Id
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
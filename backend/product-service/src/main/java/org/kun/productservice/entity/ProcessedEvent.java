@@ -0,0 +1,46 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An event from another service that is being applied here, or has been, so a
+ * redelivery is ignored.
+ */
+@Entity
+@Table(name = "processed_events", indexes = @Index(name = "idx_processed_events_processed_at",
+        columnList = "processed_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProcessedEvent {
+
+    @Id
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    /**
+     * Rows written before claims existed were processed.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", columnDefinition = "varchar(16) default 'PROCESSED' not null")
+    private Status status;
+
+    /**
+     * When the event was claimed, and then when it was processed.
+     */
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    public enum Status {
+        /**
+         * A delivery is applying the event.
+         */
+        CLAIMED,
+        PROCESSED
+    }
+}
@@ -0,0 +1,80 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@EntityListeners(ProductEntityListener.class)
+@Table(name = "products", indexes = {
+        // one index per listing order, plus the same per category (see ProductSort)
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_created", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_products_name", columnList = "name, id"),
+        @Index(name = "idx_products_category_price", columnList = "category_id, price, id"),
+        @Index(name = "idx_products_category_created", columnList = "category_id, created_at DESC, id DESC"),
+        @Index(name = "idx_products_category_name", columnList = "category_id, name, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class Product {
+
+    /**
+     * Allocated in blocks of {@link #ID_BLOCK} with the pooled-lo optimizer, so the
+     * bulk importer can reserve ids from the same sequence without round trips per row.
+     */
+    public static final int ID_BLOCK = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_BLOCK)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String sku;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(columnDefinition = "text")
+    private String description;
+
+    @Column(length = 120)
+    private String brand;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal price;
+
+    @Column(nullable = false)
+    private int stock;
+
+    /**
+     * Free-form attributes as a JSON object (colour, size, ...).
+     */
+    @Column(columnDefinition = "text")
+    private String attributes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = updatedAt = Instant.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,27 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.kun.productservice.event.ProductsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public ProductEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Product product) {
+        publisher.publishEvent(ProductsChangedEvent.ofIds(List.of(product.getId())));
+    }
+}
@@ -0,0 +1,24 @@
+package org.kun.productservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * All-time view count of a product, advanced in batches by the trending flusher.
+ */
+@Entity
+@Table(name = "product_views")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductViewCount {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private long views;
+}
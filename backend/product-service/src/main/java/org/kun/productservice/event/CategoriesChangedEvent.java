@@ -0,0 +1,9 @@
+package org.kun.productservice.event;
+
+import java.util.Collection;
+
+/**
+ * Published after categories are created, updated, moved or deleted.
+ */
+public record CategoriesChangedEvent(Collection<Long> ids) {
+}
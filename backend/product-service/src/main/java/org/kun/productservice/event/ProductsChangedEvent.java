@@ -0,0 +1,20 @@
+package org.kun.productservice.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published after products are created, updated or deleted, either through JPA
+ * (by id) or by the bulk importer (by SKU). Listeners reload the current state,
+ * so the event carries keys only.
+ */
+public record ProductsChangedEvent(Collection<Long> ids, Collection<String> skus) {
+
+    public static ProductsChangedEvent ofIds(Collection<Long> ids) {
+        return new ProductsChangedEvent(ids, List.of());
+    }
+
+    public static ProductsChangedEvent ofSkus(Collection<String> skus) {
+        return new ProductsChangedEvent(List.of(), skus);
+    }
+}
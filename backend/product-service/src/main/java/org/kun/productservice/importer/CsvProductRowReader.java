@@ -0,0 +1,147 @@
+package org.kun.productservice.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 reader: a header row names the columns, fields may be quoted, quotes
+ * inside quoted fields are doubled and quoted fields may span lines.
+ */
+public class CsvProductRowReader implements ProductRowReader {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private final StringBuilder field = new StringBuilder(256);
+    private final List<String> values = new ArrayList<>();
+    private final String[] columns;
+
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    public CsvProductRowReader(Reader reader) throws IOException {
+        this.reader = reader;
+        if (!readRecord()) {
+            throw new MalformedRecordException(1, "missing header row");
+        }
+        columns = new String[values.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = values.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+        if (columns.length > 0 && columns[0].startsWith("\uFEFF")) {
+            columns[0] = columns[0].substring(1);
+        }
+    }
+
+    @Override
+    public boolean next(ProductRow row) throws IOException {
+        long start = line;
+        boolean read;
+        do {
+            start = line;
+            read = readRecord();
+        } while (read && values.size() == 1 && values.get(0).isEmpty());
+        if (!read) {
+            return false;
+        }
+        row.line = start;
+        if (values.size() != columns.length) {
+            throw new MalformedRecordException(start,
+                    "expected " + columns.length + " fields but found " + values.size());
+        }
+        for (int i = 0; i < columns.length; i++) {
+            String value = values.get(i);
+            row.set(columns[i], value.isEmpty() ? null : value);
+        }
+        return true;
+    }
+
+    private boolean readRecord() throws IOException {
+        values.clear();
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                long opened = line;
+                while (true) {
+                    c = read();
+                    if (c == EOF) {
+                        throw new MalformedRecordException(opened, "unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            }
+            else {
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            values.add(field.toString());
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r') {
+                int next = read();
+                if (next != '\n' && next != EOF) {
+                    position--;
+                }
+                line++;
+                return true;
+            }
+            if (c == '\n') {
+                line++;
+                return true;
+            }
+            if (c == EOF) {
+                return true;
+            }
+            long bad = line;
+            skipLine();
+            throw new MalformedRecordException(bad, "unexpected character after quoted field");
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != '\n' && c != EOF);
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,69 @@
+package org.kun.productservice.importer;
+
+import java.util.Map;
+
+/**
+ * Fixed-size block of pooled rows handed from the parsing thread to the writer.
+ */
+public class ImportBatch {
+
+    private final ProductRow[] rows;
+    private int size;
+
+    public ImportBatch(int capacity) {
+        rows = new ProductRow[capacity];
+        for (int i = 0; i < capacity; i++) {
+            rows[i] = new ProductRow();
+        }
+    }
+
+    /**
+     * The next free row, cleared; it becomes part of the batch only after {@link #commit()}.
+     */
+    ProductRow claim() {
+        ProductRow row = rows[size];
+        row.clear();
+        return row;
+    }
+
+    void commit() {
+        size++;
+    }
+
+    boolean isFull() {
+        return size == rows.length;
+    }
+
+    /**
+     * Keeps only the last occurrence of each SKU (a feed may update a product twice),
+     * since one upsert statement cannot touch the same row twice.
+     *
+     * @return number of rows dropped
+     */
+    int removeDuplicateSkus(Map<String, Integer> positions) {
+        positions.clear();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            ProductRow row = rows[i];
+            Integer previous = positions.putIfAbsent(row.sku, kept);
+            int target = previous != null ? previous : kept++;
+            rows[i] = rows[target];
+            rows[target] = row;
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ProductRow get(int index) {
+        return rows[index];
+    }
+}
@@ -0,0 +1,46 @@
+package org.kun.productservice.importer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ImportProperties.class)
+public class ImportConfig {
+
+    @Bean
+    public ProductBatchWriter productBatchWriter(DataSource dataSource, ImportProperties properties) throws SQLException {
+        boolean postgres;
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        }
+        ImportProperties.WriterType type = properties.getWriter();
+        if (type == ImportProperties.WriterType.COPY && !postgres) {
+            throw new IllegalStateException("product.import.writer=copy requires PostgreSQL");
+        }
+        ProductBatchWriter writer = type == ImportProperties.WriterType.BATCH || !postgres
+                ? new JdbcBatchProductWriter(dataSource, postgres)
+                : new PostgresCopyProductWriter(dataSource);
+        log.info("Product import uses the {} writer", writer.name());
+        return writer;
+    }
+
+    @Bean
+    public ExecutorService importWriterExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-import-writer-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
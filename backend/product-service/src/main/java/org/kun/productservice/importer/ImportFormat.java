@@ -0,0 +1,23 @@
+package org.kun.productservice.importer;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+
+    CSV, NDJSON;
+
+    /**
+     * An explicit {@code format} parameter wins; otherwise NDJSON content types select NDJSON and anything else is CSV.
+     */
+    public static ImportFormat from(String format, MediaType contentType) {
+        if (format != null) {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        }
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,31 @@
+package org.kun.productservice.importer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "product.import")
+public class ImportProperties {
+
+    /**
+     * Rows per transaction.
+     */
+    private int batchSize = 5_000;
+
+    /**
+     * Parsed batches waiting for the writer; with the one being parsed and the one
+     * being written this bounds the rows held in memory.
+     */
+    private int queueDepth = 2;
+
+    private WriterType writer = WriterType.AUTO;
+
+    private int maxRejectSamples = 100;
+
+    public enum WriterType {
+        /**
+         * COPY on Postgres, JDBC batches elsewhere.
+         */
+        AUTO, COPY, BATCH
+    }
+}
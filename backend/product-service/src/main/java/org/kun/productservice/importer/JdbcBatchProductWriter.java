@@ -0,0 +1,95 @@
+package org.kun.productservice.importer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+
+/**
+ * Portable writer: one JDBC batch of upserts per import batch. On Postgres this
+ * is {@code INSERT ... ON CONFLICT}, which the driver rewrites into multi-row
+ * inserts when {@code reWriteBatchedInserts=true}; elsewhere it is a standard
+ * {@code MERGE}.
+ */
+public class JdbcBatchProductWriter implements ProductBatchWriter {
+
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO products (id, sku, name, description, brand, category_id, price, stock, attributes,
+                                  created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description,
+                brand = EXCLUDED.brand, category_id = EXCLUDED.category_id, price = EXCLUDED.price,
+                stock = EXCLUDED.stock, attributes = EXCLUDED.attributes, updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String MERGE = """
+            MERGE INTO products t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR),
+                           CAST(? AS VARCHAR(120)), CAST(? AS BIGINT), CAST(? AS NUMERIC(12, 2)), CAST(? AS INTEGER),
+                           CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+                AS s (id, sku, name, description, brand, category_id, price, stock, attributes, created_at, updated_at)
+            ON t.sku = s.sku
+            WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, brand = s.brand,
+                category_id = s.category_id, price = s.price, stock = s.stock, attributes = s.attributes,
+                updated_at = s.updated_at
+            WHEN NOT MATCHED THEN INSERT (id, sku, name, description, brand, category_id, price, stock, attributes,
+                                          created_at, updated_at)
+                VALUES (s.id, s.sku, s.name, s.description, s.brand, s.category_id, s.price, s.stock, s.attributes,
+                        s.created_at, s.updated_at)
+            """;
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final ProductIdAllocator ids;
+
+    public JdbcBatchProductWriter(DataSource dataSource, boolean postgres) {
+        this.dataSource = dataSource;
+        this.sql = postgres ? POSTGRES_UPSERT : MERGE;
+        this.ids = new ProductIdAllocator(postgres);
+    }
+
+    @Override
+    public String name() {
+        return "jdbc-batch";
+    }
+
+    @Override
+    public void write(ImportBatch batch) throws SQLException {
+        Timestamp now = Timestamp.from(Instant.now());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                ids.assign(connection, batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    ProductRow row = batch.get(i);
+                    statement.setLong(1, row.id);
+                    statement.setString(2, row.sku);
+                    statement.setString(3, row.name);
+                    statement.setString(4, row.description);
+                    statement.setString(5, row.brand);
+                    if (row.categoryId == null) {
+                        statement.setNull(6, Types.BIGINT);
+                    }
+                    else {
+                        statement.setLong(6, row.categoryId);
+                    }
+                    statement.setBigDecimal(7, row.price);
+                    statement.setInt(8, row.stock);
+                    statement.setString(9, row.attributes);
+                    statement.setTimestamp(10, now);
+                    statement.setTimestamp(11, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.kun.productservice.importer;
+
+import java.io.IOException;
+
+public class MalformedRecordException extends IOException {
+
+    private final long line;
+
+    public MalformedRecordException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,70 @@
+package org.kun.productservice.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Newline-delimited JSON: one flat object per line. Each line gets its own
+ * parser so a malformed line is rejected without losing the rest of the feed.
+ * {@code attributes} may be an object; it is stored as its JSON text.
+ */
+public class NdjsonProductRowReader implements ProductRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private long line;
+
+    public NdjsonProductRowReader(Reader reader, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    public boolean next(ProductRow row) throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return false;
+            }
+        } while (text.isBlank());
+        row.line = line;
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedRecordException(line, "expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String column = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    row.set(column, objectMapper.writeValueAsString(parser.readValueAsTree()));
+                }
+                else if (value != JsonToken.VALUE_NULL) {
+                    row.set(column, parser.getText());
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new MalformedRecordException(line, "trailing content after JSON object");
+            }
+        }
+        catch (JsonProcessingException e) {
+            throw new MalformedRecordException(line, "invalid JSON: " + e.getOriginalMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,123 @@
+package org.kun.productservice.importer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fastest path on Postgres: streams the batch with {@code COPY} into a
+ * transaction-scoped temp table and upserts it into {@code products} with one
+ * {@code INSERT ... SELECT ... ON CONFLICT}. Per-row cost is just the CSV
+ * encoding; there are no per-row statements or bind round trips.
+ */
+public class PostgresCopyProductWriter implements ProductBatchWriter {
+
+    private static final String STAGING = """
+            CREATE TEMP TABLE IF NOT EXISTS product_import_staging (
+                id bigint, sku varchar(64), name varchar(255), description text, brand varchar(120),
+                category_id bigint, price numeric(12, 2), stock integer, attributes text
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String COPY = "COPY product_import_staging (id, sku, name, description, brand, category_id, "
+            + "price, stock, attributes) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String UPSERT = """
+            INSERT INTO products (id, sku, name, description, brand, category_id, price, stock, attributes,
+                                  created_at, updated_at)
+            SELECT id, sku, name, description, brand, category_id, price, stock, attributes, now(), now()
+            FROM product_import_staging
+            ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description,
+                brand = EXCLUDED.brand, category_id = EXCLUDED.category_id, price = EXCLUDED.price,
+                stock = EXCLUDED.stock, attributes = EXCLUDED.attributes, updated_at = EXCLUDED.updated_at
+            """;
+
+    private final DataSource dataSource;
+    private final ProductIdAllocator ids = new ProductIdAllocator(true);
+
+    public PostgresCopyProductWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public String name() {
+        return "postgres-copy";
+    }
+
+    @Override
+    public void write(ImportBatch batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(STAGING);
+                ids.assign(connection, batch);
+                copy(connection.unwrap(PGConnection.class), batch);
+                statement.executeUpdate(UPSERT);
+                connection.commit();
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void copy(PGConnection connection, ImportBatch batch) throws SQLException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(connection, COPY, 256 * 1024), StandardCharsets.UTF_8), 64 * 1024)) {
+            for (int i = 0; i < batch.size(); i++) {
+                ProductRow row = batch.get(i);
+                out.write(Long.toString(row.id));
+                out.write(',');
+                quoted(out, row.sku);
+                out.write(',');
+                quoted(out, row.name);
+                out.write(',');
+                quoted(out, row.description);
+                out.write(',');
+                quoted(out, row.brand);
+                out.write(',');
+                if (row.categoryId != null) {
+                    out.write(row.categoryId.toString());
+                }
+                out.write(',');
+                out.write(row.price.toPlainString());
+                out.write(',');
+                out.write(Integer.toString(row.stock));
+                out.write(',');
+                quoted(out, row.attributes);
+                out.write('\n');
+            }
+        }
+        catch (IOException e) {
+            throw new SQLException("COPY into product_import_staging failed", e);
+        }
+    }
+
+    /**
+     * Null stays an unquoted empty field, which COPY reads as NULL.
+     */
+    private static void quoted(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
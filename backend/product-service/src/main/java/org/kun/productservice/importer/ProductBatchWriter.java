@@ -0,0 +1,14 @@
+package org.kun.productservice.importer;
+
+import java.sql.SQLException;
+
+/**
+ * Persists one validated batch in its own transaction, inserting new SKUs and
+ * updating existing ones.
+ */
+public interface ProductBatchWriter {
+
+    String name();
+
+    void write(ImportBatch batch) throws SQLException;
+}
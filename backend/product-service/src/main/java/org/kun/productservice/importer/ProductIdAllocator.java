@@ -0,0 +1,54 @@
+package org.kun.productservice.importer;
+
+import org.kun.productservice.entity.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reserves ids from {@code product_seq} the same way Hibernate's pooled-lo
+ * optimizer does: each sequence value is the first id of a block of
+ * {@link Product#ID_BLOCK}. A batch of 5,000 rows costs one round trip on Postgres.
+ */
+class ProductIdAllocator {
+
+    private final boolean postgres;
+    private long[] blocks = new long[0];
+
+    ProductIdAllocator(boolean postgres) {
+        this.postgres = postgres;
+    }
+
+    void assign(Connection connection, ImportBatch batch) throws SQLException {
+        int count = (batch.size() + Product.ID_BLOCK - 1) / Product.ID_BLOCK;
+        if (blocks.length < count) {
+            blocks = new long[count];
+        }
+        if (postgres) {
+            try (PreparedStatement statement =
+                         connection.prepareStatement("SELECT nextval('product_seq') FROM generate_series(1, ?)")) {
+                statement.setInt(1, count);
+                try (ResultSet rs = statement.executeQuery()) {
+                    for (int i = 0; rs.next(); i++) {
+                        blocks[i] = rs.getLong(1);
+                    }
+                }
+            }
+        }
+        else {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT nextval('product_seq')")) {
+                for (int i = 0; i < count; i++) {
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        blocks[i] = rs.getLong(1);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).id = blocks[i / Product.ID_BLOCK] + i % Product.ID_BLOCK;
+        }
+    }
+}
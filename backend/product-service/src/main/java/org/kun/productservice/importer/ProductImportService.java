@@ -0,0 +1,219 @@
+package org.kun.productservice.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.productservice.dto.ImportReport;
+import org.kun.productservice.event.ProductsChangedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Streams a supplier feed into the catalog. The request thread parses and
+ * validates while a writer thread persists the previous batch, so parsing and
+ * database time overlap. Batches come from a fixed pool and are recycled, which
+ * keeps memory constant however large the feed is.
+ *
+ * <p>Each batch commits on its own: if a write fails the import stops and
+ * earlier batches stay committed. Re-running the feed is safe because rows are
+ * upserted by SKU.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final ImportBatch END = new ImportBatch(0);
+
+    private final ProductBatchWriter writer;
+    private final ExecutorService executor;
+    private final ImportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher publisher;
+
+    public ProductImportService(ProductBatchWriter writer, @Qualifier("importWriterExecutor") ExecutorService executor,
+                                ImportProperties properties, ObjectMapper objectMapper,
+                                ApplicationEventPublisher publisher) {
+        this.writer = writer;
+        this.executor = executor;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.publisher = publisher;
+    }
+
+    public ImportReport importProducts(InputStream input, ImportFormat format) {
+        ImportReport report = new ImportReport();
+        report.setFormat(format.name());
+        report.setWriter(writer.name());
+        long start = System.nanoTime();
+
+        int pool = properties.getQueueDepth() + 2;
+        BlockingQueue<ImportBatch> free = new ArrayBlockingQueue<>(pool);
+        BlockingQueue<ImportBatch> full = new ArrayBlockingQueue<>(pool + 1);
+        for (int i = 0; i < pool; i++) {
+            free.add(new ImportBatch(properties.getBatchSize()));
+        }
+        WriterTask task = new WriterTask(free, full);
+        Future<?> writing = executor.submit(task);
+
+        try {
+            parse(input, format, report, free, full, task);
+        }
+        catch (IOException e) {
+            fail(report, "Failed to read feed: " + e.getMessage());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(report, "Import interrupted");
+        }
+        finally {
+            full.add(END);
+        }
+
+        try {
+            writing.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(report, "Import interrupted");
+        }
+        catch (ExecutionException e) {
+            fail(report, e.getCause().toString());
+        }
+        if (task.error != null) {
+            fail(report, "Failed to write batch: " + task.error.getMessage());
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        report.setImported(task.imported);
+        report.setDuplicates(task.duplicates);
+        report.setElapsedMs(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getRowsRead() * 1_000_000_000L / elapsedNanos);
+        log.info("Imported {} products ({} rejected, {} duplicates) from {} rows in {} ms, {} rows/s, status {}",
+                report.getImported(), report.getRejected(), report.getDuplicates(), report.getRowsRead(),
+                report.getElapsedMs(), report.getRowsPerSecond(), report.getStatus());
+        return report;
+    }
+
+    private void parse(InputStream input, ImportFormat format, ImportReport report, BlockingQueue<ImportBatch> free,
+                       BlockingQueue<ImportBatch> full, WriterTask task) throws IOException, InterruptedException {
+        InputStreamReader text = new InputStreamReader(input, StandardCharsets.UTF_8);
+        try (ProductRowReader reader = format == ImportFormat.NDJSON
+                ? new NdjsonProductRowReader(text, objectMapper)
+                : new CsvProductRowReader(text)) {
+            ImportBatch batch = free.take();
+            batch.reset();
+            long rows = 0;
+            while (task.error == null) {
+                ProductRow row = batch.claim();
+                try {
+                    if (!reader.next(row)) {
+                        break;
+                    }
+                }
+                catch (MalformedRecordException e) {
+                    rows++;
+                    reject(report, e.getLine(), null, e.getMessage());
+                    continue;
+                }
+                rows++;
+                String reason = ProductRowValidator.validate(row);
+                if (reason != null) {
+                    reject(report, row.line, row.sku, reason);
+                    continue;
+                }
+                batch.commit();
+                if (batch.isFull()) {
+                    full.put(batch);
+                    batch = free.take();
+                    batch.reset();
+                }
+            }
+            report.setRowsRead(rows);
+            full.put(batch);
+        }
+    }
+
+    private void reject(ImportReport report, long line, String sku, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getRejects().size() < properties.getMaxRejectSamples()) {
+            report.getRejects().add(new ImportReport.Reject(line, sku, reason));
+        }
+    }
+
+    private static void fail(ImportReport report, String error) {
+        if (report.getStatus() == ImportReport.Status.COMPLETED) {
+            report.setStatus(ImportReport.Status.FAILED);
+            report.setError(error);
+        }
+    }
+
+    /**
+     * Writes batches in order until {@link #END}. After a failed write it keeps
+     * recycling batches so the parser never blocks; the parser stops on {@link #error}.
+     */
+    private final class WriterTask implements Runnable {
+
+        private final BlockingQueue<ImportBatch> free;
+        private final BlockingQueue<ImportBatch> full;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private volatile Exception error;
+        private long imported;
+        private long duplicates;
+
+        private WriterTask(BlockingQueue<ImportBatch> free, BlockingQueue<ImportBatch> full) {
+            this.free = free;
+            this.full = full;
+        }
+
+        private void publishChanged(ImportBatch batch) {
+            List<String> skus = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                skus.add(batch.get(i).sku);
+            }
+            publisher.publishEvent(ProductsChangedEvent.ofSkus(skus));
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    ImportBatch batch = full.take();
+                    if (batch == END) {
+                        return;
+                    }
+                    if (error == null && batch.size() > 0) {
+                        try {
+                            duplicates += batch.removeDuplicateSkus(positions);
+                            writer.write(batch);
+                            imported += batch.size();
+                            publishChanged(batch);
+                        }
+                        catch (Exception e) {
+                            log.warn("Product import batch failed: {}", e.getMessage());
+                            error = e;
+                        }
+                    }
+                    free.put(batch);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            }
+        }
+    }
+}
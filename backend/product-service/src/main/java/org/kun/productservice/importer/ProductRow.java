@@ -0,0 +1,61 @@
+package org.kun.productservice.importer;
+
+import java.math.BigDecimal;
+
+/**
+ * One feed record. Instances are pooled per import and reused for every batch,
+ * so the readers fill the raw text fields and {@link ProductRowValidator} fills
+ * the typed ones.
+ */
+public class ProductRow {
+
+    long line;
+
+    String sku;
+    String name;
+    String description;
+    String brand;
+    String categoryText;
+    String priceText;
+    String stockText;
+    String attributes;
+
+    long id;
+    Long categoryId;
+    BigDecimal price;
+    int stock;
+
+    void clear() {
+        sku = name = description = brand = categoryText = priceText = stockText = attributes = null;
+        id = 0;
+        categoryId = null;
+        price = null;
+        stock = 0;
+    }
+
+    /**
+     * Sets a field by its feed column name; unknown columns are ignored.
+     */
+    void set(String column, String value) {
+        switch (column) {
+            case "sku" -> sku = value;
+            case "name" -> name = value;
+            case "description" -> description = value;
+            case "brand" -> brand = value;
+            case "category_id", "categoryId" -> categoryText = value;
+            case "price" -> priceText = value;
+            case "stock" -> stockText = value;
+            case "attributes" -> attributes = value;
+            default -> {
+            }
+        }
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+}
@@ -0,0 +1,20 @@
+package org.kun.productservice.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Incremental feed parser: reads one record at a time so memory does not depend
+ * on the size of the feed.
+ */
+public interface ProductRowReader extends Closeable {
+
+    /**
+     * Fills {@code row} with the next record.
+     *
+     * @return {@code false} at end of input
+     * @throws MalformedRecordException if the record cannot be parsed; the reader
+     *                                  is positioned on the next record
+     */
+    boolean next(ProductRow row) throws IOException;
+}
@@ -0,0 +1,75 @@
+package org.kun.productservice.importer;
+
+import java.math.BigDecimal;
+
+/**
+ * Checks a parsed row against the {@code products} table constraints and fills
+ * its typed fields.
+ */
+public final class ProductRowValidator {
+
+    static final int SKU_LENGTH = 64;
+    static final int NAME_LENGTH = 255;
+    static final int BRAND_LENGTH = 120;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("9999999999.99");
+
+    private ProductRowValidator() {
+    }
+
+    /**
+     * @return {@code null} if the row is valid, otherwise the reason it is rejected
+     */
+    public static String validate(ProductRow row) {
+        if (row.sku == null || row.sku.isBlank()) {
+            return "sku is required";
+        }
+        row.sku = row.sku.trim();
+        if (row.sku.length() > SKU_LENGTH) {
+            return "sku longer than " + SKU_LENGTH;
+        }
+        for (int i = 0; i < row.sku.length(); i++) {
+            char c = row.sku.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.')) {
+                return "sku contains invalid character '" + c + "'";
+            }
+        }
+        if (row.name == null || row.name.isBlank()) {
+            return "name is required";
+        }
+        if (row.name.length() > NAME_LENGTH) {
+            return "name longer than " + NAME_LENGTH;
+        }
+        if (row.brand != null && row.brand.length() > BRAND_LENGTH) {
+            return "brand longer than " + BRAND_LENGTH;
+        }
+        if (row.priceText == null) {
+            return "price is required";
+        }
+        try {
+            row.price = new BigDecimal(row.priceText.trim());
+        }
+        catch (NumberFormatException e) {
+            return "price is not a number";
+        }
+        if (row.price.signum() < 0 || row.price.compareTo(MAX_PRICE) > 0 || row.price.scale() > 2) {
+            return "price must be between 0 and " + MAX_PRICE + " with at most 2 decimals";
+        }
+        try {
+            row.stock = row.stockText == null ? 0 : Integer.parseInt(row.stockText.trim());
+            row.categoryId = row.categoryText == null ? null : Long.valueOf(row.categoryText.trim());
+        }
+        catch (NumberFormatException e) {
+            return "stock and category_id must be integers";
+        }
+        if (row.stock < 0) {
+            return "stock must not be negative";
+        }
+        if (row.attributes != null) {
+            String attributes = row.attributes.trim();
+            if (!attributes.startsWith("{") || !attributes.endsWith("}")) {
+                return "attributes must be a JSON object";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package org.kun.productservice.inbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.inventory.InventoryProperties;
+import org.kun.productservice.recommend.RecommendationService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(InboxProperties.class)
+public class InboxConfig {
+
+    @Bean(initMethod = "start")
+    public OrderEventInbox orderEventInbox(JdbcTemplate jdbcTemplate, InventoryEngine inventoryEngine,
+                                           InventoryProperties inventoryProperties,
+                                           RecommendationService recommendationService, InboxProperties properties,
+                                           MeterRegistry meterRegistry) {
+        return new OrderEventInbox(jdbcTemplate, inventoryEngine, inventoryProperties, recommendationService,
+                properties, meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package org.kun.productservice.inbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.inbox")
+public class InboxProperties {
+
+    /**
+     * How long processed event ids are remembered; must exceed the longest time the
+     * publisher keeps retrying an event.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    /**
+     * How long a delivery may take to apply one event before another delivery takes
+     * over its claim; must exceed the inventory's ack timeout.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Take the ordered quantities from inventory when an order is placed.
+     */
+    private boolean reserveInventory = true;
+}
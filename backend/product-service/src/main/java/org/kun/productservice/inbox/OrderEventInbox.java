@@ -0,0 +1,220 @@
+package org.kun.productservice.inbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.productservice.dto.OrderPlacedEvent;
+import org.kun.productservice.entity.ProcessedEvent;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.inventory.InventoryProperties;
+import org.kun.productservice.inventory.ReservationResult;
+import org.kun.productservice.recommend.RecommendationService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Applies {@link OrderPlacedEvent}s from order-service, which delivers them at least
+ * once: each event reserves its quantities in the {@link InventoryEngine} and feeds
+ * the recommendations, and a redelivery is skipped.
+ * <p>
+ * Before applying an event a delivery claims its id with an insert into
+ * {@code processed_events}, so of two deliveries of the same event, on this
+ * instance or another, only the one whose insert lands applies it; the other is
+ * refused and the publisher retries it later. The claim is marked processed after
+ * the event's effects, and given up when they fail.
+ * <p>
+ * Claiming and marking are not atomic with the effects: when an instance dies after
+ * applying an event but before marking it, its claim is taken over once
+ * {@code claim-timeout} has passed and the event is applied again.
+ */
+@Slf4j
+public class OrderEventInbox {
+
+    private static final String CLAIM = "INSERT INTO processed_events (event_id, status, processed_at) "
+            + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+    // a claim whose delivery died before finishing it
+    private static final String TAKE_OVER = "UPDATE processed_events SET processed_at = ? "
+            + "WHERE event_id = ? AND status = ? AND processed_at < ?";
+    private static final String MARK_PROCESSED =
+            "UPDATE processed_events SET status = ?, processed_at = ? WHERE event_id = ?";
+    private static final String RELEASE = "DELETE FROM processed_events WHERE event_id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryEngine inventoryEngine;
+    private final InventoryProperties inventoryProperties;
+    private final RecommendationService recommendationService;
+    private final InboxProperties properties;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inbox-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter shortfalls;
+
+    public OrderEventInbox(JdbcTemplate jdbcTemplate, InventoryEngine inventoryEngine,
+                           InventoryProperties inventoryProperties, RecommendationService recommendationService,
+                           InboxProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryEngine = inventoryEngine;
+        this.inventoryProperties = inventoryProperties;
+        this.recommendationService = recommendationService;
+        this.properties = properties;
+        this.processed = meterRegistry.counter("inbox.events", "result", "processed");
+        this.duplicates = meterRegistry.counter("inbox.events", "result", "duplicate");
+        this.shortfalls = meterRegistry.counter("inbox.inventory.shortfall");
+    }
+
+    public void start() {
+        long interval = properties.getPurgeInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Applies the events not processed before. Throws {@link IllegalStateException}
+     * when an event could not be applied or another delivery is applying it; the
+     * events before it stay applied.
+     */
+    public void accept(List<OrderPlacedEvent> events) {
+        Map<String, OrderPlacedEvent> unique = new LinkedHashMap<>();
+        events.forEach(event -> unique.putIfAbsent(event.getEventId(), event));
+        Set<String> done = processedAmong(unique.keySet());
+        duplicates.increment(done.size());
+        for (OrderPlacedEvent event : unique.values()) {
+            String eventId = event.getEventId();
+            if (done.contains(eventId)) {
+                continue;
+            }
+            if (!claim(eventId)) {
+                if (processedAmong(List.of(eventId)).isEmpty()) {
+                    throw new IllegalStateException("Event " + eventId + " is being processed by another delivery");
+                }
+                duplicates.increment();
+                continue;
+            }
+            try {
+                apply(event);
+            }
+            catch (RuntimeException e) {
+                release(eventId);
+                throw e;
+            }
+            jdbcTemplate.update(MARK_PROCESSED, ProcessedEvent.Status.PROCESSED.name(), Timestamp.from(Instant.now()),
+                    eventId);
+        }
+    }
+
+    private boolean claim(String eventId) {
+        Instant now = Instant.now();
+        if (jdbcTemplate.update(CLAIM, eventId, ProcessedEvent.Status.CLAIMED.name(), Timestamp.from(now)) == 1) {
+            return true;
+        }
+        return jdbcTemplate.update(TAKE_OVER, Timestamp.from(now), eventId, ProcessedEvent.Status.CLAIMED.name(),
+                Timestamp.from(now.minus(properties.getClaimTimeout()))) == 1;
+    }
+
+    private void release(String eventId) {
+        try {
+            jdbcTemplate.update(RELEASE, eventId, ProcessedEvent.Status.CLAIMED.name());
+        }
+        catch (DataAccessException e) {
+            log.warn("Could not give up the claim on event {}; it is taken over once it times out", eventId, e);
+        }
+    }
+
+    private void apply(OrderPlacedEvent event) {
+        if (properties.isReserveInventory()) {
+            reserve(event);
+        }
+        recommendationService.orderPlaced(event.getItems().stream()
+                .mapToLong(OrderPlacedEvent.Item::getProductId)
+                .toArray());
+        processed.increment();
+    }
+
+    private void reserve(OrderPlacedEvent event) {
+        List<OrderPlacedEvent.Item> items = event.getItems().stream().filter(item -> item.getQuantity() > 0).toList();
+        List<CompletableFuture<ReservationResult>> results = new ArrayList<>(items.size());
+        items.forEach(item -> results.add(inventoryEngine.reserve(item.getProductId(), item.getQuantity())));
+        long deadline = System.nanoTime() + inventoryProperties.getAckTimeout().toNanos();
+        List<OrderPlacedEvent.Item> reserved = new ArrayList<>(items.size());
+        RuntimeException failure = null;
+        for (int i = 0; i < items.size(); i++) {
+            OrderPlacedEvent.Item item = items.get(i);
+            try {
+                ReservationResult result = results.get(i).get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                if (result.status() == ReservationResult.Status.RESERVED) {
+                    reserved.add(item);
+                }
+                else {
+                    // the order is already placed; a shortfall is for the back office, not a reason to retry
+                    shortfalls.increment();
+                    log.warn("Order {} takes {} of product {}, which is {}", event.getOrderId(), item.getQuantity(),
+                            item.getProductId(), result.status());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("Interrupted while reserving order " + event.getOrderId(), e);
+            }
+            catch (ExecutionException | TimeoutException e) {
+                failure = new IllegalStateException("Could not reserve stock for order " + event.getOrderId(), e);
+            }
+        }
+        if (failure != null) {
+            // give back what was taken, so the redelivery does not take it twice;
+            // a reservation that timed out may still land, which only errs towards less stock
+            reserved.forEach(item -> inventoryEngine.restock(item.getProductId(), item.getQuantity()));
+            throw failure;
+        }
+    }
+
+    private Set<String> processedAmong(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT event_id FROM processed_events WHERE status = ? AND event_id IN ("
+                + String.join(",", Collections.nCopies(eventIds.size(), "?")) + ")";
+        List<Object> args = new ArrayList<>(eventIds.size() + 1);
+        args.add(ProcessedEvent.Status.PROCESSED.name());
+        args.addAll(eventIds);
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class, args.toArray()));
+    }
+
+    private void purge() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?",
+                    Timestamp.from(Instant.now().minus(properties.getRetention())));
+            log.debug("Purged {} processed event ids", purged);
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not purge processed event ids", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.kun.productservice.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(InventoryProperties.class)
+public class InventoryConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public InventoryEngine inventoryEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           InventoryProperties properties, MeterRegistry meterRegistry) {
+        return new InventoryEngine(jdbcTemplate, transactionManager, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,421 @@
+package org.kun.productservice.inventory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves stock against in-memory counters and makes every change durable
+ * before acknowledging it.
+ * <ol>
+ * <li>A reservation takes units from the product's {@link StripedStock} with CAS,
+ * so hot products never wait on a row lock and never go below zero.</li>
+ * <li>The log thread appends queued changes to the {@link ReservationLog} with one
+ * fsync per group and only then completes the callers' futures.</li>
+ * <li>The write-behind thread folds logged changes into one transaction per batch:
+ * one {@code inventory} update per product, the reservation rows and the log
+ * checkpoint, all together.</li>
+ * </ol>
+ * On start, records after the checkpoint are replayed into the database before
+ * any counter is loaded, so a crash loses nothing that was acknowledged.
+ * <p>
+ * The counters are authoritative, so a product must be reserved through one
+ * engine only; running several replicas needs requests routed by product.
+ */
+@Slf4j
+public class InventoryEngine implements AutoCloseable {
+
+    private static final String UPDATE_AVAILABLE = "UPDATE inventory SET available = available + ? WHERE product_id = ?";
+    private static final String INSERT_RESERVATION =
+            "INSERT INTO inventory_reservations (id, product_id, quantity, created_at) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_CHECKPOINT = "UPDATE inventory_checkpoint SET applied_sequence = ? WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryProperties properties;
+    private final int stripes;
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> logQueue;
+    private final BlockingQueue<List<LogRecord>> applyQueue = new LinkedBlockingQueue<>();
+    private final Thread logThread = new Thread(this::runLog, "inventory-log");
+    private final Thread writerThread = new Thread(this::runWriteBehind, "inventory-write-behind");
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Timer logForce;
+    private final DistributionSummary groupSize;
+
+    private ReservationLog reservationLog;
+    private long nextSequence;
+    private volatile long loggedSequence;
+    private volatile long appliedSequence;
+    private volatile boolean running;
+
+    public InventoryEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           InventoryProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.stripes = properties.getStripes() > 0
+                ? properties.getStripes() : Runtime.getRuntime().availableProcessors() * 2;
+        this.logQueue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.reserved = meterRegistry.counter("inventory.reservations", "result", "reserved");
+        this.rejected = meterRegistry.counter("inventory.reservations", "result", "rejected");
+        this.logForce = meterRegistry.timer("inventory.log.force");
+        this.groupSize = meterRegistry.summary("inventory.log.group.size");
+        meterRegistry.gauge("inventory.write.behind.lag", this, engine -> engine.loggedSequence - engine.appliedSequence);
+        logThread.setDaemon(true);
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Replays the log into the database, then starts accepting changes.
+     */
+    public void start() throws IOException {
+        jdbcTemplate.update("INSERT INTO inventory_checkpoint (id, applied_sequence) SELECT 1, 0 "
+                + "WHERE NOT EXISTS (SELECT 1 FROM inventory_checkpoint WHERE id = 1)");
+        long checkpoint = jdbcTemplate.queryForObject(
+                "SELECT applied_sequence FROM inventory_checkpoint WHERE id = 1", Long.class);
+
+        reservationLog = new ReservationLog(Path.of(properties.getLogPath()));
+        List<LogRecord> replay = new ArrayList<>();
+        long[] last = {checkpoint};
+        long[] replayed = {0};
+        reservationLog.recover(record -> {
+            last[0] = Math.max(last[0], record.sequence());
+            if (record.sequence() > checkpoint) {
+                replay.add(record);
+                replayed[0]++;
+                if (replay.size() >= properties.getWriteBehindBatchSize()) {
+                    apply(replay);
+                    replay.clear();
+                }
+            }
+        });
+        if (!replay.isEmpty()) {
+            apply(replay);
+        }
+        if (replayed[0] > 0) {
+            log.info("Replayed {} inventory changes from {} after checkpoint {}", replayed[0],
+                    properties.getLogPath(), checkpoint);
+        }
+        reservationLog.reset();
+        nextSequence = last[0] + 1;
+        loggedSequence = last[0];
+        appliedSequence = last[0];
+
+        running = true;
+        logThread.start();
+        writerThread.start();
+    }
+
+    /**
+     * Takes {@code quantity} units of the product. Completes once the reservation is
+     * durable, or immediately when it is rejected.
+     */
+    public CompletableFuture<ReservationResult> reserve(long productId, int quantity) {
+        requirePositive(quantity);
+        StripedStock stock = stock(productId);
+        if (stock == null) {
+            return CompletableFuture.completedFuture(ReservationResult.unknownProduct());
+        }
+        if (!stock.tryTake(quantity)) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(new ReservationResult(
+                    ReservationResult.Status.INSUFFICIENT_STOCK, null, stock.available()));
+        }
+        reserved.increment();
+        return enqueue(LogRecord.Type.RESERVE, productId, quantity).thenApply(sequence ->
+                new ReservationResult(ReservationResult.Status.RESERVED, sequence, stock.available()));
+    }
+
+    /**
+     * Adds {@code quantity} units. They become reservable only once the restock is
+     * durable; otherwise a crash could keep reservations of units it forgot.
+     */
+    public CompletableFuture<ReservationResult> restock(long productId, int quantity) {
+        requirePositive(quantity);
+        StripedStock stock = stock(productId);
+        if (stock == null) {
+            return CompletableFuture.completedFuture(ReservationResult.unknownProduct());
+        }
+        return enqueue(LogRecord.Type.RESTOCK, productId, quantity).thenApply(sequence ->
+                new ReservationResult(ReservationResult.Status.RESTOCKED, sequence, stock.available()));
+    }
+
+    /**
+     * Units currently reservable, or -1 for an unknown product.
+     */
+    public long available(long productId) {
+        StripedStock stock = stock(productId);
+        return stock == null ? -1 : stock.available();
+    }
+
+    /**
+     * Units currently reservable if the product's stock is already in memory, else -1;
+     * never reads the database.
+     */
+    public long loadedAvailable(long productId) {
+        StripedStock stock = stocks.get(productId);
+        return stock == null ? -1 : stock.available();
+    }
+
+    /**
+     * Stops accepting changes, waits until everything queued is logged and applied.
+     */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        logThread.join();
+        writerThread.join();
+        failQueued();
+        reservationLog.close();
+    }
+
+    /**
+     * Stops at once, dropping whatever has not been applied yet, as a crash would.
+     */
+    void halt() throws Exception {
+        running = false;
+        logThread.interrupt();
+        writerThread.interrupt();
+        logThread.join();
+        writerThread.join();
+        failQueued();
+        reservationLog.close();
+    }
+
+    long appliedSequence() {
+        return appliedSequence;
+    }
+
+    long loggedSequence() {
+        return loggedSequence;
+    }
+
+    /**
+     * The product's counter, loaded on first use. The database is read outside the map
+     * so a slow load holds up no other product; racing loads read the same row and the
+     * first counter stored wins.
+     */
+    private StripedStock stock(long productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        Long available = loadAvailable(productId);
+        if (available == null) {
+            return null;
+        }
+        StripedStock loaded = new StripedStock(available, stripes);
+        StripedStock existing = stocks.putIfAbsent(productId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Long loadAvailable(long productId) {
+        String select = "SELECT available FROM inventory WHERE product_id = ?";
+        List<Long> rows = jdbcTemplate.queryForList(select, Long.class, productId);
+        if (rows.isEmpty()) {
+            // first reservation of the product: the engine takes over its catalog stock
+            jdbcTemplate.update("INSERT INTO inventory (product_id, available) SELECT id, stock FROM products "
+                    + "WHERE id = ? AND NOT EXISTS (SELECT 1 FROM inventory WHERE product_id = ?)", productId, productId);
+            rows = jdbcTemplate.queryForList(select, Long.class, productId);
+        }
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private CompletableFuture<Long> enqueue(LogRecord.Type type, long productId, int quantity) {
+        if (!running) {
+            giveBack(type, productId, quantity);
+            return CompletableFuture.failedFuture(new IllegalStateException("Inventory engine is not running"));
+        }
+        Pending pending = new Pending(type, productId, quantity, new CompletableFuture<>());
+        try {
+            logQueue.put(pending);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            giveBack(type, productId, quantity);
+            return CompletableFuture.failedFuture(e);
+        }
+        return pending.durable();
+    }
+
+    private void runLog() {
+        List<Pending> group = new ArrayList<>(properties.getGroupCommitSize());
+        List<LogRecord> records = new ArrayList<>(properties.getGroupCommitSize());
+        try {
+            while (running || !logQueue.isEmpty()) {
+                Pending first = logQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    resetLogIfApplied();
+                    continue;
+                }
+                group.add(first);
+                logQueue.drainTo(group, properties.getGroupCommitSize() - 1);
+                long now = System.currentTimeMillis();
+                for (Pending pending : group) {
+                    records.add(new LogRecord(pending.type(), nextSequence++, pending.productId(), pending.quantity(),
+                            now));
+                }
+                if (commit(group, records)) {
+                    applyQueue.add(List.copyOf(records));
+                }
+                else {
+                    nextSequence -= records.size();
+                }
+                group.clear();
+                records.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean commit(List<Pending> group, List<LogRecord> records) {
+        long start = System.nanoTime();
+        try {
+            reservationLog.append(records);
+        }
+        catch (IOException e) {
+            log.error("Could not write {} inventory changes to the reservation log", records.size(), e);
+            for (Pending pending : group) {
+                giveBack(pending.type(), pending.productId(), pending.quantity());
+                pending.durable().completeExceptionally(new UncheckedIOException(e));
+            }
+            return false;
+        }
+        logForce.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        groupSize.record(records.size());
+        loggedSequence = records.get(records.size() - 1).sequence();
+        for (int i = 0; i < group.size(); i++) {
+            Pending pending = group.get(i);
+            if (pending.type() == LogRecord.Type.RESTOCK) {
+                stocks.get(pending.productId()).add(pending.quantity());
+            }
+            pending.durable().complete(records.get(i).sequence());
+        }
+        return true;
+    }
+
+    private void resetLogIfApplied() {
+        try {
+            if (appliedSequence == loggedSequence && reservationLog.size() > properties.getMaxLogSize().toBytes()) {
+                reservationLog.reset();
+            }
+        }
+        catch (IOException e) {
+            log.warn("Could not reset the reservation log", e);
+        }
+    }
+
+    private void runWriteBehind() {
+        long delay = properties.getWriteBehindDelay().toNanos();
+        try {
+            while (running || !applyQueue.isEmpty() || logThread.isAlive()) {
+                List<LogRecord> first = applyQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<LogRecord> batch = new ArrayList<>(first);
+                long deadline = System.nanoTime() + delay;
+                while (batch.size() < properties.getWriteBehindBatchSize()) {
+                    List<LogRecord> next = applyQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.addAll(next);
+                }
+                applyWithRetry(batch);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applyWithRetry(List<LogRecord> batch) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            try {
+                apply(batch);
+                appliedSequence = batch.get(batch.size() - 1).sequence();
+                return;
+            }
+            catch (DataAccessException e) {
+                // the records are safe in the log; keep the order and try again
+                log.warn("Could not apply {} inventory changes, retrying in {} ms", batch.size(), backoff, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+    }
+
+    private void apply(List<LogRecord> records) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        List<Object[]> reservations = new ArrayList<>();
+        for (LogRecord record : records) {
+            deltas.merge(record.productId(), record.delta(), Long::sum);
+            if (record.type() == LogRecord.Type.RESERVE) {
+                reservations.add(new Object[]{record.sequence(), record.productId(), record.quantity(),
+                        new Timestamp(record.timestamp())});
+            }
+        }
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> updates.add(new Object[]{delta, productId}));
+        long checkpoint = records.get(records.size() - 1).sequence();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_AVAILABLE, updates);
+            if (!reservations.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_RESERVATION, reservations);
+            }
+            jdbcTemplate.update(UPDATE_CHECKPOINT, checkpoint);
+        });
+    }
+
+    private void giveBack(LogRecord.Type type, long productId, int quantity) {
+        if (type == LogRecord.Type.RESERVE) {
+            stocks.get(productId).add(quantity);
+        }
+    }
+
+    private void failQueued() {
+        List<Pending> left = new ArrayList<>();
+        logQueue.drainTo(left);
+        for (Pending pending : left) {
+            giveBack(pending.type(), pending.productId(), pending.quantity());
+            pending.durable().completeExceptionally(new IllegalStateException("Inventory engine stopped"));
+        }
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
+    private record Pending(LogRecord.Type type, long productId, int quantity, CompletableFuture<Long> durable) {
+    }
+}
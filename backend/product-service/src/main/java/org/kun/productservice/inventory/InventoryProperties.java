@@ -0,0 +1,49 @@
+package org.kun.productservice.inventory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.inventory")
+public class InventoryProperties {
+
+    /**
+     * Reservation log; reservations are acknowledged once they are forced to this file.
+     */
+    private String logPath = "data/inventory.log";
+
+    /**
+     * Most records forced to the log with one fsync.
+     */
+    private int groupCommitSize = 1_024;
+
+    /**
+     * Reservations waiting for the log; callers block when it is full.
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * How long the write-behind collects logged records before one database transaction.
+     */
+    private Duration writeBehindDelay = Duration.ofMillis(50);
+
+    private int writeBehindBatchSize = 10_000;
+
+    /**
+     * The log is emptied once everything in it has been applied and it has grown past this.
+     */
+    private DataSize maxLogSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Counter cells per product; 0 picks twice the processor count.
+     */
+    private int stripes = 0;
+
+    /**
+     * How long a request waits for its reservation to become durable.
+     */
+    private Duration ackTimeout = Duration.ofSeconds(2);
+}
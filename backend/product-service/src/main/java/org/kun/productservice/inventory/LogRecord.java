@@ -0,0 +1,17 @@
+package org.kun.productservice.inventory;
+
+/**
+ * One entry of the reservation log.
+ *
+ * @param quantity units taken ({@link Type#RESERVE}) or added ({@link Type#RESTOCK})
+ */
+record LogRecord(Type type, long sequence, long productId, int quantity, long timestamp) {
+
+    enum Type {
+        RESERVE, RESTOCK
+    }
+
+    long delta() {
+        return type == Type.RESERVE ? -quantity : quantity;
+    }
+}
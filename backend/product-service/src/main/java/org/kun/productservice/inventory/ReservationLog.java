@@ -0,0 +1,152 @@
+package org.kun.productservice.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of fixed-size {@link LogRecord}s, each followed by a CRC so a
+ * write torn by a crash is detected and cut off on recovery. Appends are grouped:
+ * one write and one {@link FileChannel#force} per batch.
+ * <p>
+ * Not thread-safe; used by the engine's log thread only.
+ */
+@Slf4j
+final class ReservationLog implements AutoCloseable {
+
+    // type(1) sequence(8) product(8) quantity(4) timestamp(8) crc(4)
+    static final int RECORD_SIZE = 33;
+
+    private final Path path;
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 1_024);
+
+    ReservationLog(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Passes every intact record to {@code consumer} in file order and cuts the file
+     * after the last one.
+     *
+     * @return the number of intact records
+     */
+    long recover(Consumer<LogRecord> consumer) throws IOException {
+        long size = channel.size();
+        ByteBuffer read = ByteBuffer.allocate(RECORD_SIZE * 4_096);
+        long position = 0;
+        outer:
+        while (size - position >= RECORD_SIZE) {
+            read.clear().limit((int) Math.min(read.capacity(), (size - position) / RECORD_SIZE * RECORD_SIZE));
+            while (read.hasRemaining() && channel.read(read, position + read.position()) > 0) {
+                // fill the chunk
+            }
+            read.flip();
+            while (read.remaining() >= RECORD_SIZE) {
+                LogRecord record = decode(read);
+                if (record == null) {
+                    break outer;
+                }
+                consumer.accept(record);
+                position += RECORD_SIZE;
+            }
+        }
+        if (position < size) {
+            log.warn("Reservation log {} has {} bytes of torn or corrupt data after {} records; truncating",
+                    path, size - position, position / RECORD_SIZE);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return position / RECORD_SIZE;
+    }
+
+    /**
+     * Appends {@code records} and forces them to the device before returning.
+     */
+    void append(List<LogRecord> records) throws IOException {
+        int bytes = records.size() * RECORD_SIZE;
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+        }
+        buffer.clear();
+        CRC32C crc = new CRC32C();
+        for (LogRecord record : records) {
+            int start = buffer.position();
+            buffer.put((byte) record.type().ordinal())
+                    .putLong(record.sequence())
+                    .putLong(record.productId())
+                    .putInt(record.quantity())
+                    .putLong(record.timestamp());
+            crc.reset();
+            crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+            buffer.putInt((int) crc.getValue());
+        }
+        buffer.flip();
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        catch (IOException e) {
+            // drop whatever part of the batch reached the file: it was never acknowledged,
+            // and a torn record here would hide every later batch from recovery
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            }
+            catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Empties the log; only valid once every record in it has been applied.
+     */
+    void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static LogRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(start + RECORD_SIZE - 4));
+        int type = buffer.get();
+        long sequence = buffer.getLong();
+        long productId = buffer.getLong();
+        int quantity = buffer.getInt();
+        long timestamp = buffer.getLong();
+        int checksum = buffer.getInt();
+        if (checksum != (int) crc.getValue() || type < 0 || type >= LogRecord.Type.values().length) {
+            return null;
+        }
+        return new LogRecord(LogRecord.Type.values()[type], sequence, productId, quantity, timestamp);
+    }
+}
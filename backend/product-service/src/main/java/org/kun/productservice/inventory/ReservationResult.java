@@ -0,0 +1,18 @@
+package org.kun.productservice.inventory;
+
+/**
+ * Outcome of a reservation or restock.
+ *
+ * @param reservationId log sequence of the durable record; null unless {@link Status#RESERVED} or {@link Status#RESTOCKED}
+ * @param available     units left after the operation, as seen by this request
+ */
+public record ReservationResult(Status status, Long reservationId, long available) {
+
+    public enum Status {
+        RESERVED, RESTOCKED, INSUFFICIENT_STOCK, UNKNOWN_PRODUCT
+    }
+
+    static ReservationResult unknownProduct() {
+        return new ReservationResult(Status.UNKNOWN_PRODUCT, null, 0);
+    }
+}
@@ -0,0 +1,95 @@
+package org.kun.productservice.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Available units of one product spread over padded cells so that concurrent
+ * reservations of a hot product CAS different cache lines. A cell never goes below
+ * zero, so the units handed out never exceed the units put in.
+ * <p>
+ * A take first tries the caller's cell, then the others. Only when none holds
+ * enough does it lock, gather every cell into one total and decide there; a
+ * rejection is therefore only issued against the full remaining stock.
+ */
+final class StripedStock {
+
+    // 8 longs = 64 bytes, so neighbouring cells never share a cache line
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private final ReentrantLock rebalance = new ReentrantLock();
+
+    StripedStock(long available, int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PAD);
+        spread(available);
+    }
+
+    boolean tryTake(int quantity) {
+        int start = probe();
+        for (int i = 0; i < stripes; i++) {
+            if (takeFrom((start + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        return takeGathered(quantity);
+    }
+
+    void add(long quantity) {
+        cells.getAndAdd(probe() * PAD, quantity);
+    }
+
+    /**
+     * Sum of the cells; exact when nothing is reserving concurrently.
+     */
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PAD);
+        }
+        return total;
+    }
+
+    private boolean takeFrom(int stripe, int quantity) {
+        int index = stripe * PAD;
+        long current;
+        do {
+            current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    private boolean takeGathered(int quantity) {
+        rebalance.lock();
+        try {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.getAndSet(i * PAD, 0);
+            }
+            boolean taken = total >= quantity;
+            spread(taken ? total - quantity : total);
+            return taken;
+        }
+        finally {
+            rebalance.unlock();
+        }
+    }
+
+    private void spread(long units) {
+        long share = units / stripes;
+        cells.getAndAdd(0, share + units % stripes);
+        for (int i = 1; i < stripes; i++) {
+            cells.getAndAdd(i * PAD, share);
+        }
+    }
+
+    private int probe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % stripes;
+    }
+}
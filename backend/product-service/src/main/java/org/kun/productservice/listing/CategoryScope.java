@@ -0,0 +1,20 @@
+package org.kun.productservice.listing;
+
+/**
+ * Which products a listing page draws from.
+ */
+public enum CategoryScope {
+
+    ALL,
+
+    /**
+     * Products directly in one category, read in order from a {@code category_id} index.
+     */
+    CATEGORY,
+
+    /**
+     * Products in a category or any category below it, taken from the closure table
+     * and read in order from the catalog-wide index for the sort.
+     */
+    SUBTREE
+}
@@ -0,0 +1,39 @@
+package org.kun.productservice.listing;
+
+import org.kun.productservice.dto.ProductSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page: its sort key and id. Encoded as
+ * base64url of {@code sort:id:key}; a cursor is only valid for the sort that issued it.
+ */
+public record ListingCursor(ProductSort sort, Object key, long id) {
+
+    public static ListingCursor after(ProductSort sort, ProductSummary last) {
+        return new ListingCursor(sort, sort.keyOf(last), last.id());
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public static ListingCursor decode(String cursor, ProductSort sort) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 3);
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to sort " + sort);
+        }
+        try {
+            return new ListingCursor(sort, sort.parseKey(parts[2]), Long.parseLong(parts[1]));
+        }
+        catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.kun.productservice.listing;
+
+/**
+ * SQL for keyset listing pages. The cursor is a row-value comparison on the
+ * sort key, which both Postgres and H2 turn into an index range start, and the
+ * ORDER BY repeats the index columns so no sort step is needed.
+ */
+public final class ProductListingQueries {
+
+    static final String COLUMNS = "id, sku, name, brand, category_id, price, created_at";
+
+    private ProductListingQueries() {
+    }
+
+    /**
+     * Named parameters: {@code :category}, {@code :key}, {@code :id}. The limit is inlined:
+     * H2 only credits an index's order against a literal row limit and otherwise may pick
+     * another {@code category_id} index and sort the whole category.
+     */
+    public static String sql(ProductSort sort, CategoryScope scope, boolean afterCursor, int limit) {
+        boolean byCategory = scope == CategoryScope.CATEGORY;
+        String direction = sort.ascending() ? "ASC" : "DESC";
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM products");
+        String where = " WHERE ";
+        if (byCategory) {
+            sql.append(where).append("category_id = :category");
+            where = " AND ";
+        }
+        else if (scope == CategoryScope.SUBTREE) {
+            sql.append(where)
+                    .append("category_id IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = :category)");
+            where = " AND ";
+        }
+        if (afterCursor) {
+            sql.append(where).append('(').append(sort.column()).append(", id) ")
+                    .append(sort.ascending() ? '>' : '<').append(" (:key, :id)");
+        }
+        sql.append(" ORDER BY ");
+        if (byCategory) {
+            // the category follows the scan direction of the index, not the sort's
+            sql.append("category_id ").append(sort.backwardScan() ? "DESC" : "ASC").append(", ");
+        }
+        sql.append(sort.column()).append(' ').append(direction).append(", id ").append(direction);
+        return sql.append(" LIMIT ").append(limit).toString();
+    }
+}
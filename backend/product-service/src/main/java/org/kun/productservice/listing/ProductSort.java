@@ -0,0 +1,73 @@
+package org.kun.productservice.listing;
+
+import org.kun.productservice.dto.ProductSummary;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Listing orders. Each one is a unique key {@code (column, id)} backed by a
+ * composite index (with and without {@code category_id} in front), so a page is
+ * a single index range scan wherever it starts. {@link #NEWEST} has descending
+ * indexes of its own; {@link #PRICE_DESC} walks the price indexes backwards.
+ */
+public enum ProductSort {
+
+    PRICE_ASC("price", true, false),
+    PRICE_DESC("price", false, true),
+    NEWEST("created_at", false, false),
+    NAME("name", true, false);
+
+    private final String column;
+    private final boolean ascending;
+    private final boolean backwardScan;
+
+    ProductSort(String column, boolean ascending, boolean backwardScan) {
+        this.column = column;
+        this.ascending = ascending;
+        this.backwardScan = backwardScan;
+    }
+
+    public static ProductSort fromParameter(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public boolean ascending() {
+        return ascending;
+    }
+
+    /**
+     * Whether the backing index is declared in the opposite direction and read from the end.
+     */
+    public boolean backwardScan() {
+        return backwardScan;
+    }
+
+    /**
+     * The sort key of a row as cursor text.
+     */
+    String keyOf(ProductSummary product) {
+        return switch (this) {
+            case PRICE_ASC, PRICE_DESC -> product.price().toPlainString();
+            case NEWEST -> product.createdAt().toString();
+            case NAME -> product.name();
+        };
+    }
+
+    /**
+     * The cursor text back as a JDBC parameter of the column's type.
+     */
+    Object parseKey(String key) {
+        return switch (this) {
+            case PRICE_ASC, PRICE_DESC -> new BigDecimal(key);
+            case NEWEST -> Timestamp.from(Instant.parse(key));
+            case NAME -> key;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.kun.productservice.lookup;
+
+import org.kun.productservice.dto.ProductLookupItem;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prices and stock of many products in one query, for callers that would otherwise
+ * read them one product at a time. Stock is the inventory engine's in-memory count
+ * when it holds the product and the stored count otherwise; it is advisory, as only
+ * a reservation takes units.
+ */
+@Service
+public class ProductLookupService {
+
+    /**
+     * Most ids plus SKUs answered by one lookup.
+     */
+    public static final int MAX_KEYS = 500;
+
+    private static final String SELECT = "SELECT p.id, p.sku, p.name, p.price, p.category_id, "
+            + "COALESCE(i.available, p.stock) AS available "
+            + "FROM products p LEFT JOIN inventory i ON i.product_id = p.id WHERE ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventoryEngine inventoryEngine;
+
+    public ProductLookupService(NamedParameterJdbcTemplate jdbcTemplate, InventoryEngine inventoryEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryEngine = inventoryEngine;
+    }
+
+    /**
+     * The products found by id or SKU, each once; unknown keys are left out.
+     *
+     * @throws IllegalArgumentException for more than {@link #MAX_KEYS} keys
+     */
+    @Transactional(readOnly = true)
+    public List<ProductLookupItem> lookup(Collection<Long> ids, Collection<String> skus) {
+        int keys = (ids == null ? 0 : ids.size()) + (skus == null ? 0 : skus.size());
+        if (keys > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " ids and SKUs per lookup");
+        }
+        if (keys == 0) {
+            return List.of();
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>(2);
+        if (ids != null && !ids.isEmpty()) {
+            parameters.addValue("ids", ids);
+            conditions.add("p.id IN (:ids)");
+        }
+        if (skus != null && !skus.isEmpty()) {
+            parameters.addValue("skus", skus);
+            conditions.add("p.sku IN (:skus)");
+        }
+        return jdbcTemplate.query(SELECT + String.join(" OR ", conditions), parameters, (rs, row) -> {
+            long id = rs.getLong("id");
+            long loaded = inventoryEngine.loadedAvailable(id);
+            return new ProductLookupItem(id, rs.getString("sku"), rs.getString("name"), rs.getBigDecimal("price"),
+                    loaded >= 0 ? loaded : rs.getLong("available"), rs.getObject("category_id", Long.class));
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package org.kun.productservice.recommend;
+
+import org.kun.productservice.search.LongIntHashMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Bought together" counts: for every product, how many orders also contained each
+ * of its most frequent companions. Orders update it incrementally; memory is
+ * bounded by the number of products times the neighbours kept per product.
+ */
+public class CoOccurrenceIndex {
+
+    private static final int MAGIC = 0x52454330;
+    private static final int VERSION = 1;
+
+    private final int neighbours;
+    private final LongIntHashMap positions = new LongIntHashMap(1_024);
+    private final List<Neighbours> lists = new ArrayList<>();
+    private long[] ids = new long[1_024];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoOccurrenceIndex(int neighbours) {
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Counts one order; {@code products} must be distinct.
+     */
+    public void add(long[] products) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < products.length; i++) {
+                Neighbours list = listOf(products[i]);
+                for (int j = 0; j < products.length; j++) {
+                    if (i != j) {
+                        list.add(products[j], 1);
+                    }
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Products most often bought with {@code product}, most frequent first.
+     */
+    public List<Related> related(long product, int limit) {
+        lock.readLock().lock();
+        try {
+            int position = positions.get(product);
+            if (position == LongIntHashMap.MISSING) {
+                return List.of();
+            }
+            Neighbours list = lists.get(position);
+            List<Related> related = new ArrayList<>(Math.min(limit, list.size()));
+            for (int i : list.top(limit)) {
+                related.add(new Related(list.product(i), list.count(i)));
+            }
+            return related;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return lists.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a checkpoint. The counts are copied under the read lock and written after
+     * it is released, so orders being counted never wait for the disk.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        long[] products;
+        int[] sizes;
+        long[] companions;
+        int[] counts;
+        lock.readLock().lock();
+        try {
+            products = Arrays.copyOf(ids, lists.size());
+            sizes = new int[products.length];
+            int total = 0;
+            for (int p = 0; p < products.length; p++) {
+                sizes[p] = lists.get(p).size();
+                total += sizes[p];
+            }
+            companions = new long[total];
+            counts = new int[total];
+            int next = 0;
+            for (int p = 0; p < products.length; p++) {
+                Neighbours list = lists.get(p);
+                for (int i = 0; i < sizes[p]; i++, next++) {
+                    companions[next] = list.product(i);
+                    counts[next] = list.count(i);
+                }
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(products.length);
+        int next = 0;
+        for (int p = 0; p < products.length; p++) {
+            out.writeLong(products[p]);
+            out.writeInt(sizes[p]);
+            for (int i = 0; i < sizes[p]; i++, next++) {
+                out.writeLong(companions[next]);
+                out.writeInt(counts[next]);
+            }
+        }
+    }
+
+    /**
+     * Adds the counts written by {@link #writeTo(DataOutput)}.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a co-occurrence checkpoint");
+        }
+        lock.writeLock().lock();
+        try {
+            int products = in.readInt();
+            for (int p = 0; p < products; p++) {
+                Neighbours list = listOf(in.readLong());
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    list.add(in.readLong(), in.readInt());
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Neighbours listOf(long product) {
+        int position = positions.get(product);
+        if (position != LongIntHashMap.MISSING) {
+            return lists.get(position);
+        }
+        Neighbours list = new Neighbours(neighbours);
+        if (lists.size() == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[lists.size()] = product;
+        positions.put(product, lists.size());
+        lists.add(list);
+        return list;
+    }
+
+    public record Related(long productId, int orders) {
+    }
+}
@@ -0,0 +1,86 @@
+package org.kun.productservice.recommend;
+
+import java.util.Arrays;
+
+/**
+ * Co-purchase counts of one product in two parallel arrays. When the arrays are
+ * full, only the top half by count is kept, so long-tail pairings make way for
+ * new ones and memory stays bounded.
+ * <p>
+ * Not thread-safe.
+ */
+final class Neighbours {
+
+    private final int keep;
+    private long[] products;
+    private int[] counts;
+    private int size;
+
+    Neighbours(int keep) {
+        this.keep = keep;
+        this.products = new long[Math.min(4, keep * 2)];
+        this.counts = new int[products.length];
+    }
+
+    void add(long product, int count) {
+        for (int i = 0; i < size; i++) {
+            if (products[i] == product) {
+                counts[i] += count;
+                return;
+            }
+        }
+        if (size == products.length) {
+            if (size < keep * 2) {
+                products = Arrays.copyOf(products, Math.min(keep * 2, size * 2));
+                counts = Arrays.copyOf(counts, products.length);
+            }
+            else {
+                prune();
+            }
+        }
+        products[size] = product;
+        counts[size++] = count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long product(int i) {
+        return products[i];
+    }
+
+    int count(int i) {
+        return counts[i];
+    }
+
+    /**
+     * Positions of the {@code limit} highest counts, highest first.
+     */
+    int[] top(int limit) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a])
+                : Long.compare(products[a], products[b]));
+        int[] top = new int[Math.min(limit, size)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = order[i];
+        }
+        return top;
+    }
+
+    private void prune() {
+        int[] top = top(keep);
+        long[] keptProducts = new long[products.length];
+        int[] keptCounts = new int[counts.length];
+        for (int i = 0; i < top.length; i++) {
+            keptProducts[i] = products[top[i]];
+            keptCounts[i] = counts[top[i]];
+        }
+        products = keptProducts;
+        counts = keptCounts;
+        size = top.length;
+    }
+}
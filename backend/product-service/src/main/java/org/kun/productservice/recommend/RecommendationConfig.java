@@ -0,0 +1,15 @@
+package org.kun.productservice.recommend;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RecommendationProperties.class)
+public class RecommendationConfig {
+
+    @Bean(initMethod = "start")
+    public RecommendationService recommendationService(RecommendationProperties properties) {
+        return new RecommendationService(properties);
+    }
+}
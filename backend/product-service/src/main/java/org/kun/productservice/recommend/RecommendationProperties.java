@@ -0,0 +1,35 @@
+package org.kun.productservice.recommend;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.recommendations")
+public class RecommendationProperties {
+
+    /**
+     * Co-purchase counts are restored from this file on startup and written back to it
+     * at the checkpoint interval and on shutdown.
+     */
+    private String checkpointPath = "data/recommendations.bin";
+
+    private Duration checkpointInterval = Duration.ofMinutes(1);
+
+    /**
+     * Co-purchased products kept per product; up to twice as many are counted between
+     * prunings, after which only the most frequent this many survive.
+     */
+    private int neighbours = 20;
+
+    /**
+     * Larger orders only count their first this many distinct products, as an order
+     * adds a pair for every two of them.
+     */
+    private int maxItemsPerOrder = 50;
+
+    private int defaultLimit = 8;
+
+    private int maxLimit = 20;
+}
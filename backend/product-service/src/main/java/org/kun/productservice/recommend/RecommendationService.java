@@ -0,0 +1,141 @@
+package org.kun.productservice.recommend;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Feeds placed orders into the {@link CoOccurrenceIndex} and checkpoints it to a file,
+ * replaced atomically and followed by a CRC32C, so a restart resumes from the last
+ * checkpoint instead of replaying order history. Orders counted after the last
+ * checkpoint are lost on a crash, which only makes the counts slightly low.
+ */
+@Slf4j
+public class RecommendationService {
+
+    private final CoOccurrenceIndex index;
+    private final RecommendationProperties properties;
+    private final Path checkpoint;
+    private final AtomicLong changes = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recommendation-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long checkpointed;
+
+    public RecommendationService(RecommendationProperties properties) {
+        this.properties = properties;
+        this.index = new CoOccurrenceIndex(properties.getNeighbours());
+        this.checkpoint = Path.of(properties.getCheckpointPath());
+    }
+
+    public void start() {
+        restore();
+        long interval = properties.getCheckpointInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        checkpointQuietly();
+    }
+
+    /**
+     * Counts the distinct products of one order.
+     */
+    public void orderPlaced(long[] productIds) {
+        long[] products = Arrays.stream(productIds).distinct().limit(properties.getMaxItemsPerOrder()).toArray();
+        if (products.length > 1) {
+            index.add(products);
+            changes.incrementAndGet();
+        }
+    }
+
+    public List<CoOccurrenceIndex.Related> related(long productId, int limit) {
+        return index.related(productId, limit);
+    }
+
+    /**
+     * Writes the index unless nothing changed since the last checkpoint.
+     */
+    synchronized void checkpoint() throws IOException {
+        long current = changes.get();
+        if (current == checkpointed) {
+            return;
+        }
+        Files.createDirectories(checkpoint.toAbsolutePath().getParent());
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc));
+            index.writeTo(out);
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointed = current;
+    }
+
+    CoOccurrenceIndex index() {
+        return index;
+    }
+
+    private void restore() {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(checkpoint);
+        }
+        catch (NoSuchFileException e) {
+            log.info("No recommendation checkpoint at {}, starting empty", checkpoint);
+            return;
+        }
+        catch (IOException e) {
+            log.warn("Could not read recommendation checkpoint {}, starting empty", checkpoint, e);
+            return;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, Math.max(0, bytes.length - 4));
+        if (bytes.length < 4 || ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) {
+            log.warn("Recommendation checkpoint {} is damaged, starting empty", checkpoint);
+            return;
+        }
+        try {
+            index.readFrom(new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4)));
+            log.info("Restored co-purchase counts of {} products from {}", index.size(), checkpoint);
+        }
+        catch (IOException e) {
+            log.warn("Could not restore recommendations from {}", checkpoint, e);
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        }
+        catch (IOException | RuntimeException e) {
+            log.error("Failed to checkpoint recommendations to {}", checkpoint, e);
+        }
+    }
+}
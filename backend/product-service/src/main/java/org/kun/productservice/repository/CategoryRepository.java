@@ -0,0 +1,11 @@
+package org.kun.productservice.repository;
+
+import org.kun.productservice.entity.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    Optional<Category> findBySlug(String slug);
+}
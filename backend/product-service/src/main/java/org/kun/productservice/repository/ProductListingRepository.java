@@ -0,0 +1,18 @@
+package org.kun.productservice.repository;
+
+import org.kun.productservice.dto.ProductSummary;
+import org.kun.productservice.listing.ListingCursor;
+import org.kun.productservice.listing.ProductSort;
+
+import java.util.List;
+
+public interface ProductListingRepository {
+
+    /**
+     * One keyset page: the first {@code limit} products after {@code after} (or from
+     * the start) in {@code sort} order, optionally within one category and, with
+     * {@code withSubcategories}, the categories below it.
+     */
+    List<ProductSummary> findPage(ProductSort sort, Long categoryId, boolean withSubcategories, ListingCursor after,
+                                  int limit);
+}
@@ -0,0 +1,49 @@
+package org.kun.productservice.repository;
+
+import org.kun.productservice.dto.ProductSummary;
+import org.kun.productservice.listing.CategoryScope;
+import org.kun.productservice.listing.ListingCursor;
+import org.kun.productservice.listing.ProductListingQueries;
+import org.kun.productservice.listing.ProductSort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Native keyset queries mapped straight to {@link ProductSummary} records.
+ */
+public class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    private static final RowMapper<ProductSummary> SUMMARY = (rs, row) -> {
+        long categoryId = rs.getLong("category_id");
+        Long category = rs.wasNull() ? null : categoryId;
+        return new ProductSummary(rs.getLong("id"), rs.getString("sku"), rs.getString("name"), rs.getString("brand"),
+                category, rs.getBigDecimal("price"), rs.getTimestamp("created_at").toInstant());
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductListingRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> findPage(ProductSort sort, Long categoryId, boolean withSubcategories,
+                                         ListingCursor after, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (categoryId != null) {
+            parameters.addValue("category", categoryId);
+        }
+        if (after != null) {
+            parameters.addValue("key", after.key()).addValue("id", after.id());
+        }
+        CategoryScope scope = categoryId == null ? CategoryScope.ALL
+                : withSubcategories ? CategoryScope.SUBTREE : CategoryScope.CATEGORY;
+        String sql = ProductListingQueries.sql(sort, scope, after != null, limit);
+        return jdbcTemplate.query(sql, parameters, SUMMARY);
+    }
+}
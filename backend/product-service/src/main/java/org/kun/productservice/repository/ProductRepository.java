@@ -0,0 +1,23 @@
+package org.kun.productservice.repository;
+
+import org.kun.productservice.entity.Product;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductListingRepository {
+
+    Optional<Product> findBySku(String sku);
+
+    @Query("select p.id from Product p where p.sku in :skus")
+    List<Long> findIdsBySkuIn(Collection<String> skus);
+
+    /**
+     * Units the inventory holds for the product, empty until it was first reserved.
+     */
+    @Query("select i.available from InventoryItem i where i.productId = :productId")
+    Optional<Long> findInventoryAvailable(Long productId);
+}
@@ -0,0 +1,46 @@
+package org.kun.productservice.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps facet values to dense ordinals so per-document facets are stored as ints
+ * and counted into arrays. Ordinal 0 means "no value".
+ */
+final class Dictionary<T> {
+
+    private final Map<T, Integer> ordinals = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    Dictionary() {
+        values.add(null);
+    }
+
+    int ordinal(T value) {
+        if (value == null) {
+            return 0;
+        }
+        return ordinals.computeIfAbsent(value, v -> {
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+
+    /**
+     * @return the ordinal, or -1 if the value was never indexed
+     */
+    int find(T value) {
+        Integer ordinal = ordinals.get(value);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    T value(int ordinal) {
+        return values.get(ordinal);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,49 @@
+package org.kun.productservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Facet counts of a fixed set of live documents (the whole catalog, or one broad
+ * term), kept up to date on every write so queries over that set alone read them
+ * instead of visiting every document.
+ */
+final class FacetTotals {
+
+    private int[] categories = new int[16];
+    private int[] brands = new int[16];
+    private final int[] prices;
+    private long total;
+
+    FacetTotals(int priceBuckets) {
+        this.prices = new int[priceBuckets];
+    }
+
+    void add(int category, int brand, int priceBucket, int delta) {
+        if (category >= categories.length) {
+            categories = Arrays.copyOf(categories, Math.max(category + 1, categories.length * 2));
+        }
+        if (brand >= brands.length) {
+            brands = Arrays.copyOf(brands, Math.max(brand + 1, brands.length * 2));
+        }
+        categories[category] += delta;
+        brands[brand] += delta;
+        prices[priceBucket] += delta;
+        total += delta;
+    }
+
+    int[] categories() {
+        return categories;
+    }
+
+    int[] brands() {
+        return brands;
+    }
+
+    int[] prices() {
+        return prices;
+    }
+
+    long total() {
+        return total;
+    }
+}
@@ -0,0 +1,132 @@
+package org.kun.productservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Ascending doc ordinals of the documents containing one term, with the term's
+ * field weight in each. Documents are only ever appended with increasing
+ * ordinals, so the list stays sorted without insertion.
+ *
+ * <p>A list made {@linkplain #makeDense dense} also keeps a bitset of its docs,
+ * so intersecting it with a shorter list tests one bit per doc instead of
+ * searching, and the {@link FacetTotals} of its live docs.
+ */
+final class PostingList {
+
+    private int[] docs = new int[4];
+    private byte[] weights = new byte[4];
+    private int size;
+    private long[] bits;
+    private FacetTotals totals;
+
+    void add(int doc, int weight) {
+        if (size == docs.length) {
+            int capacity = size + (size >> 1) + 1;
+            docs = Arrays.copyOf(docs, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        docs[size] = doc;
+        weights[size] = (byte) Math.min(weight, Byte.MAX_VALUE);
+        size++;
+        if (bits != null) {
+            setBit(doc);
+        }
+    }
+
+    void makeDense(FacetTotals totals) {
+        this.totals = totals;
+        bits = new long[size == 0 ? 1 : (docs[size - 1] >>> 6) + 1];
+        for (int i = 0; i < size; i++) {
+            setBit(docs[i]);
+        }
+    }
+
+    boolean dense() {
+        return bits != null;
+    }
+
+    /**
+     * Only for dense lists.
+     */
+    boolean contains(int doc) {
+        int word = doc >>> 6;
+        return word < bits.length && (bits[word] & (1L << doc)) != 0;
+    }
+
+    /**
+     * Facet counts of the live docs, or {@code null} unless the list is dense.
+     */
+    FacetTotals totals() {
+        return totals;
+    }
+
+    private void setBit(int doc) {
+        int word = doc >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length + (bits.length >> 1)));
+        }
+        bits[word] |= 1L << doc;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    int weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Index of the first posting at or after {@code from} whose doc is &gt;= {@code target},
+     * found by galloping then binary search; {@link #size()} if there is none.
+     */
+    int advance(int from, int target) {
+        int bound = 1;
+        int low = from;
+        while (from + bound < size && docs[from + bound] < target) {
+            low = from + bound;
+            bound <<= 1;
+        }
+        int high = Math.min(from + bound, size - 1);
+        if (low > high || docs[high] < target) {
+            return size;
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (docs[mid] < target) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Drops deleted docs and renumbers the rest; {@code remap} is monotonic so order is kept.
+     */
+    void compact(int[] remap) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int doc = remap[docs[i]];
+            if (doc >= 0) {
+                docs[kept] = doc;
+                weights[kept] = weights[i];
+                kept++;
+            }
+        }
+        size = kept;
+        if (docs.length > 16 && size < docs.length / 4) {
+            docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            weights = Arrays.copyOf(weights, docs.length);
+        }
+        if (bits != null) {
+            makeDense(totals);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.kun.productservice.search;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a product the search index needs.
+ */
+public record ProductDocument(long id, String name, String description, String brand, Long categoryId,
+                              BigDecimal price, String attributes) {
+}
@@ -0,0 +1,17 @@
+package org.kun.productservice.search;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SearchProperties.class)
+public class SearchConfig {
+
+    @Bean
+    public SearchIndex searchIndex(SearchProperties properties) {
+        return new SearchIndex(properties.getPriceRanges(), properties.getFacetSize(),
+                properties.getMaxDescriptionTerms(), properties.getCompactionRatio(), properties.getExpectedSize(),
+                properties.getParallelism());
+    }
+}
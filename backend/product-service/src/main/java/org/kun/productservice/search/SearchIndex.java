@@ -0,0 +1,623 @@
+package org.kun.productservice.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the catalog.
+ *
+ * <p>Every product is a dense doc ordinal; per-doc facet values live in primitive
+ * arrays and each term maps to a {@link PostingList} of ordinals. An update
+ * tombstones the old ordinal and appends a new one, which keeps posting lists
+ * sorted, and the index compacts itself once too many ordinals are dead.
+ *
+ * <p>Keyword queries intersect the posting lists (shortest first, galloping the
+ * others) and score matches by summed field weight times idf. A pass over the
+ * matches applies the filters, counts facets and keeps the top of the page in a
+ * bounded heap, so the cost is linear in the matches and never sorts them.
+ *
+ * <p>Each category and brand has a posting list of its own too. Every output of
+ * a query needs only some of its constraints (a facet ignores its own filter),
+ * so each is driven by the shortest list among those: a brand filter alone turns
+ * a scan of the catalog into a scan of that brand. Lists of at least
+ * {@value #DENSE_SIZE} docs also keep a bitset, tested in O(1) when a shorter
+ * list drives, and the facet counts of their live docs, maintained on every
+ * write like the counts of the whole catalog. An output that needs no more than
+ * one broad term or one large brand or category reads those counts, and the
+ * hits then only rank that list's docs.
+ *
+ * <p>Passes with many candidates are split into segments scanned in parallel
+ * and merged. Readers share a read lock; single-product writes take the write
+ * lock briefly.
+ */
+public class SearchIndex implements AutoCloseable {
+
+    static final int NAME_WEIGHT = 4;
+    static final int BRAND_WEIGHT = 3;
+    static final int ATTRIBUTE_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int MIN_COMPACTION_SIZE = 1024;
+    private static final int MIN_SEGMENT_SIZE = 65_536;
+    static final int DENSE_SIZE = 65_536;
+
+    private static final int HITS = 1;
+    private static final int CATEGORIES = 2;
+    private static final int BRANDS = 4;
+    private static final int PRICES = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long[] priceBounds;
+    private final String[] priceLabels;
+    private final int facetSize;
+    private final int maxDescriptionTerms;
+    private final double compactionRatio;
+    private final ForkJoinPool pool;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final LongIntHashMap docsByProduct;
+    private final Dictionary<String> brandDictionary = new Dictionary<>();
+    private final Dictionary<Long> categoryDictionary = new Dictionary<>();
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> termWeights = new HashMap<>();
+    private final List<PostingList> categoryDocs = new ArrayList<>();
+    private final List<PostingList> brandDocs = new ArrayList<>();
+    private final List<PostingList> denseLists = new ArrayList<>();
+    private final FacetTotals allDocs;
+
+    private long[] productIds;
+    private int[] brands;
+    private int[] categories;
+    private long[] prices;
+    private byte[] priceBuckets;
+    private int size;
+    private int deletedCount;
+
+    public SearchIndex(List<BigDecimal> priceRanges, int facetSize, int maxDescriptionTerms, double compactionRatio,
+                       int expectedSize, int parallelism) {
+        this.priceBounds = priceRanges.stream().mapToLong(SearchIndex::cents).toArray();
+        this.priceLabels = new String[priceBounds.length + 1];
+        for (int i = 0; i <= priceBounds.length; i++) {
+            String low = i == 0 ? "0" : priceRanges.get(i - 1).toPlainString();
+            priceLabels[i] = i == priceBounds.length ? low + "+" : low + "-" + priceRanges.get(i).toPlainString();
+        }
+        this.facetSize = facetSize;
+        this.maxDescriptionTerms = maxDescriptionTerms;
+        this.compactionRatio = compactionRatio;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        int capacity = Math.max(16, expectedSize);
+        this.docsByProduct = new LongIntHashMap(capacity);
+        this.productIds = new long[capacity];
+        this.brands = new int[capacity];
+        this.categories = new int[capacity];
+        this.prices = new long[capacity];
+        this.priceBuckets = new byte[capacity];
+        this.allDocs = new FacetTotals(priceBounds.length + 1);
+    }
+
+    public static long cents(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).longValue();
+    }
+
+    public void upsert(ProductDocument product) {
+        lock.writeLock().lock();
+        try {
+            if (delete(product.id())) {
+                compactIfNeeded();
+            }
+            int doc = size;
+            if (doc == productIds.length) {
+                grow();
+            }
+            productIds[doc] = product.id();
+            brands[doc] = brandDictionary.ordinal(product.brand());
+            categories[doc] = categoryDictionary.ordinal(product.categoryId());
+            prices[doc] = cents(product.price());
+            priceBuckets[doc] = (byte) priceBucket(prices[doc]);
+            docsByProduct.put(product.id(), doc);
+            size++;
+            index(doc, product);
+            if (categories[doc] > 0) {
+                addPosting(facetDocs(categoryDocs, categories[doc]), doc, 0);
+            }
+            if (brands[doc] > 0) {
+                addPosting(facetDocs(brandDocs, brands[doc]), doc, 0);
+            }
+            allDocs.add(categories[doc], brands[doc], priceBuckets[doc], 1);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = delete(productId);
+            compactIfNeeded();
+            return removed;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchResult search(SearchQuery query) {
+        lock.readLock().lock();
+        try {
+            Set<String> terms = new LinkedHashSet<>();
+            Tokenizer.tokenize(query.text(), terms::add);
+            PostingList[] lists = new PostingList[terms.size()];
+            int n = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return new Collector(query, 0, null).result();
+                }
+                lists[n++] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            float[] idf = new float[lists.length];
+            int live = Math.max(1, size - deletedCount);
+            for (int t = 0; t < lists.length; t++) {
+                idf[t] = (float) Math.log(1 + (double) live / lists[t].size());
+            }
+            Collector result = new Collector(query, 0, null);
+            if (result.impossible) {
+                return result.result();
+            }
+
+            // null stands for every doc as a driver and for an absent filter, both never the shortest
+            PostingList lead = lists.length == 0 ? null : lists[0];
+            PostingList categoryList = result.category == 0 ? null : categoryDocs.get(result.category);
+            PostingList brandList = result.brand == 0 ? null : brandDocs.get(result.brand);
+            boolean priced = result.priced;
+            PostingList shortest = shortest(shortest(lead, categoryList), brandList);
+
+            Map<PostingList, Integer> passes = new LinkedHashMap<>();
+            FacetTotals totals = totals(lists, brandList, null, priced);
+            if (totals != null) {
+                result.add(result.categoryCounts, totals.categories());
+            }
+            else {
+                passes.merge(shortest(lead, brandList), CATEGORIES, (a, b) -> a | b);
+            }
+            totals = totals(lists, categoryList, null, priced);
+            if (totals != null) {
+                result.add(result.brandCounts, totals.brands());
+            }
+            else {
+                passes.merge(shortest(lead, categoryList), BRANDS, (a, b) -> a | b);
+            }
+            totals = totals(lists, categoryList, brandList, false);
+            if (totals != null) {
+                result.add(result.priceCounts, totals.prices());
+            }
+            else {
+                passes.merge(shortest, PRICES, (a, b) -> a | b);
+            }
+            totals = totals(lists, categoryList, brandList, priced);
+            if (totals != null) {
+                result.total = totals.total();
+                rank(shortest, shortest != null && shortest == lead ? idf[0] : 0f, result);
+            }
+            else {
+                passes.merge(shortest, HITS, (a, b) -> a | b);
+            }
+            for (Map.Entry<PostingList, Integer> pass : passes.entrySet()) {
+                result.merge(run(pass.getKey(), pass.getValue(), lists, idf, query));
+            }
+            return result.result();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The maintained counts of the live docs with every term and in both filter
+     * lists, when that is all docs or the docs of one dense list; otherwise null.
+     */
+    private FacetTotals totals(PostingList[] lists, PostingList filter, PostingList otherFilter, boolean priced) {
+        int constraints = lists.length + (filter == null ? 0 : 1) + (otherFilter == null ? 0 : 1);
+        if (priced || constraints > 1) {
+            return null;
+        }
+        if (constraints == 0) {
+            return allDocs;
+        }
+        return lists.length == 1 ? lists[0].totals() : filter != null ? filter.totals() : otherFilter.totals();
+    }
+
+    private static PostingList shortest(PostingList a, PostingList b) {
+        return a == null || b != null && b.size() < a.size() ? b : a;
+    }
+
+    /**
+     * Collects the outputs in {@code roles} over the docs of {@code driver}, or all
+     * docs when it is {@code null}, in parallel segments when there are enough.
+     */
+    private Collector run(PostingList driver, int roles, PostingList[] lists, float[] idf, SearchQuery query) {
+        int candidates = driver == null ? size : driver.size();
+        int segments = pool == null ? 1 : Math.min(pool.getParallelism(), candidates / MIN_SEGMENT_SIZE);
+        if (segments <= 1) {
+            Collector collector = new Collector(query, roles, driver);
+            scan(driver, lists, idf, 0, candidates, collector);
+            return collector;
+        }
+        // the read lock held by this thread also covers the workers: writers wait until join
+        List<ForkJoinTask<Collector>> tasks = new ArrayList<>(segments);
+        for (int segment = 0; segment < segments; segment++) {
+            int from = (int) ((long) candidates * segment / segments);
+            int to = (int) ((long) candidates * (segment + 1) / segments);
+            tasks.add(pool.submit(() -> {
+                Collector collector = new Collector(query, roles, driver);
+                scan(driver, lists, idf, from, to, collector);
+                return collector;
+            }));
+        }
+        Collector merged = tasks.get(0).join();
+        for (int i = 1; i < tasks.size(); i++) {
+            merged.merge(tasks.get(i).join());
+        }
+        return merged;
+    }
+
+    /**
+     * Feeds the live docs among driver positions {@code [from, to)} that contain
+     * every term to the collector, scoring only those it keeps as hits.
+     */
+    private void scan(PostingList driver, PostingList[] lists, float[] idf, int from, int to, Collector collector) {
+        boolean checkDeleted = deletedCount > 0;
+        int[] positions = new int[lists.length];
+        candidates:
+        for (int i = from; i < to; i++) {
+            int doc = driver == null ? i : driver.doc(i);
+            if (checkDeleted && deleted.get(doc)) {
+                continue;
+            }
+            for (int t = 0; t < lists.length; t++) {
+                PostingList list = lists[t];
+                if (list == driver) {
+                    continue;
+                }
+                if (list.dense()) {
+                    if (!list.contains(doc)) {
+                        continue candidates;
+                    }
+                    continue;
+                }
+                int position = list.advance(positions[t], doc);
+                positions[t] = position;
+                if (position == list.size()) {
+                    break candidates;
+                }
+                if (list.doc(position) != doc) {
+                    continue candidates;
+                }
+            }
+            if (!collector.count(doc)) {
+                continue;
+            }
+            float score = 0f;
+            for (int t = 0; t < lists.length; t++) {
+                PostingList list = lists[t];
+                int position = positions[t];
+                if (list == driver) {
+                    position = i;
+                }
+                else if (list.dense()) {
+                    // membership came from the bitset; only hits pay for finding the weight
+                    position = list.advance(position, doc);
+                    positions[t] = position;
+                }
+                score += idf[t] * list.weight(position);
+            }
+            collector.offer(doc, score);
+        }
+    }
+
+    /**
+     * Keeps the top live docs of {@code lead}, or of all docs, without filtering
+     * or counting: docs that cannot beat the page are skipped on their score.
+     * Facet lists have zero weights, so all their docs score 0.
+     */
+    private void rank(PostingList lead, float idf, Collector collector) {
+        boolean checkDeleted = deletedCount > 0;
+        int candidates = lead == null ? size : lead.size();
+        for (int i = 0; i < candidates; i++) {
+            float score = lead == null ? 0f : idf * lead.weight(i);
+            if (collector.top.rejects(score)) {
+                continue;
+            }
+            int doc = lead == null ? i : lead.doc(i);
+            if (checkDeleted && deleted.get(doc)) {
+                continue;
+            }
+            collector.offer(doc, score);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void index(int doc, ProductDocument product) {
+        termWeights.clear();
+        Tokenizer.tokenize(product.name(), term -> termWeights.merge(term, NAME_WEIGHT, Integer::sum));
+        Tokenizer.tokenize(product.brand(), term -> termWeights.merge(term, BRAND_WEIGHT, Integer::sum));
+        Tokenizer.tokenize(product.attributes(), term -> termWeights.merge(term, ATTRIBUTE_WEIGHT, Integer::sum));
+        int[] descriptionTerms = {0};
+        Tokenizer.tokenize(product.description(), term -> {
+            if (termWeights.containsKey(term)) {
+                termWeights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+            else if (descriptionTerms[0]++ < maxDescriptionTerms) {
+                termWeights.put(term, DESCRIPTION_WEIGHT);
+            }
+        });
+        for (Map.Entry<String, Integer> entry : termWeights.entrySet()) {
+            addPosting(postings.computeIfAbsent(entry.getKey(), t -> new PostingList()), doc, entry.getValue());
+        }
+    }
+
+    private void addPosting(PostingList list, int doc, int weight) {
+        list.add(doc, weight);
+        if (list.dense()) {
+            list.totals().add(categories[doc], brands[doc], priceBuckets[doc], 1);
+        }
+        else if (list.size() >= DENSE_SIZE) {
+            makeDense(list);
+        }
+    }
+
+    private void makeDense(PostingList list) {
+        FacetTotals totals = new FacetTotals(priceBounds.length + 1);
+        for (int i = 0; i < list.size(); i++) {
+            int doc = list.doc(i);
+            if (!deleted.get(doc)) {
+                totals.add(categories[doc], brands[doc], priceBuckets[doc], 1);
+            }
+        }
+        list.makeDense(totals);
+        denseLists.add(list);
+    }
+
+    private static PostingList facetDocs(List<PostingList> lists, int ordinal) {
+        while (lists.size() <= ordinal) {
+            lists.add(new PostingList());
+        }
+        return lists.get(ordinal);
+    }
+
+    private boolean delete(long productId) {
+        int doc = docsByProduct.remove(productId);
+        if (doc == LongIntHashMap.MISSING) {
+            return false;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        allDocs.add(categories[doc], brands[doc], priceBuckets[doc], -1);
+        for (PostingList list : denseLists) {
+            if (list.contains(doc)) {
+                list.totals().add(categories[doc], brands[doc], priceBuckets[doc], -1);
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int capacity = productIds.length + (productIds.length >> 1);
+        productIds = Arrays.copyOf(productIds, capacity);
+        brands = Arrays.copyOf(brands, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        priceBuckets = Arrays.copyOf(priceBuckets, capacity);
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount >= MIN_COMPACTION_SIZE && deletedCount > size * compactionRatio) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers live docs densely and drops dead postings.
+     */
+    void compact() {
+        int[] remap = new int[size];
+        int live = 0;
+        for (int doc = 0; doc < size; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = live;
+            productIds[live] = productIds[doc];
+            brands[live] = brands[doc];
+            categories[live] = categories[doc];
+            prices[live] = prices[doc];
+            priceBuckets[live] = priceBuckets[doc];
+            docsByProduct.put(productIds[live], live);
+            live++;
+        }
+        Iterator<PostingList> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            PostingList list = lists.next();
+            list.compact(remap);
+            if (list.size() == 0) {
+                lists.remove();
+                if (list.dense()) {
+                    denseLists.remove(list);
+                }
+            }
+        }
+        categoryDocs.forEach(list -> list.compact(remap));
+        brandDocs.forEach(list -> list.compact(remap));
+        size = live;
+        deletedCount = 0;
+        deleted.clear();
+    }
+
+    private int priceBucket(long price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price >= priceBounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Applies filters and collects the outputs it is given as roles: facet counts,
+     * each with the other filters applied, and the best {@code limit + 1} hits
+     * after the cursor with their total.
+     */
+    private final class Collector {
+
+        private final SearchQuery query;
+        private final int category;
+        private final int brand;
+        private final long minPrice;
+        private final long maxPrice;
+        private final boolean impossible;
+        private final boolean priced;
+        private final boolean inCategory;
+        private final boolean inBrand;
+        private final boolean countCategories;
+        private final boolean countBrands;
+        private final boolean countPrices;
+        private final boolean collectHits;
+        private final int[] categoryCounts = new int[categoryDictionary.size()];
+        private final int[] brandCounts = new int[brandDictionary.size()];
+        private final int[] priceCounts = new int[priceBounds.length + 1];
+        private final TopHits top;
+        private long total;
+
+        /**
+         * @param driver the list whose docs will be counted, if it is known to match
+         *               a filter that then is not looked up per doc
+         */
+        private Collector(SearchQuery query, int roles, PostingList driver) {
+            this.query = query;
+            this.category = query.categoryId() == null ? 0 : categoryDictionary.find(query.categoryId());
+            this.brand = query.brand() == null ? 0 : brandDictionary.find(query.brand());
+            this.minPrice = query.minPrice() == null ? Long.MIN_VALUE : query.minPrice();
+            this.maxPrice = query.maxPrice() == null ? Long.MAX_VALUE : query.maxPrice();
+            this.impossible = category < 0 || brand < 0;
+            this.priced = query.minPrice() != null || query.maxPrice() != null;
+            this.inCategory = category > 0 && driver != null && driver == categoryDocs.get(category);
+            this.inBrand = brand > 0 && driver != null && driver == brandDocs.get(brand);
+            this.countCategories = (roles & CATEGORIES) != 0;
+            this.countBrands = (roles & BRANDS) != 0;
+            this.countPrices = (roles & PRICES) != 0;
+            this.collectHits = (roles & HITS) != 0;
+            this.top = new TopHits(query.limit() + 1);
+        }
+
+        /**
+         * Counts a live doc containing every term into the facets of this
+         * collector's roles; true if it should be offered as a hit.
+         */
+        boolean count(int doc) {
+            boolean categoryMatches = category == 0 || inCategory || categories[doc] == category;
+            boolean brandMatches = brand == 0 || inBrand || brands[doc] == brand;
+            boolean priceMatches = !priced || prices[doc] >= minPrice && prices[doc] < maxPrice;
+            if (countCategories && brandMatches && priceMatches) {
+                categoryCounts[categories[doc]]++;
+            }
+            if (countBrands && categoryMatches && priceMatches) {
+                brandCounts[brands[doc]]++;
+            }
+            if (countPrices && categoryMatches && brandMatches) {
+                priceCounts[priceBuckets[doc]]++;
+            }
+            if (collectHits && categoryMatches && brandMatches && priceMatches) {
+                total++;
+                return true;
+            }
+            return false;
+        }
+
+        void offer(int doc, float score) {
+            long productId = productIds[doc];
+            SearchQuery.Cursor after = query.after();
+            if (after == null || score < after.score() || score == after.score() && productId > after.productId()) {
+                top.offer(score, productId);
+            }
+        }
+
+        void add(int[] counts, int[] totals) {
+            for (int i = 0; i < Math.min(counts.length, totals.length); i++) {
+                counts[i] += totals[i];
+            }
+        }
+
+        void merge(Collector other) {
+            add(categoryCounts, other.categoryCounts);
+            add(brandCounts, other.brandCounts);
+            add(priceCounts, other.priceCounts);
+            total += other.total;
+            for (SearchResult.Hit hit : other.top.sorted()) {
+                top.offer(hit.score(), hit.productId());
+            }
+        }
+        SearchResult result() {
+            List<SearchResult.Hit> hits = top.sorted();
+            SearchQuery.Cursor next = null;
+            if (hits.size() > query.limit()) {
+                hits = hits.subList(0, query.limit());
+                SearchResult.Hit last = hits.get(hits.size() - 1);
+                next = new SearchQuery.Cursor(last.score(), last.productId());
+            }
+            List<SearchResult.FacetCount> prices = new ArrayList<>();
+            for (int i = 0; i < priceCounts.length; i++) {
+                if (priceCounts[i] > 0) {
+                    prices.add(new SearchResult.FacetCount(priceLabels[i], priceCounts[i]));
+                }
+            }
+            return new SearchResult(List.copyOf(hits), total, new SearchResult.Facets(
+                    topValues(categoryCounts, categoryDictionary), topValues(brandCounts, brandDictionary), prices),
+                    next);
+        }
+
+        private List<SearchResult.FacetCount> topValues(int[] counts, Dictionary<?> dictionary) {
+            TopHits best = new TopHits(facetSize);
+            for (int ordinal = 1; ordinal < counts.length; ordinal++) {
+                if (counts[ordinal] > 0) {
+                    best.offer(counts[ordinal], ordinal);
+                }
+            }
+            List<SearchResult.FacetCount> values = new ArrayList<>();
+            for (SearchResult.Hit hit : best.sorted()) {
+                values.add(new SearchResult.FacetCount(String.valueOf(dictionary.value((int) hit.productId())),
+                        (long) hit.score()));
+            }
+            return values;
+        }
+    }
+}
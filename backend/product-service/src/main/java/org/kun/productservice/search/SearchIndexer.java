@@ -0,0 +1,130 @@
+package org.kun.productservice.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.common.datasource.ReadRouting;
+import org.kun.productservice.event.ProductsChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link SearchIndex} in step with {@code products}: streams the table
+ * once at startup, then reloads the rows named by each {@link ProductsChangedEvent}
+ * after its transaction commits. All index writes happen on one thread, in event
+ * order, so the request and import threads never wait for indexing.
+ */
+@Slf4j
+@Component
+public class SearchIndexer {
+
+    private static final String SELECT = "SELECT id, name, description, brand, category_id, price, attributes FROM products";
+    private static final int CHUNK = 1_000;
+
+    private final SearchIndex index;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final SearchProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean ready;
+
+    public SearchIndexer(SearchIndex index, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         SearchProperties properties) {
+        this.index = index;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.properties = properties;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        executor.execute(this::loadAll);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        executor.execute(() -> apply(event));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void loadAll() {
+        long start = System.nanoTime();
+        try {
+            // a transaction keeps autocommit off, which Postgres needs to stream with a fetch size;
+            // the primary, because changes a replica has not replayed yet would never be indexed
+            ReadRouting.runOnPrimary(() -> readOnly.executeWithoutResult(status -> {
+                JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+                streaming.setFetchSize(properties.getLoadFetchSize());
+                streaming.query(SELECT, (RowCallbackHandler) rs -> index.upsert(document(rs)));
+            }));
+            ready = true;
+            log.info("Search index loaded {} products in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to load the search index", e);
+        }
+    }
+
+    private void apply(ProductsChangedEvent event) {
+        try {
+            Set<Long> missing = new HashSet<>(event.ids());
+            load("id", event.ids(), product -> missing.remove(product.id()));
+            load("sku", event.skus(), product -> { });
+            missing.forEach(index::remove);
+        }
+        catch (RuntimeException e) {
+            log.warn("Failed to update the search index: {}", e.getMessage());
+        }
+    }
+
+    private <T> void load(String column, Collection<T> keys, Consumer<ProductDocument> loaded) {
+        List<T> list = keys instanceof List<T> l ? l : new ArrayList<>(keys);
+        for (int from = 0; from < list.size(); from += CHUNK) {
+            List<T> chunk = list.subList(from, Math.min(list.size(), from + CHUNK));
+            String sql = SELECT + " WHERE " + column + " IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                ProductDocument product = document(rs);
+                index.upsert(product);
+                loaded.accept(product);
+            }, chunk.toArray());
+        }
+    }
+
+    private static ProductDocument document(ResultSet rs) throws SQLException {
+        long categoryId = rs.getLong("category_id");
+        Long category = rs.wasNull() ? null : categoryId;
+        return new ProductDocument(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                rs.getString("brand"), category, rs.getBigDecimal("price"), rs.getString("attributes"));
+    }
+}
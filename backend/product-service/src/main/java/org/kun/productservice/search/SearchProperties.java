@@ -0,0 +1,54 @@
+package org.kun.productservice.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "product.search")
+public class SearchProperties {
+
+    /**
+     * Upper bounds of the price facet buckets; the last bucket is open-ended.
+     */
+    private List<BigDecimal> priceRanges = new ArrayList<>(List.of(
+            new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("250"), new BigDecimal("500")));
+
+    /**
+     * Values returned per category/brand facet.
+     */
+    private int facetSize = 20;
+
+    /**
+     * Distinct description terms indexed per product; bounds the index size for long descriptions.
+     */
+    private int maxDescriptionTerms = 64;
+
+    /**
+     * Share of dead doc ordinals that triggers compaction.
+     */
+    private double compactionRatio = 0.25;
+
+    private int defaultPageSize = 20;
+
+    private int maxPageSize = 100;
+
+    /**
+     * Initial capacity; avoids regrowing the per-doc arrays during the first load.
+     */
+    private int expectedSize = 100_000;
+
+    /**
+     * Threads scanning one large query in parallel; 1 disables splitting.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Rows fetched per round trip while loading the index.
+     */
+    private int loadFetchSize = 10_000;
+}
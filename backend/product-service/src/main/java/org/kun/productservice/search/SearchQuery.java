@@ -0,0 +1,40 @@
+package org.kun.productservice.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * @param text       keywords, all of which must match; blank browses the whole catalog
+ * @param categoryId optional category filter
+ * @param brand      optional brand filter (exact)
+ * @param minPrice   optional inclusive lower bound in cents
+ * @param maxPrice   optional exclusive upper bound in cents
+ * @param after      keyset cursor from the previous page, or {@code null}
+ */
+public record SearchQuery(String text, Long categoryId, String brand, Long minPrice, Long maxPrice, int limit,
+                          Cursor after) {
+
+    /**
+     * Position in the result order (score descending, product id ascending).
+     */
+    public record Cursor(float score, long productId) {
+
+        public String encode() {
+            String raw = Integer.toHexString(Float.floatToIntBits(score)) + ":" + productId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+         */
+        public static Cursor decode(String cursor) {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int colon = raw.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new Cursor(Float.intBitsToFloat(Integer.parseUnsignedInt(raw.substring(0, colon), 16)),
+                    Long.parseLong(raw.substring(colon + 1)));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.kun.productservice.search;
+
+import java.util.List;
+
+/**
+ * @param total matches after all filters
+ * @param next  cursor for the following page, or {@code null} on the last page
+ */
+public record SearchResult(List<Hit> hits, long total, Facets facets, SearchQuery.Cursor next) {
+
+    public record Hit(long productId, float score) {
+    }
+
+    /**
+     * Each facet is counted with every filter applied except its own, so the
+     * counts tell how many results picking that value would give.
+     */
+    public record Facets(List<FacetCount> categories, List<FacetCount> brands, List<FacetCount> prices) {
+    }
+
+    public record FacetCount(String value, long count) {
+    }
+}
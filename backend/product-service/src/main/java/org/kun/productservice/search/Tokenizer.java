@@ -0,0 +1,74 @@
+package org.kun.productservice.search;
+
+import java.text.Normalizer;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into lower-case terms of letters and digits. Accents are folded
+ * (so "Điện thoại" matches "dien thoai"), and single letters are dropped.
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    public static void tokenize(String text, Consumer<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        boolean ascii = true;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    ascii = true;
+                }
+                ascii &= c < 128;
+            }
+            else if (start >= 0) {
+                emit(text, start, i, ascii, terms);
+                start = -1;
+            }
+        }
+    }
+
+    private static void emit(String text, int start, int end, boolean ascii, Consumer<String> terms) {
+        if (end - start == 1 && !Character.isDigit(text.charAt(start))) {
+            return;
+        }
+        String term = text.substring(start, end);
+        terms.accept(ascii ? toLowerAscii(term) : fold(term));
+    }
+
+    private static String toLowerAscii(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                char[] chars = term.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (chars[j] >= 'A' && chars[j] <= 'Z') {
+                        chars[j] += 'a' - 'A';
+                    }
+                }
+                return new String(chars);
+            }
+        }
+        return term;
+    }
+
+    private static String fold(String term) {
+        String decomposed = Normalizer.normalize(term, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == 'đ' || c == 'Đ' ? 'd' : Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package org.kun.productservice.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded min-heap keeping the best {@code capacity} entries by score
+ * descending, then id ascending.
+ */
+final class TopHits {
+
+    private final float[] scores;
+    private final long[] ids;
+    private int size;
+
+    TopHits(int capacity) {
+        scores = new float[capacity];
+        ids = new long[capacity];
+    }
+
+    void offer(float score, long id) {
+        if (scores.length == 0) {
+            return;
+        }
+        if (size < scores.length) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        }
+        else if (worse(scores[0], ids[0], score, id)) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * True when the heap is full and anything scoring {@code score} would be
+     * turned away whatever its id, so the caller can skip looking the id up.
+     */
+    boolean rejects(float score) {
+        return size == scores.length && score < scores[0];
+    }
+
+    /**
+     * Drains the heap, best first.
+     */
+    List<SearchResult.Hit> sorted() {
+        SearchResult.Hit[] hits = new SearchResult.Hit[size];
+        while (size > 0) {
+            hits[size - 1] = new SearchResult.Hit(ids[0], scores[0]);
+            size--;
+            scores[0] = scores[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        List<SearchResult.Hit> result = new ArrayList<>(hits.length);
+        for (SearchResult.Hit hit : hits) {
+            result.add(hit);
+        }
+        return result;
+    }
+
+    private static boolean worse(float score, long id, float otherScore, long otherId) {
+        return score < otherScore || score == otherScore && id > otherId;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(scores[index], ids[index], scores[parent], ids[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && worse(scores[child + 1], ids[child + 1], scores[child], ids[child])) {
+                child++;
+            }
+            if (!worse(scores[child], ids[child], scores[index], ids[index])) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+}
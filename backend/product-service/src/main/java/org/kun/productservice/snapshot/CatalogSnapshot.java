@@ -0,0 +1,254 @@
+package org.kun.productservice.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import static org.kun.productservice.snapshot.SnapshotFormat.*;
+
+/**
+ * Read-only view of a snapshot file through memory mappings. Accessors read the
+ * mapped pages in place: opening costs a few system calls regardless of size, and
+ * only the pages actually touched are loaded. Records and strings are mapped
+ * separately, so each may be up to 2 GB. The mappings are released when the
+ * snapshot is garbage collected.
+ * <p>
+ * Thread-safe: all reads are absolute.
+ */
+public final class CatalogSnapshot {
+
+    private final Path path;
+    private final short kind;
+    private final long version;
+    private final long baseVersion;
+    private final int size;
+    private final int recordSize;
+    private final int indexInterval;
+    private final ByteBuffer header;
+    private final ByteBuffer records;
+    private final ByteBuffer strings;
+    private final ByteBuffer index;
+
+    private CatalogSnapshot(Path path, ByteBuffer header, ByteBuffer records, ByteBuffer strings, ByteBuffer index) {
+        this.path = path;
+        this.header = header;
+        this.records = records;
+        this.strings = strings;
+        this.index = index;
+        this.kind = header.getShort(H_KIND);
+        this.version = header.getLong(H_VERSION);
+        this.baseVersion = header.getLong(H_BASE_VERSION);
+        this.size = header.getInt(H_RECORD_COUNT);
+        this.recordSize = header.getInt(H_RECORD_SIZE);
+        this.indexInterval = header.getInt(H_INDEX_INTERVAL);
+    }
+
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(path + " is not a catalog snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(H_MAGIC) != MAGIC) {
+                throw new IOException(path + " is not a catalog snapshot");
+            }
+            if (header.getShort(H_FORMAT) != FORMAT_VERSION) {
+                throw new IOException(path + " has unsupported snapshot format " + header.getShort(H_FORMAT));
+            }
+            long recordsLength = (long) header.getInt(H_RECORD_COUNT) * header.getInt(H_RECORD_SIZE);
+            long indexLength = (long) header.getInt(H_INDEX_ENTRIES) * Long.BYTES;
+            if (header.getLong(H_INDEX_OFFSET) + indexLength != channel.size() || recordsLength > Integer.MAX_VALUE) {
+                throw new IOException(path + " is truncated or inconsistent");
+            }
+            return new CatalogSnapshot(path, header,
+                    channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(H_RECORDS_OFFSET), recordsLength),
+                    channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(H_STRINGS_OFFSET),
+                            header.getLong(H_STRINGS_LENGTH)),
+                    channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(H_INDEX_OFFSET), indexLength));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * For a delta, the version it applies to; 0 for a full snapshot.
+     */
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    public boolean isDelta() {
+        return kind == KIND_DELTA;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int record) {
+        return records.getLong(offset(record) + R_ID);
+    }
+
+    /**
+     * {@link SnapshotFormat#NO_CATEGORY} when the product has none.
+     */
+    public long categoryId(int record) {
+        return records.getLong(offset(record) + R_CATEGORY);
+    }
+
+    public long priceCents(int record) {
+        return records.getLong(offset(record) + R_PRICE_CENTS);
+    }
+
+    public long updatedAt(int record) {
+        return records.getLong(offset(record) + R_UPDATED_AT);
+    }
+
+    public int stock(int record) {
+        return records.getInt(offset(record) + R_STOCK);
+    }
+
+    /**
+     * Whether this delta record removes the product.
+     */
+    public boolean isDeleted(int record) {
+        return (records.getInt(offset(record) + R_FLAGS) & FLAG_DELETED) != 0;
+    }
+
+    public String sku(int record) {
+        return string(record, R_SKU);
+    }
+
+    public String name(int record) {
+        return string(record, R_NAME);
+    }
+
+    public String brand(int record) {
+        return string(record, R_BRAND);
+    }
+
+    public String description(int record) {
+        return string(record, R_DESCRIPTION);
+    }
+
+    public String attributes(int record) {
+        return string(record, R_ATTRIBUTES);
+    }
+
+    /**
+     * Position of the product's record, or -1.
+     */
+    public int find(long id) {
+        int entries = index.capacity() / Long.BYTES;
+        int low = 0;
+        int high = entries - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (index.getLong(middle * Long.BYTES) <= id) {
+                block = middle;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0) {
+            return -1;
+        }
+        low = block * indexInterval;
+        high = Math.min(size, low + indexInterval) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = id(middle);
+            if (candidate < id) {
+                low = middle + 1;
+            }
+            else if (candidate > id) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fills {@code into} with the record; its strings are views of the mapping.
+     */
+    public SnapshotRecord read(int record, SnapshotRecord into) {
+        int offset = offset(record);
+        into.id = records.getLong(offset + R_ID);
+        into.categoryId = records.getLong(offset + R_CATEGORY);
+        into.priceCents = records.getLong(offset + R_PRICE_CENTS);
+        into.updatedAt = records.getLong(offset + R_UPDATED_AT);
+        into.stock = records.getInt(offset + R_STOCK);
+        into.flags = records.getInt(offset + R_FLAGS);
+        into.sku = bytes(record, R_SKU);
+        into.name = bytes(record, R_NAME);
+        into.brand = bytes(record, R_BRAND);
+        into.description = bytes(record, R_DESCRIPTION);
+        into.attributes = bytes(record, R_ATTRIBUTES);
+        return into;
+    }
+
+    /**
+     * Whether the two records are equal field by field, compared in the mappings.
+     */
+    public boolean sameRecord(int record, CatalogSnapshot other, int otherRecord) {
+        if (!records.slice(offset(record), R_FIXED).equals(other.records.slice(other.offset(otherRecord), R_FIXED))) {
+            return false;
+        }
+        for (int field = R_SKU; field < R_SKU + 5 * Long.BYTES; field += Long.BYTES) {
+            ByteBuffer mine = bytes(record, field);
+            ByteBuffer theirs = other.bytes(otherRecord, field);
+            if (mine == null ? theirs != null : !mine.equals(theirs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks every section against the checksums in the header; reads the whole file.
+     */
+    public void verify() throws IOException {
+        check("records", records, H_RECORDS_CRC);
+        check("strings", strings, H_STRINGS_CRC);
+        check("index", index, H_INDEX_CRC);
+    }
+
+    private void check(String section, ByteBuffer buffer, int checksumOffset) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().clear());
+        if ((int) crc.getValue() != header.getInt(checksumOffset)) {
+            throw new IOException("Corrupt " + section + " section in snapshot " + path);
+        }
+    }
+
+    private String string(int record, int field) {
+        ByteBuffer bytes = bytes(record, field);
+        return bytes == null ? null : StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private ByteBuffer bytes(int record, int field) {
+        int offset = offset(record) + field;
+        int length = records.getInt(offset + Integer.BYTES);
+        return length < 0 ? null : strings.slice(records.getInt(offset), length);
+    }
+
+    private int offset(int record) {
+        return record * recordSize;
+    }
+}
@@ -0,0 +1,20 @@
+package org.kun.productservice.snapshot;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfig {
+
+    @Bean
+    public SnapshotService snapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           SnapshotProperties properties) throws IOException {
+        return new SnapshotService(jdbcTemplate, transactionManager, properties);
+    }
+}
@@ -0,0 +1,70 @@
+package org.kun.productservice.snapshot;
+
+import java.io.IOException;
+
+/**
+ * Computes and applies deltas by walking two snapshots in id order side by side;
+ * records are compared and copied straight out of the mappings.
+ */
+public final class SnapshotDeltas {
+
+    private SnapshotDeltas() {
+    }
+
+    /**
+     * Writes to {@code out} the records of {@code target} that are new or differ from
+     * {@code base}, and a tombstone for every product of {@code base} missing from {@code target}.
+     */
+    public static void diff(CatalogSnapshot base, CatalogSnapshot target, SnapshotWriter out) throws IOException {
+        SnapshotRecord record = new SnapshotRecord();
+        int i = 0;
+        int j = 0;
+        while (i < base.size() || j < target.size()) {
+            long baseId = i < base.size() ? base.id(i) : Long.MAX_VALUE;
+            long targetId = j < target.size() ? target.id(j) : Long.MAX_VALUE;
+            if (baseId < targetId) {
+                out.add(record.tombstone(baseId));
+                i++;
+            }
+            else if (targetId < baseId) {
+                out.add(target.read(j++, record));
+            }
+            else {
+                if (!base.sameRecord(i, target, j)) {
+                    out.add(target.read(j, record));
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Writes to {@code out} the full snapshot that results from applying {@code delta} to {@code base}.
+     *
+     * @throws IllegalArgumentException if the delta was not computed against {@code base}
+     */
+    public static void apply(CatalogSnapshot base, CatalogSnapshot delta, SnapshotWriter out) throws IOException {
+        if (!delta.isDelta() || delta.baseVersion() != base.version()) {
+            throw new IllegalArgumentException("Delta " + delta.version() + " does not apply to version " + base.version());
+        }
+        SnapshotRecord record = new SnapshotRecord();
+        int i = 0;
+        int j = 0;
+        while (i < base.size() || j < delta.size()) {
+            long baseId = i < base.size() ? base.id(i) : Long.MAX_VALUE;
+            long deltaId = j < delta.size() ? delta.id(j) : Long.MAX_VALUE;
+            if (baseId < deltaId) {
+                out.add(base.read(i++, record));
+                continue;
+            }
+            if (!delta.isDeleted(j)) {
+                out.add(delta.read(j, record));
+            }
+            if (baseId == deltaId) {
+                i++;
+            }
+            j++;
+        }
+    }
+}
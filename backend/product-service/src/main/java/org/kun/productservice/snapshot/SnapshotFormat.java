@@ -0,0 +1,67 @@
+package org.kun.productservice.snapshot;
+
+/**
+ * Layout of a catalog snapshot file. All numbers are big-endian.
+ * <pre>
+ * header   96 bytes (offsets below)
+ * records  recordCount x recordSize bytes, sorted by product id
+ * strings  UTF-8 bytes referenced by records as (offset, length); length -1 is null
+ * index    id of every indexInterval-th record, for lookups by id
+ * </pre>
+ * A delta snapshot has the same layout; it holds the records that changed since
+ * its base version, plus {@link #FLAG_DELETED} tombstones for removed products.
+ */
+public final class SnapshotFormat {
+
+    public static final int MAGIC = 0x4B434154; // "KCAT"
+    public static final short FORMAT_VERSION = 1;
+    public static final short KIND_FULL = 0;
+    public static final short KIND_DELTA = 1;
+
+    public static final int HEADER_SIZE = 96;
+    static final int H_MAGIC = 0;
+    static final int H_FORMAT = 4;
+    static final int H_KIND = 6;
+    static final int H_VERSION = 8;
+    static final int H_BASE_VERSION = 16;
+    static final int H_RECORD_COUNT = 24;
+    static final int H_RECORD_SIZE = 28;
+    static final int H_RECORDS_OFFSET = 32;
+    static final int H_STRINGS_OFFSET = 40;
+    static final int H_STRINGS_LENGTH = 48;
+    static final int H_INDEX_OFFSET = 56;
+    static final int H_INDEX_ENTRIES = 64;
+    static final int H_INDEX_INTERVAL = 68;
+    static final int H_RECORDS_CRC = 72;
+    static final int H_STRINGS_CRC = 76;
+    static final int H_INDEX_CRC = 80;
+
+    public static final int RECORD_SIZE = 80;
+    static final int R_ID = 0;
+    static final int R_CATEGORY = 8;
+    static final int R_PRICE_CENTS = 16;
+    static final int R_UPDATED_AT = 24;
+    static final int R_STOCK = 32;
+    static final int R_FLAGS = 36;
+    static final int R_SKU = 40;
+    static final int R_NAME = 48;
+    static final int R_BRAND = 56;
+    static final int R_DESCRIPTION = 64;
+    static final int R_ATTRIBUTES = 72;
+    /**
+     * Bytes of a record before the string references; compared as a block by deltas.
+     */
+    static final int R_FIXED = R_SKU;
+
+    public static final int FLAG_DELETED = 1;
+
+    /**
+     * Stored instead of a category id for products without one.
+     */
+    public static final long NO_CATEGORY = -1;
+
+    static final int INDEX_INTERVAL = 128;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,27 @@
+package org.kun.productservice.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = true;
+
+    private String directory = "data/snapshots";
+
+    /**
+     * Time between snapshots; a snapshot is skipped when the catalog has not changed.
+     */
+    private Duration interval = Duration.ofMinutes(15);
+
+    /**
+     * Full snapshots kept; deltas are served from any of them to the latest.
+     */
+    private int retain = 5;
+
+    private int fetchSize = 1_000;
+}
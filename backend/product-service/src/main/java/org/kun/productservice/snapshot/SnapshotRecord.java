@@ -0,0 +1,58 @@
+package org.kun.productservice.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mutable holder for one record on its way into a {@link SnapshotWriter} or out of a
+ * {@link CatalogSnapshot}. Strings are UTF-8 buffers; when filled by a snapshot they
+ * are views of the mapped file, so copying a record never decodes text.
+ */
+public final class SnapshotRecord {
+
+    long id;
+    long categoryId = SnapshotFormat.NO_CATEGORY;
+    long priceCents;
+    long updatedAt;
+    int stock;
+    int flags;
+    ByteBuffer sku;
+    ByteBuffer name;
+    ByteBuffer brand;
+    ByteBuffer description;
+    ByteBuffer attributes;
+
+    public SnapshotRecord set(long id, Long categoryId, long priceCents, int stock, long updatedAt) {
+        this.id = id;
+        this.categoryId = categoryId == null ? SnapshotFormat.NO_CATEGORY : categoryId;
+        this.priceCents = priceCents;
+        this.stock = stock;
+        this.updatedAt = updatedAt;
+        this.flags = 0;
+        return this;
+    }
+
+    public SnapshotRecord text(String sku, String name, String brand, String description, String attributes) {
+        this.sku = utf8(sku);
+        this.name = utf8(name);
+        this.brand = utf8(brand);
+        this.description = utf8(description);
+        this.attributes = utf8(attributes);
+        return this;
+    }
+
+    SnapshotRecord tombstone(long id) {
+        set(id, null, 0, 0, 0);
+        this.flags = SnapshotFormat.FLAG_DELETED;
+        this.sku = this.name = this.brand = this.description = this.attributes = null;
+        return this;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    private static ByteBuffer utf8(String value) {
+        return value == null ? null : ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
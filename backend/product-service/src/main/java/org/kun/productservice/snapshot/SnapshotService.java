@@ -0,0 +1,247 @@
+package org.kun.productservice.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kun.productservice.search.SearchIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Produces full catalog snapshots on a schedule and deltas between them on demand.
+ * Files are immutable once published and named by version, the snapshot's
+ * creation time in epoch milliseconds. Each retained file is mapped once and
+ * shared by every request that reads it.
+ * <p>
+ * Stock is the inventory's where it has taken a product over, as the engine's
+ * write-behind last applied it; the inventory checkpoint is part of the catalog
+ * fingerprint, so reservations alone produce a new snapshot.
+ */
+@Slf4j
+public class SnapshotService {
+
+    private static final String SELECT = "SELECT p.id, p.sku, p.name, p.description, p.brand, p.category_id, p.price, "
+            + "COALESCE(i.available, p.stock) AS stock, p.attributes, p.updated_at "
+            + "FROM products p LEFT JOIN inventory i ON i.product_id = p.id ORDER BY p.id";
+    private static final String FINGERPRINT = "SELECT (SELECT COUNT(*) FROM products) AS products, "
+            + "(SELECT MAX(id) FROM products) AS max_id, (SELECT MAX(updated_at) FROM products) AS updated_at, "
+            + "(SELECT MAX(applied_sequence) FROM inventory_checkpoint) AS inventory_sequence";
+    private static final Pattern FULL = Pattern.compile("catalog-(\\d+)\\.snap");
+    private static final Pattern DELTA = Pattern.compile("catalog-(\\d+)-(\\d+)\\.delta");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final SnapshotProperties properties;
+    private final Path directory;
+    private final NavigableMap<Long, CatalogSnapshot> snapshots = new ConcurrentSkipListMap<>();
+    // deltas to the latest snapshot, by base version; cleared when a newer snapshot is written
+    private final Map<Long, CatalogSnapshot> deltas = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object deltaLock = new Object();
+
+    private String fingerprint;
+
+    public SnapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           SnapshotProperties properties) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher full = FULL.matcher(file.getFileName().toString());
+                if (full.matches()) {
+                    try {
+                        snapshots.put(Long.parseLong(full.group(1)), CatalogSnapshot.open(file));
+                    }
+                    catch (IOException e) {
+                        log.warn("Deleting unreadable catalog snapshot {}: {}", file, e.getMessage());
+                        Files.delete(file);
+                    }
+                }
+                else if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedule() {
+        if (properties.isEnabled()) {
+            long interval = properties.getInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::generateQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Writes a new full snapshot unless the catalog is unchanged since the last one.
+     *
+     * @return the version of the latest snapshot, or -1 when there is none
+     */
+    public synchronized long generate() throws IOException {
+        String current = jdbcTemplate.queryForList(FINGERPRINT).get(0).values().toString();
+        if (current.equals(fingerprint) && !snapshots.isEmpty()) {
+            return snapshots.lastKey();
+        }
+        long start = System.nanoTime();
+        long version = snapshots.isEmpty()
+                ? System.currentTimeMillis() : Math.max(System.currentTimeMillis(), snapshots.lastKey() + 1);
+        Path target = directory.resolve("catalog-" + version + ".snap");
+        try (SnapshotWriter writer = new SnapshotWriter(target, SnapshotFormat.KIND_FULL, version, 0)) {
+            SnapshotRecord record = new SnapshotRecord();
+            // a transaction keeps autocommit off, which Postgres needs to stream with a fetch size
+            readOnly.executeWithoutResult(status -> {
+                JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+                streaming.setFetchSize(properties.getFetchSize());
+                streaming.query(SELECT, (RowCallbackHandler) rs -> {
+                    try {
+                        writer.add(fill(record, rs));
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            });
+            writer.finish();
+            log.info("Wrote catalog snapshot {} with {} products in {} ms", version, writer.count(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        snapshots.put(version, CatalogSnapshot.open(target));
+        fingerprint = current;
+        prune();
+        return version;
+    }
+
+    public List<CatalogSnapshot> snapshots() {
+        return new ArrayList<>(snapshots.values());
+    }
+
+    public CatalogSnapshot latest() {
+        Map.Entry<Long, CatalogSnapshot> latest = snapshots.lastEntry();
+        return latest == null ? null : latest.getValue();
+    }
+
+    public CatalogSnapshot snapshot(long version) {
+        return snapshots.get(version);
+    }
+
+    /**
+     * The delta from {@code from} to the latest snapshot, computed on first request.
+     *
+     * @return null when {@code from} is the latest version
+     * @throws NoSuchFileException when {@code from} is not a retained snapshot
+     */
+    public CatalogSnapshot deltaToLatest(long from) throws IOException {
+        synchronized (deltaLock) {
+            return delta(from);
+        }
+    }
+
+    private CatalogSnapshot delta(long from) throws IOException {
+        CatalogSnapshot base = snapshots.get(from);
+        if (base == null) {
+            throw new NoSuchFileException("catalog-" + from + ".snap");
+        }
+        Map.Entry<Long, CatalogSnapshot> latest = snapshots.lastEntry();
+        if (latest.getKey() == from) {
+            return null;
+        }
+        CatalogSnapshot cached = deltas.get(from);
+        if (cached != null && cached.version() == latest.getKey()) {
+            return cached;
+        }
+        Path target = directory.resolve("catalog-" + from + "-" + latest.getKey() + ".delta");
+        if (!Files.exists(target)) {
+            try (SnapshotWriter writer = new SnapshotWriter(target, SnapshotFormat.KIND_DELTA, latest.getKey(), from)) {
+                SnapshotDeltas.diff(base, latest.getValue(), writer);
+                writer.finish();
+            }
+        }
+        CatalogSnapshot delta = CatalogSnapshot.open(target);
+        deltas.put(from, delta);
+        return delta;
+    }
+
+    private void generateQuietly() {
+        try {
+            generate();
+        }
+        catch (IOException | RuntimeException e) {
+            log.error("Failed to write a catalog snapshot", e);
+        }
+    }
+
+    private void prune() throws IOException {
+        synchronized (deltaLock) {
+            pruneFiles();
+        }
+    }
+
+    private void pruneFiles() throws IOException {
+        while (snapshots.size() > properties.getRetain()) {
+            Files.deleteIfExists(snapshots.pollFirstEntry().getValue().path());
+        }
+        long oldest = snapshots.firstKey();
+        long latest = snapshots.lastKey();
+        // requests already holding a mapping keep reading it; the pages go when it is collected
+        deltas.values().removeIf(delta -> delta.baseVersion() < oldest || delta.version() != latest);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher delta = DELTA.matcher(file.getFileName().toString());
+                // deltas to an older version are never served again
+                if (delta.matches() && (Long.parseLong(delta.group(1)) < oldest
+                        || Long.parseLong(delta.group(2)) != latest)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static SnapshotRecord fill(SnapshotRecord record, ResultSet rs) throws SQLException {
+        long categoryId = rs.getLong("category_id");
+        Long category = rs.wasNull() ? null : categoryId;
+        return record.set(rs.getLong("id"), category, SearchIndex.cents(rs.getBigDecimal("price")), rs.getInt("stock"),
+                        rs.getTimestamp("updated_at").getTime())
+                .text(rs.getString("sku"), rs.getString("name"), rs.getString("brand"), rs.getString("description"),
+                        rs.getString("attributes"));
+    }
+}
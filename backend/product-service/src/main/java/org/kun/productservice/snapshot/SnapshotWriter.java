@@ -0,0 +1,219 @@
+package org.kun.productservice.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static org.kun.productservice.snapshot.SnapshotFormat.*;
+
+/**
+ * Streams records into a snapshot file. Records and strings go to two temporary
+ * files as they arrive, so memory stays flat whatever the catalog size; {@link #finish()}
+ * joins them behind the header and index and moves the result into place atomically.
+ * Brands are deduplicated in the string table; other strings are stored as they come.
+ */
+public final class SnapshotWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_DEDUPLICATED = 65_536;
+
+    private final Path target;
+    private final short kind;
+    private final long version;
+    private final long baseVersion;
+    private final Path recordsPath;
+    private final Path stringsPath;
+    private final FileChannel records;
+    private final FileChannel strings;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer stringBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32C recordsCrc = new CRC32C();
+    private final CRC32C stringsCrc = new CRC32C();
+    private final Map<ByteBuffer, Integer> brands = new HashMap<>();
+    private long[] indexIds = new long[1_024];
+    private long stringsLength;
+    private int count;
+    private long lastId = Long.MIN_VALUE;
+    private boolean finished;
+
+    public SnapshotWriter(Path target, short kind, long version, long baseVersion) throws IOException {
+        this.target = target;
+        this.kind = kind;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.recordsPath = target.resolveSibling(target.getFileName() + ".records.tmp");
+        this.stringsPath = target.resolveSibling(target.getFileName() + ".strings.tmp");
+        this.records = open(recordsPath);
+        this.strings = open(stringsPath);
+    }
+
+    /**
+     * Appends a record; ids must be strictly ascending.
+     */
+    public void add(SnapshotRecord record) throws IOException {
+        if (record.id <= lastId) {
+            throw new IllegalArgumentException("Snapshot records must be added in ascending id order");
+        }
+        lastId = record.id;
+        if (count % INDEX_INTERVAL == 0) {
+            int entry = count / INDEX_INTERVAL;
+            if (entry == indexIds.length) {
+                indexIds = Arrays.copyOf(indexIds, entry * 2);
+            }
+            indexIds[entry] = record.id;
+        }
+        if (recordBuffer.remaining() < RECORD_SIZE) {
+            flush(recordBuffer, records, recordsCrc);
+        }
+        recordBuffer.putLong(record.id)
+                .putLong(record.categoryId)
+                .putLong(record.priceCents)
+                .putLong(record.updatedAt)
+                .putInt(record.stock)
+                .putInt(record.flags);
+        putReference(record.sku, false);
+        putReference(record.name, false);
+        putReference(record.brand, true);
+        putReference(record.description, false);
+        putReference(record.attributes, false);
+        count++;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Writes the file and moves it to the target path.
+     */
+    public Path finish() throws IOException {
+        flush(recordBuffer, records, recordsCrc);
+        flush(stringBuffer, strings, stringsCrc);
+
+        int indexEntries = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        ByteBuffer index = ByteBuffer.allocate(indexEntries * Long.BYTES);
+        for (int i = 0; i < indexEntries; i++) {
+            index.putLong(indexIds[i]);
+        }
+        index.flip();
+        CRC32C indexCrc = new CRC32C();
+        indexCrc.update(index.duplicate());
+
+        long recordsLength = (long) count * RECORD_SIZE;
+        long stringsOffset = HEADER_SIZE + recordsLength;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(H_MAGIC, MAGIC)
+                .putShort(H_FORMAT, FORMAT_VERSION)
+                .putShort(H_KIND, kind)
+                .putLong(H_VERSION, version)
+                .putLong(H_BASE_VERSION, baseVersion)
+                .putInt(H_RECORD_COUNT, count)
+                .putInt(H_RECORD_SIZE, RECORD_SIZE)
+                .putLong(H_RECORDS_OFFSET, HEADER_SIZE)
+                .putLong(H_STRINGS_OFFSET, stringsOffset)
+                .putLong(H_STRINGS_LENGTH, stringsLength)
+                .putLong(H_INDEX_OFFSET, stringsOffset + stringsLength)
+                .putInt(H_INDEX_ENTRIES, indexEntries)
+                .putInt(H_INDEX_INTERVAL, INDEX_INTERVAL)
+                .putInt(H_RECORDS_CRC, (int) recordsCrc.getValue())
+                .putInt(H_STRINGS_CRC, (int) stringsCrc.getValue())
+                .putInt(H_INDEX_CRC, (int) indexCrc.getValue());
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, header);
+            transfer(records, out);
+            transfer(strings, out);
+            writeFully(out, index);
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        finished = true;
+        close();
+        return target;
+    }
+
+    /**
+     * Discards the temporary files; the target is left untouched unless {@link #finish()} succeeded.
+     */
+    @Override
+    public void close() throws IOException {
+        records.close();
+        strings.close();
+        Files.deleteIfExists(recordsPath);
+        Files.deleteIfExists(stringsPath);
+        if (!finished) {
+            Files.deleteIfExists(target.resolveSibling(target.getFileName() + ".tmp"));
+        }
+    }
+
+    private void putReference(ByteBuffer value, boolean deduplicate) throws IOException {
+        if (value == null) {
+            recordBuffer.putInt(0).putInt(-1);
+            return;
+        }
+        int length = value.remaining();
+        Integer offset = deduplicate ? brands.get(value) : null;
+        if (offset == null) {
+            if (stringsLength + length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot string table exceeds 2 GB");
+            }
+            offset = (int) stringsLength;
+            appendString(value.duplicate());
+            if (deduplicate && brands.size() < MAX_DEDUPLICATED) {
+                byte[] copy = new byte[length];
+                value.duplicate().get(copy);
+                brands.put(ByteBuffer.wrap(copy), offset);
+            }
+        }
+        recordBuffer.putInt(offset).putInt(length);
+    }
+
+    private void appendString(ByteBuffer value) throws IOException {
+        stringsLength += value.remaining();
+        while (value.hasRemaining()) {
+            if (!stringBuffer.hasRemaining()) {
+                flush(stringBuffer, strings, stringsCrc);
+            }
+            int chunk = Math.min(value.remaining(), stringBuffer.remaining());
+            stringBuffer.put(stringBuffer.position(), value, value.position(), chunk);
+            stringBuffer.position(stringBuffer.position() + chunk);
+            value.position(value.position() + chunk);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void transfer(FileChannel from, FileChannel to) throws IOException {
+        long size = from.size();
+        long position = 0;
+        while (position < size) {
+            position += from.transferTo(position, size - position, to);
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,83 @@
+package org.kun.productservice.trending;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary over weighted items in fixed memory. An untracked
+ * item replaces the lightest tracked one and inherits its weight as error, so an
+ * item's weight is never underestimated and is overestimated by at most its error.
+ * <p>
+ * Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final long[] items;
+    private final double[] weights;
+    private final double[] errors;
+    private final Map<Long, Integer> slots;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.items = new long[capacity];
+        this.weights = new double[capacity];
+        this.errors = new double[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    void offer(long item, double weight) {
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            weights[slot] += weight;
+            return;
+        }
+        if (size < items.length) {
+            put(size++, item, weight, 0);
+            return;
+        }
+        int lightest = 0;
+        for (int i = 1; i < size; i++) {
+            if (weights[i] < weights[lightest]) {
+                lightest = i;
+            }
+        }
+        slots.remove(items[lightest]);
+        put(lightest, item, weights[lightest] + weight, weights[lightest]);
+    }
+
+    /**
+     * Multiplies every weight; used to keep decayed weights in range.
+     */
+    void scale(double factor) {
+        for (int i = 0; i < size; i++) {
+            weights[i] *= factor;
+            errors[i] *= factor;
+        }
+    }
+
+    List<Entry> top(int limit) {
+        Entry[] entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry(items[i], weights[i], errors[i]);
+        }
+        Arrays.sort(entries, Comparator.comparingDouble(Entry::weight).reversed());
+        return new ArrayList<>(Arrays.asList(entries).subList(0, Math.min(limit, size)));
+    }
+
+    private void put(int slot, long item, double weight, double error) {
+        items[slot] = item;
+        weights[slot] = weight;
+        errors[slot] = error;
+        slots.put(item, slot);
+    }
+
+    /**
+     * @param error how much of {@code weight} may belong to items evicted before this one
+     */
+    record Entry(long item, double weight, double error) {
+    }
+}
@@ -0,0 +1,18 @@
+package org.kun.productservice.trending;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(TrendingProperties.class)
+public class TrendingConfig {
+
+    @Bean
+    public TrendingService trendingService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           TrendingProperties properties) {
+        return new TrendingService(jdbcTemplate, transactionManager, properties);
+    }
+}
@@ -0,0 +1,8 @@
+package org.kun.productservice.trending;
+
+/**
+ * @param score      decayed views as of the last flush: a view counts 1 now and half after one half-life
+ * @param guaranteed part of {@code score} certainly earned by this product rather than inherited on eviction
+ */
+public record TrendingEntry(long productId, double score, double guaranteed) {
+}
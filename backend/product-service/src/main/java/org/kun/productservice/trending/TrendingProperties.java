@@ -0,0 +1,37 @@
+package org.kun.productservice.trending;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "product.trending")
+public class TrendingProperties {
+
+    /**
+     * How often counted views are written to {@code product_views} and fed to the rankings.
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * A view counts half as much for trending after this long.
+     */
+    private Duration halfLife = Duration.ofHours(1);
+
+    /**
+     * Products tracked per category; rankings are exact for products well above the
+     * weight of the least tracked one.
+     */
+    private int capacity = 100;
+
+    /**
+     * Products whose view counts are kept for the next flush while {@code product_views}
+     * cannot be written; views of further products are dropped from the totals.
+     */
+    private int maxUnsaved = 100_000;
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 50;
+}
@@ -0,0 +1,221 @@
+package org.kun.productservice.trending;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts product views in memory and, once per flush interval, adds them to
+ * {@code product_views} in one transaction and feeds them to per-category
+ * {@link SpaceSaving} rankings. Rankings use forward decay: a view at time t weighs
+ * 2^((t - landmark) / halfLife), so older weights never need touching, and
+ * everything is rescaled when the exponent grows large.
+ * <p>
+ * Memory is fixed by the number of categories times the ranking capacity, plus the
+ * products viewed during one interval. Counts the database refused are retried
+ * with later flushes, up to {@code max-unsaved} products, but ranked only once.
+ */
+@Slf4j
+public class TrendingService {
+
+    /**
+     * Ranking key for all products regardless of category.
+     */
+    static final long ALL = Long.MIN_VALUE;
+    private static final double RESCALE_ABOVE = 1e12;
+    private static final int CHUNK = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrendingProperties properties;
+    private final ViewCounter views = new ViewCounter();
+    private final Map<Long, SpaceSaving> rankings = new HashMap<>();
+    private final Map<Long, Long> unsaved = new HashMap<>();
+    private final double halfLifeMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trending-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long landmark = System.currentTimeMillis();
+    private volatile Map<Long, List<TrendingEntry>> published = Map.of();
+
+    public TrendingService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           TrendingProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.halfLifeMillis = properties.getHalfLife().toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedule() {
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        // twice: the second call drains the generation retired by the first
+        flushQuietly();
+        flushQuietly();
+    }
+
+    public void recordView(long productId) {
+        views.record(productId);
+    }
+
+    /**
+     * Most viewed products lately, best first, as of the last flush.
+     *
+     * @param categoryId null for all categories
+     */
+    public List<TrendingEntry> trending(Long categoryId, int limit) {
+        List<TrendingEntry> ranking = published.getOrDefault(categoryId == null ? ALL : categoryId, List.of());
+        return ranking.subList(0, Math.min(limit, ranking.size()));
+    }
+
+    synchronized void flush() {
+        Map<Long, Long> counts = views.drain();
+        if (counts.isEmpty() && unsaved.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> pending = new HashMap<>(unsaved);
+        unsaved.clear();
+        counts.forEach((productId, count) -> pending.merge(productId, count, Long::sum));
+        Map<Long, Long> categories;
+        try {
+            categories = categoriesOf(pending);
+        }
+        catch (DataAccessException e) {
+            // the counts are saved later; this interval's views go unranked
+            keepUnsaved(pending);
+            log.warn("Could not read the categories of {} viewed products, retrying with the next flush",
+                    pending.size(), e);
+            return;
+        }
+        // views of products deleted meanwhile are dropped
+        pending.keySet().retainAll(categories.keySet());
+        counts.keySet().retainAll(categories.keySet());
+        try {
+            save(pending);
+        }
+        catch (DataAccessException e) {
+            keepUnsaved(pending);
+            log.warn("Could not save {} product view counts, retrying with the next flush", pending.size(), e);
+        }
+        // only this interval's views: earlier ones were ranked when they were counted
+        if (!counts.isEmpty()) {
+            rank(counts, categories);
+        }
+    }
+
+    private void keepUnsaved(Map<Long, Long> pending) {
+        long dropped = 0;
+        for (Map.Entry<Long, Long> entry : pending.entrySet()) {
+            if (unsaved.size() < properties.getMaxUnsaved()) {
+                unsaved.put(entry.getKey(), entry.getValue());
+            }
+            else {
+                dropped += entry.getValue();
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Dropping {} product views: more than {} products are waiting to be saved", dropped,
+                    properties.getMaxUnsaved());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to flush product views", e);
+        }
+    }
+
+    private Map<Long, Long> categoriesOf(Map<Long, Long> counts) {
+        Map<Long, Long> categories = new HashMap<>(counts.size() * 2);
+        List<Long> ids = new ArrayList<>(counts.keySet());
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+            String sql = "SELECT id, category_id FROM products WHERE id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                long categoryId = rs.getLong("category_id");
+                categories.put(rs.getLong("id"), rs.wasNull() ? ALL : categoryId);
+            }, chunk.toArray());
+        }
+        return categories;
+    }
+
+    private void save(Map<Long, Long> counts) {
+        // sorted, so concurrent flushes from several replicas lock rows in the same order
+        Map<Long, Long> sorted = new TreeMap<>(counts);
+        List<Object[]> updates = new ArrayList<>(sorted.size());
+        sorted.forEach((productId, count) -> updates.add(new Object[]{count, productId}));
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] updated = jdbcTemplate.batchUpdate(
+                    "UPDATE product_views SET views = views + ? WHERE product_id = ?", updates);
+            List<Object[]> missing = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    missing.add(updates.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO product_views (product_id, views) SELECT ?, ? "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM product_views WHERE product_id = ?)",
+                        missing.stream().map(row -> new Object[]{row[1], row[0], row[1]}).toList());
+            }
+        });
+    }
+
+    private void rank(Map<Long, Long> counts, Map<Long, Long> categories) {
+        long now = System.currentTimeMillis();
+        double weight = Math.pow(2, (now - landmark) / halfLifeMillis);
+        if (weight > RESCALE_ABOVE) {
+            double factor = 1 / weight;
+            rankings.values().forEach(ranking -> ranking.scale(factor));
+            landmark = now;
+            weight = 1;
+        }
+        double viewWeight = weight;
+        counts.forEach((productId, count) -> {
+            ranking(ALL).offer(productId, count * viewWeight);
+            long categoryId = categories.get(productId);
+            if (categoryId != ALL) {
+                ranking(categoryId).offer(productId, count * viewWeight);
+            }
+        });
+        Map<Long, List<TrendingEntry>> next = new HashMap<>(rankings.size() * 2);
+        rankings.forEach((categoryId, ranking) -> next.put(categoryId, ranking.top(properties.getMaxLimit()).stream()
+                .map(entry -> new TrendingEntry(entry.item(), entry.weight() / viewWeight,
+                        (entry.weight() - entry.error()) / viewWeight))
+                .toList()));
+        published = next;
+    }
+
+    private SpaceSaving ranking(long categoryId) {
+        return rankings.computeIfAbsent(categoryId, id -> new SpaceSaving(properties.getCapacity()));
+    }
+}
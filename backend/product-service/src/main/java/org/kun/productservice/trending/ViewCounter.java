@@ -0,0 +1,37 @@
+package org.kun.productservice.trending;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-product view counts between flushes. Recording is a {@link LongAdder}
+ * increment, which spreads contention on a hot product over cells.
+ * <p>
+ * Counts are double-buffered: {@link #drain()} retires the current generation and
+ * returns the one retired by the previous call. A thread that read the map
+ * reference just before the swap therefore still lands its increment in a map
+ * that has not been summed yet, unless it stalls for a whole flush interval.
+ */
+final class ViewCounter {
+
+    private volatile ConcurrentHashMap<Long, LongAdder> current = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Long, LongAdder> retired = new ConcurrentHashMap<>();
+
+    void record(long productId) {
+        current.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Called from one thread at a time.
+     */
+    Map<Long, Long> drain() {
+        ConcurrentHashMap<Long, LongAdder> summed = retired;
+        retired = current;
+        current = new ConcurrentHashMap<>();
+        Map<Long, Long> counts = new HashMap<>(summed.size() * 2);
+        summed.forEach((productId, adder) -> counts.put(productId, adder.sum()));
+        return counts;
+    }
+}
@@ -0,0 +1,144 @@
+package org.kun.productservice.benchmark;
+
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.productservice.category.CategoryRef;
+import org.kun.productservice.category.CategoryRow;
+import org.kun.productservice.category.CategoryTree;
+import org.kun.productservice.category.CategoryTreeCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost and lookup latency of the category tree for a random hierarchy
+ * (average depth around 10). {@code loadAndBuild} reads the rows from an in-memory
+ * H2 database the way the service does at startup; the retained heap of one tree
+ * is printed during setup:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.productservice.benchmark.CategoryTreeBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class CategoryTreeBenchmark {
+
+    private static final int ROOTS = 20;
+    private static final int LOOKUPS = 1_024;
+
+    @Param({"50000"})
+    public int categories;
+
+    private List<CategoryRow> rows;
+    private CategoryTree tree;
+    private JdbcTemplate jdbcTemplate;
+    private long[] ancestors;
+    private long[] descendants;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        rows = new ArrayList<>(categories);
+        for (int id = 1; id <= categories; id++) {
+            Long parent = id <= ROOTS ? null : (long) (1 + random.nextInt(id - 1));
+            rows.add(new CategoryRow(id, parent, "category-" + id, "Category " + Integer.toString(id, 36)));
+        }
+        tree = measureFootprint();
+
+        jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:categories;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE categories (id BIGINT PRIMARY KEY, slug VARCHAR(120), name VARCHAR(255), "
+                + "parent_id BIGINT)");
+        jdbcTemplate.batchUpdate("INSERT INTO categories VALUES (?, ?, ?, ?)", rows.stream()
+                .map(row -> new Object[]{row.id(), row.slug(), row.name(), row.parentId()})
+                .toList());
+
+        ancestors = new long[LOOKUPS];
+        descendants = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            descendants[i] = 1 + random.nextInt(categories);
+            List<CategoryRef> path = tree.path(descendants[i]);
+            // half of the pairs are related
+            ancestors[i] = i % 2 == 0 ? path.get(random.nextInt(path.size())).id() : 1 + random.nextInt(categories);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CategoryTree build() {
+        return CategoryTree.build(rows);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CategoryTree loadAndBuild() {
+        return CategoryTree.build(CategoryTreeCache.load(jdbcTemplate));
+    }
+
+    @Benchmark
+    public boolean isWithin() {
+        int i = next++ & (LOOKUPS - 1);
+        return tree.isWithin(descendants[i], ancestors[i]);
+    }
+
+    @Benchmark
+    public int subtreeSize() {
+        return tree.subtreeSize(ancestors[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public List<CategoryRef> breadcrumb() {
+        return tree.path(descendants[next++ & (LOOKUPS - 1)]);
+    }
+
+    private CategoryTree measureFootprint() {
+        long before = usedHeapAfterGc();
+        // fresh strings, as a tree loaded from the database owns its slugs and names
+        CategoryTree built = CategoryTree.build(rows.stream()
+                .map(row -> new CategoryRow(row.id(), row.parentId(), new String(row.slug()), new String(row.name())))
+                .toList());
+        long after = usedHeapAfterGc();
+        System.out.printf("%nCategoryTree of %d categories retains about %.1f MB%n", built.size(),
+                (after - before) / (1024.0 * 1024));
+        return built;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(CategoryTreeBenchmark.class, args);
+    }
+}
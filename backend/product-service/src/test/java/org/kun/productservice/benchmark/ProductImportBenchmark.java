@@ -0,0 +1,179 @@
+package org.kun.productservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.productservice.dto.ImportReport;
+import org.kun.productservice.importer.ImportFormat;
+import org.kun.productservice.importer.ImportProperties;
+import org.kun.productservice.importer.JdbcBatchProductWriter;
+import org.kun.productservice.importer.PostgresCopyProductWriter;
+import org.kun.productservice.importer.ProductBatchWriter;
+import org.kun.productservice.importer.ProductImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end import of a generated multi-million-row feed. The feed is produced
+ * on the fly, so the benchmark itself runs in constant memory; run it with a
+ * small heap (e.g. {@code -Xmx256m}) to confirm the importer does too.
+ *
+ * <p>Defaults to an in-memory H2 database with the JDBC batch writer. Point it
+ * at Postgres to compare writers:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.productservice.benchmark.ProductImportBenchmark \
+ *     -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/productdb_bench?reWriteBatchedInserts=true \
+ *     -Dbench.jdbc.user=postgres -Dbench.jdbc.password=123456 -Dbench.writer=copy
+ * </pre>
+ * Each result is the time for one feed; rows/s is {@code rows / score}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class ProductImportBenchmark {
+
+    @Param({"2000000"})
+    public int rows;
+
+    @Param({"CSV", "NDJSON"})
+    public ImportFormat format;
+
+    private DriverManagerDataSource dataSource;
+    private ExecutorService executor;
+    private ProductImportService importService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource = new DriverManagerDataSource(url, System.getProperty("bench.jdbc.user", "sa"),
+                System.getProperty("bench.jdbc.password", ""));
+        boolean postgres = url.startsWith("jdbc:postgresql:");
+        ProductBatchWriter writer = "copy".equals(System.getProperty("bench.writer"))
+                ? new PostgresCopyProductWriter(dataSource)
+                : new JdbcBatchProductWriter(dataSource, postgres);
+        executor = Executors.newCachedThreadPool();
+        importService = new ProductImportService(writer, executor, new ImportProperties(), new ObjectMapper(),
+                event -> { });
+    }
+
+    @Setup(Level.Iteration)
+    public void recreateSchema() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS products");
+            statement.execute("DROP SEQUENCE IF EXISTS product_seq");
+            statement.execute("CREATE SEQUENCE product_seq START WITH 1 INCREMENT BY 50");
+            statement.execute("""
+                    CREATE TABLE products (
+                        id bigint PRIMARY KEY, sku varchar(64) NOT NULL UNIQUE, name varchar(255) NOT NULL,
+                        description text, brand varchar(120), category_id bigint, price numeric(12, 2) NOT NULL,
+                        stock integer NOT NULL, attributes text, created_at timestamp NOT NULL,
+                        updated_at timestamp NOT NULL)
+                    """);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public ImportReport importFeed() {
+        ImportReport report = importService.importProducts(new FeedStream(rows, format), format);
+        if (report.getStatus() != ImportReport.Status.COMPLETED || report.getImported() != rows) {
+            throw new IllegalStateException("Import failed: " + report);
+        }
+        return report;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(ProductImportBenchmark.class, args);
+    }
+
+    /**
+     * Generates feed rows lazily, one row per refill.
+     */
+    static final class FeedStream extends InputStream {
+
+        private final int rows;
+        private final ImportFormat format;
+        private final StringBuilder line = new StringBuilder(256);
+        private byte[] current;
+        private int position;
+        private int next;
+
+        FeedStream(int rows, ImportFormat format) {
+            this.rows = rows;
+            this.format = format;
+            current = format == ImportFormat.CSV
+                    ? "sku,name,description,brand,category_id,price,stock,attributes\n".getBytes(StandardCharsets.US_ASCII)
+                    : new byte[0];
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (position == current.length && !refill()) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean refill() {
+            if (next == rows) {
+                return false;
+            }
+            int i = next++;
+            line.setLength(0);
+            String sku = "SKU-" + i;
+            String price = (i % 100_000) / 100 + "." + (i % 100 < 10 ? "0" : "") + i % 100;
+            if (format == ImportFormat.CSV) {
+                line.append(sku).append(",Product ").append(i)
+                        .append(",\"Generated product, number ").append(i).append("\",Brand ").append(i % 500)
+                        .append(',').append(i % 2_000).append(',').append(price).append(',').append(i % 1_000)
+                        .append(",\"{\"\"color\"\":\"\"c").append(i % 12).append("\"\"}\"\n");
+            }
+            else {
+                line.append("{\"sku\":\"").append(sku).append("\",\"name\":\"Product ").append(i)
+                        .append("\",\"description\":\"Generated product, number ").append(i)
+                        .append("\",\"brand\":\"Brand ").append(i % 500).append("\",\"category_id\":").append(i % 2_000)
+                        .append(",\"price\":").append(price).append(",\"stock\":").append(i % 1_000)
+                        .append(",\"attributes\":{\"color\":\"c").append(i % 12).append("\"}}\n");
+            }
+            current = line.toString().getBytes(StandardCharsets.US_ASCII);
+            position = 0;
+            return true;
+        }
+    }
+}
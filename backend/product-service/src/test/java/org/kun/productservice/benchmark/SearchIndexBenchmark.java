@@ -0,0 +1,141 @@
+package org.kun.productservice.benchmark;
+
+import org.kun.common.benchmark.Benchmarks;
+import org.kun.productservice.search.ProductDocument;
+import org.kun.productservice.search.SearchIndex;
+import org.kun.productservice.search.SearchQuery;
+import org.kun.productservice.search.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency distribution (see the p0.99 rows) over a generated catalog whose
+ * words, brands and categories follow a Zipf-like distribution, so there are
+ * both very broad and very selective terms. The target is p99 under 10 ms at 2M
+ * products:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.kun.productservice.benchmark.SearchIndexBenchmark
+ * </pre>
+ * Use {@code -Dexec.args="-p products=200000"} for a quick run.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int BRANDS = 2_000;
+    private static final int CATEGORIES = 1_000;
+    private static final int QUERIES = 1_024;
+
+    @Param({"2000000"})
+    public int products;
+
+    private SearchIndex index;
+    private SearchQuery[] selective;
+    private SearchQuery[] twoTerms;
+    private SearchQuery[] broad;
+    private SearchQuery[] broadFiltered;
+    private SearchQuery[] browseByBrand;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new SearchIndex(List.of(new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+                new BigDecimal("250"), new BigDecimal("500")), 20, 64, 0.25, products,
+                Runtime.getRuntime().availableProcessors());
+        StringBuilder text = new StringBuilder();
+        for (int id = 1; id <= products; id++) {
+            String name = words(random, text, 3 + random.nextInt(3));
+            String description = words(random, text, 12 + random.nextInt(12));
+            index.upsert(new ProductDocument(id, name, description, "brand" + zipf(random, BRANDS),
+                    (long) zipf(random, CATEGORIES), BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    "{\"color\":\"c" + random.nextInt(16) + "\"}"));
+        }
+        selective = new SearchQuery[QUERIES];
+        twoTerms = new SearchQuery[QUERIES];
+        broad = new SearchQuery[QUERIES];
+        broadFiltered = new SearchQuery[QUERIES];
+        browseByBrand = new SearchQuery[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            selective[i] = query(word(1_000 + random.nextInt(VOCABULARY - 1_000)), null, null);
+            twoTerms[i] = query(word(random.nextInt(50)) + " " + word(100 + random.nextInt(2_000)), null, null);
+            broad[i] = query(word(random.nextInt(5)), null, null);
+            broadFiltered[i] = query(word(random.nextInt(5)), (long) zipf(random, CATEGORIES),
+                    "brand" + zipf(random, BRANDS));
+            browseByBrand[i] = query("", null, "brand" + zipf(random, BRANDS));
+        }
+    }
+
+    @Benchmark
+    public SearchResult selectiveTerm() {
+        return index.search(selective[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public SearchResult commonPlusMidTerm() {
+        return index.search(twoTerms[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public SearchResult broadTerm() {
+        return index.search(broad[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public SearchResult broadTermWithFilters() {
+        return index.search(broadFiltered[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public SearchResult browseBrandFacets() {
+        return index.search(browseByBrand[next++ & (QUERIES - 1)]);
+    }
+
+    private static SearchQuery query(String text, Long category, String brand) {
+        return new SearchQuery(text, category, brand, null, null, 20, null);
+    }
+
+    private static String words(SplittableRandom random, StringBuilder text, int count) {
+        text.setLength(0);
+        for (int i = 0; i < count; i++) {
+            text.append(word(zipf(random, VOCABULARY))).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36);
+    }
+
+    /**
+     * Approximately Zipf-distributed rank in [0, n): low ranks are far more common.
+     */
+    private static int zipf(SplittableRandom random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, random.nextDouble()) - 1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Benchmarks.run(SearchIndexBenchmark.class, args);
+    }
+}
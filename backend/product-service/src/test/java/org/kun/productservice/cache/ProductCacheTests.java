@@ -0,0 +1,177 @@
+package org.kun.productservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.dto.ProductDetail;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.importer.ImportFormat;
+import org.kun.productservice.importer.ProductImportService;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductCacheTests {
+
+    @Autowired
+    private ProductCache cache;
+
+    @Autowired
+    private SharedCacheTier sharedTier;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductCacheProperties properties;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private MeterRegistry replicaMeters;
+    private ProductCache replica;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        replicaMeters = new SimpleMeterRegistry();
+        // a second product-service instance sharing the same tier
+        replica = new ProductCache(sharedTier, productRepository, objectMapper, properties, replicaMeters);
+    }
+
+    @Test
+    void secondReplicaIsServedFromSharedTier() {
+        Product product = save("C-1", "Kettle");
+
+        assertThat(cache.get(product.getId())).map(ProductDetail::name).contains("Kettle");
+        assertThat(replica.get(product.getId())).map(ProductDetail::name).contains("Kettle");
+        assertThat(replica.get(product.getId())).map(ProductDetail::name).contains("Kettle");
+
+        assertThat(replicaMeters.counter("product.cache.shared", "result", "hit").count()).isEqualTo(1);
+        assertThat(replica.localSize()).isEqualTo(1);
+        assertThat(cache.get(Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void updateThroughJpaEvictsEveryReplica() {
+        Product product = save("C-2", "Toaster");
+        cache.get(product.getId());
+        replica.get(product.getId());
+        long invalidations = replicaMeters.timer("product.cache.invalidation.lag").count();
+
+        product.setName("Toaster Pro");
+        productRepository.save(product);
+
+        assertThat(cache.get(product.getId())).map(ProductDetail::name).contains("Toaster Pro");
+        assertThat(replica.get(product.getId())).map(ProductDetail::name).contains("Toaster Pro");
+        assertThat(replicaMeters.timer("product.cache.invalidation.lag").count()).isEqualTo(invalidations + 1);
+    }
+
+    @Test
+    void importEvictsBySku() {
+        Product product = save("C-3", "Blender");
+        cache.get(product.getId());
+        replica.get(product.getId());
+
+        importService.importProducts(new ByteArrayInputStream("sku,name,price\nC-3,Blender Max,49.00\n"
+                .getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+
+        assertThat(cache.get(product.getId())).map(ProductDetail::price).hasValueSatisfying(
+                price -> assertThat(price).isEqualByComparingTo("49.00"));
+        assertThat(replica.get(product.getId())).map(ProductDetail::name).contains("Blender Max");
+    }
+
+    @Test
+    void fillRacingAnotherReplicasChangeIsEvictedWhenItsMessageArrives() {
+        Product product = save("C-4", "Grinder");
+        Product stale = productRepository.findById(product.getId()).orElseThrow();
+        DeferredTier tier = new DeferredTier();
+        ProductCache writer = new ProductCache(tier, productRepository, objectMapper, properties,
+                new SimpleMeterRegistry());
+        // the other replica commits after this one read the row and before it fills the shared tier
+        ProductRepository racingRead = mock(ProductRepository.class);
+        given(racingRead.findById(product.getId())).willAnswer(invocation -> {
+            product.setName("Grinder Pro");
+            productRepository.save(product);
+            writer.invalidate(List.of(product.getId()));
+            return Optional.of(stale);
+        });
+        ProductCache racing = new ProductCache(tier, racingRead, objectMapper, properties, replicaMeters);
+
+        assertThat(racing.get(product.getId())).map(ProductDetail::name).contains("Grinder");
+        tier.deliver();
+
+        assertThat(writer.get(product.getId())).map(ProductDetail::name).contains("Grinder Pro");
+        assertThat(replicaMeters.counter("product.cache.refill.evictions").count()).isEqualTo(1);
+    }
+
+    @Test
+    void stockIsTheInventorysOnceTheProductWasReserved() throws Exception {
+        Product product = save("C-5", "Mill");
+        jdbcTemplate.update("INSERT INTO inventory (product_id, available) VALUES (?, ?)", product.getId(), 4);
+
+        assertThat(cache.get(product.getId())).map(ProductDetail::stock).contains(4L);
+
+        inventoryEngine.reserve(product.getId(), 1).join();
+        mockMvc.perform(get("/products/" + product.getId())).andExpect(jsonPath("$.stock").value(3));
+    }
+
+    private Product save(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        return productRepository.save(product);
+    }
+
+    /**
+     * Holds invalidation messages back until {@link #deliver()}, like a slow pub/sub.
+     */
+    private static class DeferredTier extends LocalSharedCacheTier {
+
+        private final List<byte[]> messages = new ArrayList<>();
+
+        @Override
+        public void publish(byte[] message) {
+            messages.add(message);
+        }
+
+        void deliver() {
+            messages.forEach(super::publish);
+            messages.clear();
+        }
+    }
+}
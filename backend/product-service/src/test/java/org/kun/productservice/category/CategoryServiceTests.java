@@ -0,0 +1,170 @@
+package org.kun.productservice.category;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.dto.CategoryRequest;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CategoryServiceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM category_closure");
+        jdbcTemplate.update("DELETE FROM categories");
+        categoryTreeCache.reload();
+    }
+
+    @Test
+    void closureFollowsCreatesAndMoves() throws Exception {
+        long electronics = create("electronics", "Electronics", null);
+        long phones = create("phones", "Phones", electronics);
+        long android = create("android", "Android", phones);
+        long garden = create("garden", "Garden", null);
+
+        assertThat(ancestors(android)).containsExactly(electronics, phones, android);
+
+        request(put("/categories/{id}", phones), "phones", "Phones", garden).andExpect(status().isOk());
+        assertThat(ancestors(android)).containsExactly(garden, phones, android);
+        assertThat(ancestors(electronics)).containsExactly(electronics);
+
+        request(put("/categories/{id}", garden), "garden", "Garden", android).andExpect(status().isBadRequest());
+        request(put("/categories/{id}", garden), "garden", "Garden", 12345L).andExpect(status().isBadRequest());
+        assertThat(ancestors(garden)).containsExactly(garden);
+
+        categoryTreeCache.reload();
+        mockMvc.perform(get("/categories/{id}", android))
+                .andExpect(jsonPath("$.path[*].slug", contains("garden", "phones", "android")));
+        mockMvc.perform(get("/categories").param("depth", "3"))
+                .andExpect(jsonPath("$[*].slug", contains("electronics", "garden")))
+                .andExpect(jsonPath("$[1].descendants").value(2))
+                .andExpect(jsonPath("$[1].children[0].children[0].slug").value("android"));
+    }
+
+    @Test
+    void deletesOnlyEmptyLeaves() throws Exception {
+        long electronics = create("electronics", "Electronics", null);
+        long phones = create("phones", "Phones", electronics);
+        save("P-1", phones);
+
+        mockMvc.perform(delete("/categories/{id}", electronics)).andExpect(status().isConflict());
+        mockMvc.perform(delete("/categories/{id}", phones)).andExpect(status().isConflict());
+        productRepository.deleteAllInBatch();
+        mockMvc.perform(delete("/categories/{id}", phones)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/categories/{id}", phones)).andExpect(status().isNotFound());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM category_closure", Long.class)).isOne();
+        request(post("/categories"), "electronics", "Again", null).andExpect(status().isConflict());
+    }
+
+    @Test
+    void listingIncludesSubcategories() throws Exception {
+        long electronics = create("electronics", "Electronics", null);
+        long phones = create("phones", "Phones", electronics);
+        long android = create("android", "Android", phones);
+        long garden = create("garden", "Garden", null);
+        save("E-1", electronics);
+        save("A-1", android);
+        save("A-2", android);
+        save("G-1", garden);
+        categoryTreeCache.reload();
+
+        mockMvc.perform(get("/products").param("category", Long.toString(electronics)).param("limit", "2"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+        mockMvc.perform(get("/products").param("category", Long.toString(phones)))
+                .andExpect(jsonPath("$.items[*].sku", containsInAnyOrder("A-1", "A-2")));
+        mockMvc.perform(get("/products").param("category", Long.toString(electronics)).param("sort", "name"))
+                .andExpect(jsonPath("$.items[*].sku", containsInAnyOrder("E-1", "A-1", "A-2")));
+        mockMvc.perform(get("/products").param("category", Long.toString(garden)))
+                .andExpect(jsonPath("$.items[*].sku", contains("G-1")));
+    }
+
+    @Test
+    void fillsClosureForExistingCategories() {
+        jdbcTemplate.update("INSERT INTO categories (id, slug, name, parent_id) VALUES (100, 'a', 'A', NULL)");
+        jdbcTemplate.update("INSERT INTO categories (id, slug, name, parent_id) VALUES (101, 'b', 'B', 100)");
+        jdbcTemplate.update("INSERT INTO categories (id, slug, name, parent_id) VALUES (102, 'c', 'C', 101)");
+        categoryTreeCache.reload();
+
+        categoryService.rebuildClosure(categoryTreeCache.tree());
+
+        assertThat(ancestors(102)).containsExactly(100L, 101L, 102L);
+        assertThat(jdbcTemplate.queryForObject("SELECT depth FROM category_closure "
+                + "WHERE ancestor_id = 100 AND descendant_id = 102", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM category_closure", Long.class)).isEqualTo(6);
+    }
+
+    private List<Long> ancestors(long id) {
+        return jdbcTemplate.queryForList("SELECT ancestor_id FROM category_closure WHERE descendant_id = ? "
+                + "ORDER BY depth DESC", Long.class, id);
+    }
+
+    private long create(String slug, String name, Long parentId) throws Exception {
+        String body = request(post("/categories"), slug, name, parentId)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private ResultActions request(MockHttpServletRequestBuilder builder, String slug, String name, Long parentId)
+            throws Exception {
+        CategoryRequest request = new CategoryRequest();
+        request.setSlug(slug);
+        request.setName(name);
+        request.setParentId(parentId);
+        return mockMvc.perform(builder.contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private void save(String sku, long categoryId) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Item " + sku);
+        product.setCategoryId(categoryId);
+        product.setPrice(BigDecimal.TEN);
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,60 @@
+package org.kun.productservice.category;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryTreeTests {
+
+    // Electronics(1) > [Phones(2) > [Android(4), iPhone(5)], Audio(3)], Garden(6), orphan Toys(7) under missing 99
+    private static final List<CategoryRow> ROWS = List.of(
+            new CategoryRow(5, 2L, "iphone", "iPhone"),
+            new CategoryRow(3, 1L, "audio", "Audio"),
+            new CategoryRow(1, null, "electronics", "Electronics"),
+            new CategoryRow(6, null, "garden", "Garden"),
+            new CategoryRow(4, 2L, "android", "Android"),
+            new CategoryRow(2, 1L, "phones", "Phones"),
+            new CategoryRow(7, 99L, "toys", "Toys"));
+
+    @Test
+    void subtreesAreContiguousInPreorder() {
+        CategoryTree tree = CategoryTree.build(ROWS);
+
+        assertThat(tree.size()).isEqualTo(7);
+        assertThat(tree.subtreeIds(1)).containsExactly(1, 3, 2, 4, 5);
+        assertThat(tree.subtreeIds(2)).containsExactly(2, 4, 5);
+        assertThat(tree.subtreeSize(6)).isEqualTo(1);
+        assertThat(tree.subtreeSize(42)).isZero();
+        assertThat(tree.isWithin(5, 1)).isTrue();
+        assertThat(tree.isWithin(1, 1)).isTrue();
+        assertThat(tree.isWithin(3, 2)).isFalse();
+        assertThat(tree.isWithin(1, 5)).isFalse();
+        assertThat(tree.isWithin(6, 1)).isFalse();
+    }
+
+    @Test
+    void navigatesByNameOrder() {
+        CategoryTree tree = CategoryTree.build(ROWS);
+
+        assertThat(tree.roots()).extracting(CategoryRef::slug).containsExactly("electronics", "garden", "toys");
+        assertThat(tree.children(1)).extracting(CategoryRef::name).containsExactly("Audio", "Phones");
+        assertThat(tree.children(2)).extracting(CategoryRef::id).containsExactly(4L, 5L);
+        assertThat(tree.path(4)).extracting(CategoryRef::slug).containsExactly("electronics", "phones", "android");
+        assertThat(tree.get(2)).isEqualTo(new CategoryRef(2, 1L, "phones", "Phones", 1, 2));
+        assertThat(tree.get(7).parentId()).isNull();
+        assertThat(tree.idOfSlug("audio")).isEqualTo(3L);
+    }
+
+    @Test
+    void leavesOutParentCycles() {
+        CategoryTree tree = CategoryTree.build(List.of(
+                new CategoryRow(1, null, "a", "A"),
+                new CategoryRow(2, 3L, "b", "B"),
+                new CategoryRow(3, 2L, "c", "C")));
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.contains(2)).isFalse();
+    }
+}
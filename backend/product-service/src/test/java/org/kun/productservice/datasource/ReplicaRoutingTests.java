@@ -0,0 +1,148 @@
+package org.kun.productservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.common.datasource.ReadRouting;
+import org.kun.common.datasource.ReadYourWritesFilter;
+import org.kun.common.datasource.ReplicaSet;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * A second in-memory H2 database stands in for the replica; "replication" copies
+ * the primary into it with {@code SCRIPT}, so anything written afterwards is lag.
+ */
+@SpringBootTest(properties = {
+        "product.datasource.replicas[0].name=replica-1",
+        "product.datasource.replicas[0].url=" + ReplicaRoutingTests.REPLICA_URL,
+        "product.datasource.lag-query=SELECT lag_seconds FROM replica_status",
+        "product.datasource.health-check-interval=1h"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:productreplica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        productRepository.deleteAllInBatch();
+        product = new Product();
+        product.setSku("R-1");
+        product.setName("Kettle");
+        product.setPrice(BigDecimal.TEN);
+        product = productRepository.save(product);
+        replicate(0);
+        replicaSet.check();
+        jdbcTemplate.update("UPDATE products SET name = 'Kettle v2' WHERE id = ?", product.getId());
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        double replicaReads = meterRegistry.counter("datasource.reads", "pool", "replica-1").count();
+
+        assertThat(productRepository.findById(product.getId())).map(Product::getName).contains("Kettle");
+        String written = new TransactionTemplate(transactionManager).execute(status ->
+                productRepository.findById(product.getId()).orElseThrow().getName());
+        assertThat(written).isEqualTo("Kettle v2");
+        assertThat(ReadRouting.onPrimary(() -> productRepository.findById(product.getId())))
+                .map(Product::getName).contains("Kettle v2");
+        assertThat(meterRegistry.counter("datasource.reads", "pool", "replica-1").count()).isEqualTo(replicaReads + 1);
+        assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-1").gauge().value()).isPositive();
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotation() throws SQLException {
+        setLag(30);
+        replicaSet.check();
+
+        assertThat(productRepository.findById(product.getId())).map(Product::getName).contains("Kettle v2");
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("pool", "replica-1").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value()).isEqualTo(30);
+
+        setLag(1);
+        replicaSet.check();
+
+        assertThat(productRepository.findById(product.getId())).map(Product::getName).contains("Kettle");
+    }
+
+    @Test
+    void clientReadsItsOwnWrites() throws Exception {
+        MvcResult write = mockMvc.perform(post("/products/import")
+                        .contentType("text/csv")
+                        .content("sku,name,price\nR-1,Kettle v3,12.00\n"))
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn();
+        Cookie readPrimary = write.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        mockMvc.perform(get("/products").cookie(readPrimary))
+                .andExpect(jsonPath("$.items[0].name").value("Kettle v3"));
+        mockMvc.perform(get("/products"))
+                .andExpect(jsonPath("$.items[0].name").value("Kettle"));
+        mockMvc.perform(get("/products").cookie(new Cookie(ReadYourWritesFilter.COOKIE, "0")))
+                .andExpect(jsonPath("$.items[0].name").value("Kettle"));
+    }
+
+    private void replicate(double lagSeconds) throws SQLException {
+        List<String> script = jdbcTemplate.queryForList("SCRIPT", String.class);
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+            statement.execute("CREATE TABLE replica_status (lag_seconds DOUBLE PRECISION)");
+            statement.execute("INSERT INTO replica_status VALUES (" + lagSeconds + ")");
+        }
+    }
+
+    private void setLag(double seconds) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE replica_status SET lag_seconds = " + seconds);
+        }
+    }
+}
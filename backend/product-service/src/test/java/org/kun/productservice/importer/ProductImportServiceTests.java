@@ -0,0 +1,95 @@
+package org.kun.productservice.importer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.dto.ImportReport;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "product.import.batch-size=3")
+class ProductImportServiceTests {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void clean() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importsCsvAndReportsRejects() {
+        String csv = "sku,name,description,brand,category_id,price,stock,attributes\n"
+                + "SKU-1,Phone,\"A phone, with \"\"quotes\"\"\",Acme,3,199.99,10,\"{\"\"color\"\":\"\"black\"\"}\"\n"
+                + "SKU-2,Case,,Acme,,9.50,100,\n"
+                + ",Missing sku,,,,1.00,1,\n"
+                + "SKU-3,Bad price,,,,abc,1,\n"
+                + "SKU-4,Cable,\"multi\nline\",,,4.00,5,\n"
+                + "SKU-1,Phone v2,,Acme,3,189.99,8,\n"
+                + "SKU-5,Too many,,,,1.00,1,,extra\n";
+
+        ImportReport report = importService.importProducts(stream(csv), ImportFormat.CSV);
+
+        assertThat(report.getStatus()).isEqualTo(ImportReport.Status.COMPLETED);
+        assertThat(report.getRowsRead()).isEqualTo(7);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(report.getRejects()).extracting(ImportReport.Reject::line).containsExactly(4L, 5L, 9L);
+        assertThat(productRepository.count()).isEqualTo(3);
+
+        Product phone = productRepository.findBySku("SKU-1").orElseThrow();
+        assertThat(phone.getName()).isEqualTo("Phone v2");
+        assertThat(phone.getPrice()).isEqualByComparingTo("189.99");
+        assertThat(productRepository.findBySku("SKU-4").orElseThrow().getDescription()).isEqualTo("multi\nline");
+    }
+
+    @Test
+    void importsNdjsonAndUpsertsBySku() {
+        String first = """
+                {"sku":"N-1","name":"Lamp","price":25.5,"stock":3,"attributes":{"watts":40}}
+                {"sku":"N-2","name":"Desk","price":"120.00","category_id":7}
+                not json
+                {"sku":"N-3","name":"Chair","price":-1}
+                """;
+        ImportReport report = importService.importProducts(stream(first), ImportFormat.NDJSON);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(2);
+
+        Product lamp = productRepository.findBySku("N-1").orElseThrow();
+        assertThat(lamp.getAttributes()).isEqualTo("{\"watts\":40}");
+
+        importService.importProducts(stream("{\"sku\":\"N-1\",\"name\":\"Lamp\",\"price\":19.99,\"stock\":9}\n"),
+                ImportFormat.NDJSON);
+        Product updated = productRepository.findBySku("N-1").orElseThrow();
+        assertThat(updated.getId()).isEqualTo(lamp.getId());
+        assertThat(updated.getStock()).isEqualTo(9);
+        assertThat(updated.getCreatedAt()).isEqualTo(lamp.getCreatedAt());
+    }
+
+    @Test
+    void importedIdsDoNotCollideWithJpaIds() {
+        importService.importProducts(stream("sku,name,price\nA-1,One,1\nA-2,Two,2\n"), ImportFormat.CSV);
+
+        Product product = new Product();
+        product.setSku("JPA-1");
+        product.setName("Saved through JPA");
+        product.setPrice(BigDecimal.TEN);
+        productRepository.save(product);
+
+        assertThat(productRepository.count()).isEqualTo(3);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,144 @@
+package org.kun.productservice.inbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.recommend.CoOccurrenceIndex;
+import org.kun.productservice.recommend.RecommendationService;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderEventInboxTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long lamp;
+    private long bulb;
+
+    @BeforeEach
+    void setUp() {
+        lamp = save("LAMP-" + UUID.randomUUID(), 10);
+        bulb = save("BULB-" + UUID.randomUUID(), 50);
+    }
+
+    @Test
+    void redeliveredEventsAreAppliedOnce() throws Exception {
+        String eventId = UUID.randomUUID().toString();
+        String event = event(eventId, 1, 3, 4);
+
+        deliver("[" + event + "," + event + "]");
+        deliver("[" + event + "]");
+
+        assertThat(inventoryEngine.available(lamp)).isEqualTo(7);
+        assertThat(inventoryEngine.available(bulb)).isEqualTo(46);
+        assertThat(recommendationService.related(lamp, 5)).containsExactly(new CoOccurrenceIndex.Related(bulb, 1));
+        Integer recorded = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM processed_events WHERE event_id = ?",
+                Integer.class, eventId);
+        assertThat(recorded).isEqualTo(1);
+    }
+
+    @Test
+    void appliesNewEventsOfAPartlyDeliveredBatch() throws Exception {
+        String first = event(UUID.randomUUID().toString(), 2, 1, 1);
+        String second = event(UUID.randomUUID().toString(), 3, 2, 2);
+
+        deliver("[" + first + "]");
+        deliver("[" + first + "," + second + "]");
+
+        assertThat(inventoryEngine.available(lamp)).isEqualTo(7);
+        assertThat(inventoryEngine.available(bulb)).isEqualTo(47);
+    }
+
+    @Test
+    void eventClaimedByAnotherDeliveryIsAppliedOnlyOnceItsClaimTimesOut() throws Exception {
+        String eventId = UUID.randomUUID().toString();
+        // another instance is applying the event
+        jdbcTemplate.update("INSERT INTO processed_events (event_id, status, processed_at) VALUES (?, 'CLAIMED', ?)",
+                eventId, Timestamp.from(Instant.now()));
+
+        mockMvc.perform(post("/internal/events/order-placed")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + event(eventId, 5, 2, 2) + "]"))
+                .andExpect(status().isServiceUnavailable());
+        assertThat(inventoryEngine.available(lamp)).isEqualTo(10);
+
+        // ... and died before finishing it
+        jdbcTemplate.update("UPDATE processed_events SET processed_at = ? WHERE event_id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(1))), eventId);
+        deliver("[" + event(eventId, 5, 2, 2) + "]");
+        deliver("[" + event(eventId, 5, 2, 2) + "]");
+
+        assertThat(inventoryEngine.available(lamp)).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM processed_events WHERE event_id = ?",
+                String.class, eventId)).isEqualTo("PROCESSED");
+    }
+
+    @Test
+    void shortfallDoesNotFailTheDelivery() throws Exception {
+        deliver("[" + event(UUID.randomUUID().toString(), 4, 11, 1) + "]");
+
+        assertThat(inventoryEngine.available(lamp)).isEqualTo(10);
+        assertThat(inventoryEngine.available(bulb)).isEqualTo(49);
+    }
+
+    @Test
+    void refusesEventsWithoutId() throws Exception {
+        mockMvc.perform(post("/internal/events/order-placed")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"orderId\":5,\"items\":[]}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void deliver(String events) throws Exception {
+        mockMvc.perform(post("/internal/events/order-placed")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(events))
+                .andExpect(status().isNoContent());
+    }
+
+    private String event(String eventId, long orderId, int lamps, int bulbs) {
+        return "{\"eventId\":\"" + eventId + "\",\"orderId\":" + orderId + ",\"items\":["
+                + "{\"productId\":" + lamp + ",\"quantity\":" + lamps + "},"
+                + "{\"productId\":" + bulb + ",\"quantity\":" + bulbs + "}]}";
+    }
+
+    private long save(String sku, int stock) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setPrice(BigDecimal.ONE);
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+}
@@ -0,0 +1,174 @@
+package org.kun.productservice.inventory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InventoryEngineTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM inventory_reservations");
+        jdbcTemplate.update("DELETE FROM inventory");
+        jdbcTemplate.update("UPDATE inventory_checkpoint SET applied_sequence = 0");
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        long productId = product("HOT-1", 1_000);
+        InventoryEngine engine = start(properties(Duration.ofMillis(10)));
+
+        int threads = 16;
+        List<List<CompletableFuture<ReservationResult>>> results = new ArrayList<>();
+        List<List<Integer>> quantities = new ArrayList<>();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            List<CompletableFuture<ReservationResult>> mine = new ArrayList<>();
+            List<Integer> asked = new ArrayList<>();
+            results.add(mine);
+            quantities.add(asked);
+            pool.execute(() -> {
+                try {
+                    go.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                    asked.add(quantity);
+                    mine.add(engine.reserve(productId, quantity));
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        long reservedUnits = 0;
+        int reservations = 0;
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < results.get(t).size(); i++) {
+                ReservationResult result = results.get(t).get(i).get(10, TimeUnit.SECONDS);
+                if (result.status() == ReservationResult.Status.RESERVED) {
+                    reservedUnits += quantities.get(t).get(i);
+                    reservations++;
+                }
+            }
+        }
+        assertThat(reservedUnits).isLessThanOrEqualTo(1_000);
+        assertThat(reservedUnits + engine.available(productId)).isEqualTo(1_000);
+        // 16 x 200 requests ask for far more than there is
+        assertThat(engine.available(productId)).isLessThan(3);
+
+        engine.close();
+        assertThat(databaseAvailable(productId)).isEqualTo(1_000 - reservedUnits);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_reservations", Integer.class))
+                .isEqualTo(reservations);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM inventory_reservations", Long.class))
+                .isEqualTo(reservedUnits);
+    }
+
+    @Test
+    void replaysAcknowledgedChangesAfterCrash() throws Exception {
+        long productId = product("CRASH-1", 100);
+        // the write-behind never gets to run before the crash
+        InventoryEngine crashed = start(properties(Duration.ofHours(1)));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(crashed.reserve(productId, 2).get(5, TimeUnit.SECONDS).reservationId());
+        }
+        assertThat(crashed.restock(productId, 5).get(5, TimeUnit.SECONDS).status())
+                .isEqualTo(ReservationResult.Status.RESTOCKED);
+        assertThat(crashed.reserve(productId, 100).get().status())
+                .isEqualTo(ReservationResult.Status.INSUFFICIENT_STOCK);
+        crashed.halt();
+        assertThat(databaseAvailable(productId)).isEqualTo(100);
+
+        // a record torn by the crash
+        Files.write(directory.resolve("inventory.log"), new byte[]{1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+
+        InventoryEngine recovered = start(properties(Duration.ofMillis(10)));
+        assertThat(databaseAvailable(productId)).isEqualTo(85);
+        assertThat(recovered.available(productId)).isEqualTo(85);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM inventory_reservations ORDER BY id", Long.class))
+                .isEqualTo(ids);
+
+        ReservationResult next = recovered.reserve(productId, 85).get(5, TimeUnit.SECONDS);
+        assertThat(next.status()).isEqualTo(ReservationResult.Status.RESERVED);
+        assertThat(next.reservationId()).isGreaterThan(ids.get(ids.size() - 1));
+        assertThat(recovered.reserve(productId, 1).get().status())
+                .isEqualTo(ReservationResult.Status.INSUFFICIENT_STOCK);
+        recovered.close();
+        assertThat(databaseAvailable(productId)).isZero();
+        assertThat(Files.size(directory.resolve("inventory.log"))).isLessThan(ReservationLog.RECORD_SIZE * 20L);
+    }
+
+    private InventoryProperties properties(Duration writeBehindDelay) {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setLogPath(directory.resolve("inventory.log").toString());
+        properties.setWriteBehindDelay(writeBehindDelay);
+        properties.setStripes(8);
+        return properties;
+    }
+
+    private InventoryEngine start(InventoryProperties properties) throws IOException {
+        InventoryEngine engine = new InventoryEngine(jdbcTemplate, transactionManager, properties,
+                new SimpleMeterRegistry());
+        engine.start();
+        return engine;
+    }
+
+    private long product(String sku, int stock) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setPrice(BigDecimal.ONE);
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+
+    private long databaseAvailable(long productId) {
+        return jdbcTemplate.queryForObject("SELECT available FROM inventory WHERE product_id = ?", Long.class,
+                productId);
+    }
+}
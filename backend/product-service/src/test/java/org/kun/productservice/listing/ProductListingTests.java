@@ -0,0 +1,142 @@
+package org.kun.productservice.listing;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.kun.productservice.dto.ProductSummary;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductListingTests {
+
+    private static final int PRODUCTS = 100_000;
+    private static final long FIRST_ID = 10_000_000L;
+    private static final int PAGE = 50;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        // few distinct prices, names and timestamps so ties on the sort key are common
+        jdbcTemplate.getJdbcTemplate().update("""
+                INSERT INTO products (id, sku, name, brand, category_id, price, stock, created_at, updated_at)
+                SELECT ? + x, 'L-' || x, 'Item ' || MOD(x * 7919, 5000), 'Brand', MOD(x, 20),
+                       CAST(MOD(x * 31, 20000) AS DECIMAL(12, 2)) / 100 + 0.99, 1,
+                       TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00Z' + MOD(x, 10000) * INTERVAL '1' MINUTE,
+                       CURRENT_TIMESTAMP
+                FROM system_range(1, ?) t(x)
+                """, FIRST_ID, PRODUCTS);
+    }
+
+    @AfterAll
+    void clean() {
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM products WHERE id > ?", FIRST_ID);
+    }
+
+    @Test
+    void pagesMatchOffsetOrderForEverySort() {
+        for (ProductSort sort : ProductSort.values()) {
+            for (Long category : new Long[]{null, 7L}) {
+                List<Long> expected = expectedIds(sort, category, 0, PAGE * 5);
+                List<Long> actual = new ArrayList<>();
+                ListingCursor cursor = null;
+                for (int page = 0; page < 5; page++) {
+                    List<ProductSummary> rows = productRepository.findPage(sort, category, false, cursor, PAGE);
+                    rows.forEach(row -> actual.add(row.id()));
+                    // round-trip the cursor the way a client would
+                    cursor = ListingCursor.decode(ListingCursor.after(sort, rows.get(rows.size() - 1)).encode(), sort);
+                }
+                assertThat(actual).as("%s category=%s", sort, category).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void deepPageScansNoMoreRowsThanFirstPage() {
+        for (ProductSort sort : ProductSort.values()) {
+            for (Long category : new Long[]{null, 7L}) {
+                int rows = category == null ? PRODUCTS : PRODUCTS / 20;
+                long deepId = expectedIds(sort, category, rows - PAGE * 2, 1).get(0);
+                ProductSummary deepRow = productRepository.findById(deepId)
+                        .map(p -> new ProductSummary(p.getId(), p.getSku(), p.getName(), p.getBrand(),
+                                p.getCategoryId(), p.getPrice(), p.getCreatedAt()))
+                        .orElseThrow();
+
+                String first = explain(sort, category, null);
+                String deep = explain(sort, category, ListingCursor.after(sort, deepRow));
+
+                String context = sort + " category=" + category;
+                assertThat(first).as(context).doesNotContain("PRIMARY_KEY").contains("index sorted");
+                assertThat(deep).as(context).doesNotContain("PRIMARY_KEY").contains("index sorted");
+                // H2 starts the range at the sort key and filters rows tied with the cursor on id,
+                // so a page may also read the cursor's tie group; neither depends on the depth
+                int bound = PAGE + 1 + largestTieGroup(sort, category);
+                assertThat(scanCount(first)).as(context + "\n" + first).isLessThanOrEqualTo(bound);
+                assertThat(scanCount(deep)).as(context + "\n" + deep).isLessThanOrEqualTo(bound);
+            }
+        }
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSort() {
+        ProductSummary row = productRepository.findPage(ProductSort.NAME, null, false, null, 1).get(0);
+        String cursor = ListingCursor.after(ProductSort.NAME, row).encode();
+
+        assertThatThrownBy(() -> ListingCursor.decode(cursor, ProductSort.PRICE_ASC))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ListingCursor.decode("not a cursor", ProductSort.NAME))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Long> expectedIds(ProductSort sort, Long category, int offset, int count) {
+        String direction = sort.ascending() ? "ASC" : "DESC";
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE id > :first"
+                        + (category == null ? "" : " AND category_id = :category")
+                        + " ORDER BY " + sort.column() + " " + direction + ", id " + direction
+                        + " OFFSET :offset ROWS FETCH NEXT :count ROWS ONLY",
+                new MapSqlParameterSource("first", FIRST_ID).addValue("category", category)
+                        .addValue("offset", offset).addValue("count", count), Long.class);
+    }
+
+    private int largestTieGroup(ProductSort sort, Long category) {
+        return jdbcTemplate.queryForObject("SELECT MAX(c) FROM (SELECT COUNT(*) c FROM products WHERE id > :first"
+                        + (category == null ? "" : " AND category_id = :category")
+                        + " GROUP BY " + sort.column() + ") t",
+                new MapSqlParameterSource("first", FIRST_ID).addValue("category", category), Integer.class);
+    }
+
+    private String explain(ProductSort sort, Long category, ListingCursor after) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("category", category);
+        if (after != null) {
+            parameters.addValue("key", after.key()).addValue("id", after.id());
+        }
+        CategoryScope scope = category != null ? CategoryScope.CATEGORY : CategoryScope.ALL;
+        String sql = ProductListingQueries.sql(sort, scope, after != null, PAGE + 1);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN ANALYZE " + sql, parameters, String.class));
+    }
+
+    private static int scanCount(String plan) {
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        assertThat(matcher.find()).as(plan).isTrue();
+        return Integer.parseInt(matcher.group(1));
+    }
+}
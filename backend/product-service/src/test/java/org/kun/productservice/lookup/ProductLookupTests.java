@@ -0,0 +1,88 @@
+package org.kun.productservice.lookup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductLookupTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    private String lampSku;
+    private long lamp;
+    private long bulb;
+
+    @BeforeEach
+    void setUp() {
+        lampSku = "LAMP-" + UUID.randomUUID();
+        lamp = save(lampSku, "29.90", 10);
+        bulb = save("BULB-" + UUID.randomUUID(), "3.50", 50);
+    }
+
+    @Test
+    void findsProductsByIdAndSkuOnce() throws Exception {
+        lookup("{\"ids\":[" + lamp + "," + bulb + ",999999],\"skus\":[\"" + lampSku + "\",\"NO-SUCH-SKU\"]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder((int) lamp, (int) bulb)))
+                .andExpect(jsonPath("$[*].price", containsInAnyOrder(29.90, 3.50)))
+                .andExpect(jsonPath("$[*].available", containsInAnyOrder(10, 50)));
+    }
+
+    @Test
+    void reportsStockHeldByTheInventoryEngine() throws Exception {
+        inventoryEngine.reserve(lamp, 4).get();
+
+        lookup("{\"ids\":[" + lamp + "]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].available").value(6));
+    }
+
+    @Test
+    void rejectsOversizedLookups() throws Exception {
+        String ids = String.join(",", Collections.nCopies(ProductLookupService.MAX_KEYS + 1, "1"));
+
+        lookup("{\"ids\":[" + ids + "]}").andExpect(status().isBadRequest());
+        lookup("{}").andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    private ResultActions lookup(String body) throws Exception {
+        return mockMvc.perform(post("/products/lookup").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private long save(String sku, String price, int stock) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setPrice(new BigDecimal(price));
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+}
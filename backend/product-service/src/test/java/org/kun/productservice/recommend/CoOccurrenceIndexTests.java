@@ -0,0 +1,127 @@
+package org.kun.productservice.recommend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoOccurrenceIndexTests {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void ranksByOrdersInCommon() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(3);
+        index.add(new long[]{1, 2, 3});
+        index.add(new long[]{1, 2});
+        index.add(new long[]{1, 4});
+        index.add(new long[]{1, 2, 4});
+
+        assertThat(index.related(1, 10)).containsExactly(new CoOccurrenceIndex.Related(2, 3),
+                new CoOccurrenceIndex.Related(4, 2), new CoOccurrenceIndex.Related(3, 1));
+        assertThat(index.related(3, 10)).extracting(CoOccurrenceIndex.Related::productId).containsExactly(1L, 2L);
+        assertThat(index.related(1, 1)).hasSize(1);
+        assertThat(index.related(99, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsFrequentCompanionsWhenPruning() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        for (int i = 0; i < 5; i++) {
+            index.add(new long[]{1, 2});
+            index.add(new long[]{1, 3});
+        }
+        // a long tail of one-off companions forces repeated pruning
+        for (long other = 100; other < 200; other++) {
+            index.add(new long[]{1, other});
+        }
+
+        assertThat(index.related(1, 2)).extracting(CoOccurrenceIndex.Related::productId).containsExactly(2L, 3L);
+        assertThat(index.related(1, 10)).hasSizeLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void ordersAreCountedWhileACheckpointIsWritten() throws Exception {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(4);
+        index.add(new long[]{1, 2});
+        ExecutorService inbox = Executors.newSingleThreadExecutor();
+        // a disk that only finishes the checkpoint once another order has been counted
+        OutputStream slowDisk = new OutputStream() {
+            private boolean waited;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (!waited) {
+                    waited = true;
+                    try {
+                        inbox.submit(() -> index.add(new long[]{1, 3})).get(5, TimeUnit.SECONDS);
+                    }
+                    catch (Exception e) {
+                        throw new IOException("the order was held up by the checkpoint", e);
+                    }
+                }
+            }
+        };
+        try {
+            index.writeTo(new DataOutputStream(slowDisk));
+        }
+        finally {
+            inbox.shutdownNow();
+        }
+
+        assertThat(index.related(1, 10)).extracting(CoOccurrenceIndex.Related::productId)
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void restartsFromCheckpoint() throws IOException {
+        RecommendationService service = new RecommendationService(properties());
+        service.start();
+        service.orderPlaced(new long[]{1, 2, 2, 3});
+        service.orderPlaced(new long[]{1, 2});
+        service.orderPlaced(new long[]{5});
+        service.checkpoint();
+
+        RecommendationService restarted = new RecommendationService(properties());
+        restarted.start();
+
+        assertThat(restarted.related(1, 10)).containsExactly(new CoOccurrenceIndex.Related(2, 2),
+                new CoOccurrenceIndex.Related(3, 1));
+        assertThat(restarted.index().size()).isEqualTo(3);
+    }
+
+    @Test
+    void startsEmptyFromDamagedCheckpoint() throws IOException {
+        RecommendationService service = new RecommendationService(properties());
+        service.start();
+        service.orderPlaced(new long[]{1, 2});
+        service.checkpoint();
+        Path file = directory.resolve("recommendations.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[12] ^= 1;
+        Files.write(file, bytes);
+
+        RecommendationService restarted = new RecommendationService(properties());
+        restarted.start();
+
+        assertThat(restarted.index().size()).isZero();
+    }
+
+    private RecommendationProperties properties() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setCheckpointPath(directory.resolve("recommendations.bin").toString());
+        properties.setCheckpointInterval(Duration.ofHours(1));
+        return properties;
+    }
+}
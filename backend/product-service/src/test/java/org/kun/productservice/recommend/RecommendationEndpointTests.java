@@ -0,0 +1,79 @@
+package org.kun.productservice.recommend;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RecommendationEndpointTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private long kettle;
+    private long mug;
+    private long tea;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        kettle = save("K-1", "Kettle");
+        mug = save("M-1", "Mug");
+        tea = save("T-1", "Tea");
+    }
+
+    @Test
+    void servesProductsBoughtTogether() throws Exception {
+        placed(1, kettle, mug, tea);
+        placed(2, kettle, tea);
+        placed(3, kettle, tea, 987654L);
+
+        mockMvc.perform(get("/products/{id}/related", kettle))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].sku").value("T-1"))
+                .andExpect(jsonPath("$[0].orders").value(3))
+                .andExpect(jsonPath("$[1].sku").value("M-1"));
+        mockMvc.perform(get("/products/{id}/related", mug).param("limit", "1"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    private void placed(long orderId, long... productIds) throws Exception {
+        StringBuilder items = new StringBuilder();
+        for (long productId : productIds) {
+            items.append(items.isEmpty() ? "" : ",").append("{\"productId\":").append(productId)
+                    .append(",\"quantity\":1}");
+        }
+        mockMvc.perform(post("/internal/events/order-placed")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"eventId\":\"" + UUID.randomUUID() + "\",\"orderId\":" + orderId
+                                + ",\"items\":[" + items + "]}]"))
+                .andExpect(status().isNoContent());
+    }
+
+    private long save(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        return productRepository.save(product).getId();
+    }
+}
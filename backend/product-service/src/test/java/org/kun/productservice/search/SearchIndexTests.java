@@ -0,0 +1,190 @@
+package org.kun.productservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTests {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex(List.of(new BigDecimal("50"), new BigDecimal("500")), 10, 64, 0.25, 16, 1);
+        index.upsert(product(1, "Acme Phone X", "Fast phone with a great camera", "Acme", 10L, "499.00"));
+        index.upsert(product(2, "Acme Phone Case", "Protective case for Phone X", "Acme", 20L, "19.99"));
+        index.upsert(product(3, "Globex Phone", "Budget phone", "Globex", 10L, "199.00"));
+        index.upsert(product(4, "Điện thoại Globex", "Phone for Vietnam", "Globex", 10L, "599.00"));
+        index.upsert(product(5, "Desk Lamp", "LED lamp", "Initech", 30L, "35.00"));
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        SearchResult result = index.search(query("phone", null, null, 10, null));
+
+        assertThat(result.hits()).extracting(SearchResult.Hit::productId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(result.hits().get(3).score()).isLessThan(result.hits().get(0).score());
+        assertThat(index.search(query("acme camera", null, null, 10, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(1L);
+    }
+
+    @Test
+    void foldsAccents() {
+        assertThat(index.search(query("dien thoai", null, null, 10, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(4L);
+    }
+
+    @Test
+    void countsEachFacetWithTheOtherFilters() {
+        SearchResult result = index.search(query("phone", 10L, "Acme", 10, null));
+
+        assertThat(result.hits()).extracting(SearchResult.Hit::productId).containsExactly(1L);
+        // brand counts ignore the brand filter but keep the category filter
+        assertThat(result.facets().brands()).containsExactly(
+                new SearchResult.FacetCount("Globex", 2), new SearchResult.FacetCount("Acme", 1));
+        assertThat(result.facets().categories()).containsExactly(
+                new SearchResult.FacetCount("10", 1), new SearchResult.FacetCount("20", 1));
+        assertThat(result.facets().prices()).containsExactly(new SearchResult.FacetCount("50-500", 1));
+    }
+
+    @Test
+    void pagesWithCursorWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        SearchQuery.Cursor cursor = null;
+        do {
+            SearchResult page = index.search(query("", null, null, 2, cursor));
+            page.hits().forEach(hit -> seen.add(hit.productId()));
+            cursor = page.next() == null ? null : SearchQuery.Cursor.decode(page.next().encode());
+        } while (cursor != null);
+
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void updatesAndRemovalsAreVisibleAndSurviveCompaction() {
+        index.upsert(product(5, "Desk Lamp Phone Charger", "LED lamp", "Initech", 30L, "35.00"));
+        assertThat(index.search(query("charger", null, null, 10, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(5L);
+
+        index.remove(3);
+        assertThat(index.search(query("globex", null, null, 10, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(4L);
+
+        index.compact();
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search(query("phone", null, null, 10, null)).total()).isEqualTo(4);
+        assertThat(index.search(query("", null, "Initech", 10, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(5L);
+    }
+
+    @Test
+    void parallelScanGivesTheSameResultAsSequential() {
+        List<BigDecimal> ranges = List.of(new BigDecimal("50"));
+        try (SearchIndex sequential = new SearchIndex(ranges, 5, 8, 0.25, 150_000, 1);
+             SearchIndex parallel = new SearchIndex(ranges, 5, 8, 0.25, 150_000, 4)) {
+            for (long id = 1; id <= 150_000; id++) {
+                ProductDocument product = new ProductDocument(id, "item " + (id % 7 == 0 ? "lucky" : "plain"), null,
+                        "brand" + id % 11, id % 13, BigDecimal.valueOf(id % 100), null);
+                sequential.upsert(product);
+                parallel.upsert(product);
+            }
+            SearchQuery query = new SearchQuery("item", 3L, null, null, 5_000L, 25, null);
+            assertThat(parallel.search(query)).isEqualTo(sequential.search(query));
+        }
+    }
+
+    @Test
+    void denseTermsAndFacetListsAgreeWithAScanAcrossUpdatesAndCompaction() {
+        List<BigDecimal> ranges = List.of(new BigDecimal("50"));
+        try (SearchIndex index = new SearchIndex(ranges, 20, 8, 0.25, 16, 1)) {
+            Map<Long, ProductDocument> live = new HashMap<>();
+            for (long id = 1; id <= 90_000; id++) {
+                live.put(id, generated(id, id % 11 < 10 ? "brand0" : "brand10"));
+                index.upsert(live.get(id));
+            }
+            for (long id = 9; id <= 90_000; id += 9) {
+                index.remove(id);
+                live.remove(id);
+            }
+            for (long id = 4; id <= 90_000; id += 36) {
+                live.put(id, generated(id, "brand" + id % 3));
+                index.upsert(live.get(id));
+            }
+            assertMatchesScan(index, live);
+            index.compact();
+            assertMatchesScan(index, live);
+        }
+    }
+
+    private static void assertMatchesScan(SearchIndex index, Map<Long, ProductDocument> live) {
+        for (String text : List.of("", "item", "lucky", "item lucky", "rare")) {
+            for (String brand : new String[]{null, "brand0", "brand10"}) {
+                for (Long category : new Long[]{null, 1L, 12L}) {
+                    for (Long maxPrice : new Long[]{null, 5_000L}) {
+                        SearchQuery query = new SearchQuery(text, category, brand, null, maxPrice, 10, null);
+                        assertThat(index.search(query)).as("%s", query).satisfies(result -> {
+                            Predicate<ProductDocument> matchesText = product -> text.isEmpty()
+                                    || Set.of(product.name().split(" ")).containsAll(List.of(text.split(" ")));
+                            Predicate<ProductDocument> inCategory = product -> category == null
+                                    || category.equals(product.categoryId());
+                            Predicate<ProductDocument> ofBrand = product -> brand == null
+                                    || brand.equals(product.brand());
+                            Predicate<ProductDocument> priced = product -> maxPrice == null
+                                    || SearchIndex.cents(product.price()) < maxPrice;
+                            List<ProductDocument> matches = live.values().stream().filter(matchesText).toList();
+                            assertThat(result.total()).isEqualTo(matches.stream()
+                                    .filter(inCategory.and(ofBrand).and(priced)).count());
+                            assertThat(result.facets().brands()).containsExactlyInAnyOrderElementsOf(
+                                    counts(matches, inCategory.and(priced), ProductDocument::brand));
+                            assertThat(result.facets().categories()).containsExactlyInAnyOrderElementsOf(
+                                    counts(matches, ofBrand.and(priced), product -> product.categoryId().toString()));
+                            assertThat(result.facets().prices()).containsExactlyInAnyOrderElementsOf(
+                                    counts(matches, inCategory.and(ofBrand),
+                                            product -> SearchIndex.cents(product.price()) < 5_000 ? "0-50" : "50+"));
+                        });
+                    }
+                }
+            }
+        }
+        // every "item" scores the same, so the first page is the lowest live ids
+        assertThat(index.search(query("item", null, null, 3, null)).hits())
+                .extracting(SearchResult.Hit::productId).containsExactly(1L, 2L, 3L);
+    }
+
+    private static List<SearchResult.FacetCount> counts(List<ProductDocument> matches,
+                                                        Predicate<ProductDocument> filter,
+                                                        Function<ProductDocument, String> value) {
+        return matches.stream().filter(filter)
+                .collect(Collectors.groupingBy(value, Collectors.counting()))
+                .entrySet().stream()
+                .map(entry -> new SearchResult.FacetCount(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static ProductDocument generated(long id, String brand) {
+        // "item", brand0 and category 1 are large enough to be dense
+        String name = "item" + (id % 4 == 0 ? " lucky" : "") + (id % 1_000 == 0 ? " rare" : "");
+        return new ProductDocument(id, name, null, brand, id % 13 < 11 ? 1L : id % 13, BigDecimal.valueOf(id % 100),
+                null);
+    }
+
+    private static SearchQuery query(String text, Long category, String brand, int limit, SearchQuery.Cursor after) {
+        return new SearchQuery(text, category, brand, null, null, limit, after);
+    }
+
+    private static ProductDocument product(long id, String name, String description, String brand, Long category,
+                                           String price) {
+        return new ProductDocument(id, name, description, brand, category, new BigDecimal(price), null);
+    }
+}
@@ -0,0 +1,119 @@
+package org.kun.productservice.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTests {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        CatalogSnapshot snapshot = write("full.snap", 1, 0, 1_000, id -> true, id -> "Item " + id);
+        snapshot.verify();
+
+        assertThat(snapshot.version()).isEqualTo(1);
+        assertThat(snapshot.isDelta()).isFalse();
+        assertThat(snapshot.size()).isEqualTo(1_000);
+        int record = snapshot.find(3 * 500);
+        assertThat(record).isEqualTo(499);
+        assertThat(snapshot.sku(record)).isEqualTo("SKU-1500");
+        assertThat(snapshot.name(record)).isEqualTo("Item 1500");
+        assertThat(snapshot.brand(record)).isEqualTo("Brand 0");
+        assertThat(snapshot.description(record)).isNull();
+        assertThat(snapshot.attributes(record)).isEqualTo("{\"size\":\"M\"}");
+        assertThat(snapshot.categoryId(record)).isEqualTo(SnapshotFormat.NO_CATEGORY);
+        assertThat(snapshot.priceCents(record)).isEqualTo(1_500 * 10 + 99);
+        assertThat(snapshot.stock(record)).isEqualTo(500);
+        assertThat(snapshot.find(1_501)).isEqualTo(-1);
+        assertThat(snapshot.find(0)).isEqualTo(-1);
+        assertThat(snapshot.find(3 * 1_001)).isEqualTo(-1);
+        assertThat(snapshot.find(3)).isZero();
+    }
+
+    @Test
+    void detectsCorruption() throws IOException {
+        CatalogSnapshot snapshot = write("corrupt.snap", 1, 0, 100, id -> true, id -> "Item " + id);
+        try (FileChannel channel = FileChannel.open(snapshot.path(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), SnapshotFormat.HEADER_SIZE + 100L * SnapshotFormat.RECORD_SIZE + 3);
+        }
+        assertThatThrownBy(() -> CatalogSnapshot.open(snapshot.path()).verify())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("strings");
+    }
+
+    @Test
+    void deltaAppliedToBaseGivesTarget() throws IOException {
+        CatalogSnapshot base = write("base.snap", 1, 0, 1_000, id -> true, id -> "Item " + id);
+        // drop every 7th product, rename every 10th, add 50 more
+        CatalogSnapshot target = write("target.snap", 2, 0, 1_050, id -> id % 21 != 0,
+                id -> id % 30 == 0 ? "Renamed " + id : "Item " + id);
+
+        Path deltaPath = directory.resolve("base-target.delta");
+        try (SnapshotWriter writer = new SnapshotWriter(deltaPath, SnapshotFormat.KIND_DELTA, 2, 1)) {
+            SnapshotDeltas.diff(base, target, writer);
+            writer.finish();
+        }
+        CatalogSnapshot delta = CatalogSnapshot.open(deltaPath);
+        delta.verify();
+        int removed = 1_000 / 7;
+        int renamed = 0;
+        for (long id = 3; id <= 3_000; id += 3) {
+            if (id % 30 == 0 && id % 21 != 0) {
+                renamed++;
+            }
+        }
+        int added = 50 - (int) LongStream.rangeClosed(1_001, 1_050).filter(n -> n * 3 % 21 == 0).count();
+        assertThat(delta.size()).isEqualTo(removed + renamed + added);
+
+        Path mergedPath = directory.resolve("merged.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(mergedPath, SnapshotFormat.KIND_FULL, 2, 0)) {
+            SnapshotDeltas.apply(base, delta, writer);
+            writer.finish();
+        }
+        CatalogSnapshot merged = CatalogSnapshot.open(mergedPath);
+        assertThat(merged.size()).isEqualTo(target.size());
+        for (int i = 0; i < target.size(); i++) {
+            assertThat(merged.sameRecord(i, target, i)).as("record %d", i).isTrue();
+        }
+        assertThatThrownBy(() -> SnapshotDeltas.apply(target, delta, new SnapshotWriter(directory.resolve("x.snap"),
+                SnapshotFormat.KIND_FULL, 3, 0))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Products with ids 3, 6, 9... up to {@code count} of them, filtered by {@code keep}.
+     */
+    private CatalogSnapshot write(String file, long version, long baseVersion, int count,
+                                  LongPredicate keep,
+                                  LongFunction<String> name) throws IOException {
+        Path path = directory.resolve(file);
+        try (SnapshotWriter writer = new SnapshotWriter(path, SnapshotFormat.KIND_FULL, version, baseVersion)) {
+            SnapshotRecord record = new SnapshotRecord();
+            for (int n = 1; n <= count; n++) {
+                long id = n * 3L;
+                if (!keep.test(id)) {
+                    continue;
+                }
+                record.set(id, n % 4 == 0 ? null : (long) n % 9, id * 10 + 99, n, 1_700_000_000_000L + n)
+                        .text("SKU-" + id, name.apply(id), "Brand " + n % 5, n % 2 == 0 ? null : "Description " + n,
+                                "{\"size\":\"M\"}");
+                writer.add(record);
+            }
+            writer.finish();
+        }
+        return CatalogSnapshot.open(path);
+    }
+}
@@ -0,0 +1,116 @@
+package org.kun.productservice.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.inventory.InventoryEngine;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SnapshotServiceTests {
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void servesRangesAndDeltasBetweenVersions() throws Exception {
+        productRepository.deleteAllInBatch();
+        Product kept = save("S-1", "Lamp");
+        Product changed = save("S-2", "Desk");
+        long first = snapshotService.generate();
+        assertThat(snapshotService.generate()).as("unchanged catalog").isEqualTo(first);
+
+        byte[] head = mockMvc.perform(get("/products/snapshots/" + first).header(HttpHeaders.RANGE, "bytes=0-95"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "96"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(ByteBuffer.wrap(head).getInt()).isEqualTo(SnapshotFormat.MAGIC);
+
+        changed.setName("Standing desk");
+        productRepository.save(changed);
+        save("S-3", "Chair");
+        long second = snapshotService.generate();
+        assertThat(second).isGreaterThan(first);
+
+        mockMvc.perform(get("/products/snapshots/latest"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/products/snapshots/" + second));
+        mockMvc.perform(get("/products/snapshots/delta").param("from", String.valueOf(second)))
+                .andExpect(status().isNoContent());
+
+        byte[] body = mockMvc.perform(get("/products/snapshots/delta").param("from", String.valueOf(first)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        Path file = Files.write(directory.resolve("delta"), body);
+        CatalogSnapshot delta = CatalogSnapshot.open(file);
+        delta.verify();
+        assertThat(delta.isDelta()).isTrue();
+        assertThat(delta.baseVersion()).isEqualTo(first);
+        assertThat(delta.size()).isEqualTo(2);
+        assertThat(delta.name(delta.find(changed.getId()))).isEqualTo("Standing desk");
+        assertThat(delta.find(kept.getId())).isEqualTo(-1);
+    }
+
+    @Test
+    void stockComesFromTheInventoryAndReservationsMakeANewSnapshot() throws Exception {
+        productRepository.deleteAllInBatch();
+        Product lamp = save("S-4", "Lamp");
+        lamp.setStock(5);
+        productRepository.save(lamp);
+        long first = snapshotService.generate();
+
+        inventoryEngine.reserve(lamp.getId(), 2).join();
+        String available = "SELECT available FROM inventory WHERE product_id = ?";
+        for (int i = 0; i < 100 && !jdbcTemplate.queryForList(available, Long.class, lamp.getId()).equals(List.of(3L)); i++) {
+            // the write-behind applies the reservation shortly after it is logged
+            Thread.sleep(50);
+        }
+        long second = snapshotService.generate();
+
+        assertThat(second).isGreaterThan(first);
+        CatalogSnapshot snapshot = snapshotService.snapshot(second);
+        assertThat(snapshot.stock(snapshot.find(lamp.getId()))).isEqualTo(3);
+        assertThat(snapshotService.snapshot(second)).isSameAs(snapshot);
+    }
+
+    private Product save(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setPrice(new BigDecimal("12.50"));
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,88 @@
+package org.kun.productservice.tracing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.common.tracing.SpanRecord;
+import org.kun.common.tracing.TraceStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.tracing.sampling.probability=0",
+        "management.endpoints.web.exposure.include=traces",
+        "product.tracing.slow-threshold=1s"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+class TracingTests {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TraceStore traceStore;
+
+    @BeforeEach
+    void clear() {
+        traceStore.clear();
+    }
+
+    @Test
+    void continuesAnIncomingSampledTraceWithJdbcSpans() throws Exception {
+        lookup("00-" + TRACE_ID + "-" + PARENT_ID + "-01").andExpect(status().isOk());
+
+        List<SpanRecord> spans = traceStore.trace(TRACE_ID);
+        assertThat(spans).isNotNull();
+        assertThat(spans).anySatisfy(span -> {
+            assertThat(span.kind()).isEqualTo("SERVER");
+            assertThat(span.parentId()).isEqualTo(PARENT_ID);
+        });
+        assertThat(spans).anySatisfy(span -> {
+            assertThat(span.name()).isEqualTo("query");
+            assertThat(span.tags()).containsKey("jdbc.query[0]");
+        });
+        assertThat(spans).allSatisfy(span -> assertThat(span.traceId()).isEqualTo(TRACE_ID));
+    }
+
+    @Test
+    void dropsFastTracesTheCallerDidNotSample() throws Exception {
+        lookup("00-" + TRACE_ID + "-" + PARENT_ID + "-00").andExpect(status().isOk());
+
+        assertThat(traceStore.trace(TRACE_ID)).isNull();
+    }
+
+    @Test
+    void servesKeptTracesFromTheActuatorEndpoint() throws Exception {
+        lookup("00-" + TRACE_ID + "-" + PARENT_ID + "-01").andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/traces"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].traceId").value(TRACE_ID))
+                .andExpect(jsonPath("$[0].reason").value("sampled"));
+        mockMvc.perform(get("/actuator/traces/{traceId}", TRACE_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].traceId").value(TRACE_ID));
+        assertThat(traceStore.size()).isEqualTo(1);
+    }
+
+    private ResultActions lookup(String traceparent) throws Exception {
+        return mockMvc.perform(post("/products/lookup").header("traceparent", traceparent)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[1]}"));
+    }
+}
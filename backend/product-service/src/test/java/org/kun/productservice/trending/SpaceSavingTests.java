@@ -0,0 +1,41 @@
+package org.kun.productservice.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTests {
+
+    @Test
+    void findsHeavyHittersAmongNoise() {
+        SpaceSaving sketch = new SpaceSaving(50);
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // three hot items get a third of the traffic, the rest is spread over 10k items
+            long item = random.nextInt(3) == 0 ? random.nextInt(3) : 100 + random.nextInt(10_000);
+            sketch.offer(item, 1);
+        }
+
+        List<SpaceSaving.Entry> top = sketch.top(3);
+        assertThat(top).extracting(SpaceSaving.Entry::item).containsExactlyInAnyOrder(0L, 1L, 2L);
+        for (SpaceSaving.Entry entry : top) {
+            assertThat(entry.weight() - entry.error()).isBetween(10_000.0, entry.weight());
+        }
+    }
+
+    @Test
+    void scalingKeepsOrder() {
+        SpaceSaving sketch = new SpaceSaving(4);
+        sketch.offer(1, 30);
+        sketch.offer(2, 20);
+        sketch.offer(3, 10);
+
+        sketch.scale(1e-6);
+        sketch.offer(3, 1);
+
+        assertThat(sketch.top(3)).extracting(SpaceSaving.Entry::item).containsExactly(3L, 1L, 2L);
+    }
+}
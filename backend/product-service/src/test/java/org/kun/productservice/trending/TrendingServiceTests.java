@@ -0,0 +1,163 @@
+package org.kun.productservice.trending;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kun.productservice.entity.Product;
+import org.kun.productservice.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TrendingServiceTests {
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM product_views");
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentViewsAreCountedExactly() throws InterruptedException {
+        Product hot = save("T-1", 7L);
+        Product cold = save("T-2", 7L);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    trendingService.recordView(hot.getId());
+                    if (i % 10 == 0) {
+                        trendingService.recordView(cold.getId());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        // flushing while views are recorded, as the scheduler would
+        while (!pool.awaitTermination(50, TimeUnit.MILLISECONDS)) {
+            trendingService.flush();
+        }
+        trendingService.flush();
+        trendingService.flush();
+
+        assertThat(views()).containsEntry(hot.getId(), 40_000L).containsEntry(cold.getId(), 4_000L);
+        List<TrendingEntry> trending = trendingService.trending(7L, 10);
+        assertThat(trending).extracting(TrendingEntry::productId).startsWith(hot.getId(), cold.getId());
+        assertThat(trendingService.trending(null, 10)).extracting(TrendingEntry::productId)
+                .contains(hot.getId(), cold.getId());
+    }
+
+    @Test
+    void endpointRanksViewedProducts() throws Exception {
+        Product first = save("T-3", 8L);
+        Product second = save("T-4", null);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/products/{id}", second.getId())).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/products/{id}", first.getId())).andExpect(status().isOk());
+        trendingService.flush();
+        trendingService.flush();
+
+        mockMvc.perform(get("/products/trending").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(second.getId()))
+                .andExpect(jsonPath("$[1].id").value(first.getId()));
+        mockMvc.perform(get("/products/trending").param("category", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].sku").value("T-3"));
+        assertThat(views()).containsEntry(second.getId(), 3L).containsEntry(first.getId(), 1L);
+    }
+
+    @Test
+    void countsThatCouldNotBeSavedAreRankedOnceAndBounded() {
+        Product hot = save("T-5", 9L);
+        Product other = save("T-6", 9L);
+        AtomicBoolean failing = new AtomicBoolean(true);
+        JdbcTemplate flaky = new JdbcTemplate(dataSource) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (failing.get()) {
+                    throw new DataAccessResourceFailureException("product_views is unavailable");
+                }
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        TrendingProperties properties = new TrendingProperties();
+        properties.setMaxUnsaved(1);
+        TrendingService service = new TrendingService(flaky, transactionManager, properties);
+        for (int i = 0; i < 5; i++) {
+            service.recordView(hot.getId());
+            service.recordView(other.getId());
+        }
+
+        // the first flush retires the views, the second drains them and fails to save, the third retries
+        service.flush();
+        service.flush();
+        service.flush();
+        failing.set(false);
+        service.flush();
+
+        assertThat(service.trending(9L, 10)).hasSize(2)
+                .allSatisfy(entry -> assertThat(entry.score()).isCloseTo(5, within(0.01)));
+        // one product's counts were kept for the retry, the other's dropped
+        assertThat(views()).hasSize(1).containsValue(5L);
+    }
+
+    private Map<Long, Long> views() {
+        Map<Long, Long> views = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, views FROM product_views",
+                (RowCallbackHandler) rs -> views.put(rs.getLong(1), rs.getLong(2)));
+        return views;
+    }
+
+    private Product save(String sku, Long categoryId) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Item " + sku);
+        product.setCategoryId(categoryId);
+        product.setPrice(BigDecimal.TEN);
+        return productRepository.save(product);
+    }
+}
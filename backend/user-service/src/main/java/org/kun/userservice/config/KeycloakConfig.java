@@ -1,8 +1,10 @@
 package org.kun.userservice.config;
 
+import jakarta.ws.rs.client.Client;
 import org.keycloak.OAuth2Constants;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
+import org.kun.userservice.tracing.KeycloakTracingFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,8 +25,11 @@ public class KeycloakConfig {
     private String clientSecret;
 
     @Bean
-    public Keycloak keycloak() {
+    public Keycloak keycloak(KeycloakTracingFilter tracingFilter) {
+        // the admin client's default RESTEasy client, plus spans and traceparent for its calls
+        Client client = Keycloak.getClientProvider().newRestEasyClient(null, null, false);
         return KeycloakBuilder.builder()
+                .resteasyClient(client.register(tracingFilter))
                 .serverUrl(authServerUrl)
                 .realm(realm)
                 .grantType(OAuth2Constants.CLIENT_CREDENTIALS)
@@ -3,14 +3,12 @@ package org.kun.userservice.security;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestClient;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 🔧 KEYCLOAK TOKEN SERVICE
@@ -37,6 +35,13 @@ public class KeycloakTokenService {
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // built from Boot's builder so token calls get a client span and forward traceparent
+    private final RestClient restClient;
+    
+    public KeycloakTokenService(RestClient.Builder restClientBuilder) {
+        this.restClient = restClientBuilder.build();
+    }
+    
     /**
      * Exchange authorization code for tokens
      */
@@ -81,31 +86,20 @@ public class KeycloakTokenService {
      * Make HTTP request to Keycloak token endpoint
      */
     private TokenResponse makeTokenRequest(String tokenUrl, String formData) throws Exception {
-        HttpURLConnection connection = (HttpURLConnection) new URL(tokenUrl).openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-        connection.setDoOutput(true);
-        
-        try (OutputStream os = connection.getOutputStream()) {
-            os.write(formData.getBytes());
-        }
-        
-        // Parse response
-        if (connection.getResponseCode() == 200) {
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream()))) {
-                String response = br.lines().collect(Collectors.joining());
-                return parseTokenResponse(response);
-            }
-        } else {
-            // Read error response
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getErrorStream()))) {
-                String errorResponse = br.lines().collect(Collectors.joining());
-                throw new Exception("Token request failed: " + connection.getResponseCode() + 
-                                  " - " + errorResponse);
-            }
-        }
+        String response = restClient.post()
+                .uri(tokenUrl)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(formData)
+                .exchange((request, clientResponse) -> {
+                    String body = StreamUtils.copyToString(clientResponse.getBody(), StandardCharsets.UTF_8);
+                    if (clientResponse.getStatusCode().value() != 200) {
+                        // Read error response
+                        throw new IllegalStateException("Token request failed: "
+                                + clientResponse.getStatusCode().value() + " - " + body);
+                    }
+                    return body;
+                });
+        return parseTokenResponse(response);
     }
     
     /**
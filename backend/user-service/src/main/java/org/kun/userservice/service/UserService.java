@@ -9,6 +9,7 @@ import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.kun.userservice.dto.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -40,9 +41,9 @@ public class UserService {
     // Store for password reset tokens (in production, use Redis or database)
     private final Map<String, PasswordResetToken> resetTokens = new HashMap<>();
 
-    public UserService(Keycloak keycloak) {
+    public UserService(Keycloak keycloak, RestTemplateBuilder restTemplateBuilder) {
         this.keycloak = keycloak;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplateBuilder.build();
     }
 
     // Inner class for password reset token
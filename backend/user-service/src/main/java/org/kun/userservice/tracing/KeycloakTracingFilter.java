@@ -0,0 +1,57 @@
+package org.kun.userservice.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+
+/**
+ * Client spans for the Keycloak admin client, which calls Keycloak through its own
+ * RESTEasy client rather than a Spring one, and the {@code traceparent} header that
+ * links Keycloak's side to them. A call that fails before any response arrives never
+ * reaches the response filter; its span stays unfinished and is not reported.
+ */
+public class KeycloakTracingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    private static final String SPAN = KeycloakTracingFilter.class.getName() + ".span";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public KeycloakTracingFilter(Tracer tracer, Propagator propagator) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    @Override
+    public void filter(ClientRequestContext request) {
+        Span.Builder builder = tracer.spanBuilder();
+        Span parent = tracer.currentSpan();
+        if (parent != null) {
+            builder.setParent(parent.context());
+        }
+        Span span = builder
+                .name("keycloak " + request.getMethod())
+                .kind(Span.Kind.CLIENT)
+                .remoteServiceName("keycloak")
+                .tag("http.url", request.getUri().getPath())
+                .start();
+        propagator.inject(span.context(), request, (carrier, key, value) -> carrier.getHeaders().putSingle(key, value));
+        request.setProperty(SPAN, span);
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) {
+        if (!(request.getProperty(SPAN) instanceof Span span)) {
+            return;
+        }
+        span.tag("status", String.valueOf(response.getStatus()));
+        if (response.getStatus() >= 500) {
+            span.tag("outcome", "SERVER_ERROR");
+        }
+        span.end();
+    }
+}
@@ -0,0 +1,51 @@
+package org.kun.userservice.tracing;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import net.ttddyy.observation.tracing.DataSourceBaseContext;
+import org.kun.common.tracing.TailSamplingConfig;
+import org.kun.common.tracing.TracingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Spans for controllers (server observations), RestClient/RestTemplate calls and JDBC come
+ * from Boot and datasource-micrometer, and Keycloak admin calls from
+ * {@link KeycloakTracingFilter}; this keeps them in memory with tail sampling.
+ */
+@Configuration
+@Import(TailSamplingConfig.class)
+public class TracingConfig {
+
+    @Bean
+    @ConfigurationProperties("app.tracing")
+    public TracingProperties tracingProperties() {
+        return new TracingProperties();
+    }
+
+    @Bean
+    public KeycloakTracingFilter keycloakTracingFilter(ObjectProvider<Tracer> tracer,
+                                                       ObjectProvider<Propagator> propagator) {
+        return new KeycloakTracingFilter(tracer.getIfAvailable(() -> Tracer.NOOP),
+                propagator.getIfAvailable(() -> Propagator.NOOP));
+    }
+
+    /**
+     * Statements outside any observation (Hibernate's schema update at startup) would
+     * each start a trace of their own.
+     */
+    @Bean
+    public ObservationPredicate jdbcOnlyWithinObservations(ObjectProvider<ObservationRegistry> observationRegistry) {
+        Supplier<ObservationRegistry> registry = SingletonSupplier.of(observationRegistry::getObject);
+        return (name, context) -> !(context instanceof DataSourceBaseContext)
+                || registry.get().getCurrentObservation() != null;
+    }
+}